@@ -5,7 +5,9 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.ServletComponentScan;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import springfox.documentation.oas.annotations.EnableOpenApi;
 
@@ -21,8 +23,9 @@ import springfox.documentation.oas.annotations.EnableOpenApi;
 @EnableTransactionManagement
 @ServletComponentScan
 @EnableOpenApi
+@EnableScheduling
 // 启动缓存
-//@EnableCaching
+@EnableCaching
 public class ShareStudyApplication {
     public static void main(String[] args) {
         SpringApplication.run(ShareStudyApplication.class, args);
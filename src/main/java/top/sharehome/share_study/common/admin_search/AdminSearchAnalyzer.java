@@ -0,0 +1,66 @@
+package top.sharehome.share_study.common.admin_search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.cjk.CJKWidthFilter;
+import org.apache.lucene.analysis.miscellaneous.ConditionalTokenFilter;
+import org.apache.lucene.analysis.ngram.NGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+/**
+ * 管理端索引分词器，中日韩文字按二元组切分，其余文字按单词切分并转为小写
+ * 建索引时同时输出单字，查询时只输出二元组（孤立的单字仍然输出单字），
+ * 这样按短语查询时任意长度的中文关键词都能匹配到包含它的文本，效果与 LIKE '%x%' 一致；
+ * 字母和数字组成的单词建索引时额外输出它的所有子串（与原词位置相同），查询时保持原词，
+ * 这样 "line"、"jav" 也能匹配到 "Linear"、"JavaScript"，超过MAX_GRAM个字符的关键词只能按整词匹配；
+ * 关键词包含多个单词时每个单词分别按子串匹配，比 LIKE 略宽（例如 "line alg" 也能匹配 "Linear Algebra"）
+ *
+ * @author AntonyCheng
+ */
+public class AdminSearchAnalyzer extends Analyzer {
+
+    /**
+     * 分词规则的版本，写入索引的提交信息，分词规则变化后已有的索引需要重建
+     */
+    static final String VERSION = "2";
+
+    /**
+     * 字母和数字单词输出的最长子串长度
+     */
+    static final int MAX_GRAM = 20;
+
+    private static final String ALPHANUM_TYPE = StandardTokenizer.TOKEN_TYPES[StandardTokenizer.ALPHANUM];
+
+    private static final String NUM_TYPE = StandardTokenizer.TOKEN_TYPES[StandardTokenizer.NUM];
+
+    private final boolean outputUnigrams;
+
+    /**
+     * @param outputUnigrams 建索引时为true，查询时为false
+     */
+    public AdminSearchAnalyzer(boolean outputUnigrams) {
+        this.outputUnigrams = outputUnigrams;
+    }
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        StandardTokenizer source = new StandardTokenizer();
+        TokenStream result = new CJKWidthFilter(source);
+        result = new LowerCaseFilter(result);
+        result = new CJKBigramFilter(result, CJKBigramFilter.HAN | CJKBigramFilter.HIRAGANA | CJKBigramFilter.KATAKANA | CJKBigramFilter.HANGUL, outputUnigrams);
+        if (outputUnigrams) {
+            result = new ConditionalTokenFilter(result, in -> new NGramTokenFilter(in, 1, MAX_GRAM, true)) {
+                private final TypeAttribute typeAttribute = addAttribute(TypeAttribute.class);
+
+                @Override
+                protected boolean shouldFilter() {
+                    return ALPHANUM_TYPE.equals(typeAttribute.type()) || NUM_TYPE.equals(typeAttribute.type());
+                }
+            };
+        }
+        return new TokenStreamComponents(source, result);
+    }
+}
@@ -0,0 +1,28 @@
+package top.sharehome.share_study.common.admin_search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 管理端索引查询结果，只包含命中总数和当前页的ID，实体由调用方一次批量查出
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminSearchHits {
+
+    /**
+     * 命中总数
+     */
+    private long total;
+
+    /**
+     * 当前页按排序规则排列的实体ID
+     */
+    private List<Long> ids;
+}
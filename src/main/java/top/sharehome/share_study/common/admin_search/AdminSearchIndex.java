@@ -0,0 +1,528 @@
+package top.sharehome.share_study.common.admin_search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+import top.sharehome.share_study.mapper.CollegeMapper;
+import top.sharehome.share_study.mapper.CommentMapper;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.mapper.TeacherMapper;
+import top.sharehome.share_study.model.entity.College;
+import top.sharehome.share_study.model.entity.Comment;
+import top.sharehome.share_study.model.entity.Teacher;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 管理端嵌入式全文索引
+ * 教师、教学资料、评论交流和高校各自对应磁盘上的一个Lucene索引，管理端的模糊查询变成一次索引查询得到当前页的ID，
+ * 再由调用方一次批量查出实体，不再需要多条 LIKE 查询和内存中的ID过滤；
+ * 写操作只在事务提交后登记发生变化的ID，定时任务按ID从数据库重新读取后更新索引，已经删除的记录从索引中删除，
+ * 批量导入等无法得到ID的写操作登记整个索引重建；
+ * 回表时发现已经不存在的ID（例如级联删除）也会登记，下一次刷新时从索引中删除；
+ * 每个节点各自维护一份索引，开启二级缓存时登记的ID和重建请求通过同一个Redis频道通知其他节点，
+ * 未开启二级缓存时只能单节点部署，否则其他节点的索引看不到本节点的写操作
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+public class AdminSearchIndex {
+    public static final String ID = "id";
+    public static final String ACCOUNT = "account";
+    public static final String NAME = "name";
+    public static final String INFO = "info";
+    public static final String CONTENT = "content";
+    public static final String CODE = "code";
+    public static final String GENDER = "gender";
+    public static final String STATUS = "status";
+    public static final String READ_STATUS = "read_status";
+    public static final String ROLE = "role";
+    public static final String BELONG = "belong";
+    public static final String SEND = "send";
+    public static final String RESOURCE = "resource";
+    public static final String CREATE_TIME = "create_time";
+
+    /**
+     * 重建和回表时每批处理的记录数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 索引提交信息中记录分词规则版本的键
+     */
+    private static final String ANALYZER_VERSION = "analyzer_version";
+
+    /**
+     * 失效通知中的缓存名称
+     */
+    private static final String CACHE_NAME = "adminSearch";
+
+    /**
+     * 失效通知中实体类型与ID之间、多个ID之间的分隔符
+     */
+    private static final String TYPE_SEPARATOR = ":";
+
+    private static final String ID_SEPARATOR = ",";
+
+    @Resource
+    private ObjectProvider<TwoLevelCacheManager> twoLevelCacheManagerProvider;
+
+    @Resource
+    private TeacherMapper teacherMapper;
+
+    @Resource
+    private ResourceMapper resourceMapper;
+
+    @Resource
+    private CommentMapper commentMapper;
+
+    @Resource
+    private CollegeMapper collegeMapper;
+
+    @Value("${share-study.admin-search.enabled:false}")
+    private Boolean enabled;
+
+    @Value("${share-study.admin-search.path:./data/admin-search}")
+    private String path;
+
+    /**
+     * 按名称解析ID时最多取出的ID个数
+     */
+    @Value("${share-study.admin-search.resolve-limit:10000}")
+    private Integer resolveLimit;
+
+    private final Map<AdminSearchType, Index<?>> indexes = new EnumMap<>(AdminSearchType.class);
+
+    private final Map<AdminSearchType, Set<Long>> dirtyIds = new EnumMap<>(AdminSearchType.class);
+
+    private final Set<AdminSearchType> rebuildRequests = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        indexes.put(AdminSearchType.TEACHER, new Index<Teacher>(AdminSearchType.TEACHER, teacherMapper, Teacher::getId, this::toDocument,
+                new Sort(new SortField(ROLE, SortField.Type.LONG, true), new SortField(CREATE_TIME, SortField.Type.LONG), new SortField(ID, SortField.Type.LONG))));
+        indexes.put(AdminSearchType.RESOURCE, new Index<top.sharehome.share_study.model.entity.Resource>(AdminSearchType.RESOURCE, resourceMapper, top.sharehome.share_study.model.entity.Resource::getId, this::toDocument,
+                new Sort(new SortField(CREATE_TIME, SortField.Type.LONG), new SortField(ID, SortField.Type.LONG))));
+        indexes.put(AdminSearchType.COMMENT, new Index<Comment>(AdminSearchType.COMMENT, commentMapper, Comment::getId, this::toDocument,
+                new Sort(new SortField(CREATE_TIME, SortField.Type.LONG), new SortField(ID, SortField.Type.LONG))));
+        indexes.put(AdminSearchType.COLLEGE, new Index<College>(AdminSearchType.COLLEGE, collegeMapper, College::getId, this::toDocument,
+                new Sort(new SortField(CREATE_TIME, SortField.Type.LONG), new SortField(ID, SortField.Type.LONG))));
+        for (Map.Entry<AdminSearchType, Index<?>> entry : indexes.entrySet()) {
+            dirtyIds.put(entry.getKey(), ConcurrentHashMap.newKeySet());
+            // 首次启动时索引为空，或者索引由旧的分词规则建立，交给定时任务重建，不阻塞启动
+            if (entry.getValue().writer.getDocStats().numDocs == 0 || !entry.getValue().isAnalyzerCurrent()) {
+                rebuildRequests.add(entry.getKey());
+            }
+        }
+        twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.addKeyInvalidationListener(CACHE_NAME, this::applyRemote));
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Index<?> index : indexes.values()) {
+            try {
+                index.searcherManager.close();
+                index.writer.close();
+            } catch (IOException e) {
+                log.warn("Class:{},Description:{}", e.getClass(), "关闭管理端索引失败");
+            }
+        }
+    }
+
+    /**
+     * 是否开启管理端索引，未开启时管理端分页仍然直接查询数据库
+     *
+     * @return 是否开启
+     */
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * 登记发生变化的记录，在事务中调用时随事务一起提交
+     *
+     * @param type 实体类型
+     * @param ids  记录ID
+     */
+    public void markDirty(AdminSearchType type, Collection<Long> ids) {
+        if (!isEnabled() || ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<Long> copy = new ArrayList<>(ids);
+        TransactionUtils.afterCommit(() -> {
+            copy.removeIf(Objects::isNull);
+            if (copy.isEmpty()) {
+                return;
+            }
+            dirtyIds.get(type).addAll(copy);
+            publish(type.name() + TYPE_SEPARATOR + copy.stream().map(String::valueOf).collect(Collectors.joining(ID_SEPARATOR)));
+        });
+    }
+
+    /**
+     * 登记发生变化的记录，在事务中调用时随事务一起提交
+     *
+     * @param type 实体类型
+     * @param id   记录ID
+     */
+    public void markDirty(AdminSearchType type, Long id) {
+        markDirty(type, Collections.singletonList(id));
+    }
+
+    /**
+     * 登记整个索引重建，用于批量导入等拿不到ID的写操作
+     *
+     * @param type 实体类型
+     */
+    public void markRebuild(AdminSearchType type) {
+        if (!isEnabled()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            rebuildRequests.add(type);
+            publish(type.name());
+        });
+    }
+
+    /**
+     * 通知其他节点登记同样的变化
+     *
+     * @param key 实体类型和以逗号分隔的ID，只有实体类型时表示重建整个索引
+     */
+    private void publish(String key) {
+        twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.publishInvalidation(CACHE_NAME, key));
+    }
+
+    /**
+     * 收到其他节点的通知后在本节点登记，由本节点的定时任务回表更新索引
+     *
+     * @param key 实体类型和以逗号分隔的ID，只有实体类型时表示重建整个索引，为null时重建所有索引
+     */
+    private void applyRemote(String key) {
+        if (key == null) {
+            rebuildRequests.addAll(indexes.keySet());
+            return;
+        }
+        int separator = key.indexOf(TYPE_SEPARATOR);
+        if (separator < 0) {
+            rebuildRequests.add(AdminSearchType.valueOf(key));
+            return;
+        }
+        AdminSearchType type = AdminSearchType.valueOf(key.substring(0, separator));
+        Arrays.stream(key.substring(separator + 1).split(ID_SEPARATOR))
+                .map(Long::valueOf)
+                .forEach(dirtyIds.get(type)::add);
+    }
+
+    /**
+     * 定时把登记的变化写入索引并刷新可见性
+     */
+    @Scheduled(fixedDelayString = "${share-study.admin-search.flush-interval:1000}")
+    public synchronized void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (Map.Entry<AdminSearchType, Index<?>> entry : indexes.entrySet()) {
+            AdminSearchType type = entry.getKey();
+            Index<?> index = entry.getValue();
+            try {
+                if (rebuildRequests.remove(type)) {
+                    // 重建会覆盖此前登记的所有变化
+                    dirtyIds.get(type).clear();
+                    index.rebuild();
+                    log.info("管理端索引{}重建完成，共{}条", type.getDirectory(), index.writer.getDocStats().numDocs);
+                    continue;
+                }
+                Set<Long> dirty = dirtyIds.get(type);
+                if (dirty.isEmpty()) {
+                    continue;
+                }
+                List<Long> ids = new ArrayList<>(dirty);
+                dirty.removeAll(ids);
+                index.update(ids);
+            } catch (IOException | RuntimeException e) {
+                // 失败时重建该索引，保证索引最终和数据库一致
+                rebuildRequests.add(type);
+                log.warn("Class:{},Description:{}", e.getClass(), "管理端索引" + type.getDirectory() + "更新失败，已登记重建");
+            }
+        }
+    }
+
+    /**
+     * 按排序规则分页查询，教师按角色倒序、创建时间升序，其余实体按创建时间升序
+     *
+     * @param type     实体类型
+     * @param query    查询条件
+     * @param current  当前页
+     * @param pageSize 页面条数
+     * @return 命中总数和当前页的ID
+     */
+    public AdminSearchHits search(AdminSearchType type, Query query, int current, int pageSize) {
+        Index<?> index = indexes.get(type);
+        try {
+            IndexSearcher searcher = index.searcherManager.acquire();
+            try {
+                int start = (int) Math.min((long) (current - 1) * pageSize, Integer.MAX_VALUE);
+                int numHits = (int) Math.max(1, Math.min((long) current * pageSize, Math.max(1, searcher.getIndexReader().maxDoc())));
+                TopFieldCollector collector = TopFieldCollector.create(index.sort, numHits, Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs(start, pageSize);
+                return new AdminSearchHits(topDocs.totalHits.value, readIds(searcher, topDocs.scoreDocs));
+            } finally {
+                index.searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 查询满足条件的ID，用于把名称条件解析为ID条件，最多返回resolve-limit个，
+     * 命中超过resolve-limit个时截断后的ID会漏掉数据，直接拒绝查询，要求输入更精确的关键词
+     *
+     * @param type  实体类型
+     * @param query 查询条件
+     * @return 命中的ID
+     */
+    public List<Long> searchIds(AdminSearchType type, Query query) {
+        Index<?> index = indexes.get(type);
+        try {
+            IndexSearcher searcher = index.searcherManager.acquire();
+            try {
+                // 多取一个用于判断是否超出上限
+                TopDocs topDocs = searcher.search(query, resolveLimit + 1);
+                if (topDocs.scoreDocs.length > resolveLimit) {
+                    log.warn("AdminSearchIndex:{},Description:{}", type, "按名称解析ID时命中超过" + resolveLimit + "条，查询被拒绝：" + query);
+                    throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "关键词匹配的数据超过" + resolveLimit + "条，请输入更精确的关键词");
+                }
+                return readIds(searcher, topDocs.scoreDocs);
+            } finally {
+                index.searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 按ID一次批量查出实体并保持索引中的顺序，数据库中已经不存在的ID登记为变化，下一次刷新时从索引中删除
+     *
+     * @param type 实体类型
+     * @param ids  索引返回的ID
+     * @param <T>  实体类型
+     * @return 实体列表
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> hydrate(AdminSearchType type, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Index<T> index = (Index<T>) indexes.get(type);
+        Map<Long, T> rows = index.mapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(index.idColumn, Function.identity()));
+        List<Long> missing = new ArrayList<>();
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = rows.get(id);
+            if (row == null) {
+                missing.add(id);
+            } else {
+                result.add(row);
+            }
+        }
+        if (!missing.isEmpty()) {
+            dirtyIds.get(type).addAll(missing);
+        }
+        return result;
+    }
+
+    private List<Long> readIds(IndexSearcher searcher, ScoreDoc[] scoreDocs) throws IOException {
+        List<Long> ids = new ArrayList<>(scoreDocs.length);
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            ids.add(Long.valueOf(searcher.doc(scoreDoc.doc, Collections.singleton(ID)).get(ID)));
+        }
+        return ids;
+    }
+
+    private Document toDocument(Teacher teacher) {
+        Document document = baseDocument(teacher.getId(), teacher.getCreateTime());
+        addKeyword(document, ACCOUNT, teacher.getAccount());
+        addText(document, NAME, teacher.getName());
+        addNumber(document, GENDER, teacher.getGender());
+        addNumber(document, STATUS, teacher.getStatus());
+        addNumber(document, ROLE, teacher.getRole());
+        document.add(new NumericDocValuesField(ROLE, teacher.getRole() == null ? 0 : teacher.getRole()));
+        addNumber(document, BELONG, teacher.getBelong());
+        return document;
+    }
+
+    private Document toDocument(top.sharehome.share_study.model.entity.Resource resource) {
+        Document document = baseDocument(resource.getId(), resource.getCreateTime());
+        addText(document, NAME, resource.getName());
+        addText(document, INFO, resource.getInfo());
+        addNumber(document, STATUS, resource.getStatus());
+        addNumber(document, BELONG, resource.getBelong());
+        return document;
+    }
+
+    private Document toDocument(Comment comment) {
+        Document document = baseDocument(comment.getId(), comment.getCreateTime());
+        addText(document, CONTENT, comment.getContent());
+        addNumber(document, READ_STATUS, comment.getReadStatus());
+        addNumber(document, STATUS, comment.getStatus());
+        addNumber(document, BELONG, comment.getBelong());
+        addNumber(document, SEND, comment.getSend());
+        addNumber(document, RESOURCE, comment.getResource());
+        return document;
+    }
+
+    private Document toDocument(College college) {
+        Document document = baseDocument(college.getId(), college.getCreateTime());
+        addText(document, NAME, college.getName());
+        addKeyword(document, CODE, college.getCode());
+        return document;
+    }
+
+    private Document baseDocument(Long id, LocalDateTime createTime) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID, id));
+        document.add(new NumericDocValuesField(CREATE_TIME, createTime == null ? 0 : Timestamp.valueOf(createTime).getTime()));
+        return document;
+    }
+
+    private void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private void addKeyword(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new StringField(field, value.toLowerCase(Locale.ROOT), Field.Store.NO));
+        }
+    }
+
+    private void addNumber(Document document, String field, Number value) {
+        if (value != null) {
+            document.add(new LongPoint(field, value.longValue()));
+        }
+    }
+
+    /**
+     * 单个实体的索引，包括写入器、近实时查询用的SearcherManager以及从数据库读取记录的方式
+     *
+     * @param <T> 实体类型
+     */
+    private class Index<T> {
+        private final BaseMapper<T> mapper;
+        private final SFunction<T, Long> idColumn;
+        private final Function<T, Document> documentMapper;
+        private final Sort sort;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+
+        private Index(AdminSearchType type, BaseMapper<T> mapper, SFunction<T, Long> idColumn, Function<T, Document> documentMapper, Sort sort) throws IOException {
+            this.mapper = mapper;
+            this.idColumn = idColumn;
+            this.documentMapper = documentMapper;
+            this.sort = sort;
+            IndexWriterConfig config = new IndexWriterConfig(new AdminSearchAnalyzer(true))
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            this.writer = new IndexWriter(FSDirectory.open(Paths.get(path, type.getDirectory())), config);
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+
+        /**
+         * 按ID从数据库重新读取，存在的记录覆盖写入，不存在（包括逻辑删除）的记录从索引中删除
+         */
+        private void update(List<Long> ids) throws IOException {
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+                Map<Long, T> rows = mapper.selectBatchIds(batch).stream()
+                        .collect(Collectors.toMap(idColumn, Function.identity()));
+                for (Long id : batch) {
+                    T row = rows.get(id);
+                    if (row == null) {
+                        writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+                    } else {
+                        writer.updateDocument(new Term(ID, String.valueOf(id)), documentMapper.apply(row));
+                    }
+                }
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+        }
+
+        /**
+         * 索引是否由当前的分词规则建立
+         */
+        private boolean isAnalyzerCurrent() {
+            Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+            if (commitData == null) {
+                return false;
+            }
+            for (Map.Entry<String, String> entry : commitData) {
+                if (ANALYZER_VERSION.equals(entry.getKey())) {
+                    return AdminSearchAnalyzer.VERSION.equals(entry.getValue());
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 清空索引后按主键顺序分批读取全表重新写入
+         */
+        private void rebuild() throws IOException {
+            writer.deleteAll();
+            long lastId = Long.MIN_VALUE;
+            while (true) {
+                LambdaQueryWrapper<T> lambdaQueryWrapper = new LambdaQueryWrapper<>();
+                lambdaQueryWrapper
+                        .gt(idColumn, lastId)
+                        .orderByAsc(idColumn)
+                        .last("limit " + BATCH_SIZE);
+                List<T> rows = mapper.selectList(lambdaQueryWrapper);
+                for (T row : rows) {
+                    writer.addDocument(documentMapper.apply(row));
+                }
+                if (rows.size() < BATCH_SIZE) {
+                    break;
+                }
+                lastId = idColumn.apply(rows.get(rows.size() - 1));
+            }
+            writer.setLiveCommitData(Collections.singletonMap(ANALYZER_VERSION, AdminSearchAnalyzer.VERSION).entrySet());
+            writer.commit();
+            searcherManager.maybeRefresh();
+        }
+    }
+}
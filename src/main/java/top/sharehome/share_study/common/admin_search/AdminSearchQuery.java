@@ -0,0 +1,102 @@
+package top.sharehome.share_study.common.admin_search;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.util.QueryBuilder;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * 管理端索引查询条件构造器，用法与MyBatis-Plus的条件构造器一致，condition为false时忽略该条件，各条件之间为且的关系
+ *
+ * @author AntonyCheng
+ */
+public class AdminSearchQuery {
+    private static final QueryBuilder QUERY_BUILDER = new QueryBuilder(new AdminSearchAnalyzer(false));
+
+    private final BooleanQuery.Builder builder = new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+
+    /**
+     * 分词字段包含关键词，中文和字母数字单词都按任意子串匹配（规则见AdminSearchAnalyzer），关键词中没有可检索的字符时不匹配任何文档
+     *
+     * @param condition 是否添加该条件
+     * @param field     字段名
+     * @param keyword   关键词
+     * @return 构造器本身
+     */
+    public AdminSearchQuery contains(boolean condition, String field, String keyword) {
+        if (condition) {
+            Query query = QUERY_BUILDER.createPhraseQuery(field, keyword);
+            filter(query == null ? new MatchNoDocsQuery() : query);
+        }
+        return this;
+    }
+
+    /**
+     * 不分词字段包含关键词，用于账号、高校代码这类需要按任意子串匹配的短字段
+     *
+     * @param condition 是否添加该条件
+     * @param field     字段名
+     * @param keyword   关键词
+     * @return 构造器本身
+     */
+    public AdminSearchQuery substring(boolean condition, String field, String keyword) {
+        if (condition) {
+            StringBuilder pattern = new StringBuilder("*");
+            for (char c : keyword.toLowerCase(Locale.ROOT).toCharArray()) {
+                if (c == WildcardQuery.WILDCARD_STRING || c == WildcardQuery.WILDCARD_CHAR || c == WildcardQuery.WILDCARD_ESCAPE) {
+                    pattern.append(WildcardQuery.WILDCARD_ESCAPE);
+                }
+                pattern.append(c);
+            }
+            filter(new WildcardQuery(new Term(field, pattern.append('*').toString())));
+        }
+        return this;
+    }
+
+    /**
+     * 数值字段等于给定值
+     *
+     * @param condition 是否添加该条件
+     * @param field     字段名
+     * @param value     值
+     * @return 构造器本身
+     */
+    public AdminSearchQuery eq(boolean condition, String field, Number value) {
+        if (condition) {
+            filter(LongPoint.newExactQuery(field, value.longValue()));
+        }
+        return this;
+    }
+
+    /**
+     * 数值字段等于给定值中的任意一个，用于按名称解析出的ID过滤，值集合为空时不匹配任何文档
+     *
+     * @param condition 是否添加该条件
+     * @param field     字段名
+     * @param values    值集合
+     * @return 构造器本身
+     */
+    public AdminSearchQuery in(boolean condition, String field, Collection<Long> values) {
+        if (condition) {
+            filter(LongPoint.newSetQuery(field, values));
+        }
+        return this;
+    }
+
+    /**
+     * 构造查询条件
+     *
+     * @return 查询条件
+     */
+    public Query build() {
+        return builder.build();
+    }
+
+    private void filter(Query query) {
+        builder.add(query, BooleanClause.Occur.FILTER);
+    }
+}
@@ -0,0 +1,38 @@
+package top.sharehome.share_study.common.admin_search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 管理端全文索引的实体类型，每种实体对应一个独立的索引目录
+ *
+ * @author AntonyCheng
+ */
+@Getter
+@AllArgsConstructor
+public enum AdminSearchType {
+    /**
+     * 教师（包括管理员）
+     */
+    TEACHER("teacher"),
+
+    /**
+     * 教学资料
+     */
+    RESOURCE("resource"),
+
+    /**
+     * 评论交流
+     */
+    COMMENT("comment"),
+
+    /**
+     * 高校
+     */
+    COLLEGE("college");
+
+    /**
+     * 索引目录名
+     */
+    private final String directory;
+}
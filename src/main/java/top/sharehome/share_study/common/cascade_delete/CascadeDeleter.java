@@ -0,0 +1,198 @@
+package top.sharehome.share_study.common.cascade_delete;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.sharehome.share_study.common.admin_search.AdminSearchIndex;
+import top.sharehome.share_study.common.admin_search.AdminSearchType;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.login_token.TokenRevocationList;
+import top.sharehome.share_study.common.oss_outbox.OssDeletionOutbox;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.mapper.*;
+import top.sharehome.share_study.model.entity.Collect;
+import top.sharehome.share_study.model.entity.Comment;
+import top.sharehome.share_study.model.entity.Resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 级联删除器
+ * 教师、教学资料和高校的删除及其级联（教学资料、评论、收藏、对象存储文件、缓存和索引）都按集合执行，
+ * 每张表一条 UPDATE ... WHERE id IN (...)，不再逐个ID查询和更新；权限和存在性校验由调用方一次批量读取完成后再调用这里
+ * 待删除ID按chunk-size分块，每块在独立的事务中执行，大批量删除时每个事务持有行锁的时间有上限，
+ * 调用方已经处于事务中时各块加入该事务，ID数量不超过一块时与原来一样是一个完整的事务
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class CascadeDeleter {
+    @javax.annotation.Resource
+    private TeacherMapper teacherMapper;
+
+    @javax.annotation.Resource
+    private ResourceMapper resourceMapper;
+
+    @javax.annotation.Resource
+    private CommentMapper commentMapper;
+
+    @javax.annotation.Resource
+    private CollectMapper collectMapper;
+
+    @javax.annotation.Resource
+    private CollegeMapper collegeMapper;
+
+    @javax.annotation.Resource
+    private TransactionTemplate transactionTemplate;
+
+    @javax.annotation.Resource
+    private TeacherCardCache teacherCardCache;
+
+    @javax.annotation.Resource
+    private CollegeDictionary collegeDictionary;
+
+    @javax.annotation.Resource
+    private ContentVersionTracker contentVersionTracker;
+
+    @javax.annotation.Resource
+    private AdminSearchIndex adminSearchIndex;
+
+    @javax.annotation.Resource
+    private TokenRevocationList tokenRevocationList;
+
+    @javax.annotation.Resource
+    private OssDeletionOutbox ossDeletionOutbox;
+
+    /**
+     * 每个事务最多删除的ID数量，同时也是IN列表的长度上限
+     */
+    @Value("${share-study.cascade-delete.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 删除教师，级联删除其教学资料、收到的评论、教学资料的收藏和文件，并吊销其登录令牌
+     *
+     * @param ids 已经校验过的教师ID
+     */
+    public void deleteTeachers(Collection<Long> ids) {
+        inChunks(ids, this::deleteTeacherChunk);
+    }
+
+    /**
+     * 删除教学资料，级联删除其评论、收藏和文件
+     *
+     * @param ids 已经校验过的教学资料ID
+     */
+    public void deleteResources(Collection<Long> ids) {
+        inChunks(ids, this::deleteResourceChunk);
+    }
+
+    /**
+     * 删除高校，高校下是否还绑定着用户由调用方校验
+     *
+     * @param ids 已经校验过的高校ID
+     */
+    public void deleteColleges(Collection<Long> ids) {
+        inChunks(ids, this::deleteCollegeChunk);
+    }
+
+    private void deleteTeacherChunk(List<Long> ids) {
+        teacherMapper.renameDeletedAccount(ids, "+" + System.currentTimeMillis());
+
+        LambdaQueryWrapper<Resource> resourceLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        resourceLambdaQueryWrapper
+                .select(Resource::getId, Resource::getUrl)
+                .in(Resource::getBelong, ids);
+        List<Resource> resourceList = resourceMapper.selectList(resourceLambdaQueryWrapper);
+        List<Long> resourceIds = resourceList.stream().map(Resource::getId).collect(Collectors.toList());
+
+        LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        commentLambdaQueryWrapper.in(Comment::getBelong, ids);
+        commentMapper.delete(commentLambdaQueryWrapper);
+
+        // 一个教师可能有很多教学资料，收藏和教学资料按同样的块大小分批，保证IN列表长度有上限
+        partition(resourceIds).forEach(chunk -> {
+            LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
+            collectLambdaQueryWrapper.in(Collect::getResource, chunk);
+            collectMapper.delete(collectLambdaQueryWrapper);
+            resourceMapper.deleteBatchIds(chunk);
+        });
+
+        int deleteResult = teacherMapper.deleteBatchIds(ids);
+        if (deleteResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教师数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+
+        teacherCardCache.invalidateAll(ids);
+        tokenRevocationList.revokeAll(ids);
+        adminSearchIndex.markDirty(AdminSearchType.TEACHER, ids);
+        // 级联删除的评论不逐条登记，回表时发现已删除会自动从索引中移除
+        adminSearchIndex.markDirty(AdminSearchType.RESOURCE, resourceIds);
+        ossDeletionOutbox.enqueue(resourceList.stream().map(Resource::getUrl).collect(Collectors.toList()));
+        if (!resourceIds.isEmpty()) {
+            contentVersionTracker.touchAll();
+        }
+    }
+
+    private void deleteResourceChunk(List<Long> ids) {
+        LambdaQueryWrapper<Resource> resourceLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        resourceLambdaQueryWrapper
+                .select(Resource::getId, Resource::getUrl)
+                .in(Resource::getId, ids);
+        List<String> urls = resourceMapper.selectList(resourceLambdaQueryWrapper).stream()
+                .map(Resource::getUrl)
+                .collect(Collectors.toList());
+
+        LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        commentLambdaQueryWrapper.in(Comment::getResource, ids);
+        commentMapper.delete(commentLambdaQueryWrapper);
+
+        LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        collectLambdaQueryWrapper.in(Collect::getResource, ids);
+        collectMapper.delete(collectLambdaQueryWrapper);
+
+        int deleteResult = resourceMapper.deleteBatchIds(ids);
+        if (deleteResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教学资料数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+
+        ossDeletionOutbox.enqueue(urls);
+        ids.forEach(contentVersionTracker::touch);
+        adminSearchIndex.markDirty(AdminSearchType.RESOURCE, ids);
+    }
+
+    private void deleteCollegeChunk(List<Long> ids) {
+        collegeMapper.renameDeleted(ids, "+" + System.currentTimeMillis());
+
+        int deleteResult = collegeMapper.deleteBatchIds(ids);
+        if (deleteResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "高校数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+
+        collegeDictionary.invalidate();
+        adminSearchIndex.markDirty(AdminSearchType.COLLEGE, ids);
+    }
+
+    private void inChunks(Collection<Long> ids, Consumer<List<Long>> chunkDeleter) {
+        partition(ids).forEach(chunk -> transactionTemplate.executeWithoutResult(status -> chunkDeleter.accept(chunk)));
+    }
+
+    private List<List<Long>> partition(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            chunks.add(distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size())));
+        }
+        return chunks;
+    }
+}
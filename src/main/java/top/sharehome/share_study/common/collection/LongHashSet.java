@@ -0,0 +1,131 @@
+package top.sharehome.share_study.common.collection;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 基于开放寻址的long原始类型哈希集合，避免HashSet<Long>带来的装箱和链表节点开销
+ * 只支持添加和查询，用于在一次请求内对大量ID做O(1)的包含判断
+ *
+ * @author AntonyCheng
+ */
+public class LongHashSet {
+    /**
+     * 空槽位标记，0不会作为雪花算法生成的主键出现，单独用一个布尔值记录是否包含0
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * 最大装载因子
+     */
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+
+    private int mask;
+
+    private int size;
+
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 使用集合中的元素构建LongHashSet
+     *
+     * @param values 元素集合，null元素会被忽略
+     * @return LongHashSet
+     */
+    public static LongHashSet of(Collection<Long> values) {
+        LongHashSet set = new LongHashSet(values.size());
+        values.forEach(value -> {
+            if (value != null) {
+                set.add(value);
+            }
+        });
+        return set;
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param value 元素
+     * @return 集合中原本不存在该元素时返回true
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int index = indexOf(value);
+        if (table[index] == value) {
+            return false;
+        }
+        table[index] = value;
+        if (++size > table.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否包含元素
+     *
+     * @param value 元素
+     * @return 包含时返回true
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        return table[indexOf(value)] == value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 线性探测查找元素所在槽位，找不到时返回第一个空槽位
+     */
+    private int indexOf(long value) {
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash() {
+        long[] oldTable = table;
+        table = new long[oldTable.length << 1];
+        mask = table.length - 1;
+        Arrays.stream(oldTable)
+                .filter(value -> value != EMPTY)
+                .forEach(value -> table[indexOf(value)] = value);
+    }
+
+    /**
+     * 雪花ID的低位变化较少，先打散再取模
+     */
+    private static int mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,196 @@
+package top.sharehome.share_study.common.college_dictionary;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+import top.sharehome.share_study.mapper.CollegeMapper;
+import top.sharehome.share_study.model.dto.CollegeGetDto;
+import top.sharehome.share_study.model.entity.College;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 高校字典
+ * 高校数据量小且很少变动，整表以不可变快照的形式放在内存中，按ID、代码查询以及高校列表回显都不再访问数据库，
+ * 第一次读取时才加载（启动时不依赖数据库），高校增删改提交后作废当前快照，下一次读取时重新加载，
+ * 加载前后比对版本号，加载期间发生过作废时不会把旧数据放回去
+ * 开启二级缓存时作废通过同一个Redis频道通知其他节点，未开启时其他节点的快照在expire-after-write后过期重新加载
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class CollegeDictionary {
+    /**
+     * 失效通知中的缓存名称
+     */
+    private static final String CACHE_NAME = "collegeDictionary";
+
+    @Resource
+    private CollegeMapper collegeMapper;
+
+    @Resource
+    private ObjectProvider<TwoLevelCacheManager> twoLevelCacheManagerProvider;
+
+    @Value("${share-study.college-dictionary.expire-after-write:5m}")
+    private Duration expireAfterWrite;
+
+    /**
+     * 字典版本号，每次作废加1
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.addInvalidationListener(CACHE_NAME, this::invalidateLocal));
+    }
+
+    /**
+     * 按ID获取高校
+     *
+     * @param id 高校ID
+     * @return 高校，不存在时返回null
+     */
+    public College get(Long id) {
+        return id == null ? null : current().byId.get(id);
+    }
+
+    /**
+     * 按ID获取高校名称
+     *
+     * @param id 高校ID
+     * @return 高校名称，不存在时返回null
+     */
+    public String getName(Long id) {
+        College college = get(id);
+        return college == null ? null : college.getName();
+    }
+
+    /**
+     * 按院校代码获取高校
+     *
+     * @param code 院校代码
+     * @return 高校，不存在时返回null
+     */
+    public College getByCode(String code) {
+        return code == null ? null : current().byCode.get(code);
+    }
+
+    /**
+     * 高校名称模糊匹配，等价于 college_name LIKE '%name%'
+     *
+     * @param name 高校名称关键字
+     * @return 匹配的高校ID
+     */
+    public List<Long> searchIdsByName(String name) {
+        return current().byId.values().stream()
+                .filter(college -> StringUtils.contains(college.getName(), name))
+                .map(College::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 高校回显列表，按录入时间排序，返回的列表不可修改
+     *
+     * @return 高校回显列表
+     */
+    public List<CollegeGetDto> list() {
+        return current().list;
+    }
+
+    /**
+     * 当前字典版本号
+     *
+     * @return 版本号
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 作废当前快照并通知其他节点，在事务中调用时等到事务提交后再作废
+     */
+    public void invalidate() {
+        TransactionUtils.afterCommit(() -> {
+            invalidateLocal();
+            twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.publishInvalidation(CACHE_NAME));
+        });
+    }
+
+    /**
+     * 只作废本节点的快照
+     */
+    private void invalidateLocal() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired(expireAfterWrite)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && !current.isExpired(expireAfterWrite)) {
+                return current;
+            }
+            long loadVersion = version.get();
+            Snapshot loaded = load();
+            // 加载期间字典被作废过，本次结果只给当前调用者使用
+            if (loadVersion == version.get()) {
+                // 过期重新加载时发现其他节点修改过高校，同样推进版本号，依赖高校信息的ETag随之失效
+                if (current != null && !current.list.equals(loaded.list)) {
+                    version.incrementAndGet();
+                }
+                snapshot = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    private Snapshot load() {
+        LambdaQueryWrapper<College> collegeLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        collegeLambdaQueryWrapper.orderByAsc(College::getCreateTime);
+        List<College> colleges = collegeMapper.selectList(collegeLambdaQueryWrapper);
+        Map<Long, College> byId = new LinkedHashMap<>(colleges.size() * 2);
+        Map<String, College> byCode = new HashMap<>(colleges.size() * 2);
+        List<CollegeGetDto> list = new ArrayList<>(colleges.size());
+        colleges.forEach(college -> {
+            byId.put(college.getId(), college);
+            byCode.put(college.getCode(), college);
+            list.add(new CollegeGetDto(college.getId(), college.getName(), college.getCode()));
+        });
+        return new Snapshot(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byCode), Collections.unmodifiableList(list));
+    }
+
+    /**
+     * 字典快照，创建后不再修改，读取时无需加锁
+     */
+    private static class Snapshot {
+        private final Map<Long, College> byId;
+        private final Map<String, College> byCode;
+        private final List<CollegeGetDto> list;
+        private final long loadTime = System.currentTimeMillis();
+
+        private Snapshot(Map<Long, College> byId, Map<String, College> byCode, List<CollegeGetDto> list) {
+            this.byId = byId;
+            this.byCode = byCode;
+            this.list = list;
+        }
+
+        private boolean isExpired(Duration expireAfterWrite) {
+            return System.currentTimeMillis() - loadTime >= expireAfterWrite.toMillis();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package top.sharehome.share_study.common.content_version;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
+import top.sharehome.share_study.common.read_routing.ReadWriteRoutingDataSource;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 内容版本追踪器
+ * 帖子分页、帖子详情和高校列表的条件GET：教学资料、评论和收藏的写操作提交后给对应版本号加1，
+ * 请求到来时只用内存中的版本号拼出ETag，与客户端的If-None-Match一致时直接返回304，不访问数据库，
+ * 教师信息和高校信息的变化分别由TeacherCardCache和CollegeDictionary的版本号体现
+ * 开启二级缓存时版本号的变化通过同一个Redis频道通知其他节点，其他节点给自己的版本号同样加1，
+ * 多节点部署需要开启二级缓存，否则在其他节点写入后本节点仍会对旧ETag返回304
+ * ETag中带有节点纪元（启动时随机生成），重启或者请求落到其他节点时旧ETag不会被误判为未修改
+ * 版本号在写事务提交后立即递增，而从库有复制延迟，所以需要返回内容的请求固定从主库读取，避免旧内容配上新ETag被客户端长期缓存
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class ContentVersionTracker {
+    /**
+     * 单条教学资料版本号的分段数，按ID取模落到分段上，内存固定，碰撞只会让少量请求多返回一次200
+     */
+    private static final int STRIPES = 4096;
+
+    /**
+     * 失效通知中的缓存名称
+     */
+    private static final String CACHE_NAME = "contentVersion";
+
+    /**
+     * 通知其他节点帖子列表发生变化的键
+     */
+    private static final String FEED_KEY = "feed";
+
+    /**
+     * 通知其他节点所有帖子都可能发生变化的键
+     */
+    private static final String ALL_KEY = "all";
+
+    @Resource
+    private ObjectProvider<TwoLevelCacheManager> twoLevelCacheManagerProvider;
+
+    @Resource
+    private CollegeDictionary collegeDictionary;
+
+    @Resource
+    private TeacherCardCache teacherCardCache;
+
+    /**
+     * 节点纪元
+     */
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    /**
+     * 全局版本号，影响范围无法确定到单条教学资料的写操作使用
+     */
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    /**
+     * 帖子列表版本号，任意教学资料、评论、收藏变化都会加1
+     */
+    private final AtomicLong feedVersion = new AtomicLong();
+
+    /**
+     * 单条教学资料的分段版本号
+     */
+    private final AtomicLongArray resourceVersions = new AtomicLongArray(STRIPES);
+
+    /**
+     * 最近一次变化的时间，写入Last-Modified响应头，初始为启动时间
+     */
+    private volatile long lastModified = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.addKeyInvalidationListener(CACHE_NAME, this::applyRemote));
+    }
+
+    /**
+     * 单条教学资料（包括它的评论数和收藏数）发生变化，在事务中调用时等到事务提交后再生效
+     *
+     * @param resourceId 教学资料ID
+     */
+    public void touch(Long resourceId) {
+        if (resourceId == null) {
+            touchAll();
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            touchResourceLocal(resourceId);
+            publish(String.valueOf(resourceId));
+        });
+    }
+
+    /**
+     * 帖子列表发生变化（例如新增教学资料），已有帖子的详情不受影响
+     */
+    public void touchFeed() {
+        TransactionUtils.afterCommit(() -> {
+            touchFeedLocal();
+            publish(FEED_KEY);
+        });
+    }
+
+    /**
+     * 所有帖子都可能发生变化
+     */
+    public void touchAll() {
+        TransactionUtils.afterCommit(() -> {
+            touchAllLocal();
+            publish(ALL_KEY);
+        });
+    }
+
+    private void touchResourceLocal(Long resourceId) {
+        resourceVersions.incrementAndGet(stripe(resourceId));
+        feedVersion.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    private void touchFeedLocal() {
+        feedVersion.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    private void touchAllLocal() {
+        globalVersion.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    /**
+     * 通知其他节点版本号发生变化
+     *
+     * @param key 教学资料ID，或者FEED_KEY、ALL_KEY
+     */
+    private void publish(String key) {
+        twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.publishInvalidation(CACHE_NAME, key));
+    }
+
+    /**
+     * 收到其他节点的通知后给本节点对应的版本号加1，不再继续通知
+     *
+     * @param key 教学资料ID，或者FEED_KEY、ALL_KEY，为null时按所有帖子都发生变化处理
+     */
+    private void applyRemote(String key) {
+        if (FEED_KEY.equals(key)) {
+            touchFeedLocal();
+        } else if (key == null || ALL_KEY.equals(key)) {
+            touchAllLocal();
+        } else {
+            touchResourceLocal(Long.valueOf(key));
+        }
+    }
+
+    /**
+     * 帖子分页的ETag，收藏状态因人而异，所以带上当前用户ID
+     *
+     * @param viewerId 当前登录用户ID
+     * @param current  当前页
+     * @param pageSize 页面条数
+     * @param query    模糊查询参数
+     * @return ETag
+     */
+    public String feedETag(Long viewerId, Integer current, Integer pageSize, Object query) {
+        String queryDigest = DigestUtils.md5DigestAsHex(String.valueOf(query).getBytes(StandardCharsets.UTF_8));
+        return "\"" + epoch
+                + "-" + globalVersion.get()
+                + "-" + feedVersion.get()
+                + "-" + teacherCardCache.version()
+                + "-" + collegeDictionary.version()
+                + "-" + viewerId
+                + "-" + current + "-" + pageSize + "-" + queryDigest + "\"";
+    }
+
+    /**
+     * 帖子详情的ETag
+     *
+     * @param viewerId   当前登录用户ID
+     * @param resourceId 教学资料ID
+     * @return ETag
+     */
+    public String infoETag(Long viewerId, Long resourceId) {
+        return "\"" + epoch
+                + "-" + globalVersion.get()
+                + "-" + resourceVersions.get(stripe(resourceId))
+                + "-" + teacherCardCache.version()
+                + "-" + collegeDictionary.version()
+                + "-" + viewerId
+                + "-" + resourceId + "\"";
+    }
+
+    /**
+     * 高校列表的ETag
+     *
+     * @return ETag
+     */
+    public String collegeListETag() {
+        return "\"" + epoch + "-" + collegeDictionary.version() + "\"";
+    }
+
+    /**
+     * 检查客户端缓存是否仍然有效，有效时把响应设置为304，否则在响应头中写入ETag
+     * Last-Modified只精确到秒，同一秒内的两次修改无法区分，所以只写入响应头供参考，是否修改只按ETag判断；
+     * 同时要求客户端每次都回来校验，避免浏览器按Last-Modified启发式缓存而看不到更新；
+     * 缓存失效时接下来要按这个ETag返回内容，当前请求的只读事务改为走主库
+     *
+     * @param request  请求
+     * @param response 响应
+     * @param etag     当前ETag
+     * @return 客户端缓存有效时返回true，调用方应直接返回null
+     */
+    public boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return true;
+        }
+        ReadWriteRoutingDataSource.pinToPrimary();
+        return false;
+    }
+
+    private int stripe(Long resourceId) {
+        return (int) ((resourceId ^ (resourceId >>> 32)) & (STRIPES - 1));
+    }
+}
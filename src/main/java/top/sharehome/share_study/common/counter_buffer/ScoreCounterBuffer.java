@@ -0,0 +1,160 @@
+package top.sharehome.share_study.common.counter_buffer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.mapper.TeacherMapper;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 收藏数和贡献度的写后缓冲
+ * 热门教学资料被大量用户同时收藏时，每次收藏都去更新同一行会在行锁上排队，
+ * 这里先把增量按ID累加在内存中，定时（以及停机前）用 UPDATE ... CASE 批量刷回数据库，
+ * 读取时再把尚未刷回的增量合并到数据库的值上，保证用户能立即看到自己的收藏
+ * 增量从缓冲取出到批量更新提交（或失败放回）之间读到的收藏数会暂时偏小，所以每批教学资料增量处理完后再推进其内容版本号，
+ * 这段时间内按偏小的值生成的响应不会在ETag校验时被当作最新结果
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+public class ScoreCounterBuffer {
+    /**
+     * 每条 UPDATE ... CASE 语句最多包含的ID数量
+     */
+    @Value("${share-study.counter.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Resource
+    private ResourceMapper resourceMapper;
+
+    @Resource
+    private TeacherMapper teacherMapper;
+
+    @Resource
+    private ContentVersionTracker contentVersionTracker;
+
+    /**
+     * 未刷回的教学资料收藏数增量，ConcurrentHashMap按桶加锁，merge和remove对同一个key是原子的，
+     * 所以刷回时取走的增量不会和并发写入的增量互相覆盖
+     */
+    private final ConcurrentHashMap<Long, Long> resourceScoreDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * 未刷回的教师贡献度增量
+     */
+    private final ConcurrentHashMap<Long, Long> teacherScoreDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * 累加教学资料收藏数增量
+     *
+     * @param resourceId 教学资料ID
+     * @param delta      增量
+     */
+    public void addResourceScore(Long resourceId, long delta) {
+        resourceScoreDeltas.merge(resourceId, delta, Long::sum);
+    }
+
+    /**
+     * 累加教师贡献度增量
+     *
+     * @param teacherId 教师ID
+     * @param delta     增量
+     */
+    public void addTeacherScore(Long teacherId, long delta) {
+        teacherScoreDeltas.merge(teacherId, delta, Long::sum);
+    }
+
+    /**
+     * 获取教学资料尚未刷回的收藏数增量
+     *
+     * @param resourceId 教学资料ID
+     * @return 增量
+     */
+    public long pendingResourceScore(Long resourceId) {
+        return resourceScoreDeltas.getOrDefault(resourceId, 0L);
+    }
+
+    /**
+     * 获取教师尚未刷回的贡献度增量
+     *
+     * @param teacherId 教师ID
+     * @return 增量
+     */
+    public long pendingTeacherScore(Long teacherId) {
+        return teacherScoreDeltas.getOrDefault(teacherId, 0L);
+    }
+
+    /**
+     * 定时刷回数据库
+     */
+    @Scheduled(fixedDelayString = "${share-study.counter.write-behind.flush-interval:1000}")
+    public void flush() {
+        flush(resourceScoreDeltas, resourceMapper::batchIncrementScore, "t_resource").forEach(contentVersionTracker::touch);
+        // 教师贡献度不在带ETag的响应中，刷回后无需推进版本号
+        flush(teacherScoreDeltas, teacherMapper::batchIncrementScore, "t_teacher");
+    }
+
+    /**
+     * 停机前把剩余的增量刷回数据库
+     */
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * 取出缓冲中的增量分批刷回数据库
+     *
+     * @param deltas       增量缓冲
+     * @param batchUpdater 批量更新
+     * @param table        表名，用于日志
+     * @return 本次取出过增量的ID，无论刷回成功还是失败放回
+     */
+    private Set<Long> flush(ConcurrentHashMap<Long, Long> deltas, Consumer<Map<Long, Long>> batchUpdater, String table) {
+        Set<Long> drainedIds = new HashSet<>();
+        if (deltas.isEmpty()) {
+            return drainedIds;
+        }
+        List<Map<Long, Long>> batches = new ArrayList<>();
+        Map<Long, Long> batch = new HashMap<>();
+        for (Long id : deltas.keySet()) {
+            Long delta = deltas.remove(id);
+            if (delta == null || delta == 0) {
+                continue;
+            }
+            batch.put(id, delta);
+            drainedIds.add(id);
+            if (batch.size() >= batchSize) {
+                batches.add(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        for (Map<Long, Long> drained : batches) {
+            try {
+                batchUpdater.accept(drained);
+            } catch (Exception e) {
+                // 刷回失败时把增量放回缓冲，等待下一次刷回
+                drained.forEach((id, delta) -> deltas.merge(id, delta, Long::sum));
+                log.warn("ScoreCounterBuffer:{},Description:{} rows of {} failed to flush, will retry", e.getClass(), drained.size(), table);
+            }
+        }
+        return drainedIds;
+    }
+}
@@ -0,0 +1,89 @@
+package top.sharehome.share_study.common.cursor_page;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页的位置，即上一页最后一条记录的(create_time, id)
+ * 对客户端来说游标是不透明的字符串，下一页只需要按照create_time和id继续向后扫描索引，不需要偏移量和总数查询
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCursor {
+
+    /**
+     * 上一页最后一条记录的创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 上一页最后一条记录的ID，创建时间相同时用于确定先后
+     */
+    private Long id;
+
+    /**
+     * 将游标编码为URL安全的字符串
+     *
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = createTime + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标，为空表示从第一页开始
+     *
+     * @param cursor 游标字符串
+     * @return 游标对象，第一页返回null
+     */
+    public static PageCursor decode(String cursor) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(',');
+            if (separator <= 0) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "分页游标格式错误");
+        }
+    }
+
+    /**
+     * 处理多查询一条的结果：截掉多出的一条，并用本页最后一条记录生成下一页游标
+     *
+     * @param rows         按pageSize + 1条查询出的记录，会被就地截断
+     * @param pageSize     页面条数
+     * @param createTimeOf 取记录创建时间的方法
+     * @param idOf         取记录ID的方法
+     * @param <E>          记录类型
+     * @return 下一页游标，没有下一页时返回null
+     */
+    public static <E> String next(List<E> rows, int pageSize, Function<E, LocalDateTime> createTimeOf, Function<E, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return null;
+        }
+        rows.subList(pageSize, rows.size()).clear();
+        E last = rows.get(pageSize - 1);
+        return new PageCursor(createTimeOf.apply(last), idOf.apply(last)).encode();
+    }
+}
@@ -0,0 +1,115 @@
+package top.sharehome.share_study.common.db_metrics;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.stat.DruidDataSourceStatManager;
+import com.alibaba.druid.stat.JdbcDataSourceStat;
+import com.alibaba.druid.stat.JdbcSqlStat;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.sql_budget.SqlBudgetMetrics;
+import top.sharehome.share_study.model.dto.DbMetricsDto;
+import top.sharehome.share_study.model.dto.DbPoolMetricsDto;
+import top.sharehome.share_study.model.dto.DbSqlMetricsDto;
+
+import javax.annotation.Resource;
+import java.util.*;
+
+/**
+ * 数据库指标收集器
+ * 从本进程内所有已初始化的Druid数据源读取连接池状态和StatFilter的SQL统计（需要开启spring.datasource.druid.filter.stat），
+ * 连同PoolWaitFilter的取连接等待直方图和SqlBudgetMetrics的接口语句数一起组装成管理端查看的指标快照，
+ * 所有数据都来自内存中的计数器，查看指标本身不访问数据库
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class DbMetricsCollector {
+    /**
+     * StatFilter执行耗时直方图的区间边界（毫秒）
+     */
+    private static final long[] SQL_HISTOGRAM_RANGES = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    @Resource
+    private PoolWaitFilter poolWaitFilter;
+
+    @Resource
+    private SqlBudgetMetrics sqlBudgetMetrics;
+
+    /**
+     * 收集指标快照
+     *
+     * @param top 返回总耗时最高的SQL条数
+     * @return 指标快照
+     */
+    public DbMetricsDto collect(int top) {
+        List<DbPoolMetricsDto> pools = new ArrayList<>();
+        List<DbSqlMetricsDto> sqls = new ArrayList<>();
+        for (DruidDataSource dataSource : DruidDataSourceStatManager.getDruidDataSourceInstances()) {
+            pools.add(poolMetrics(dataSource));
+            JdbcDataSourceStat dataSourceStat = dataSource.getDataSourceStat();
+            if (dataSourceStat == null) {
+                continue;
+            }
+            for (JdbcSqlStat sqlStat : dataSourceStat.getSqlStatMap().values()) {
+                if (sqlStat.getExecuteCount() > 0) {
+                    sqls.add(sqlMetrics(dataSource.getName(), sqlStat));
+                }
+            }
+        }
+        pools.sort(Comparator.comparing(DbPoolMetricsDto::getName));
+        sqls.sort(Comparator.comparing(DbSqlMetricsDto::getTotalMillis).reversed());
+        return new DbMetricsDto(pools, new ArrayList<>(sqls.subList(0, Math.min(top, sqls.size()))), sqlBudgetMetrics.snapshot());
+    }
+
+    private DbPoolMetricsDto poolMetrics(DruidDataSource dataSource) {
+        DbPoolMetricsDto dbPoolMetricsDto = new DbPoolMetricsDto();
+        dbPoolMetricsDto.setName(dataSource.getName());
+        dbPoolMetricsDto.setUrl(StringUtils.substringBefore(dataSource.getUrl(), "?"));
+        dbPoolMetricsDto.setMaxActive(dataSource.getMaxActive());
+        dbPoolMetricsDto.setActiveCount(dataSource.getActiveCount());
+        dbPoolMetricsDto.setActivePeak(dataSource.getActivePeak());
+        dbPoolMetricsDto.setPoolingCount(dataSource.getPoolingCount());
+        dbPoolMetricsDto.setWaitThreadCount(dataSource.getWaitThreadCount());
+        dbPoolMetricsDto.setWaitCount(dataSource.getNotEmptyWaitCount());
+        dbPoolMetricsDto.setWaitMillis(dataSource.getNotEmptyWaitMillis());
+        dbPoolMetricsDto.setConnectErrorCount(dataSource.getConnectErrorCount());
+        dbPoolMetricsDto.setWaitHistogram(histogram(PoolWaitFilter.RANGES, poolWaitFilter.getWaitHistogram(dataSource)));
+        return dbPoolMetricsDto;
+    }
+
+    private DbSqlMetricsDto sqlMetrics(String dataSourceName, JdbcSqlStat sqlStat) {
+        DbSqlMetricsDto dbSqlMetricsDto = new DbSqlMetricsDto();
+        dbSqlMetricsDto.setDataSource(dataSourceName);
+        dbSqlMetricsDto.setSql(sqlStat.getSql());
+        dbSqlMetricsDto.setExecuteCount(sqlStat.getExecuteCount());
+        dbSqlMetricsDto.setErrorCount(sqlStat.getErrorCount());
+        dbSqlMetricsDto.setTotalMillis(sqlStat.getExecuteMillisTotal());
+        dbSqlMetricsDto.setMaxMillis(sqlStat.getExecuteMillisMax());
+        dbSqlMetricsDto.setAvgMillis((double) sqlStat.getExecuteMillisTotal() / sqlStat.getExecuteCount());
+        dbSqlMetricsDto.setLatencyHistogram(histogram(SQL_HISTOGRAM_RANGES, sqlStat.getHistogramValues()));
+        return dbSqlMetricsDto;
+    }
+
+    /**
+     * 把直方图各区间的次数按区间名称展开，如"<1ms"、"1-10ms"、">=10000ms"
+     *
+     * @param ranges 区间边界（毫秒）
+     * @param values 各区间的次数，比边界多一个
+     * @return 区间名称到次数的映射，按区间从小到大排列
+     */
+    static Map<String, Long> histogram(long[] ranges, long[] values) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < values.length && i <= ranges.length; i++) {
+            String label;
+            if (i == 0) {
+                label = "<" + ranges[0] + "ms";
+            } else if (i == ranges.length) {
+                label = ">=" + ranges[i - 1] + "ms";
+            } else {
+                label = ranges[i - 1] + "-" + ranges[i] + "ms";
+            }
+            histogram.put(label, values[i]);
+        }
+        return histogram;
+    }
+}
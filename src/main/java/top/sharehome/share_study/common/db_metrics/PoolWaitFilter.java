@@ -0,0 +1,52 @@
+package top.sharehome.share_study.common.db_metrics;
+
+import com.alibaba.druid.filter.FilterAdapter;
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidPooledConnection;
+import com.alibaba.druid.util.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池取连接等待时间统计
+ * Druid自带的统计只有等待次数和总等待时间，看不出等待时间的分布，这里作为Druid的Filter记录每次从连接池取连接的耗时，
+ * 按数据源分别计入直方图；容器中的Filter会被自动加到Druid数据源上，读写分离时主库和从库各有一份
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class PoolWaitFilter extends FilterAdapter {
+    /**
+     * 直方图区间边界（毫秒）
+     */
+    public static final long[] RANGES = {1, 10, 100, 1000, 10000};
+
+    private final Map<String, Histogram> histogramMap = new ConcurrentHashMap<>();
+
+    @Override
+    public DruidPooledConnection dataSource_getConnection(FilterChain chain, DruidDataSource dataSource, long maxWaitMillis) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.dataSource_getConnection(chain, dataSource, maxWaitMillis);
+        } finally {
+            histogramMap.computeIfAbsent(dataSource.getName(), name -> new Histogram(RANGES))
+                    .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 获取数据源的等待时间直方图
+     *
+     * @param dataSource 数据源
+     * @return 各区间的次数，还没有取过连接时全为0
+     */
+    public long[] getWaitHistogram(DruidDataSource dataSource) {
+        Histogram histogram = histogramMap.get(dataSource.getName());
+        return histogram == null ? new long[RANGES.length + 1] : histogram.toArray();
+    }
+}
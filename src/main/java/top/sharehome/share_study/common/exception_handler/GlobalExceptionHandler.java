@@ -2,6 +2,7 @@ package top.sharehome.share_study.common.exception_handler;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.mybatis.spring.MyBatisSystemException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -79,6 +80,24 @@ public class GlobalExceptionHandler {
         return globalExceptionHandler(exception);
     }
 
+    /**
+     * 特定异常处理器，MyBatis拦截器中抛出的自定义返回异常（例如SQL预算超出）会被包装成MyBatisSystemException
+     *
+     * @param exception 特定异常
+     * @return 返回处理结果
+     */
+    @ExceptionHandler(MyBatisSystemException.class)
+    public R myBatisSystemExceptionHandler(MyBatisSystemException exception) {
+        Throwable cause = exception.getCause();
+        while (cause != null) {
+            if (cause instanceof CustomizeReturnException) {
+                return returnExceptionHandler((CustomizeReturnException) cause);
+            }
+            cause = cause.getCause();
+        }
+        return globalExceptionHandler(exception);
+    }
+
     /**
      * 处理自定义返回异常
      *
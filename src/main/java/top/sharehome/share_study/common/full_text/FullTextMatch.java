@@ -0,0 +1,35 @@
+package top.sharehome.share_study.common.full_text;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 教学资料名称和简介的全文检索短语，字段为null时该字段仍然使用LIKE过滤
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FullTextMatch {
+
+    /**
+     * 教学资料名称的检索短语
+     */
+    private String name;
+
+    /**
+     * 教学资料简介的检索短语
+     */
+    private String info;
+
+    /**
+     * 是否有字段走全文索引，有则按相关度排序
+     *
+     * @return 是否按相关度排序
+     */
+    public boolean isRanked() {
+        return name != null || info != null;
+    }
+}
@@ -0,0 +1,81 @@
+package top.sharehome.share_study.common.full_text;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 教学资料名称和简介的全文检索
+ * 开启后名称和简介的模糊查询改为走V4迁移创建的ngram全文索引（MATCH ... AGAINST），不再是无法使用索引的 LIKE '%x%'，
+ * 关键词作为短语检索，ngram会把短语拆成连续的n元组，效果与子串匹配基本一致；
+ * 关键词中存在短于ngram_token_size的片段时无法拆分，这种关键词仍然退回LIKE，
+ * 索引由InnoDB在增删改时同步维护，不需要额外的同步逻辑
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class FullTextSearch {
+
+    @Value("${share-study.search.full-text.enabled:false}")
+    private Boolean enabled;
+
+    /**
+     * 需要和MySQL的ngram_token_size保持一致
+     */
+    @Value("${share-study.search.full-text.ngram-token-size:2}")
+    private Integer ngramTokenSize;
+
+    /**
+     * 将关键词转换为BOOLEAN MODE下的短语
+     *
+     * @param keyword 关键词
+     * @return 检索短语，未开启全文检索或者关键词无法走全文索引时返回null
+     */
+    public String phrase(String keyword) {
+        if (!Boolean.TRUE.equals(enabled) || StringUtils.isBlank(keyword)) {
+            return null;
+        }
+        // 双引号会提前结束短语，其余运算符在短语内部没有特殊含义
+        String[] words = StringUtils.split(StringUtils.remove(keyword, '"'));
+        if (words == null || words.length == 0) {
+            return null;
+        }
+        for (String word : words) {
+            if (word.codePointCount(0, word.length()) < ngramTokenSize) {
+                return null;
+            }
+        }
+        return "\"" + String.join(" ", words) + "\"";
+    }
+
+    /**
+     * 生成教学资料名称和简介的检索短语，供XML中的查询使用
+     *
+     * @param name 教学资料名称关键词
+     * @param info 教学资料简介关键词
+     * @return 检索短语
+     */
+    public FullTextMatch match(String name, String info) {
+        return new FullTextMatch(phrase(name), phrase(info));
+    }
+
+    /**
+     * 在条件构造器中追加包含关键词的条件，能走全文索引时使用MATCH ... AGAINST，否则使用LIKE
+     *
+     * @param wrapper    条件构造器
+     * @param column     实体字段
+     * @param columnName 数据库列名，该列上需要有单列的ngram全文索引
+     * @param keyword    关键词
+     * @param <T>        实体类型
+     */
+    public <T> void contains(LambdaQueryWrapper<T> wrapper, SFunction<T, ?> column, String columnName, String keyword) {
+        String phrase = phrase(keyword);
+        if (phrase == null) {
+            wrapper.like(column, keyword);
+        } else {
+            wrapper.apply("match(" + columnName + ") against({0} in boolean mode)", phrase);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package top.sharehome.share_study.common.hot_rank;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
+import top.sharehome.share_study.common.counter_buffer.ScoreCounterBuffer;
+import top.sharehome.share_study.common.teacher_card.TeacherCard;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.mapper.CollectMapper;
+import top.sharehome.share_study.mapper.CommentMapper;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.model.dto.PostPageDto;
+import top.sharehome.share_study.model.entity.College;
+import top.sharehome.share_study.model.entity.Collect;
+import top.sharehome.share_study.model.entity.Comment;
+import top.sharehome.share_study.model.entity.Resource;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 热门教学资料榜单
+ * 收藏、评论和浏览提交后按权重计入内存中的HotScoreBoard，热度随时间指数衰减，取消收藏时减去原来那次收藏衰减后的贡献，
+ * 后台定时取出前K名回表组装成帖子Dto快照，/post/hot直接返回快照，请求本身不访问数据库，
+ * 榜单只保存在本节点内存中，重启后可以按收藏和评论的时间从表中重建（浏览记录不落库，重建时不计入）
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+public class HotResourceRanking {
+    private static final String COMMENT_COUNT_COLUMN = "comment_count";
+
+    /**
+     * 重建时回看的半衰期个数，更早的互动贡献不到千分之一，直接忽略
+     */
+    private static final int REBUILD_HALF_LIVES = 10;
+
+    @javax.annotation.Resource
+    private ResourceMapper resourceMapper;
+
+    @javax.annotation.Resource
+    private CommentMapper commentMapper;
+
+    @javax.annotation.Resource
+    private CollectMapper collectMapper;
+
+    @javax.annotation.Resource
+    private TeacherCardCache teacherCardCache;
+
+    @javax.annotation.Resource
+    private CollegeDictionary collegeDictionary;
+
+    @javax.annotation.Resource
+    private ScoreCounterBuffer scoreCounterBuffer;
+
+    /**
+     * 启动后是否从收藏表和评论表重建榜单
+     */
+    @Value("${share-study.hot.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    /**
+     * 热度半衰期
+     */
+    @Value("${share-study.hot.half-life:24h}")
+    private Duration halfLife;
+
+    @Value("${share-study.hot.collect-weight:3}")
+    private double collectWeight;
+
+    @Value("${share-study.hot.comment-weight:2}")
+    private double commentWeight;
+
+    @Value("${share-study.hot.view-weight:1}")
+    private double viewWeight;
+
+    /**
+     * 榜单长度
+     */
+    @Value("${share-study.hot.top-k:100}")
+    private int topK;
+
+    /**
+     * 计分板最多记录的教学资料数量
+     */
+    @Value("${share-study.hot.capacity:10000}")
+    private int capacity;
+
+    private HotScoreBoard board;
+
+    private volatile List<PostPageDto> snapshot = Collections.emptyList();
+
+    @PostConstruct
+    public void init() {
+        board = new HotScoreBoard(halfLife.toMillis(), capacity, System.currentTimeMillis());
+    }
+
+    /**
+     * 记录收藏，事务提交后生效
+     *
+     * @param resourceId 教学资料ID
+     */
+    public void recordCollect(Long resourceId) {
+        record(resourceId, collectWeight, null);
+    }
+
+    /**
+     * 记录取消收藏，事务提交后生效
+     * 减去的是原来那次收藏衰减到现在的贡献，而不是一次新收藏的权重，与重建时不计入已取消的收藏保持一致
+     *
+     * @param resourceId  教学资料ID
+     * @param collectTime 原来收藏的时间，即收藏记录最后一次切换状态的时间
+     */
+    public void recordUncollect(Long resourceId, LocalDateTime collectTime) {
+        if (collectTime == null) {
+            return;
+        }
+        record(resourceId, -collectWeight, toMillis(collectTime));
+    }
+
+    /**
+     * 记录评论，事务提交后生效
+     *
+     * @param resourceId 教学资料ID
+     */
+    public void recordComment(Long resourceId) {
+        record(resourceId, commentWeight, null);
+    }
+
+    /**
+     * 记录浏览
+     *
+     * @param resourceId 教学资料ID
+     */
+    public void recordView(Long resourceId) {
+        record(resourceId, viewWeight, null);
+    }
+
+    /**
+     * 获取热门帖子
+     *
+     * @param size 数量
+     * @return 按热度从高到低排列的帖子，最多top-k条
+     */
+    public List<PostPageDto> top(int size) {
+        List<PostPageDto> current = snapshot;
+        return current.subList(0, Math.min(size, current.size()));
+    }
+
+    /**
+     * 定时重新组装快照，计分板为空时不访问数据库
+     * 教学资料的名称、状态和收藏数等在两次刷新之间可能已经变化，快照最多滞后一个刷新间隔
+     */
+    @Scheduled(fixedDelayString = "${share-study.hot.refresh-interval:5000}")
+    public void refresh() {
+        List<Long> ids;
+        synchronized (this) {
+            ids = board.top(topK);
+        }
+        if (ids.isEmpty() && snapshot.isEmpty()) {
+            return;
+        }
+        try {
+            snapshot = Collections.unmodifiableList(assemble(ids));
+        } catch (Exception e) {
+            log.warn("HotResourceRanking:{},Description:{}", e.getClass(), "热门榜单刷新失败，继续使用上一次的快照");
+        }
+    }
+
+    /**
+     * 启动后重建榜单
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("HotResourceRanking:{},Description:{}", e.getClass(), "热门榜单重建失败，从空榜单开始计分");
+        }
+    }
+
+    /**
+     * 按收藏和评论的时间从表中重建计分板，未取消的收藏以最后一次切换状态的时间计
+     */
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(halfLife.multipliedBy(REBUILD_HALF_LIVES));
+
+        LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        collectLambdaQueryWrapper
+                .select(Collect::getResource, Collect::getCreateTime, Collect::getUpdateTime)
+                .eq(Collect::getStatus, 0)
+                .ge(Collect::getUpdateTime, since);
+        List<Collect> collects = collectMapper.selectList(collectLambdaQueryWrapper);
+
+        LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        commentLambdaQueryWrapper
+                .select(Comment::getResource, Comment::getCreateTime)
+                .ge(Comment::getCreateTime, since);
+        List<Comment> comments = commentMapper.selectList(commentLambdaQueryWrapper);
+
+        HotScoreBoard rebuilt = new HotScoreBoard(halfLife.toMillis(), capacity, now);
+        collects.forEach(collect -> rebuilt.add(collect.getResource(), collectWeight, toMillis(collect.getUpdateTime() == null ? collect.getCreateTime() : collect.getUpdateTime())));
+        comments.forEach(comment -> rebuilt.add(comment.getResource(), commentWeight, toMillis(comment.getCreateTime())));
+        synchronized (this) {
+            board = rebuilt;
+        }
+        log.info("HotResourceRanking rebuilt from {} collects and {} comments, {} resources ranked", collects.size(), comments.size(), rebuilt.size());
+        refresh();
+    }
+
+    /**
+     * 记录一次互动，事务提交后生效
+     *
+     * @param resourceId 教学资料ID
+     * @param weight     互动权重
+     * @param millis     互动时间，为null时取提交时的当前时间
+     */
+    private void record(Long resourceId, double weight, Long millis) {
+        if (resourceId == null || weight == 0) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            long time = millis == null ? System.currentTimeMillis() : millis;
+            synchronized (this) {
+                board.add(resourceId, weight, time);
+            }
+        });
+    }
+
+    private List<PostPageDto> assemble(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Resource> resourceMap = resourceMapper.selectBatchIds(ids).stream()
+                .collect(Collectors.toMap(Resource::getId, Function.identity()));
+        // 已经删除的教学资料从计分板中移除
+        synchronized (this) {
+            ids.stream().filter(id -> !resourceMap.containsKey(id)).forEach(board::remove);
+        }
+        if (resourceMap.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(resourceMap.values().stream().map(Resource::getBelong).collect(Collectors.toSet()));
+
+        QueryWrapper<Comment> commentCountQueryWrapper = new QueryWrapper<>();
+        commentCountQueryWrapper
+                .select(Comment.COL_COMMENT_RESOURCE, "COUNT(*) AS " + COMMENT_COUNT_COLUMN)
+                .in(Comment.COL_COMMENT_RESOURCE, resourceMap.keySet())
+                .groupBy(Comment.COL_COMMENT_RESOURCE);
+        Map<Long, Integer> commentCountMap = new HashMap<>();
+        commentMapper.selectMaps(commentCountQueryWrapper).forEach(row -> commentCountMap.put(
+                ((Number) row.get(Comment.COL_COMMENT_RESOURCE)).longValue(),
+                ((Number) row.get(COMMENT_COUNT_COLUMN)).intValue()));
+
+        List<PostPageDto> postPageDtoList = new ArrayList<>();
+        for (Long id : ids) {
+            Resource resource = resourceMap.get(id);
+            // 被封禁的教学资料不上榜，分数保留，解封后恢复
+            if (resource == null || resource.getStatus() != 0) {
+                continue;
+            }
+            TeacherCard teacher = teacherCardMap.get(resource.getBelong());
+            College college = teacher == null ? null : collegeDictionary.get(teacher.getBelong());
+            if (college == null) {
+                continue;
+            }
+            PostPageDto postPageDto = new PostPageDto();
+            postPageDto.setUserId(teacher.getId());
+            postPageDto.setUserName(teacher.getName());
+            postPageDto.setUserAvatarUrl(teacher.getAvatar());
+            postPageDto.setCollegeName(college.getName());
+            postPageDto.setResourceStatus(resource.getStatus());
+            postPageDto.setResourceId(resource.getId());
+            postPageDto.setResourceName(resource.getName());
+            postPageDto.setResourceInfo(resource.getInfo());
+            postPageDto.setResourceScore(Math.toIntExact(resource.getScore() + scoreCounterBuffer.pendingResourceScore(resource.getId())));
+            postPageDto.setResourceUrl(resource.getUrl());
+            postPageDto.setCreateTime(resource.getCreateTime());
+            postPageDto.setCommentCount(commentCountMap.getOrDefault(resource.getId(), 0));
+            postPageDtoList.add(postPageDto);
+        }
+        return postPageDtoList;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
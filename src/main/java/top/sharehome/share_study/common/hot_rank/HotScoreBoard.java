@@ -0,0 +1,142 @@
+package top.sharehome.share_study.common.hot_rank;
+
+import java.util.*;
+
+/**
+ * 指数时间衰减的热度计分板
+ * 热度为各次互动权重按时间衰减后的和，半衰期过后一次互动的贡献减半，
+ * 这里不随时间去衰减已有的分数，而是把新互动的权重按距离基准时间的半衰期数放大（前向衰减），
+ * 所有分数同比例衰减不会改变相对顺序，所以记录和排序都不需要遍历全部条目，
+ * 放大倍数超过阈值时把基准时间前移并整体缩小一次，避免浮点溢出
+ * 条目数超过容量时淘汰分数最低的一批，内存有上限，被淘汰的冷门资料之后再有互动时重新开始计分
+ * 非线程安全，由调用方加锁
+ *
+ * @author AntonyCheng
+ */
+public class HotScoreBoard {
+    /**
+     * 放大倍数的指数上限，超过后整体缩小
+     */
+    private static final double RESCALE_EXPONENT = 64;
+
+    /**
+     * 超出容量时一次淘汰的比例，避免每次新增都触发排序
+     */
+    private static final double EVICT_RATIO = 0.1;
+
+    /**
+     * 按热度升序，热度相同时ID较大（发布较晚）的视为热度更低
+     */
+    private static final Comparator<Map.Entry<Long, Double>> ENTRY_ORDER = Comparator
+            .comparing((Map.Entry<Long, Double> entry) -> entry.getValue())
+            .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+
+    private final long halfLifeMillis;
+
+    private final int capacity;
+
+    private final HashMap<Long, Double> scores = new HashMap<>();
+
+    /**
+     * 基准时间，分数都是以该时刻为准放大后的值
+     */
+    private long epochMillis;
+
+    /**
+     * @param halfLifeMillis 半衰期（毫秒）
+     * @param capacity       最多记录的条目数
+     * @param epochMillis    初始基准时间
+     */
+    public HotScoreBoard(long halfLifeMillis, int capacity, long epochMillis) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.capacity = capacity;
+        this.epochMillis = epochMillis;
+    }
+
+    /**
+     * 记录一次互动，取消收藏等负权重最多把分数减到0，减到0的条目直接移除
+     * 撤销以前的互动时传入负权重和那次互动的时间，减去的正好是它当时计入的分数
+     *
+     * @param id     教学资料ID
+     * @param weight 互动权重
+     * @param millis 互动时间
+     */
+    public void add(Long id, double weight, long millis) {
+        double exponent = (double) (millis - epochMillis) / halfLifeMillis;
+        if (exponent > RESCALE_EXPONENT) {
+            rescale(millis);
+            exponent = (double) (millis - epochMillis) / halfLifeMillis;
+        }
+        double score = scores.getOrDefault(id, 0D) + weight * Math.pow(2, exponent);
+        if (score <= 0) {
+            scores.remove(id);
+            return;
+        }
+        scores.put(id, score);
+        if (scores.size() > capacity) {
+            evict();
+        }
+    }
+
+    /**
+     * 移除条目，用于已删除的教学资料
+     *
+     * @param id 教学资料ID
+     */
+    public void remove(Long id) {
+        scores.remove(id);
+    }
+
+    /**
+     * 获取条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        return scores.size();
+    }
+
+    /**
+     * 获取热度最高的k个ID，用大小为k的小顶堆做部分排序
+     *
+     * @param k 数量
+     * @return 按热度从高到低排列的ID
+     */
+    public List<Long> top(int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(k, ENTRY_ORDER);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (heap.size() < k) {
+                heap.offer(entry);
+            } else if (ENTRY_ORDER.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(entry);
+            }
+        }
+        LinkedList<Long> ids = new LinkedList<>();
+        while (!heap.isEmpty()) {
+            ids.addFirst(heap.poll().getKey());
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private void rescale(long millis) {
+        long shift = (millis - epochMillis) / halfLifeMillis;
+        double factor = Math.pow(2, -shift);
+        epochMillis += shift * halfLifeMillis;
+        scores.replaceAll((id, score) -> score * factor);
+        // 缩小后可以忽略不计的条目顺便清理掉
+        scores.values().removeIf(score -> score < Double.MIN_NORMAL);
+    }
+
+    private void evict() {
+        int evictCount = Math.max(1, (int) (capacity * EVICT_RATIO)) + scores.size() - capacity;
+        List<Map.Entry<Long, Double>> entries = new ArrayList<>(scores.entrySet());
+        entries.sort(ENTRY_ORDER);
+        for (int i = 0; i < evictCount && i < entries.size(); i++) {
+            scores.remove(entries.get(i).getKey());
+        }
+    }
+}
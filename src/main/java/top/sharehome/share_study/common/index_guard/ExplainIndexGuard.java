@@ -0,0 +1,184 @@
+package top.sharehome.share_study.common.index_guard;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.mapper.CollectMapper;
+import top.sharehome.share_study.mapper.CommentMapper;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.mapper.TeacherMapper;
+import top.sharehome.share_study.model.entity.Collect;
+import top.sharehome.share_study.model.entity.Comment;
+import top.sharehome.share_study.model.entity.Resource;
+import top.sharehome.share_study.model.entity.Teacher;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * 查询计划守卫
+ * 启动时对业务中的高频查询执行EXPLAIN，只要有一条查询的执行计划出现全表扫描（type=ALL）就中止启动，
+ * 用于在集成测试或预发环境中发现索引迁移遗漏或查询条件改动导致的索引失效
+ * 查询SQL取自MyBatis中真实的MappedStatement：XML查询直接按语句ID渲染，条件构造器查询按业务代码中相同的条件构造后交给
+ * BaseMapper注入的语句渲染，Mapper中的查询改动后守卫检查的就是改动后的SQL
+ * 通过share-study.index-guard.enabled=true开启，也可以执行 mvn test -P index-guard 对已执行迁移的数据库运行
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "share-study.index-guard", name = "enabled", havingValue = "true")
+public class ExplainIndexGuard implements ApplicationRunner {
+    /**
+     * 全表扫描的访问类型
+     */
+    private static final String FULL_SCAN_TYPE = "ALL";
+
+    /**
+     * BaseMapper注入方法中条件构造器的参数名
+     */
+    private static final String WRAPPER_PARAM = "ew";
+
+    @javax.annotation.Resource
+    private SqlSessionFactory sqlSessionFactory;
+
+    @javax.annotation.Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> regressions = new ArrayList<>();
+        List<HotQuery> hotQueries = hotQueries();
+        for (HotQuery hotQuery : hotQueries) {
+            for (Map<String, Object> plan : explain(hotQuery)) {
+                if (isFullScan(plan)) {
+                    regressions.add(hotQuery.getName() + "（" + plan.get("table") + "）：" + hotQuery.getBoundSql().getSql());
+                }
+            }
+        }
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException("以下高频查询退化为全表扫描，请检查索引迁移：" + String.join("；", regressions));
+        }
+        log.info("ExplainIndexGuard:{} hot queries checked, no full table scan", hotQueries.size());
+    }
+
+    /**
+     * 按真实的MappedStatement渲染高频查询，参数使用占位值即可
+     *
+     * @return 高频查询
+     */
+    public List<HotQuery> hotQueries() {
+        List<HotQuery> hotQueries = new ArrayList<>();
+
+        MapperMethod.ParamMap<Object> postPageParam = new MapperMethod.ParamMap<>();
+        postPageParam.put("page", null);
+        postPageParam.put("query", null);
+        postPageParam.put("match", null);
+        hotQueries.add(hotQuery("帖子分页", ResourceMapper.class, "selectPostPage", postPageParam));
+
+        MapperMethod.ParamMap<Object> postCursorParam = new MapperMethod.ParamMap<>();
+        postCursorParam.put("query", null);
+        postCursorParam.put("match", null);
+        postCursorParam.put("cursor", null);
+        postCursorParam.put("limit", 10);
+        hotQueries.add(hotQuery("帖子游标分页", ResourceMapper.class, "selectPostCursorPage", postCursorParam));
+
+        LambdaQueryWrapper<Resource> userResourceWrapper = new LambdaQueryWrapper<>();
+        userResourceWrapper.eq(Resource::getBelong, 0L).orderByAsc(Resource::getCreateTime);
+        hotQueries.add(wrapperQuery("用户主页教学资料分页", ResourceMapper.class, userResourceWrapper));
+
+        LambdaQueryWrapper<Comment> resourceCommentWrapper = new LambdaQueryWrapper<>();
+        resourceCommentWrapper.eq(Comment::getResource, 0L).orderByAsc(Comment::getCreateTime);
+        hotQueries.add(wrapperQuery("教学资料评论分页", CommentMapper.class, resourceCommentWrapper));
+
+        QueryWrapper<Comment> commentCountWrapper = new QueryWrapper<>();
+        commentCountWrapper
+                .select(Comment.COL_COMMENT_RESOURCE, "COUNT(*)")
+                .in(Comment.COL_COMMENT_RESOURCE, 0L, 1L)
+                .groupBy(Comment.COL_COMMENT_RESOURCE);
+        hotQueries.add(hotQuery("评论数统计", CommentMapper.class, "selectMaps", wrapperParam(commentCountWrapper)));
+
+        LambdaQueryWrapper<Comment> messageWrapper = new LambdaQueryWrapper<>();
+        messageWrapper.eq(Comment::getSend, 0L).orderByAsc(Comment::getCreateTime);
+        hotQueries.add(wrapperQuery("用户消息分页", CommentMapper.class, messageWrapper));
+
+        LambdaQueryWrapper<Comment> teacherCommentWrapper = new LambdaQueryWrapper<>();
+        teacherCommentWrapper.in(Comment::getBelong, 0L, 1L);
+        hotQueries.add(wrapperQuery("教师评论级联删除", CommentMapper.class, teacherCommentWrapper));
+
+        MapperMethod.ParamMap<Object> collectedParam = new MapperMethod.ParamMap<>();
+        collectedParam.put("belong", 0L);
+        collectedParam.put("resourceIds", Arrays.asList(0L, 1L));
+        hotQueries.add(hotQuery("收藏状态判断", CollectMapper.class, "selectCollectedResourceIds", collectedParam));
+
+        LambdaQueryWrapper<Collect> resourceCollectWrapper = new LambdaQueryWrapper<>();
+        resourceCollectWrapper.in(Collect::getResource, 0L, 1L);
+        hotQueries.add(wrapperQuery("教学资料收藏级联删除", CollectMapper.class, resourceCollectWrapper));
+
+        LambdaQueryWrapper<Teacher> collegeTeacherWrapper = new LambdaQueryWrapper<>();
+        collegeTeacherWrapper.eq(Teacher::getBelong, 0L);
+        hotQueries.add(hotQuery("高校绑定教师查询", TeacherMapper.class, "selectCount", wrapperParam(collegeTeacherWrapper)));
+
+        return hotQueries;
+    }
+
+    /**
+     * 执行计划中是否出现全表扫描，小表上优化器主动选择的全表扫描同样视为退化，测试数据需要让索引有意义
+     *
+     * @param plan EXPLAIN结果中的一行
+     * @return 全表扫描时返回true
+     */
+    public static boolean isFullScan(Map<String, Object> plan) {
+        return FULL_SCAN_TYPE.equalsIgnoreCase(String.valueOf(plan.get("type")));
+    }
+
+    private List<Map<String, Object>> explain(HotQuery hotQuery) {
+        BoundSql boundSql = hotQuery.getBoundSql();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN " + boundSql.getSql());
+            new DefaultParameterHandler(hotQuery.getMappedStatement(), hotQuery.getParameter(), boundSql).setParameters(preparedStatement);
+            return preparedStatement;
+        }, new ColumnMapRowMapper());
+    }
+
+    private HotQuery wrapperQuery(String name, Class<?> mapperClass, Wrapper<?> wrapper) {
+        return hotQuery(name, mapperClass, "selectList", wrapperParam(wrapper));
+    }
+
+    private MapperMethod.ParamMap<Object> wrapperParam(Wrapper<?> wrapper) {
+        MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+        param.put(WRAPPER_PARAM, wrapper);
+        return param;
+    }
+
+    private HotQuery hotQuery(String name, Class<?> mapperClass, String method, Object parameter) {
+        MappedStatement mappedStatement = sqlSessionFactory.getConfiguration().getMappedStatement(mapperClass.getName() + "." + method);
+        return new HotQuery(name, mappedStatement, parameter, mappedStatement.getBoundSql(parameter));
+    }
+
+    /**
+     * 渲染后的高频查询
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class HotQuery {
+        private final String name;
+        private final MappedStatement mappedStatement;
+        private final Object parameter;
+        private final BoundSql boundSql;
+    }
+}
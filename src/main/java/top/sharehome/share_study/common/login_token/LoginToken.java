@@ -0,0 +1,65 @@
+package top.sharehome.share_study.common.login_token;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+
+/**
+ * 登录令牌中携带的身份信息，校验通过后作为当前请求的Principal
+ *
+ * @author AntonyCheng
+ */
+@Getter
+@AllArgsConstructor
+public class LoginToken implements Principal {
+    /**
+     * 令牌作用域：普通用户登录
+     */
+    public static final String SCOPE_USER = "u";
+
+    /**
+     * 令牌作用域：管理员登录
+     */
+    public static final String SCOPE_ADMIN = "a";
+
+    /**
+     * 令牌作用域
+     */
+    private final String scope;
+
+    /**
+     * 教师ID
+     */
+    private final Long teacherId;
+
+    /**
+     * 用户角色
+     */
+    private final Integer role;
+
+    /**
+     * 所属高校ID
+     */
+    private final Long collegeId;
+
+    /**
+     * 签发时间（毫秒时间戳）
+     */
+    private final Long issuedAt;
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    private final Long expiresAt;
+
+    /**
+     * 令牌ID，签发时随机生成，用于只吊销这一个令牌
+     */
+    private final String tokenId;
+
+    @Override
+    public String getName() {
+        return String.valueOf(teacherId);
+    }
+}
@@ -0,0 +1,199 @@
+package top.sharehome.share_study.common.login_token;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+import top.sharehome.share_study.model.entity.Teacher;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * 无状态登录令牌
+ * share-study.auth.mode为token时，登录成功后签发令牌，客户端在Authorization: Bearer头中携带，
+ * 令牌格式为 Base64URL(作用域.教师ID.角色.高校ID.签发时间.过期时间.令牌ID) + "." + Base64URL(HmacSHA256签名)，
+ * 校验只需要共享密钥和内存中的吊销列表，任意节点都可以处理任意请求，不再需要粘性会话
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class LoginTokenService {
+    /**
+     * 会话登录模式（默认）
+     */
+    public static final String MODE_SESSION = "session";
+
+    /**
+     * 令牌登录模式
+     */
+    public static final String MODE_TOKEN = "token";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * 令牌ID的随机字节数
+     */
+    private static final int TOKEN_ID_BYTES = 16;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Resource
+    private TokenRevocationList tokenRevocationList;
+
+    @Resource
+    private CollegeDictionary collegeDictionary;
+
+    @Value("${share-study.auth.mode:session}")
+    private String mode;
+
+    @Value("${share-study.auth.token.secret:}")
+    private String secret;
+
+    @Value("${share-study.auth.token.ttl:7d}")
+    private Duration ttl;
+
+    private SecretKeySpec secretKey;
+
+    /**
+     * Mac不是线程安全的，每个线程复用一个实例
+     */
+    private final ThreadLocal<Mac> macThreadLocal = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        // 密钥过短时签名可以被暴力破解，令牌模式下必须配置足够长的密钥
+        if (StringUtils.length(secret) < 32) {
+            throw new IllegalStateException("share-study.auth.token.secret 至少需要32个字符");
+        }
+        secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * 是否处于令牌登录模式
+     *
+     * @return 令牌登录模式时返回true
+     */
+    public boolean isEnabled() {
+        return MODE_TOKEN.equals(mode);
+    }
+
+    /**
+     * 签发令牌
+     *
+     * @param teacher 登录的教师
+     * @param scope   令牌作用域
+     * @return 令牌，会话登录模式下返回null
+     */
+    public String issue(Teacher teacher, String scope) {
+        if (!isEnabled()) {
+            return null;
+        }
+        long issuedAt = System.currentTimeMillis();
+        byte[] tokenId = new byte[TOKEN_ID_BYTES];
+        RANDOM.nextBytes(tokenId);
+        String payload = scope
+                + "." + teacher.getId()
+                + "." + teacher.getRole()
+                + "." + teacher.getBelong()
+                + "." + issuedAt
+                + "." + (issuedAt + ttl.toMillis())
+                + "." + ENCODER.encodeToString(tokenId);
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
+    }
+
+    /**
+     * 从Authorization请求头中解析并校验令牌
+     *
+     * @param authorization Authorization请求头
+     * @return 校验通过的令牌，请求头为空、签名不匹配、格式错误、已过期或者已被吊销时返回null
+     */
+    public LoginToken verify(String authorization) {
+        if (!isEnabled() || authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        String encodedPayload = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(encodedPayload), DECODER.decode(token.substring(dot + 1)))) {
+                return null;
+            }
+            String[] claims = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8).split("\\.");
+            if (claims.length != 7) {
+                return null;
+            }
+            LoginToken loginToken = new LoginToken(claims[0],
+                    Long.valueOf(claims[1]),
+                    Integer.valueOf(claims[2]),
+                    "null".equals(claims[3]) ? null : Long.valueOf(claims[3]),
+                    Long.valueOf(claims[4]),
+                    Long.valueOf(claims[5]),
+                    claims[6]);
+            if (loginToken.getExpiresAt() < System.currentTimeMillis() || tokenRevocationList.isRevoked(loginToken)) {
+                return null;
+            }
+            return loginToken;
+        } catch (IllegalArgumentException e) {
+            // Base64解码失败、数字格式错误（NumberFormatException是它的子类）
+            return null;
+        }
+    }
+
+    /**
+     * 校验请求携带的令牌，并把请求包装成使用请求级Session的请求，令牌中的身份信息还原为对应作用域的登录状态
+     *
+     * @param request 原始请求
+     * @return 包装后的请求
+     */
+    public TokenRequestWrapper wrap(HttpServletRequest request) {
+        LoginToken loginToken = verify(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (loginToken == null) {
+            return new TokenRequestWrapper(request, null, null);
+        }
+        TeacherLoginDto teacherLoginDto = new TeacherLoginDto();
+        teacherLoginDto.setId(loginToken.getTeacherId());
+        teacherLoginDto.setRole(loginToken.getRole());
+        teacherLoginDto.setCollegeName(collegeDictionary.getName(loginToken.getCollegeId()));
+        TokenHttpSession session = new TokenHttpSession(request.getServletContext());
+        session.setAttribute(LoginToken.SCOPE_ADMIN.equals(loginToken.getScope()) ? CommonConstant.ADMIN_LOGIN_STATE : CommonConstant.USER_LOGIN_STATE, teacherLoginDto);
+        return new TokenRequestWrapper(request, loginToken, session);
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macThreadLocal.get().doFinal(encodedPayload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,121 @@
+package top.sharehome.share_study.common.login_token;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 令牌登录模式下的请求级Session
+ * 只在当前请求内存在，不由容器保存，初始属性由令牌还原出的登录状态填充，
+ * 使原有的request.getSession().getAttribute(...)读取方式在两种登录模式下都能使用；
+ * 登录接口写入的登录状态也只在本次请求内可见，随后以令牌的形式返回给客户端
+ *
+ * @author AntonyCheng
+ */
+@SuppressWarnings("deprecation")
+public class TokenHttpSession implements HttpSession {
+    private final String id = UUID.randomUUID().toString();
+
+    private final long creationTime = System.currentTimeMillis();
+
+    private final ServletContext servletContext;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    public TokenHttpSession(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        return creationTime;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return 0;
+    }
+
+    @Override
+    @Deprecated
+    public javax.servlet.http.HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public String[] getValueNames() {
+        return attributes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+            return;
+        }
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        attributes.clear();
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
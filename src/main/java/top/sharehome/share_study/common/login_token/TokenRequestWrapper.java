@@ -0,0 +1,51 @@
+package top.sharehome.share_study.common.login_token;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSession;
+import java.security.Principal;
+
+/**
+ * 令牌登录模式下的请求包装
+ * getSession返回请求级的TokenHttpSession，不会创建容器Session；getUserPrincipal返回校验通过的令牌
+ *
+ * @author AntonyCheng
+ */
+public class TokenRequestWrapper extends HttpServletRequestWrapper {
+    private final LoginToken loginToken;
+
+    private TokenHttpSession session;
+
+    public TokenRequestWrapper(HttpServletRequest request, LoginToken loginToken, TokenHttpSession session) {
+        super(request);
+        this.loginToken = loginToken;
+        this.session = session;
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (session == null && create) {
+            session = new TokenHttpSession(getServletContext());
+        }
+        return session;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return loginToken;
+    }
+
+    /**
+     * 获取当前请求的登录令牌
+     *
+     * @return 登录令牌，未携带或者校验失败时返回null
+     */
+    public LoginToken getLoginToken() {
+        return loginToken;
+    }
+}
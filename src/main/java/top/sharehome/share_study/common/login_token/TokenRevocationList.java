@@ -0,0 +1,147 @@
+package top.sharehome.share_study.common.login_token;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.mapper.TokenRevocationMapper;
+import top.sharehome.share_study.model.entity.TokenRevocation;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌吊销列表
+ * 吊销记录写入t_token_revocation，本节点在事务提交后立即生效，其他节点定时增量拉取，
+ * 封禁、角色变更和删除时吊销教师的所有令牌，主动退出时只吊销当前令牌（需要先执行V7迁移），
+ * 令牌校验只查内存中的教师ID到吊销时间、令牌ID到吊销时间两个映射，超过令牌有效期的吊销记录不再需要，拉取时直接跳过
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+    /**
+     * 增量拉取时的回看时长
+     */
+    private static final long LOOK_BACK_MILLIS = 60_000L;
+
+    /**
+     * 吊销教师所有令牌的记录中令牌ID为空字符串
+     */
+    private static final String ALL_TOKENS = "";
+
+    @Resource
+    private TokenRevocationMapper tokenRevocationMapper;
+
+    @Value("${share-study.auth.mode:session}")
+    private String mode;
+
+    @Value("${share-study.auth.token.ttl:7d}")
+    private Duration ttl;
+
+    /**
+     * 教师ID到吊销时间的映射
+     */
+    private final ConcurrentHashMap<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    /**
+     * 单独吊销的令牌ID到吊销时间的映射
+     */
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 已经拉取到的最大吊销时间，下一次只拉取比它新的记录
+     */
+    private volatile long lastRevokeTime = -1;
+
+    /**
+     * 吊销教师已签发的所有令牌，在事务中调用时随事务一起提交
+     *
+     * @param teacherId 教师ID
+     */
+    public void revoke(Long teacherId) {
+        if (!LoginTokenService.MODE_TOKEN.equals(mode) || teacherId == null) {
+            return;
+        }
+        long revokeTime = System.currentTimeMillis();
+        tokenRevocationMapper.upsert(teacherId, revokeTime);
+        TransactionUtils.afterCommit(() -> revokedBefore.merge(teacherId, revokeTime, Math::max));
+    }
+
+    /**
+     * 批量吊销教师已签发的所有令牌，在事务中调用时随事务一起提交
+     *
+     * @param teacherIds 教师ID
+     */
+    public void revokeAll(Collection<Long> teacherIds) {
+        if (!LoginTokenService.MODE_TOKEN.equals(mode) || teacherIds.isEmpty()) {
+            return;
+        }
+        long revokeTime = System.currentTimeMillis();
+        tokenRevocationMapper.upsertBatch(teacherIds, revokeTime);
+        TransactionUtils.afterCommit(() -> teacherIds.forEach(teacherId -> revokedBefore.merge(teacherId, revokeTime, Math::max)));
+    }
+
+    /**
+     * 只吊销一个令牌，教师的其他令牌不受影响，在事务中调用时随事务一起提交
+     *
+     * @param token 登录令牌
+     */
+    public void revokeToken(LoginToken token) {
+        if (!LoginTokenService.MODE_TOKEN.equals(mode) || token == null) {
+            return;
+        }
+        long revokeTime = System.currentTimeMillis();
+        tokenRevocationMapper.upsertToken(token.getTeacherId(), token.getTokenId(), revokeTime);
+        TransactionUtils.afterCommit(() -> revokedTokens.merge(token.getTokenId(), revokeTime, Math::max));
+    }
+
+    /**
+     * 判断令牌是否已被吊销
+     *
+     * @param token 登录令牌
+     * @return 已被吊销时返回true
+     */
+    public boolean isRevoked(LoginToken token) {
+        Long revokeTime = revokedBefore.get(token.getTeacherId());
+        return revokeTime != null && token.getIssuedAt() <= revokeTime || revokedTokens.containsKey(token.getTokenId());
+    }
+
+    /**
+     * 增量拉取其他节点写入的吊销记录
+     */
+    @Scheduled(fixedDelayString = "${share-study.auth.token.revocation-refresh-interval:5000}")
+    public void refresh() {
+        if (!LoginTokenService.MODE_TOKEN.equals(mode)) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - ttl.toMillis();
+        // 其他节点的事务提交有先后、时钟也有偏差，每次多回看一段时间，重复拉到的记录merge后结果不变
+        long since = Math.max(lastRevokeTime - LOOK_BACK_MILLIS, expiredBefore);
+        try {
+            LambdaQueryWrapper<TokenRevocation> tokenRevocationLambdaQueryWrapper = new LambdaQueryWrapper<>();
+            tokenRevocationLambdaQueryWrapper.ge(TokenRevocation::getRevokeTime, since);
+            List<TokenRevocation> tokenRevocations = tokenRevocationMapper.selectList(tokenRevocationLambdaQueryWrapper);
+            long maxRevokeTime = lastRevokeTime;
+            for (TokenRevocation tokenRevocation : tokenRevocations) {
+                if (ALL_TOKENS.equals(tokenRevocation.getTokenId())) {
+                    revokedBefore.merge(tokenRevocation.getTeacherId(), tokenRevocation.getRevokeTime(), Math::max);
+                } else {
+                    revokedTokens.merge(tokenRevocation.getTokenId(), tokenRevocation.getRevokeTime(), Math::max);
+                }
+                maxRevokeTime = Math.max(maxRevokeTime, tokenRevocation.getRevokeTime());
+            }
+            lastRevokeTime = maxRevokeTime;
+            revokedBefore.values().removeIf(revokeTime -> revokeTime < expiredBefore);
+            revokedTokens.values().removeIf(revokeTime -> revokeTime < expiredBefore);
+        } catch (Exception e) {
+            log.warn("TokenRevocationList:{},Description:{}", e.getClass(), "令牌吊销列表拉取失败，下次继续重试");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package top.sharehome.share_study.common.multipart_upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 分片上传规划，初始化时确定，后续的分片、完成和取消请求都按它校验
+ *
+ * @author AntonyCheng
+ */
+@Getter
+@AllArgsConstructor
+public class MultipartUploadPlan {
+    /**
+     * 对象键
+     */
+    private final String key;
+
+    /**
+     * 分片上传ID
+     */
+    private final String uploadId;
+
+    /**
+     * 发起上传的教师ID
+     */
+    private final Long uploader;
+
+    /**
+     * 原始文件名
+     */
+    private final String fileName;
+
+    /**
+     * 初始化时声明的文件总大小（字节）
+     */
+    private final Long fileSize;
+
+    /**
+     * 每个分片的大小（字节），最后一个分片可以小于该值
+     */
+    private final Long partSize;
+
+    /**
+     * 分片总数
+     */
+    private final Integer partCount;
+}
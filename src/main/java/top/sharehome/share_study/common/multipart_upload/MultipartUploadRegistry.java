@@ -0,0 +1,87 @@
+package top.sharehome.share_study.common.multipart_upload;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.mapper.MultipartUploadMapper;
+import top.sharehome.share_study.model.entity.MultipartUpload;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+
+/**
+ * 分片上传登记表
+ * 初始化分片上传时按分片上传ID把上传者和分片规划登记到t_multipart_upload表（需要先执行V6迁移），
+ * 上传分片、完成和取消时据此校验归属和分片大小，所以同一次分片上传的请求可以落在任意节点；
+ * 完成或取消后删除登记，超过expire-after-access没有上传分片的登记视为过期，之后的请求会被拒绝，
+ * 过期的记录在登记新的分片上传时顺带清理
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class MultipartUploadRegistry {
+    @Resource
+    private MultipartUploadMapper multipartUploadMapper;
+
+    @Value("${tencent.cos.multipart.expire-after-access:24h}")
+    private Duration expireAfterAccess;
+
+    /**
+     * 登记分片上传规划
+     *
+     * @param plan 分片上传规划
+     */
+    public void register(MultipartUploadPlan plan) {
+        long now = System.currentTimeMillis();
+        LambdaQueryWrapper<MultipartUpload> expiredQueryWrapper = new LambdaQueryWrapper<>();
+        expiredQueryWrapper.lt(MultipartUpload::getAccessTime, now - expireAfterAccess.toMillis());
+        multipartUploadMapper.delete(expiredQueryWrapper);
+        MultipartUpload multipartUpload = new MultipartUpload();
+        multipartUpload.setUploadId(plan.getUploadId());
+        multipartUpload.setObjectKey(plan.getKey());
+        multipartUpload.setUploader(plan.getUploader());
+        multipartUpload.setFileName(plan.getFileName());
+        multipartUpload.setFileSize(plan.getFileSize());
+        multipartUpload.setPartSize(plan.getPartSize());
+        multipartUpload.setPartCount(plan.getPartCount());
+        multipartUpload.setAccessTime(now);
+        multipartUploadMapper.insert(multipartUpload);
+    }
+
+    /**
+     * 查询分片上传规划
+     *
+     * @param uploadId 分片上传ID
+     * @return 分片上传规划，不存在或已过期时返回null
+     */
+    public MultipartUploadPlan get(String uploadId) {
+        MultipartUpload multipartUpload = multipartUploadMapper.selectById(uploadId);
+        if (multipartUpload == null || multipartUpload.getAccessTime() < System.currentTimeMillis() - expireAfterAccess.toMillis()) {
+            return null;
+        }
+        return new MultipartUploadPlan(multipartUpload.getObjectKey(), multipartUpload.getUploadId(), multipartUpload.getUploader(),
+                multipartUpload.getFileName(), multipartUpload.getFileSize(), multipartUpload.getPartSize(), multipartUpload.getPartCount());
+    }
+
+    /**
+     * 上传分片后刷新最近一次操作的时间，持续上传的分片上传不会过期
+     *
+     * @param uploadId 分片上传ID
+     */
+    public void touch(String uploadId) {
+        LambdaUpdateWrapper<MultipartUpload> updateWrapper = new LambdaUpdateWrapper<>();
+        updateWrapper.set(MultipartUpload::getAccessTime, System.currentTimeMillis())
+                .eq(MultipartUpload::getUploadId, uploadId);
+        multipartUploadMapper.update(null, updateWrapper);
+    }
+
+    /**
+     * 分片上传完成或取消后移除登记
+     *
+     * @param uploadId 分片上传ID
+     */
+    public void remove(String uploadId) {
+        multipartUploadMapper.deleteById(uploadId);
+    }
+}
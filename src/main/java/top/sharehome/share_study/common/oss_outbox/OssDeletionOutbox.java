@@ -0,0 +1,280 @@
+package top.sharehome.share_study.common.oss_outbox;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.MultiObjectDeleteException;
+import com.qcloud.cos.model.DeleteObjectsRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.mapper.OssDeletionMapper;
+import top.sharehome.share_study.model.entity.OssDeletion;
+import top.sharehome.share_study.utils.TencentOssUtil;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * OSS对象删除发件箱
+ * 删除数据时只在当前事务中登记对象键，不在事务里逐个调用COS，事务回滚时登记也一起回滚，
+ * 后台定时取出到期的对象键，每次最多1000个调用一次COS批量删除，删除失败的按指数退避推迟重试，
+ * 多个节点同时取到同一批对象键时只会重复删除，COS删除不存在的对象不会报错，结果不受影响
+ * 本节点登记过对象或者上一轮还有剩余时才会查询发件箱，其他节点遗留的记录由低频的兜底扫描处理
+ * 发件箱需要先执行V5迁移创建t_oss_deletion表，通过tencent.cos.deletion.outbox-enabled开启；
+ * 未开启时不访问该表，事务提交后把对象键放进内存队列，同样由后台定时删除，不占用请求线程，
+ * 删除失败的在内存中按指数退避重试，最多尝试max-attempts次，节点重启时尚未删除的对象会丢失
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+public class OssDeletionOutbox {
+    /**
+     * COS批量删除单次最多的对象数
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    @Resource
+    private OssDeletionMapper ossDeletionMapper;
+
+    @Resource
+    private COSClient cosClient;
+
+    @Value("${tencent.cos.deletion.outbox-enabled:false}")
+    private boolean outboxEnabled;
+
+    @Value("${tencent.cos.deletion.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 第一次重试的等待时间，之后每失败一次翻倍
+     */
+    @Value("${tencent.cos.deletion.initial-backoff:5s}")
+    private Duration initialBackoff;
+
+    @Value("${tencent.cos.deletion.max-backoff:10m}")
+    private Duration maxBackoff;
+
+    /**
+     * 未开启发件箱时单个对象最多的删除尝试次数
+     */
+    @Value("${tencent.cos.deletion.max-attempts:10}")
+    private int maxAttempts;
+
+    /**
+     * 发件箱中是否可能还有到期的对象
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    /**
+     * 未开启发件箱时等待删除的对象，只用到对象键、已失败次数和下一次尝试时间
+     */
+    private final Queue<OssDeletion> memoryQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 在当前事务中登记需要删除的文件，事务提交后由后台删除，未开启发件箱时事务提交后放进内存队列
+     *
+     * @param urls 文件存储的url
+     */
+    public void enqueue(Collection<String> urls) {
+        List<String> objectKeys = new ArrayList<>();
+        for (String url : urls) {
+            if (StringUtils.isEmpty(url)) {
+                continue;
+            }
+            String objectKey = TencentOssUtil.parseKey(url);
+            if (objectKey == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.OSS_DELETES_OBJECTS_EXCEPTIONALLY), "链接错误");
+            }
+            objectKeys.add(objectKey);
+        }
+        if (objectKeys.isEmpty()) {
+            return;
+        }
+        if (!outboxEnabled) {
+            TransactionUtils.afterCommit(() -> {
+                long now = System.currentTimeMillis();
+                objectKeys.forEach(objectKey -> memoryQueue.add(new OssDeletion(null, objectKey, 0, now, null)));
+            });
+            return;
+        }
+        for (int from = 0; from < objectKeys.size(); from += MAX_BATCH_SIZE) {
+            ossDeletionMapper.insertBatch(objectKeys.subList(from, Math.min(from + MAX_BATCH_SIZE, objectKeys.size())), System.currentTimeMillis());
+        }
+        TransactionUtils.afterCommit(() -> pending.set(true));
+    }
+
+    /**
+     * 在当前事务中登记需要删除的文件，事务提交后由后台删除，未开启发件箱时事务提交后放进内存队列
+     *
+     * @param url 文件存储的url
+     */
+    public void enqueue(String url) {
+        enqueue(Collections.singletonList(url));
+    }
+
+    /**
+     * 定时批量删除到期的对象
+     */
+    @Scheduled(fixedDelayString = "${tencent.cos.deletion.drain-interval:5000}")
+    public void drain() {
+        if (!outboxEnabled) {
+            drainMemory();
+            return;
+        }
+        if (!pending.getAndSet(false)) {
+            return;
+        }
+        try {
+            int limit = Math.min(batchSize, MAX_BATCH_SIZE);
+            List<OssDeletion> ossDeletions;
+            do {
+                LambdaQueryWrapper<OssDeletion> ossDeletionLambdaQueryWrapper = new LambdaQueryWrapper<>();
+                ossDeletionLambdaQueryWrapper
+                        .le(OssDeletion::getNextAttemptTime, System.currentTimeMillis())
+                        .orderByAsc(OssDeletion::getNextAttemptTime)
+                        .last("limit " + limit);
+                ossDeletions = ossDeletionMapper.selectList(ossDeletionLambdaQueryWrapper);
+            } while (!ossDeletions.isEmpty() && deleteObjects(ossDeletions) && ossDeletions.size() == limit);
+            // 还有未到期的重试记录时继续轮询
+            if (ossDeletionMapper.selectCount(null) > 0) {
+                pending.set(true);
+            }
+        } catch (Exception e) {
+            pending.set(true);
+            log.warn("OssDeletionOutbox:{},Description:{}", e.getClass(), "OSS待删除对象处理失败，下次继续重试");
+        }
+    }
+
+    /**
+     * 兜底扫描，处理重启前或者其他节点遗留的记录
+     */
+    @Scheduled(initialDelayString = "${tencent.cos.deletion.sweep-interval:600000}", fixedDelayString = "${tencent.cos.deletion.sweep-interval:600000}")
+    public void sweep() {
+        pending.set(true);
+    }
+
+    /**
+     * 未开启发件箱时批量删除内存队列中到期的对象，失败的推迟下一次尝试时间后放回队列，超过最大尝试次数的放弃
+     */
+    private void drainMemory() {
+        if (memoryQueue.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<OssDeletion> dueDeletions = new ArrayList<>();
+        List<OssDeletion> laterDeletions = new ArrayList<>();
+        OssDeletion ossDeletion;
+        while ((ossDeletion = memoryQueue.poll()) != null) {
+            (ossDeletion.getNextAttemptTime() <= now ? dueDeletions : laterDeletions).add(ossDeletion);
+        }
+        memoryQueue.addAll(laterDeletions);
+        int limit = Math.min(batchSize, MAX_BATCH_SIZE);
+        int abandonedCount = 0;
+        for (int from = 0; from < dueDeletions.size(); from += limit) {
+            List<OssDeletion> batch = dueDeletions.subList(from, Math.min(from + limit, dueDeletions.size()));
+            Set<String> failedKeys = deleteKeys(batch);
+            for (OssDeletion failedDeletion : batch) {
+                if (!failedKeys.contains(failedDeletion.getObjectKey())) {
+                    continue;
+                }
+                int attempts = failedDeletion.getAttempts();
+                if (attempts + 1 >= maxAttempts) {
+                    abandonedCount++;
+                    continue;
+                }
+                memoryQueue.add(new OssDeletion(null, failedDeletion.getObjectKey(), attempts + 1, now + backoff(attempts), null));
+            }
+            if (!failedKeys.isEmpty()) {
+                log.warn("OssDeletionOutbox:{},Description:{}", failedKeys.size(), "个OSS对象删除失败，推迟重试");
+            }
+        }
+        if (abandonedCount > 0) {
+            log.warn("OssDeletionOutbox:{},Description:{}", abandonedCount, "个OSS对象多次删除失败，放弃删除");
+        }
+    }
+
+    /**
+     * 批量删除一批对象，删除成功（包括对象已不存在）的移除记录，失败的推迟下一次尝试时间
+     *
+     * @param ossDeletions 待删除对象
+     * @return 全部删除成功时返回true
+     */
+    private boolean deleteObjects(List<OssDeletion> ossDeletions) {
+        Set<String> failedKeys = deleteKeys(ossDeletions);
+        List<Long> deletedIds = ossDeletions.stream()
+                .filter(ossDeletion -> !failedKeys.contains(ossDeletion.getObjectKey()))
+                .map(OssDeletion::getId)
+                .collect(Collectors.toList());
+        if (!deletedIds.isEmpty()) {
+            ossDeletionMapper.deleteBatchIds(deletedIds);
+        }
+        if (failedKeys.isEmpty()) {
+            return true;
+        }
+
+        // 按已失败次数分组，同一组的下一次尝试时间相同，一组一条UPDATE
+        Map<Integer, List<Long>> failedIdsByAttempts = ossDeletions.stream()
+                .filter(ossDeletion -> failedKeys.contains(ossDeletion.getObjectKey()))
+                .collect(Collectors.groupingBy(OssDeletion::getAttempts, Collectors.mapping(OssDeletion::getId, Collectors.toList())));
+        long now = System.currentTimeMillis();
+        failedIdsByAttempts.forEach((attempts, ids) -> {
+            LambdaUpdateWrapper<OssDeletion> ossDeletionLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
+            ossDeletionLambdaUpdateWrapper
+                    .in(OssDeletion::getId, ids)
+                    .set(OssDeletion::getAttempts, attempts + 1)
+                    .set(OssDeletion::getNextAttemptTime, now + backoff(attempts));
+            ossDeletionMapper.update(null, ossDeletionLambdaUpdateWrapper);
+        });
+        log.warn("OssDeletionOutbox:{},Description:{}", failedKeys.size(), "个OSS对象删除失败，推迟重试");
+        return false;
+    }
+
+    /**
+     * 调用一次COS批量删除
+     *
+     * @param ossDeletions 待删除对象，不超过1000个
+     * @return 删除失败的对象键，对象已不存在视为删除成功
+     */
+    private Set<String> deleteKeys(List<OssDeletion> ossDeletions) {
+        DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(TencentOssUtil.BUCKET_NAME);
+        deleteObjectsRequest.setQuiet(true);
+        deleteObjectsRequest.setKeys(ossDeletions.stream()
+                .map(ossDeletion -> new DeleteObjectsRequest.KeyVersion(ossDeletion.getObjectKey()))
+                .collect(Collectors.toList()));
+        try {
+            cosClient.deleteObjects(deleteObjectsRequest);
+            return Collections.emptySet();
+        } catch (MultiObjectDeleteException e) {
+            return e.getErrors().stream()
+                    .filter(error -> !"NoSuchKey".equals(error.getCode()))
+                    .map(MultiObjectDeleteException.DeleteError::getKey)
+                    .collect(Collectors.toSet());
+        } catch (CosClientException e) {
+            return ossDeletions.stream().map(OssDeletion::getObjectKey).collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * 指数退避，不超过最大等待时间
+     *
+     * @param attempts 已失败次数
+     * @return 等待时间（毫秒）
+     */
+    private long backoff(int attempts) {
+        long backoff = initialBackoff.toMillis() << Math.min(attempts, 30);
+        return Math.min(backoff, maxBackoff.toMillis());
+    }
+}
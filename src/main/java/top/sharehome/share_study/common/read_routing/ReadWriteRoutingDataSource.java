@@ -0,0 +1,130 @@
+package top.sharehome.share_study.common.read_routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务（@Transactional(readOnly = true)）轮询路由到从库，其余的读写事务和事务外的语句都走主库，
+ * 登录用户提交过读写事务后，在ReadYourWritesTracker的窗口内其只读事务也走主库；
+ * 通过pinToPrimary标记过的请求（例如响应中带有按内存版本号生成的ETag）其只读事务也走主库，保证响应内容不比ETag旧
+ * 路由在取连接时按事务同步状态决定，而事务管理器在同步状态就绪之前就会取连接，
+ * 所以必须包在LazyConnectionDataSourceProxy里使用，让真正的连接推迟到第一条语句执行时再取
+ * 从库取不到连接时退回主库，从库故障只会让读请求回到主库，不会让读请求失败
+ *
+ * @author AntonyCheng
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    public static final String PRIMARY = "primary";
+
+    public static final String REPLICA_PREFIX = "replica-";
+
+    /**
+     * 标记当前请求只读主库的请求属性名称
+     */
+    public static final String PIN_PRIMARY_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".PIN_PRIMARY";
+
+    private final DataSource primary;
+
+    private final List<DataSource> replicas;
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWritesTracker = readYourWritesTracker;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targetDataSources.put(REPLICA_PREFIX + i, replicas.get(i));
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+        // 路由键总是上面登记过的，查不到时说明配置有误，不能静默退回主库
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // 读写事务提交后记录当前用户，回滚时不记录
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWritesTracker.markWritten();
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (replicas.isEmpty() || isPinnedToPrimary() || readYourWritesTracker.isSticky()) {
+            return PRIMARY;
+        }
+        return REPLICA_PREFIX + Math.floorMod(counter.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * 标记当前请求的只读事务都走主库，不在请求线程中时什么也不做
+     * 内容版本号在写事务提交后才递增，从库却可能还没追上，按版本号生成ETag的响应如果从从库读取，
+     * 客户端会把旧内容和新ETag一起缓存下来，之后一直收到304而看不到这次修改
+     */
+    public static void pinToPrimary() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(PIN_PRIMARY_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private boolean isPinnedToPrimary() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return requestAttributes != null && requestAttributes.getAttribute(PIN_PRIMARY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object lookupKey = determineCurrentLookupKey();
+        try {
+            return getResolvedDataSources().get(lookupKey).getConnection();
+        } catch (SQLException e) {
+            if (PRIMARY.equals(lookupKey)) {
+                throw e;
+            }
+            log.warn("ReadWriteRoutingDataSource:{},Description:{}", e.getClass(), lookupKey + "获取连接失败，本次只读事务退回主库");
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * 关闭从库连接池，主库连接池由容器管理
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable) {
+                ((Closeable) replica).close();
+            }
+        }
+    }
+}
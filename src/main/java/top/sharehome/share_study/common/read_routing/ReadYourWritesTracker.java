@@ -0,0 +1,134 @@
+package top.sharehome.share_study.common.read_routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * 读己之写跟踪器
+ * 登录用户的读写事务提交后记录该用户，在stickiness窗口内该用户的只读事务仍然走主库，
+ * 避免刚修改完资料、发完评论就从还没追上的从库读到旧数据；其他用户和未登录请求不受影响
+ * 最后一次写入的时间同时通过Cookie和响应头X-Last-Write交给客户端，之后的请求带着它落到任何节点都能判断是否仍在窗口内，
+ * 本节点内存中的记录用于不回传Cookie的客户端；客户端伪造的时间只会让它自己的查询多走主库，未来的时间不予采信
+ *
+ * @author AntonyCheng
+ */
+public class ReadYourWritesTracker {
+    /**
+     * 携带最后一次写入时间（毫秒时间戳）的Cookie名称
+     */
+    public static final String LAST_WRITE_COOKIE = "share_study_last_write";
+
+    /**
+     * 携带最后一次写入时间（毫秒时间戳）的请求头和响应头名称
+     */
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+
+    private final Duration window;
+
+    private final Cache<Long, Long> lastWriteTimes;
+
+    public ReadYourWritesTracker(Duration window, long maximumSize) {
+        this.window = window;
+        this.lastWriteTimes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * 记录当前登录用户刚提交过写操作，并把写入时间交给客户端
+     */
+    public void markWritten() {
+        long now = System.currentTimeMillis();
+        Long userId = currentUserId();
+        if (userId != null) {
+            lastWriteTimes.put(userId, now);
+        }
+        HttpServletResponse response = currentResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, String.valueOf(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.getSeconds()));
+            response.addCookie(cookie);
+            response.setHeader(LAST_WRITE_HEADER, String.valueOf(now));
+        }
+    }
+
+    /**
+     * 当前请求是否还在写后的窗口内
+     *
+     * @return 客户端带回的写入时间或本节点记录的当前用户在窗口内时返回true
+     */
+    public boolean isSticky() {
+        if (isWithinWindow(clientLastWrite())) {
+            return true;
+        }
+        Long userId = currentUserId();
+        return userId != null && lastWriteTimes.getIfPresent(userId) != null;
+    }
+
+    private boolean isWithinWindow(long lastWrite) {
+        long now = System.currentTimeMillis();
+        return lastWrite > 0 && lastWrite <= now && now - lastWrite < window.toMillis();
+    }
+
+    /**
+     * 取出客户端带回的最后一次写入时间，请求头优先
+     *
+     * @return 写入时间，没有或者格式不对时返回0
+     */
+    private long clientLastWrite() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (!(requestAttributes instanceof ServletRequestAttributes)) {
+            return 0;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) requestAttributes).getRequest();
+        String header = request.getHeader(LAST_WRITE_HEADER);
+        if (header != null) {
+            return NumberUtils.toLong(header);
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                    return NumberUtils.toLong(cookie.getValue());
+                }
+            }
+        }
+        return 0;
+    }
+
+    private HttpServletResponse currentResponse() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return requestAttributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) requestAttributes).getResponse() : null;
+    }
+
+    /**
+     * 从当前请求的登录状态中取出教师ID，普通用户和管理员共用一个教师ID
+     *
+     * @return 教师ID，不在请求线程中或者未登录时返回null
+     */
+    private Long currentUserId() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        Object loginState = requestAttributes.getAttribute(CommonConstant.USER_LOGIN_STATE, RequestAttributes.SCOPE_SESSION);
+        if (loginState == null) {
+            loginState = requestAttributes.getAttribute(CommonConstant.ADMIN_LOGIN_STATE, RequestAttributes.SCOPE_SESSION);
+        }
+        return loginState instanceof TeacherLoginDto ? ((TeacherLoginDto) loginState).getId() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import java.lang.annotation.*;
+
+/**
+ * 接口SQL预算
+ * 标注在Controller方法（或Controller类）上，声明一次请求最多执行的SQL语句数，
+ * share-study.sql-budget.enforce开启后超出预算的那条语句直接抛出异常，集成测试中可以据此发现新引入的N+1查询
+ *
+ * @author AntonyCheng
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlBudget {
+    /**
+     * 一次请求最多执行的SQL语句数，0表示不允许访问数据库
+     */
+    int value();
+}
@@ -0,0 +1,83 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求级SQL统计拦截器
+ * 进入Controller方法前在当前线程上开始统计并取出@SqlBudget预算，请求结束后把统计累加到SqlBudgetMetrics，
+ * 同一形状的语句在一次请求中执行次数达到repeat-threshold时按疑似N+1记录警告日志
+ *
+ * @author AntonyCheng
+ */
+@Component
+@Slf4j
+public class SqlBudgetHandlerInterceptor implements HandlerInterceptor {
+    @Resource
+    private SqlBudgetMetrics sqlBudgetMetrics;
+
+    @Value("${share-study.sql-budget.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 没有标注@SqlBudget的接口使用的预算，小于0（默认-1）表示不限制
+     */
+    @Value("${share-study.sql-budget.default-budget:-1}")
+    private int defaultBudget;
+
+    /**
+     * 同一形状的语句执行次数达到该值时视为疑似N+1
+     */
+    @Value("${share-study.sql-budget.repeat-threshold:5}")
+    private int repeatThreshold;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        SqlBudget sqlBudget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), SqlBudget.class);
+        if (sqlBudget == null) {
+            sqlBudget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), SqlBudget.class);
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern);
+        SqlRequestStats.start(endpoint, sqlBudget == null ? defaultBudget : sqlBudget.value());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlRequestStats stats = SqlRequestStats.end();
+        if (stats == null) {
+            return;
+        }
+        List<Map.Entry<String, Integer>> repeatedShapes = stats.repeatedShapes(repeatThreshold);
+        sqlBudgetMetrics.record(stats, !repeatedShapes.isEmpty());
+        for (Map.Entry<String, Integer> repeatedShape : repeatedShapes) {
+            log.warn("SqlBudgetHandlerInterceptor:{},Description:{}", stats.getEndpoint(), "同一语句执行了" + repeatedShape.getValue() + "次，疑似N+1查询：" + repeatedShape.getKey());
+        }
+        if (stats.isBudgetExceeded()) {
+            log.warn("SqlBudgetHandlerInterceptor:{},Description:{}", stats.getEndpoint(), "SQL语句数超出预算" + stats.getBudget());
+        }
+    }
+
+    /**
+     * 获取重复次数阈值
+     */
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+}
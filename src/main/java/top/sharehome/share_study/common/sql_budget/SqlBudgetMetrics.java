@@ -0,0 +1,90 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口汇总的SQL指标
+ * 每个请求结束后累加一次，记录请求数、语句总数、单次请求最多的语句数、数据库总耗时、
+ * 出现重复语句形状（疑似N+1）的请求数和超出预算的请求数，供管理端查看
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class SqlBudgetMetrics {
+    private final Map<String, EndpointCounters> countersMap = new ConcurrentHashMap<>();
+
+    /**
+     * 累加一次请求的统计
+     *
+     * @param stats    请求统计
+     * @param repeated 是否出现了重复的语句形状
+     */
+    public void record(SqlRequestStats stats, boolean repeated) {
+        EndpointCounters counters = countersMap.computeIfAbsent(stats.getEndpoint(), endpoint -> new EndpointCounters());
+        counters.requests.increment();
+        counters.statements.add(stats.getStatementCount());
+        counters.maxStatements.accumulate(stats.getStatementCount());
+        counters.nanos.add(stats.getTotalNanos());
+        if (repeated) {
+            counters.repeatedRequests.increment();
+        }
+        if (stats.isBudgetExceeded()) {
+            counters.overBudgetRequests.increment();
+        }
+    }
+
+    /**
+     * 获取各接口的指标快照
+     *
+     * @return 接口标识到指标的映射，按接口标识排序
+     */
+    public Map<String, EndpointSnapshot> snapshot() {
+        Map<String, EndpointSnapshot> snapshot = new TreeMap<>();
+        countersMap.forEach((endpoint, counters) -> {
+            EndpointSnapshot endpointSnapshot = new EndpointSnapshot();
+            long requests = counters.requests.sum();
+            endpointSnapshot.setRequests(requests);
+            endpointSnapshot.setStatements(counters.statements.sum());
+            endpointSnapshot.setMaxStatements(counters.maxStatements.get());
+            endpointSnapshot.setAvgStatements(requests == 0 ? 0 : (double) endpointSnapshot.getStatements() / requests);
+            endpointSnapshot.setDbTimeMillis(counters.nanos.sum() / 1_000_000);
+            endpointSnapshot.setRepeatedRequests(counters.repeatedRequests.sum());
+            endpointSnapshot.setOverBudgetRequests(counters.overBudgetRequests.sum());
+            snapshot.put(endpoint, endpointSnapshot);
+        });
+        return snapshot;
+    }
+
+    private static class EndpointCounters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder repeatedRequests = new LongAdder();
+        private final LongAdder overBudgetRequests = new LongAdder();
+    }
+
+    /**
+     * 单个接口的指标
+     */
+    @Data
+    public static class EndpointSnapshot implements Serializable {
+        private static final long serialVersionUID = 3920475816624093157L;
+
+        private long requests;
+        private long statements;
+        private long maxStatements;
+        private double avgStatements;
+        private long dbTimeMillis;
+        private long repeatedRequests;
+        private long overBudgetRequests;
+    }
+}
@@ -0,0 +1,115 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 单次请求的SQL统计
+ * 请求开始时绑定到当前线程，MyBatis拦截器每执行一条语句记录一次，
+ * 语句按形状（去掉多余空白、IN列表折叠后的SQL）计数，同一形状重复执行多次通常意味着循环中逐条查询
+ *
+ * @author AntonyCheng
+ */
+@Getter
+public class SqlRequestStats {
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 接口标识，请求方法加路径模板
+     */
+    private final String endpoint;
+
+    /**
+     * 语句数预算，小于0表示不限制，0表示不允许执行任何语句
+     */
+    private final int budget;
+
+    private int statementCount;
+
+    private long totalNanos;
+
+    /**
+     * 是否有语句超出了预算
+     */
+    private boolean budgetExceeded;
+
+    private final Map<String, Integer> shapeCounts = new LinkedHashMap<>();
+
+    public SqlRequestStats(String endpoint, int budget) {
+        this.endpoint = endpoint;
+        this.budget = budget;
+    }
+
+    /**
+     * 开始统计当前线程上的请求
+     *
+     * @param endpoint 接口标识
+     * @param budget   语句数预算
+     * @return 本次请求的统计
+     */
+    public static SqlRequestStats start(String endpoint, int budget) {
+        SqlRequestStats stats = new SqlRequestStats(endpoint, budget);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return 当前线程上的请求统计，不在请求中（如定时任务）时返回null
+     */
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 结束统计并解绑
+     *
+     * @return 本次请求的统计，没有开始过时返回null
+     */
+    public static SqlRequestStats end() {
+        SqlRequestStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * 记录一条已经执行的语句
+     *
+     * @param shape   语句形状
+     * @param elapsed 执行耗时（纳秒）
+     */
+    public void record(String shape, long elapsed) {
+        statementCount++;
+        totalNanos += elapsed;
+        shapeCounts.merge(shape, 1, Integer::sum);
+    }
+
+    /**
+     * 即将执行一条语句，检查执行后是否会超出预算
+     *
+     * @return 超出预算时返回true
+     */
+    public boolean checkBudget() {
+        if (budget >= 0 && statementCount >= budget) {
+            budgetExceeded = true;
+        }
+        return budgetExceeded;
+    }
+
+    /**
+     * 获取重复执行次数达到阈值的语句形状
+     *
+     * @param threshold 重复次数阈值
+     * @return 语句形状及其执行次数，按执行次数从多到少排列
+     */
+    public List<Map.Entry<String, Integer>> repeatedShapes(int threshold) {
+        List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+        shapeCounts.forEach((shape, count) -> {
+            if (count >= threshold) {
+                repeated.add(new AbstractMap.SimpleImmutableEntry<>(shape, count));
+            }
+        });
+        repeated.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        return repeated;
+    }
+}
@@ -0,0 +1,73 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * SQL语句计数拦截器
+ * 拦截StatementHandler真正执行语句的方法（分页插件生成的COUNT语句也会计入），
+ * 把语句数、耗时和语句形状记到当前请求的SqlRequestStats上，不在请求中执行的语句（定时任务等）不统计
+ * 开启enforce后，请求的语句数超出@SqlBudget声明的预算时，超出的那条语句不再执行，直接抛出异常
+ *
+ * @author AntonyCheng
+ */
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class SqlStatementInterceptor implements Interceptor {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 占位符个数不同的IN列表折叠成同一个形状
+     */
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+    private final boolean enforce;
+
+    public SqlStatementInterceptor(boolean enforce) {
+        this.enforce = enforce;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats == null) {
+            return invocation.proceed();
+        }
+        if (stats.checkBudget() && enforce) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ERRORS_OCCURRED_IN_THE_DATABASE_SERVICE),
+                    "接口" + stats.getEndpoint() + "执行的SQL语句数超出预算" + stats.getBudget() + "，请检查是否存在循环中逐条查询");
+        }
+        String shape = shape(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            stats.record(shape, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 计算语句形状，去掉多余空白并折叠IN列表
+     *
+     * @param sql 预编译的SQL
+     * @return 语句形状
+     */
+    static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        return IN_LIST.matcher(shape).replaceAll("(?)");
+    }
+}
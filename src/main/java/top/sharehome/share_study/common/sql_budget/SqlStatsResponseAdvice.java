@@ -0,0 +1,53 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL统计响应头
+ * 开发环境开启share-study.sql-budget.response-headers后，在写出响应体之前把本次请求的语句数、数据库耗时和
+ * 疑似N+1的语句形状数写入响应头，前端联调时在浏览器里就能看到；直接写响应流的下载接口不带这些响应头
+ *
+ * @author AntonyCheng
+ */
+@RestControllerAdvice
+public class SqlStatsResponseAdvice implements ResponseBodyAdvice<Object> {
+    public static final String SQL_COUNT_HEADER = "X-Sql-Count";
+
+    public static final String SQL_TIME_HEADER = "X-Sql-Time-Ms";
+
+    public static final String SQL_REPEATED_HEADER = "X-Sql-Repeated";
+
+    @Resource
+    private SqlBudgetHandlerInterceptor sqlBudgetHandlerInterceptor;
+
+    @Value("${share-study.sql-budget.response-headers:false}")
+    private boolean responseHeaders;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return responseHeaders;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            response.getHeaders().set(SQL_COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+            response.getHeaders().set(SQL_TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(stats.getTotalNanos())));
+            response.getHeaders().set(SQL_REPEATED_HEADER, String.valueOf(stats.repeatedShapes(sqlBudgetHandlerInterceptor.getRepeatThreshold()).size()));
+        }
+        return body;
+    }
+}
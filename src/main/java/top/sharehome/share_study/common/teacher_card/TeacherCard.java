@@ -0,0 +1,51 @@
+package top.sharehome.share_study.common.teacher_card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import top.sharehome.share_study.model.entity.Teacher;
+
+import java.io.Serializable;
+
+/**
+ * 教师名片
+ * 只包含页面展示需要的字段，不包含密码、贡献度和消息数等字段，创建后不可修改
+ *
+ * @author AntonyCheng
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TeacherCard implements Serializable {
+
+    private static final long serialVersionUID = 5192847301645729803L;
+
+    /**
+     * 教师唯一ID
+     */
+    private final Long id;
+
+    /**
+     * 教师姓名
+     */
+    private final String name;
+
+    /**
+     * 教师头像
+     */
+    private final String avatar;
+
+    /**
+     * 所属高校ID
+     */
+    private final Long belong;
+
+    /**
+     * 用户角色（0普通用户，1管理员用户，2超级管理员）
+     */
+    private final Integer role;
+
+    public static TeacherCard of(Teacher teacher) {
+        return new TeacherCard(teacher.getId(), teacher.getName(), teacher.getAvatar(), teacher.getBelong(), teacher.getRole());
+    }
+}
@@ -0,0 +1,159 @@
+package top.sharehome.share_study.common.teacher_card;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+import top.sharehome.share_study.mapper.TeacherMapper;
+import top.sharehome.share_study.model.entity.Teacher;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 教师名片缓存
+ * 分页数据组装时只需要教师的姓名、头像、角色和所属高校，这里用Caffeine（W-TinyLFU淘汰策略）按ID缓存教师名片，
+ * 一页数据涉及的教师通过getAll一次取出，未命中的部分合并成一条 IN 查询，
+ * 教师信息修改和删除提交后逐出对应名片，开启二级缓存时把逐出的教师ID通过同一个Redis频道通知其他节点，
+ * 过期时间只作为兜底（未开启二级缓存时其他节点的名片在expire-after-write后过期）
+ *
+ * @author AntonyCheng
+ */
+@Component
+public class TeacherCardCache {
+    /**
+     * 失效通知中的缓存名称
+     */
+    private static final String CACHE_NAME = "teacherCard";
+
+    /**
+     * 失效通知中多个教师ID之间的分隔符
+     */
+    private static final String ID_SEPARATOR = ",";
+
+    @Resource
+    private TeacherMapper teacherMapper;
+
+    @Resource
+    private ObjectProvider<TwoLevelCacheManager> twoLevelCacheManagerProvider;
+
+    @Value("${share-study.teacher-card.maximum-size:10000}")
+    private Long maximumSize;
+
+    @Value("${share-study.teacher-card.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    /**
+     * 名片版本号，每次逐出加1，供依赖教师信息的响应计算ETag
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private Cache<Long, TeacherCard> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.addKeyInvalidationListener(CACHE_NAME, this::invalidateLocal));
+    }
+
+    /**
+     * 获取单个教师名片
+     *
+     * @param id 教师ID
+     * @return 教师名片，教师不存在时返回null
+     */
+    public TeacherCard get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return getAll(Collections.singleton(id)).get(id);
+    }
+
+    /**
+     * 批量获取教师名片，未命中的教师用一条查询加载
+     *
+     * @param ids 教师ID
+     * @return 教师ID到名片的映射，不存在的教师不在结果中
+     */
+    public Map<Long, TeacherCard> getAll(Collection<Long> ids) {
+        Set<Long> keys = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        return cache.getAll(keys, this::load);
+    }
+
+    /**
+     * 逐出教师名片并通知其他节点，在事务中调用时等到事务提交后再逐出
+     *
+     * @param id 教师ID
+     */
+    public void invalidate(Long id) {
+        invalidateAll(Collections.singletonList(id));
+    }
+
+    /**
+     * 批量逐出教师名片并通知其他节点，在事务中调用时等到事务提交后再逐出
+     *
+     * @param ids 教师ID
+     */
+    public void invalidateAll(Collection<Long> ids) {
+        List<Long> keys = new ArrayList<>(ids);
+        if (keys.isEmpty()) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            cache.invalidateAll(keys);
+            version.incrementAndGet();
+            String key = keys.stream().map(String::valueOf).collect(Collectors.joining(ID_SEPARATOR));
+            twoLevelCacheManagerProvider.ifAvailable(twoLevelCacheManager -> twoLevelCacheManager.publishInvalidation(CACHE_NAME, key));
+        });
+    }
+
+    /**
+     * 只逐出本节点的教师名片
+     *
+     * @param key 以逗号分隔的教师ID，为null时清空全部名片
+     */
+    private void invalidateLocal(String key) {
+        if (key == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidateAll(Arrays.stream(key.split(ID_SEPARATOR)).map(Long::valueOf).collect(Collectors.toList()));
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * 获取名片版本号
+     *
+     * @return 名片版本号
+     */
+    public long version() {
+        return version.get();
+    }
+
+    private Map<Long, TeacherCard> load(Iterable<? extends Long> ids) {
+        List<Long> keys = new ArrayList<>();
+        ids.forEach(keys::add);
+        LambdaQueryWrapper<Teacher> teacherLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        teacherLambdaQueryWrapper
+                .select(Teacher::getId, Teacher::getName, Teacher::getAvatar, Teacher::getBelong, Teacher::getRole)
+                .in(Teacher::getId, keys);
+        return teacherMapper.selectList(teacherLambdaQueryWrapper).stream()
+                .map(TeacherCard::of)
+                .collect(Collectors.toMap(TeacherCard::getId, Function.identity()));
+    }
+}
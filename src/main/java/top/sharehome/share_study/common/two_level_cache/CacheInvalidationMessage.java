@@ -0,0 +1,35 @@
+package top.sharehome.share_study.common.two_level_cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 二级缓存失效通知
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage implements Serializable {
+
+    private static final long serialVersionUID = -3870214962751382046L;
+
+    /**
+     * 发出通知的节点ID，节点收到自己发出的通知时直接忽略
+     */
+    private String nodeId;
+
+    /**
+     * 缓存名称
+     */
+    private String cacheName;
+
+    /**
+     * 失效的Redis键，为null时表示清空整个缓存
+     */
+    private String key;
+}
@@ -0,0 +1,136 @@
+package top.sharehome.share_study.common.two_level_cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存
+ * 读取时先查本节点的Caffeine（L1），未命中再查Redis（L2）并回填L1；
+ * 写入和失效时同时修改L1和L2，再通过Redis发布订阅通知其他节点丢弃各自的L1
+ *
+ * @author AntonyCheng
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private final String name;
+
+    private final Cache<String, Object> localCache;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    public TwoLevelCache(String name, Cache<String, Object> localCache, TwoLevelCacheManager cacheManager) {
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String redisKey = redisKey(key);
+        Object value = localCache.getIfPresent(redisKey);
+        if (value != null) {
+            return value;
+        }
+        value = cacheManager.getRedisTemplate().opsForValue().get(redisKey);
+        if (value != null) {
+            localCache.put(redisKey, value);
+        }
+        return value;
+    }
+
+    /**
+     * 未命中时按键加载，同一个键的并发加载只执行一次，不同键的加载互不阻塞
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object storeValue = localCache.get(redisKey(key), redisKey -> {
+            Object value = cacheManager.getRedisTemplate().opsForValue().get(redisKey);
+            if (value != null) {
+                return value;
+            }
+            try {
+                value = toStoreValue(valueLoader.call());
+            } catch (Throwable e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            cacheManager.getRedisTemplate().opsForValue().set(redisKey, value, cacheManager.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+            cacheManager.publish(name, redisKey);
+            return value;
+        });
+        return (T) fromStoreValue(storeValue);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String redisKey = redisKey(key);
+        Object storeValue = toStoreValue(value);
+        cacheManager.getRedisTemplate().opsForValue().set(redisKey, storeValue, cacheManager.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+        localCache.put(redisKey, storeValue);
+        cacheManager.publish(name, redisKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String redisKey = redisKey(key);
+        cacheManager.getRedisTemplate().delete(redisKey);
+        localCache.invalidate(redisKey);
+        cacheManager.publish(name, redisKey);
+    }
+
+    @Override
+    public void clear() {
+        // 使用SCAN分批找出该缓存下的键，避免KEYS阻塞Redis
+        cacheManager.getRedisTemplate().execute((RedisCallback<Void>) connection -> {
+            ScanOptions scanOptions = ScanOptions.scanOptions().match(name + "::*").count(1000).build();
+            List<byte[]> keys = new ArrayList<>();
+            try (Cursor<byte[]> cursor = connection.scan(scanOptions)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                connection.del(keys.toArray(new byte[0][]));
+            }
+            return null;
+        });
+        localCache.invalidateAll();
+        cacheManager.publish(name, null);
+    }
+
+    /**
+     * 只丢弃本节点L1中的键，收到其他节点的失效通知时调用
+     *
+     * @param redisKey Redis键
+     */
+    void evictLocal(String redisKey) {
+        localCache.invalidate(redisKey);
+    }
+
+    /**
+     * 只清空本节点的L1，收到其他节点的清空通知时调用
+     */
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    private String redisKey(Object key) {
+        return name + "::" + key;
+    }
+}
@@ -0,0 +1,160 @@
+package top.sharehome.share_study.common.two_level_cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * 二级缓存管理器
+ * 按缓存名称懒创建TwoLevelCache，同时作为失效通知频道的监听器，收到其他节点的通知后丢弃本节点对应的L1，
+ * 不经过Spring Cache的本地缓存（如高校字典）也可以登记失效监听器，借用同一个频道通知其他节点
+ *
+ * @author AntonyCheng
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    /**
+     * 本节点ID，用于忽略自己发出的失效通知
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Consumer<String>> invalidationListeners = new ConcurrentHashMap<>();
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+
+    private final String channel;
+
+    private final Long localMaximumSize;
+
+    private final Duration localExpireAfterWrite;
+
+    private final Duration timeToLive;
+
+    public TwoLevelCacheManager(RedisTemplate<Object, Object> redisTemplate, String channel, Long localMaximumSize, Duration localExpireAfterWrite, Duration timeToLive) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.localMaximumSize = localMaximumSize;
+        this.localExpireAfterWrite = localExpireAfterWrite;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(cacheName,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaximumSize)
+                        .expireAfterWrite(localExpireAfterWrite)
+                        .build(),
+                this));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof CacheInvalidationMessage)) {
+            return;
+        }
+        CacheInvalidationMessage cacheInvalidationMessage = (CacheInvalidationMessage) body;
+        if (nodeId.equals(cacheInvalidationMessage.getNodeId())) {
+            return;
+        }
+        Consumer<String> invalidationListener = invalidationListeners.get(cacheInvalidationMessage.getCacheName());
+        if (invalidationListener != null) {
+            invalidationListener.accept(cacheInvalidationMessage.getKey());
+        }
+        TwoLevelCache cache = caches.get(cacheInvalidationMessage.getCacheName());
+        if (cache == null) {
+            return;
+        }
+        if (cacheInvalidationMessage.getKey() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(cacheInvalidationMessage.getKey());
+        }
+    }
+
+    /**
+     * 登记本地缓存的失效监听器，其他节点调用publishInvalidation后在本节点执行
+     *
+     * @param name     缓存名称
+     * @param listener 失效监听器
+     */
+    public void addInvalidationListener(String name, Runnable listener) {
+        invalidationListeners.put(name, key -> listener.run());
+    }
+
+    /**
+     * 登记按键失效的本地缓存监听器，其他节点调用publishInvalidation后在本节点执行，
+     * 监听器收到通知中的键，整个缓存作废时收到null
+     *
+     * @param name     缓存名称
+     * @param listener 失效监听器
+     */
+    public void addKeyInvalidationListener(String name, Consumer<String> listener) {
+        invalidationListeners.put(name, listener);
+    }
+
+    /**
+     * 通知其他节点作废整个本地缓存
+     *
+     * @param name 缓存名称
+     */
+    public void publishInvalidation(String name) {
+        publish(name, null);
+    }
+
+    /**
+     * 通知其他节点作废本地缓存中的部分数据
+     *
+     * @param name 缓存名称
+     * @param key  失效的键，由登记监听器的一方自行约定格式
+     */
+    public void publishInvalidation(String name, String key) {
+        publish(name, key);
+    }
+
+    /**
+     * 通知其他节点丢弃L1，通知失败时只记录日志，其他节点的L1仍会在过期后自动丢弃
+     *
+     * @param cacheName 缓存名称
+     * @param redisKey  Redis键，为null时表示清空整个缓存
+     */
+    void publish(String cacheName, String redisKey) {
+        try {
+            redisTemplate.convertAndSend(channel, new CacheInvalidationMessage(nodeId, cacheName, redisKey));
+        } catch (Exception e) {
+            log.warn("TwoLevelCacheManager:{},Description:{}", e.getClass(), "二级缓存失效通知发送失败");
+        }
+    }
+
+    RedisTemplate<Object, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+}
@@ -2,8 +2,11 @@ package top.sharehome.share_study.config;
 
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.sharehome.share_study.common.sql_budget.SqlStatementInterceptor;
 
 /**
  * MP 配置类
@@ -21,4 +24,13 @@ public class MybatisPlusConfig {
         mybatisPlusInterceptor.addInnerInterceptor(new PaginationInnerInterceptor());
         return mybatisPlusInterceptor;
     }
+
+    /**
+     * 按请求统计SQL语句数和耗时，开启enforce后超出@SqlBudget预算的语句直接失败，用于集成测试
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "share-study.sql-budget", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SqlStatementInterceptor sqlStatementInterceptor(@Value("${share-study.sql-budget.enforce:false}") boolean enforce) {
+        return new SqlStatementInterceptor(enforce);
+    }
 }
@@ -0,0 +1,118 @@
+package top.sharehome.share_study.config;
+
+import com.alibaba.druid.filter.Filter;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.spring.boot.autoconfigure.DruidDataSourceBuilder;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import top.sharehome.share_study.common.read_routing.ReadWriteRoutingDataSource;
+import top.sharehome.share_study.common.read_routing.ReadYourWritesTracker;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 读写分离配置类
+ * 开启share-study.datasource.routing.enabled后生效，主库使用spring.datasource的连接信息，
+ * 从库逐个配置在replicas下，连接池参数和主库一样取spring.datasource.druid，容器中的DataSource换成懒加载的路由数据源
+ *
+ * @author AntonyCheng
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "share-study.datasource.routing", name = "enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+    private static final String DRUID_PREFIX = "spring.datasource.druid";
+
+    private static final String REPLICAS_PREFIX = "share-study.datasource.routing.replicas";
+
+    @Bean(initMethod = "init", destroyMethod = "close")
+    public DruidDataSource primaryDataSource(DataSourceProperties dataSourceProperties, Environment environment, ObjectProvider<Filter> filters) {
+        return createDruidDataSource(ReadWriteRoutingDataSource.PRIMARY, environment, filters, dataSourceProperties.determineDriverClassName(),
+                dataSourceProperties.getUrl(), dataSourceProperties.getUsername(), dataSourceProperties.getPassword());
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(@Value("${share-study.datasource.routing.stickiness-window:5s}") Duration stickinessWindow,
+                                                       @Value("${share-study.datasource.routing.stickiness-maximum-size:100000}") Long stickinessMaximumSize) {
+        return new ReadYourWritesTracker(stickinessWindow, stickinessMaximumSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(DruidDataSource primaryDataSource,
+                                                                 ReadYourWritesTracker readYourWritesTracker,
+                                                                 DataSourceProperties dataSourceProperties,
+                                                                 Environment environment,
+                                                                 ObjectProvider<Filter> filters) throws Exception {
+        List<ReplicaProperties> replicaPropertiesList = Binder.get(environment)
+                .bind(REPLICAS_PREFIX, Bindable.listOf(ReplicaProperties.class))
+                .orElse(Collections.emptyList());
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaPropertiesList.size(); i++) {
+            ReplicaProperties replicaProperties = replicaPropertiesList.get(i);
+            // 从库的账号密码没有单独配置时沿用主库的
+            DruidDataSource replica = createDruidDataSource(ReadWriteRoutingDataSource.REPLICA_PREFIX + i, environment, filters, dataSourceProperties.determineDriverClassName(),
+                    replicaProperties.getUrl(),
+                    StringUtils.defaultIfEmpty(replicaProperties.getUsername(), dataSourceProperties.getUsername()),
+                    replicaProperties.getPassword() == null ? dataSourceProperties.getPassword() : replicaProperties.getPassword());
+            replica.init();
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, readYourWritesTracker);
+    }
+
+    /**
+     * 事务管理器和MyBatis使用的数据源，连接推迟到第一条语句执行时才按事务的只读属性路由
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSourceProxy = new LazyConnectionDataSourceProxy();
+        // 显式给出连接的默认属性（MySQL默认），避免代理初始化时为了探测默认属性去取一次连接
+        dataSourceProxy.setDefaultAutoCommit(true);
+        dataSourceProxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        dataSourceProxy.setTargetDataSource(readWriteRoutingDataSource);
+        return dataSourceProxy;
+    }
+
+    private DruidDataSource createDruidDataSource(String name, Environment environment, ObjectProvider<Filter> filters,
+                                                  String driverClassName, String url, String username, String password) {
+        DruidDataSource druidDataSource = DruidDataSourceBuilder.create().build();
+        Binder.get(environment).bind(DRUID_PREFIX, Bindable.ofInstance(druidDataSource));
+        // 与路由键同名，便于在连接池指标中区分主库和从库
+        druidDataSource.setName(name);
+        druidDataSource.setDriverClassName(driverClassName);
+        druidDataSource.setUrl(url);
+        druidDataSource.setUsername(username);
+        druidDataSource.setPassword(password);
+        druidDataSource.setProxyFilters(filters.orderedStream().collect(Collectors.toList()));
+        return druidDataSource;
+    }
+
+    /**
+     * 从库连接信息
+     */
+    @Data
+    public static class ReplicaProperties {
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -1,17 +1,27 @@
 package top.sharehome.share_study.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+
+import java.time.Duration;
 
 /**
  * Redis配置类
+ * 开启share-study.cache.two-level.enabled后生效，提供Caffeine+Redis的二级缓存
  *
  * @author AntonyCheng
  */
-//@Configuration
+@Configuration
+@ConditionalOnProperty(prefix = "share-study.cache.two-level", name = "enabled", havingValue = "true")
 public class RedisConfig extends CachingConfigurerSupport {
     @Bean
     public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
@@ -23,4 +33,22 @@ public class RedisConfig extends CachingConfigurerSupport {
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         return redisTemplate;
     }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisTemplate<Object, Object> redisTemplate,
+                                             @Value("${share-study.cache.two-level.channel:share_study:cache:invalidation}") String channel,
+                                             @Value("${share-study.cache.two-level.local-maximum-size:10000}") Long localMaximumSize,
+                                             @Value("${share-study.cache.two-level.local-expire-after-write:5m}") Duration localExpireAfterWrite,
+                                             @Value("${share-study.cache.two-level.ttl:30m}") Duration timeToLive) {
+        return new TwoLevelCacheManager(redisTemplate, channel, localMaximumSize, localExpireAfterWrite, timeToLive);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory, TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        // 订阅失效通知频道，收到其他节点的通知后丢弃本节点的L1
+        container.addMessageListener(cacheManager, new ChannelTopic(cacheManager.getChannel()));
+        return container;
+    }
 }
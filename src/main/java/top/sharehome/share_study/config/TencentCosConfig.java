@@ -0,0 +1,74 @@
+package top.sharehome.share_study.config;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.auth.BasicCOSCredentials;
+import com.qcloud.cos.auth.COSCredentials;
+import com.qcloud.cos.http.HttpProtocol;
+import com.qcloud.cos.region.Region;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 腾讯云COS配置类
+ * COSClient内部维护了HTTP连接池和后台线程，全局只创建一个实例复用，容器关闭时调用shutdown释放连接
+ *
+ * @author AntonyCheng
+ */
+@Configuration
+public class TencentCosConfig {
+    @Value("${tencent.cos.file.region}")
+    private String region;
+    @Value("${tencent.cos.file.secret-id}")
+    private String secretId;
+    @Value("${tencent.cos.file.secret-key}")
+    private String secretKey;
+
+    /**
+     * 连接池最大连接数
+     */
+    @Value("${tencent.cos.client.max-connections:200}")
+    private Integer maxConnections;
+
+    /**
+     * 建立连接超时时间（毫秒）
+     */
+    @Value("${tencent.cos.client.connection-timeout:10000}")
+    private Integer connectionTimeout;
+
+    /**
+     * 读取数据超时时间（毫秒）
+     */
+    @Value("${tencent.cos.client.socket-timeout:30000}")
+    private Integer socketTimeout;
+
+    /**
+     * 从连接池获取连接的超时时间（毫秒）
+     */
+    @Value("${tencent.cos.client.connection-request-timeout:5000}")
+    private Integer connectionRequestTimeout;
+
+    /**
+     * 失败重试次数
+     */
+    @Value("${tencent.cos.client.max-error-retry:3}")
+    private Integer maxErrorRetry;
+
+    @Bean(destroyMethod = "shutdown")
+    public COSClient cosClient() {
+        // 1 初始化用户身份信息（secretId, secretKey）
+        COSCredentials cred = new BasicCOSCredentials(secretId, secretKey);
+        // 2 设置 bucket 的地域以及连接池参数
+        ClientConfig clientConfig = new ClientConfig(new Region(region));
+        // 从 5.6.54 版本开始，默认使用了 https
+        clientConfig.setHttpProtocol(HttpProtocol.https);
+        clientConfig.setMaxConnectionsCount(maxConnections);
+        clientConfig.setConnectionTimeout(connectionTimeout);
+        clientConfig.setSocketTimeout(socketTimeout);
+        clientConfig.setConnectionRequestTimeout(connectionRequestTimeout);
+        clientConfig.setMaxErrorRetry(maxErrorRetry);
+        // 3 生成 cos 客户端
+        return new COSClient(cred, clientConfig);
+    }
+}
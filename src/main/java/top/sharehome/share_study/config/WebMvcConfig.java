@@ -3,9 +3,12 @@ package top.sharehome.share_study.config;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import top.sharehome.share_study.common.jackson_mapper.JacksonObjectMapper;
+import top.sharehome.share_study.common.sql_budget.SqlBudgetHandlerInterceptor;
 
+import javax.annotation.Resource;
 import java.util.List;
 
 /**
@@ -15,6 +18,19 @@ import java.util.List;
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
+    @Resource
+    private SqlBudgetHandlerInterceptor sqlBudgetHandlerInterceptor;
+
+    /**
+     * 添加拦截器，按请求统计SQL语句
+     *
+     * @param registry 拦截器注册器
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlBudgetHandlerInterceptor);
+    }
+
     /**
      * 添加消息转换器，
      *
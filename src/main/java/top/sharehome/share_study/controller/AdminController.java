@@ -8,13 +8,20 @@ import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.common.db_metrics.DbMetricsCollector;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.login_token.LoginToken;
+import top.sharehome.share_study.common.login_token.TokenRevocationList;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
 import top.sharehome.share_study.model.dto.AdminGetDto;
 import top.sharehome.share_study.model.dto.AdminGetSelfDto;
 import top.sharehome.share_study.model.dto.AdminPageDto;
+import top.sharehome.share_study.model.dto.DbMetricsDto;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.dto.TeacherLoginDto;
 import top.sharehome.share_study.model.vo.AdminPageVo;
 import top.sharehome.share_study.model.vo.AdminUpdateSelfVo;
@@ -26,6 +33,7 @@ import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.security.Principal;
 
 /**
  * 管理员用户相关接口
@@ -39,6 +47,13 @@ import javax.servlet.http.HttpSession;
 public class AdminController {
     @Resource
     private TeacherService teacherService;
+
+    @Resource
+    private TokenRevocationList tokenRevocationList;
+
+    @Resource
+    private DbMetricsCollector dbMetricsCollector;
+
     /**
      * 账号的匹配表达式
      */
@@ -120,6 +135,12 @@ public class AdminController {
     @PostMapping("/logout")
     @ApiOperation("管理员退出接口")
     public R<String> logout(HttpServletRequest request) {
+        // 令牌登录模式下只吊销当前请求携带的令牌，该教师在其他设备上的登录不受影响
+        Principal principal = request.getUserPrincipal();
+        if (principal instanceof LoginToken && LoginToken.SCOPE_ADMIN.equals(((LoginToken) principal).getScope())) {
+            tokenRevocationList.revokeToken((LoginToken) principal);
+        }
+
         // 清空Session登录状态
         request.getSession().removeAttribute(CommonConstant.ADMIN_LOGIN_STATE);
 
@@ -273,6 +294,7 @@ public class AdminController {
      * @return 返回分页结果
      */
     @PostMapping("/page/{current}/{pageSize}")
+    @SqlBudget(4)
     @ApiOperation("管理员分页查询接口")
     public R<Page<AdminPageDto>> page(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, @ApiParam(name = "adminPageVo", value = "管理员分页Vo对象", required = true) @RequestBody(required = false) AdminPageVo adminPageVo) {
         // 判空
@@ -305,4 +327,48 @@ public class AdminController {
 
         return R.success("导出成功");
     }
+
+    /**
+     * 管理员信息导入（s）
+     *
+     * @param file 上传的Excel文件
+     * @return 返回导入结果
+     */
+    @ApiOperation("管理员信息Excel导入")
+    @PostMapping("/upload")
+    public R<ExcelImportResultDto> upload(MultipartFile file) {
+        // 判空
+        if (file == null || file.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "上传的Excel文件为空");
+        }
+
+        // 执行管理员信息从Excel导入的操作
+        ExcelImportResultDto result = teacherService.uploadAdmin(file);
+
+        return R.success(result, "导入完成");
+    }
+
+    /**
+     * 数据库指标接口（s）
+     *
+     * @param top 返回总耗时最高的SQL条数
+     * @return 返回连接池状态、SQL统计和各接口的SQL语句数
+     */
+    @ApiOperation("数据库指标接口")
+    @GetMapping("/metrics/db/{top}")
+    public R<DbMetricsDto> dbMetrics(@PathVariable("top") Integer top) {
+        // 判空
+        if (ObjectUtils.isEmpty(top)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "SQL条数为空");
+        }
+
+        // 判断数据格式
+        if (top <= 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "SQL条数格式错误");
+        }
+
+        DbMetricsDto dbMetricsDto = dbMetricsCollector.collect(top);
+
+        return R.success(dbMetricsDto, "获取成功");
+    }
 }
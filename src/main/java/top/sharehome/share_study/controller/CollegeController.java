@@ -8,17 +8,22 @@ import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
 import top.sharehome.share_study.model.dto.CollegeGetDto;
 import top.sharehome.share_study.model.dto.CollegePageDto;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.vo.CollegeAddVo;
 import top.sharehome.share_study.model.vo.CollegePageVo;
 import top.sharehome.share_study.model.vo.CollegeUpdateVo;
 import top.sharehome.share_study.service.CollegeService;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
@@ -35,6 +40,9 @@ public class CollegeController {
     @Resource
     private CollegeService collegeService;
 
+    @Resource
+    private ContentVersionTracker contentVersionTracker;
+
     /**
      * 高校名称的匹配表达式
      */
@@ -170,6 +178,7 @@ public class CollegeController {
      * @return 返回分页结果
      */
     @PostMapping("/page/{current}/{pageSize}")
+    @SqlBudget(4)
     @ApiOperation("高校分页查询接口")
     public R<Page<CollegePageDto>> page(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, @ApiParam(name = "collegePageVo", value = "高校分页Vo对象", required = true) @RequestBody(required = false) CollegePageVo collegePageVo) {
         // 判空
@@ -191,11 +200,18 @@ public class CollegeController {
     /**
      * 高校ID和对应名称的List（s/a/u）
      *
-     * @return 高校名称List
+     * @param request  请求
+     * @param response 写入ETag等缓存校验响应头
+     * @return 高校名称List，客户端缓存仍然有效时返回304
      */
     @ApiOperation("高校ID和对应名称的List")
     @GetMapping(value = "/list")
-    public R<List<CollegeGetDto>> list() {
+    public R<List<CollegeGetDto>> list(HttpServletRequest request, HttpServletResponse response) {
+        // 高校字典没有变化时直接返回304
+        if (contentVersionTracker.checkNotModified(request, response, contentVersionTracker.collegeListETag())) {
+            return null;
+        }
+
         // 执行获取高校信息列表的操作
         List<CollegeGetDto> collegeGetDtoList = collegeService.listCollege();
 
@@ -215,4 +231,24 @@ public class CollegeController {
 
         return R.success("导出成功");
     }
+
+    /**
+     * 高校信息导入（s）
+     *
+     * @param file 上传的Excel文件
+     * @return 返回导入结果
+     */
+    @ApiOperation("高校信息Excel导入")
+    @PostMapping("/upload")
+    public R<ExcelImportResultDto> upload(MultipartFile file) {
+        // 判空
+        if (file == null || file.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "上传的Excel文件为空");
+        }
+
+        // 执行高校信息从Excel导入的操作
+        ExcelImportResultDto result = collegeService.upload(file);
+
+        return R.success(result, "导入完成");
+    }
 }
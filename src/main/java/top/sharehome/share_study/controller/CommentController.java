@@ -6,11 +6,14 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
 import top.sharehome.share_study.model.dto.CommentGetDto;
 import top.sharehome.share_study.model.dto.CommentPageDto;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.vo.CommentPageVo;
 import top.sharehome.share_study.model.vo.CommentUpdateVo;
 import top.sharehome.share_study.service.CommentService;
@@ -45,6 +48,27 @@ public class CommentController {
         return R.success("导出成功");
     }
 
+    /**
+     * 交流评论数据导入（s）
+     *
+     * @param file    上传的Excel文件
+     * @param request 获取Session中的登录状态
+     * @return 返回导入结果
+     */
+    @ApiOperation("交流评论数据Excel导入")
+    @PostMapping("/upload")
+    public R<ExcelImportResultDto> upload(MultipartFile file, HttpServletRequest request) {
+        // 判空
+        if (file == null || file.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "上传的Excel文件为空");
+        }
+
+        // 执行交流评论数据从Excel导入的操作
+        ExcelImportResultDto result = commentService.upload(file, request);
+
+        return R.success(result, "导入完成");
+    }
+
     /**
      * 交流评论数据删除接口（s/a）
      *
@@ -142,6 +166,7 @@ public class CommentController {
      * @return 返回分页结果
      */
     @PostMapping("/page/{current}/{pageSize}")
+    @SqlBudget(8)
     @ApiOperation("交流评论分页查询接口")
     public R<Page<CommentPageDto>> page(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, @ApiParam(name = "commentPageVo", value = "评论交流分页Vo对象", required = true) @RequestBody(required = false) CommentPageVo commentPageVo) {
         // 判空
@@ -2,14 +2,20 @@ package top.sharehome.share_study.controller;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.model.dto.FileMultipartInitDto;
+import top.sharehome.share_study.model.dto.FileMultipartPartDto;
+import top.sharehome.share_study.model.vo.FileMultipartInitVo;
+import top.sharehome.share_study.model.vo.FileMultipartVo;
 import top.sharehome.share_study.service.FileOssService;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -30,13 +36,6 @@ public class FileOssController {
      * 头像可以通过的文件格式
      */
     private static final List<String> AVATAR_FORMATS = new ArrayList<>(Arrays.asList("png", "jpg", "jpeg"));
-    /**
-     * 其他文件可以通过的文件格式
-     */
-    private static final List<String> FILE_FORMATS = new ArrayList<>(Arrays.asList(
-            "png", "jpg", "jpeg", "pdf",
-            "xlsx", "xls", "doc", "docx",
-            "ppt", "pptx", "mp3", "mp4"));
 
     /**
      * 头像文件上传（无需权限）
@@ -80,35 +79,93 @@ public class FileOssController {
         if (file == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
         }
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null) {
+        String suffix = fileOssService.checkFile(file.getOriginalFilename(), file.getSize());
+        String url = fileOssService.upload(file, "file/" + suffix);
+        return R.success(url, "上传文件成功");
+    }
+
+    /**
+     * 分片上传初始化（s/a/u）
+     * 文件格式和大小限制与其他文件上传一致，返回的对象键和分片上传ID在后续分片接口中原样带回
+     *
+     * @param fileMultipartInitVo 分片上传初始化Vo对象
+     * @return 返回分片规划
+     */
+    @ApiOperation("分片上传初始化")
+    @PostMapping("/multipart/init")
+    public R<FileMultipartInitDto> multipartInit(@ApiParam(name = "fileMultipartInitVo", value = "分片上传初始化Vo对象", required = true) @RequestBody FileMultipartInitVo fileMultipartInitVo, HttpServletRequest request) {
+        if (fileMultipartInitVo == null || fileMultipartInitVo.getFileSize() == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
         }
-        String[] split = originalFilename.split("\\.");
-        String suffix = split[split.length - 1].toLowerCase();
-        if (!FILE_FORMATS.contains(suffix)) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_FILE_TYPE_MISMATCH));
-        }
-        long size = file.getSize();
-        if (Arrays.asList("png", "jpg", "jpeg").contains(suffix)) {
-            if (size / 1024 >= 500) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_IMAGE_IS_TOO_LARGE));
-            }
-        }
-        if (Arrays.asList("pdf", "xlsx", "xls", "doc", "docx", "ppt", "pptx").contains(suffix)) {
-            if (size / 1024 / 1024 >= 5) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_FILE_IS_TOO_LARGE));
-            }
-        }
-        if (Arrays.asList("mp3", "mp4").contains(suffix)) {
-            if (size / 1024 / 1024 >= 50) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_VIDEO_IS_TOO_LARGE));
-            }
+        String suffix = fileOssService.checkFile(fileMultipartInitVo.getFileName(), fileMultipartInitVo.getFileSize());
+        FileMultipartInitDto fileMultipartInitDto = fileOssService.initMultipartUpload(fileMultipartInitVo.getFileName(), fileMultipartInitVo.getFileSize(), "file/" + suffix, request);
+        return R.success(fileMultipartInitDto, "分片上传初始化成功");
+    }
+
+    /**
+     * 分片上传（s/a/u）
+     * 分片之间互不依赖，客户端可以并行上传多个分片，失败的分片单独重传即可
+     *
+     * @param key        对象键
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片编号，从1开始
+     * @param part       分片数据
+     * @return 返回分片信息
+     */
+    @ApiOperation("分片上传")
+    @PostMapping("/multipart/part")
+    public R<FileMultipartPartDto> multipartPart(String key, String uploadId, Integer partNumber, MultipartFile part, HttpServletRequest request) {
+        FileMultipartPartDto fileMultipartPartDto = fileOssService.uploadPart(key, uploadId, partNumber, part, request);
+        return R.success(fileMultipartPartDto, "分片上传成功");
+    }
+
+    /**
+     * 查询已上传分片（s/a/u）
+     * 断点续传时先查询已上传的分片，只补传缺失的分片
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     * @return 返回已上传的分片列表
+     */
+    @ApiOperation("查询已上传分片")
+    @GetMapping("/multipart/parts")
+    public R<List<FileMultipartPartDto>> multipartParts(String key, String uploadId, HttpServletRequest request) {
+        List<FileMultipartPartDto> fileMultipartPartDtoList = fileOssService.listParts(key, uploadId, request);
+        return R.success(fileMultipartPartDtoList, "查询已上传分片成功");
+    }
+
+    /**
+     * 完成分片上传（s/a/u）
+     *
+     * @param fileMultipartVo 分片上传完成/取消Vo对象
+     * @return 返回文件存储的url
+     */
+    @ApiOperation("完成分片上传")
+    @PostMapping("/multipart/complete")
+    public R<String> multipartComplete(@ApiParam(name = "fileMultipartVo", value = "分片上传完成/取消Vo对象", required = true) @RequestBody FileMultipartVo fileMultipartVo, HttpServletRequest request) {
+        if (fileMultipartVo == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
         }
-        String url = fileOssService.upload(file, "file/" + suffix);
+        String url = fileOssService.completeMultipartUpload(fileMultipartVo.getKey(), fileMultipartVo.getUploadId(), request);
         return R.success(url, "上传文件成功");
     }
 
+    /**
+     * 取消分片上传（s/a/u）
+     *
+     * @param fileMultipartVo 分片上传完成/取消Vo对象
+     * @return 返回取消结果
+     */
+    @ApiOperation("取消分片上传")
+    @DeleteMapping("/multipart/abort")
+    public R<String> multipartAbort(@ApiParam(name = "fileMultipartVo", value = "分片上传完成/取消Vo对象", required = true) @RequestBody FileMultipartVo fileMultipartVo, HttpServletRequest request) {
+        if (fileMultipartVo == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
+        }
+        fileOssService.abortMultipartUpload(fileMultipartVo.getKey(), fileMultipartVo.getUploadId(), request);
+        return R.success("取消分片上传成功");
+    }
+
     /**
      * OSS文件删除（无需权限）
      *
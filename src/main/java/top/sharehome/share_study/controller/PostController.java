@@ -7,12 +7,17 @@ import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
+import top.sharehome.share_study.model.dto.CursorPageDto;
 import top.sharehome.share_study.model.dto.PostCommentPageDto;
 import top.sharehome.share_study.model.dto.PostInfoDto;
 import top.sharehome.share_study.model.dto.PostPageDto;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
 import top.sharehome.share_study.model.vo.PostAddVo;
 import top.sharehome.share_study.model.vo.PostCollectUpdateVo;
 import top.sharehome.share_study.model.vo.PostCommentAddVo;
@@ -23,6 +28,9 @@ import top.sharehome.share_study.service.ResourceService;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -44,18 +52,23 @@ public class PostController {
     @Resource
     private CollectService collectService;
 
+    @Resource
+    private ContentVersionTracker contentVersionTracker;
+
     /**
      * 用户帖子分页
      *
      * @param current    当前页
      * @param pageSize   页面条数
      * @param request    获取操作者的登录状态
+     * @param response   写入ETag等缓存校验响应头
      * @param postPageVo 帖子分页模糊查询参数
-     * @return 返回分页结果
+     * @return 返回分页结果，客户端缓存仍然有效时返回304
      */
     @GetMapping("/page/{current}/{pageSize}")
+    @SqlBudget(8)
     @ApiOperation("用户帖子分页")
-    public R<Page<PostPageDto>> pagePost(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, HttpServletRequest request, @ApiParam(name = "resourcePageVo", value = "教学资料分页Vo对象", required = true) @RequestBody(required = false) PostPageVo postPageVo) {
+    public R<Page<PostPageDto>> pagePost(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, HttpServletRequest request, HttpServletResponse response, @ApiParam(name = "resourcePageVo", value = "教学资料分页Vo对象", required = true) @RequestBody(required = false) PostPageVo postPageVo) {
         // 判空
         if (ObjectUtils.isEmpty(current) || ObjectUtils.isEmpty(pageSize)) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "分页参数为空");
@@ -66,11 +79,71 @@ public class PostController {
             throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "分页参数格式错误");
         }
 
+        // 内容没有变化时直接返回304，不再查询数据库
+        Long viewerId = getViewerId(request);
+        if (viewerId != null && contentVersionTracker.checkNotModified(request, response, contentVersionTracker.feedETag(viewerId, current, pageSize, postPageVo))) {
+            return null;
+        }
+
         Page<PostPageDto> postDtoPage = resourceService.pagePost(current, pageSize, request, postPageVo);
 
         return R.success(postDtoPage, "用户帖子分页成功");
     }
 
+    /**
+     * 用户帖子游标分页，适用于无限滚动的客户端，翻到多深都不会变慢，新帖发布也不会导致翻页时出现重复
+     *
+     * @param pageSize   页面条数
+     * @param cursor     上一页返回的游标，第一页不传
+     * @param request    获取Session中的登录状态
+     * @param postPageVo 帖子分页模糊查询参数
+     * @return 返回本页帖子和下一页游标
+     */
+    @GetMapping("/scroll/{pageSize}")
+    @SqlBudget(8)
+    @ApiOperation("用户帖子游标分页")
+    public R<CursorPageDto<PostPageDto>> cursorPost(@PathVariable("pageSize") Integer pageSize, @RequestParam(value = "cursor", required = false) String cursor, HttpServletRequest request, @ApiParam(name = "postPageVo", value = "帖子分页Vo对象") @RequestBody(required = false) PostPageVo postPageVo) {
+        // 判空
+        if (ObjectUtils.isEmpty(pageSize)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "分页参数为空");
+        }
+
+        // 判断数据格式
+        if (pageSize <= 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "分页参数格式错误");
+        }
+
+        CursorPageDto<PostPageDto> postDtoPage = resourceService.cursorPost(cursor, pageSize, request, postPageVo);
+
+        return R.success(postDtoPage, "用户帖子分页成功");
+    }
+
+    /**
+     * 热门帖子，按收藏、评论和浏览的时间衰减热度排序，榜单由后台定时刷新，请求不访问数据库
+     *
+     * @param size    返回条数
+     * @param request 获取Session中的登录状态
+     * @return 返回热门帖子
+     */
+    @GetMapping("/hot/{size}")
+    @SqlBudget(0)
+    @ApiOperation("热门帖子")
+    public R<List<PostPageDto>> hotPost(@PathVariable("size") Integer size, HttpServletRequest request) {
+        // 判空
+        if (ObjectUtils.isEmpty(size)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "返回条数为空");
+        }
+
+        // 判断数据格式
+        if (size <= 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "返回条数格式错误");
+        }
+
+        List<PostPageDto> postPageDtoList = resourceService.hotPost(size, request);
+
+        return R.success(postPageDtoList, "热门帖子获取成功");
+    }
+
     /**
      * 发布帖子接口
      *
@@ -96,17 +169,25 @@ public class PostController {
     /**
      * 帖子详情接口
      *
-     * @param id      教学资料ID
-     * @param request 获取Session中的登录状态
-     * @return 帖子详情Dto对象
+     * @param id       教学资料ID
+     * @param request  获取Session中的登录状态
+     * @param response 写入ETag等缓存校验响应头
+     * @return 帖子详情Dto对象，客户端缓存仍然有效时返回304
      */
     @GetMapping("/info/{id}")
+    @SqlBudget(8)
     @ApiOperation("帖子详情接口")
-    public R<PostInfoDto> info(@PathVariable("id") Long id, HttpServletRequest request) {
+    public R<PostInfoDto> info(@PathVariable("id") Long id, HttpServletRequest request, HttpServletResponse response) {
         if (Objects.isNull(id)) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
         }
 
+        // 内容没有变化时直接返回304，不再查询数据库
+        Long viewerId = getViewerId(request);
+        if (viewerId != null && contentVersionTracker.checkNotModified(request, response, contentVersionTracker.infoETag(viewerId, id))) {
+            return null;
+        }
+
         PostInfoDto postInfoDto = resourceService.info(id, request);
 
         return R.success(postInfoDto, "帖子详情显示成功");
@@ -122,6 +203,7 @@ public class PostController {
      * @return 返回分页结果
      */
     @GetMapping("/page/{id}/{current}/{pageSize}")
+    @SqlBudget(6)
     @ApiOperation("资料详情评论分页")
     public R<Page<PostCommentPageDto>> pagePostComment(@PathVariable("id") Long id, @PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, HttpServletRequest request) {
         // 判空
@@ -139,6 +221,34 @@ public class PostController {
         return R.success(commentDtoPage, "资料详情评论分页成功");
     }
 
+    /**
+     * 资料详情评论游标分页
+     *
+     * @param id       教学资料ID
+     * @param pageSize 页面条数
+     * @param cursor   上一页返回的游标，第一页不传
+     * @param request  获取操作者的登录状态
+     * @return 返回本页评论和下一页游标
+     */
+    @GetMapping("/scroll/{id}/{pageSize}")
+    @SqlBudget(6)
+    @ApiOperation("资料详情评论游标分页")
+    public R<CursorPageDto<PostCommentPageDto>> cursorPostComment(@PathVariable("id") Long id, @PathVariable("pageSize") Integer pageSize, @RequestParam(value = "cursor", required = false) String cursor, HttpServletRequest request) {
+        // 判空
+        if (ObjectUtils.isEmpty(pageSize) || ObjectUtils.isEmpty(id)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "分页参数为空");
+        }
+
+        // 判断数据格式
+        if (pageSize <= 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "分页参数格式错误");
+        }
+
+        CursorPageDto<PostCommentPageDto> commentDtoPage = commentService.cursorResourceComment(id, cursor, pageSize, request);
+
+        return R.success(commentDtoPage, "资料详情评论分页成功");
+    }
+
     /**
      * 修改收藏状态
      *
@@ -190,4 +300,19 @@ public class PostController {
 
         return R.success("评论删除成功");
     }
+
+    /**
+     * 获取当前登录的普通用户ID，不创建新的Session
+     *
+     * @param request 获取Session中的登录状态
+     * @return 用户ID，未登录时返回null
+     */
+    private Long getViewerId(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) session.getAttribute(CommonConstant.USER_LOGIN_STATE);
+        return teacherLoginDto == null ? null : teacherLoginDto.getId();
+    }
 }
@@ -6,9 +6,12 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.dto.ResourceGetDto;
 import top.sharehome.share_study.model.dto.ResourcePageDto;
 import top.sharehome.share_study.model.vo.ResourcePageVo;
@@ -45,6 +48,27 @@ public class ResourceController {
         return R.success("导出成功");
     }
 
+    /**
+     * 教学资料信息导入（s）
+     *
+     * @param file    上传的Excel文件
+     * @param request 获取Session中的登录状态
+     * @return 返回导入结果
+     */
+    @ApiOperation("教学资料信息Excel导入")
+    @PostMapping("/upload")
+    public R<ExcelImportResultDto> upload(MultipartFile file, HttpServletRequest request) {
+        // 判空
+        if (file == null || file.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "上传的Excel文件为空");
+        }
+
+        // 执行教学资料信息从Excel导入的操作
+        ExcelImportResultDto result = resourceService.upload(file, request);
+
+        return R.success(result, "导入完成");
+    }
+
     /**
      * 教学资料信息删除接口（s/a）
      *
@@ -132,6 +156,7 @@ public class ResourceController {
      * @return 返回分页结果
      */
     @PostMapping("/page/{current}/{pageSize}")
+    @SqlBudget(4)
     @ApiOperation("教学资料分页查询接口")
     public R<Page<ResourcePageDto>> page(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, @ApiParam(name = "resourcePageVo", value = "教学资料分页Vo对象", required = true) @RequestBody(required = false) ResourcePageVo resourcePageVo) {
 
@@ -8,10 +8,15 @@ import io.swagger.annotations.ApiParam;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.common.constant.CommonConstant;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.login_token.LoginToken;
+import top.sharehome.share_study.common.login_token.TokenRevocationList;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.dto.TeacherGetDto;
 import top.sharehome.share_study.model.dto.TeacherLoginDto;
 import top.sharehome.share_study.model.dto.TeacherPageDto;
@@ -25,6 +30,7 @@ import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.security.Principal;
 import java.util.List;
 import java.util.Objects;
 
@@ -41,6 +47,9 @@ public class TeacherController {
     @Resource
     private TeacherService teacherService;
 
+    @Resource
+    private TokenRevocationList tokenRevocationList;
+
     /**
      * 账号的匹配表达式
      */
@@ -207,6 +216,12 @@ public class TeacherController {
     @PostMapping("/logout")
     @ApiOperation("用户退出接口")
     public R<String> logout(HttpServletRequest request) {
+        // 令牌登录模式下只吊销当前请求携带的令牌，该教师在其他设备上的登录不受影响
+        Principal principal = request.getUserPrincipal();
+        if (principal instanceof LoginToken && LoginToken.SCOPE_USER.equals(((LoginToken) principal).getScope())) {
+            tokenRevocationList.revokeToken((LoginToken) principal);
+        }
+
         request.getSession().removeAttribute(CommonConstant.USER_LOGIN_STATE);
         return R.success("退出成功");
     }
@@ -223,6 +238,27 @@ public class TeacherController {
         return R.success("导出成功");
     }
 
+    /**
+     * 教师信息导入（s）
+     *
+     * @param file    上传的Excel文件
+     * @param request 获取Session中的登录状态
+     * @return 返回导入结果
+     */
+    @ApiOperation("教师信息Excel导入")
+    @PostMapping("/upload")
+    public R<ExcelImportResultDto> upload(MultipartFile file, HttpServletRequest request) {
+        // 判空
+        if (file == null || file.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "上传的Excel文件为空");
+        }
+
+        // 执行教师信息从Excel导入的操作
+        ExcelImportResultDto result = teacherService.uploadTeacher(file, request);
+
+        return R.success(result, "导入完成");
+    }
+
     /**
      * 教师信息删除接口（s/a）
      *
@@ -327,6 +363,7 @@ public class TeacherController {
      * @return 返回分页结果
      */
     @PostMapping("/page/{current}/{pageSize}")
+    @SqlBudget(4)
     @ApiOperation("教师分页查询接口")
     public R<Page<TeacherPageDto>> page(@PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, @ApiParam(name = "teacherPageVo", value = "教师分页Vo对象", required = true) @RequestBody(required = false) TeacherPageVo teacherPageVo) {
 
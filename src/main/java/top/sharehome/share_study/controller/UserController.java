@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.sql_budget.SqlBudget;
 import top.sharehome.share_study.model.dto.*;
 import top.sharehome.share_study.model.vo.UserCollectPageVo;
 import top.sharehome.share_study.model.vo.UserResourcePageVo;
@@ -169,6 +170,7 @@ public class UserController {
      * @return 返回分页结果
      */
     @GetMapping("/resource/page/{id}/{current}/{pageSize}")
+    @SqlBudget(8)
     @ApiOperation("普通用户的教学资料分页")
     public R<Page<PostPageDto>> getResourcePage(@PathVariable("id") Long id, @PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize, HttpServletRequest request, @RequestBody(required = false) UserResourcePageVo userResourcePageVo) {
         if (id == null) {
@@ -257,6 +259,7 @@ public class UserController {
      * @return 返回分页结果
      */
     @GetMapping("/comment/page/{current}/{pageSize}")
+    @SqlBudget(6)
     @ApiOperation("用户收到的评论分页查询接口")
     public R<Page<UserCommentPageDto>> getCommentPage(HttpServletRequest request, @PathVariable("current") Integer current, @PathVariable("pageSize") Integer pageSize) {
         // 判空
@@ -274,6 +277,33 @@ public class UserController {
         return R.success(page, "分页查询成功");
     }
 
+    /**
+     * 交流评论游标分页查询接口
+     *
+     * @param request  获取Session中的登录状态
+     * @param pageSize 页面条数
+     * @param cursor   上一页返回的游标，第一页不传
+     * @return 返回本页评论和下一页游标
+     */
+    @GetMapping("/comment/scroll/{pageSize}")
+    @SqlBudget(6)
+    @ApiOperation("用户收到的评论游标分页查询接口")
+    public R<CursorPageDto<UserCommentPageDto>> getCommentCursor(HttpServletRequest request, @PathVariable("pageSize") Integer pageSize, @RequestParam(value = "cursor", required = false) String cursor) {
+        // 判空
+        if (ObjectUtils.isEmpty(pageSize)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "分页参数为空");
+        }
+
+        // 判断参数格式是否有误
+        if (pageSize <= 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "分页参数格式错误");
+        }
+
+        CursorPageDto<UserCommentPageDto> page = commentService.getUserCommentCursor(request, cursor, pageSize);
+
+        return R.success(page, "分页查询成功");
+    }
+
     /**
      * 用户修改消息是否已读
      *
@@ -332,6 +362,7 @@ public class UserController {
      * @return 返回分页结果
      */
     @GetMapping("/collect/page/{id}/{current}/{pageSize}")
+    @SqlBudget(6)
     @ApiOperation("普通用户的收藏分页")
     public R<Page<UserCollectPageDto>> getCollectPage(@PathVariable("id") Long id, @PathVariable("current") Integer
             current, @PathVariable("pageSize") Integer pageSize, HttpServletRequest
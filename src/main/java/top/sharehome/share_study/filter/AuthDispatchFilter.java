@@ -0,0 +1,117 @@
+package top.sharehome.share_study.filter;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.common.login_token.LoginTokenService;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+
+import javax.annotation.Resource;
+import javax.servlet.*;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 接口登录校验过滤器
+ * 所有接口的登录要求集中在一张路由表中，每个请求只查一次路由表；
+ * 不需要登录的请求（登录注册、Swagger、静态资源等）不读取Session，
+ * 需要登录的请求使用getSession(false)，匿名请求不会因此创建Session；
+ * 令牌登录模式下先校验Authorization请求头中的令牌，再按同样的规则校验
+ *
+ * @author AntonyCheng
+ */
+@WebFilter(filterName = "AuthDispatchFilter", urlPatterns = "/*")
+@Slf4j
+public class AuthDispatchFilter implements Filter {
+    @Resource
+    private LoginTokenService loginTokenService;
+
+    public static final AuthRouteTable ROUTE_TABLE = new AuthRouteTable()
+            // 管理员接口：除登录登出和管理员维护自身信息外，只有超级管理员可以访问
+            .add("/api/admin/**", AuthRequirement.SUPER_ADMIN)
+            .add("/api/admin/login", AuthRequirement.NONE)
+            .add("/api/admin/logout", AuthRequirement.NONE)
+            .add("/api/admin/getSelf/*", AuthRequirement.ADMIN)
+            .add("/api/admin/updateSelf", AuthRequirement.ADMIN)
+            // 高校接口：高校列表登录即可回显，其余只有超级管理员可以访问
+            .add("/api/college/**", AuthRequirement.SUPER_ADMIN)
+            .add("/api/college/list", AuthRequirement.ANY_LOGIN)
+            // 交流评论和教学资料接口：需要管理员登录，Excel导入只有超级管理员可以访问
+            .add("/api/comment/**", AuthRequirement.ADMIN)
+            .add("/api/comment/upload", AuthRequirement.SUPER_ADMIN)
+            // 文件接口：上传需要登录
+            .add("/api/file/oss_file_upload", AuthRequirement.ANY_LOGIN)
+            .add("/api/file/multipart/**", AuthRequirement.ANY_LOGIN)
+            .add("/api/post/**", AuthRequirement.USER)
+            .add("/api/resource/**", AuthRequirement.ADMIN)
+            .add("/api/resource/upload", AuthRequirement.SUPER_ADMIN)
+            // 教师接口：除登录注册登出外，需要管理员登录，Excel导入只有超级管理员可以访问
+            .add("/api/teacher/**", AuthRequirement.ADMIN)
+            .add("/api/teacher/login", AuthRequirement.NONE)
+            .add("/api/teacher/register", AuthRequirement.NONE)
+            .add("/api/teacher/logout", AuthRequirement.NONE)
+            .add("/api/teacher/upload", AuthRequirement.SUPER_ADMIN)
+            .add("/api/user/**", AuthRequirement.USER);
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        // 令牌登录模式下登录状态来自请求携带的令牌，Session只在本次请求内存在
+        if (loginTokenService != null && loginTokenService.isEnabled()) {
+            request = loginTokenService.wrap(request);
+        }
+
+        AuthRequirement requirement = ROUTE_TABLE.resolve(request.getRequestURI());
+        if (requirement == AuthRequirement.NONE) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RCodeEnum failure = check(requirement, request.getSession(false));
+        if (failure != null) {
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(JSON.toJSONString(R.failure(failure)));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * 按登录要求校验Session中的登录状态，每个登录状态最多读取一次
+     *
+     * @param requirement 登录要求
+     * @param session     当前Session，可能为null
+     * @return 校验通过返回null，否则返回对应的错误码
+     */
+    private RCodeEnum check(AuthRequirement requirement, HttpSession session) {
+        if (session == null) {
+            return RCodeEnum.NOT_LOGIN;
+        }
+        switch (requirement) {
+            case USER:
+                return session.getAttribute(CommonConstant.USER_LOGIN_STATE) == null ? RCodeEnum.NOT_LOGIN : null;
+            case ANY_LOGIN:
+                return session.getAttribute(CommonConstant.ADMIN_LOGIN_STATE) == null
+                        && session.getAttribute(CommonConstant.USER_LOGIN_STATE) == null ? RCodeEnum.NOT_LOGIN : null;
+            case ADMIN:
+                return session.getAttribute(CommonConstant.ADMIN_LOGIN_STATE) == null ? RCodeEnum.NOT_LOGIN : null;
+            case SUPER_ADMIN:
+                TeacherLoginDto adminLoginDto = (TeacherLoginDto) session.getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+                if (adminLoginDto == null) {
+                    return RCodeEnum.NOT_LOGIN;
+                }
+                return Objects.equals(adminLoginDto.getRole(), CommonConstant.SUPER_ROLE) ? null : RCodeEnum.ACCESS_UNAUTHORIZED;
+            default:
+                return null;
+        }
+    }
+}
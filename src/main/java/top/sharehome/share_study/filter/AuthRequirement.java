@@ -0,0 +1,33 @@
+package top.sharehome.share_study.filter;
+
+/**
+ * 接口的登录要求
+ *
+ * @author AntonyCheng
+ */
+public enum AuthRequirement {
+    /**
+     * 不需要登录，不读取Session
+     */
+    NONE,
+
+    /**
+     * 管理员或者普通用户任意一方登录即可
+     */
+    ANY_LOGIN,
+
+    /**
+     * 普通用户登录
+     */
+    USER,
+
+    /**
+     * 管理员登录（管理员和超级管理员均可）
+     */
+    ADMIN,
+
+    /**
+     * 超级管理员登录
+     */
+    SUPER_ADMIN
+}
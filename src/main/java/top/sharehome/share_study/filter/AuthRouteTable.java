@@ -0,0 +1,152 @@
+package top.sharehome.share_study.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口登录要求路由表
+ * 启动时把路径规则编译成按路径段组织的前缀树，请求到来时沿URI逐段向下查找一次即可得到登录要求，
+ * 规则支持三种路径段：普通段、匹配单个路径段的*、只能出现在末尾且匹配任意多个路径段的**，
+ * 优先级为完全匹配（普通段优先于*）高于前缀匹配，前缀匹配中越长越优先，全部未命中时为NONE
+ *
+ * @author AntonyCheng
+ */
+public class AuthRouteTable {
+    private static final String SINGLE_WILDCARD = "*";
+
+    private static final String MULTI_WILDCARD = "**";
+
+    private final Node root = new Node();
+
+    /**
+     * 添加路由规则
+     *
+     * @param pattern     路径规则，例如/api/admin/**
+     * @param requirement 登录要求
+     * @return 路由表本身，便于链式添加
+     */
+    public AuthRouteTable add(String pattern, AuthRequirement requirement) {
+        List<String> segments = split(pattern);
+        Node node = root;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (MULTI_WILDCARD.equals(segment)) {
+                if (i != segments.size() - 1) {
+                    throw new IllegalArgumentException("** 只能出现在路径规则末尾：" + pattern);
+                }
+                node.prefix = requirement;
+                return this;
+            }
+            if (SINGLE_WILDCARD.equals(segment)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+        }
+        node.exact = requirement;
+        return this;
+    }
+
+    /**
+     * 查询请求URI的登录要求
+     *
+     * @param requestUri 请求URI，包括上下文路径
+     * @return 登录要求，未命中任何规则时返回NONE
+     */
+    public AuthRequirement resolve(String requestUri) {
+        List<String> segments = split(requestUri);
+        AuthRequirement exact = findExact(root, segments, 0);
+        if (exact != null) {
+            return exact;
+        }
+        Match prefix = findPrefix(root, segments, 0);
+        return prefix == null ? AuthRequirement.NONE : prefix.requirement;
+    }
+
+    private AuthRequirement findExact(Node node, List<String> segments, int index) {
+        if (index == segments.size()) {
+            return node.exact;
+        }
+        Node child = node.children.get(segments.get(index));
+        if (child != null) {
+            AuthRequirement result = findExact(child, segments, index + 1);
+            if (result != null) {
+                return result;
+            }
+        }
+        return node.wildcard == null ? null : findExact(node.wildcard, segments, index + 1);
+    }
+
+    private Match findPrefix(Node node, List<String> segments, int index) {
+        Match best = node.prefix == null ? null : new Match(index, node.prefix);
+        if (index == segments.size()) {
+            return best;
+        }
+        Node child = node.children.get(segments.get(index));
+        if (child != null) {
+            best = deeper(best, findPrefix(child, segments, index + 1));
+        }
+        if (node.wildcard != null) {
+            best = deeper(best, findPrefix(node.wildcard, segments, index + 1));
+        }
+        return best;
+    }
+
+    private Match deeper(Match current, Match candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || candidate.depth > current.depth ? candidate : current;
+    }
+
+    /**
+     * 按/切分路径，忽略空段，并去掉路径段中;之后的路径参数，与Servlet容器的映射方式保持一致
+     *
+     * @param path 路径
+     * @return 路径段
+     */
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>(8);
+        int length = path.length();
+        int start = 0;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            int semicolon = path.indexOf(';', start);
+            int segmentEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+            if (segmentEnd > start) {
+                segments.add(path.substring(start, segmentEnd));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+
+        private Node wildcard;
+
+        private AuthRequirement exact;
+
+        private AuthRequirement prefix;
+    }
+
+    private static class Match {
+        private final int depth;
+
+        private final AuthRequirement requirement;
+
+        private Match(int depth, AuthRequirement requirement) {
+            this.depth = depth;
+            this.requirement = requirement;
+        }
+    }
+}
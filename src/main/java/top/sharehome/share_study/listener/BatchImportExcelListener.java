@@ -0,0 +1,141 @@
+package top.sharehome.share_study.listener;
+
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.event.AnalysisEventListener;
+import com.baomidou.mybatisplus.extension.service.IService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EasyExcel 批量导入监听基类
+ * 逐行校验后先放入缓冲，每满BATCH_COUNT行（以及读取结束时）统一做一次需要查库的校验，再通过saveBatch批量写入，
+ * 每个批次在独立的事务中提交，某个批次写入失败只记录错误，不影响其它批次
+ * 监听器带有状态，每次导入都需要新建实例，不能交给Spring管理
+ *
+ * @param <T> 导入的实体类型
+ * @author AntonyCheng
+ */
+@Slf4j
+public abstract class BatchImportExcelListener<T> extends AnalysisEventListener<T> {
+    /**
+     * 每批次写入的行数
+     */
+    public static final int BATCH_COUNT = 1000;
+
+    private final IService<T> service;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final List<T> rows = new ArrayList<>(BATCH_COUNT);
+
+    private final List<Integer> rowNumbers = new ArrayList<>(BATCH_COUNT);
+
+    private final ExcelImportResultDto result = new ExcelImportResultDto();
+
+    protected BatchImportExcelListener(IService<T> service, TransactionTemplate transactionTemplate) {
+        this.service = service;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 单行校验，不能查库
+     *
+     * @param row 当前行
+     * @return 校验失败的原因，校验通过时返回null
+     */
+    protected abstract String validate(T row);
+
+    /**
+     * 写入前对单行数据做处理，例如清空主键、设置默认值等
+     *
+     * @param row 当前行
+     */
+    protected abstract void prepare(T row);
+
+    /**
+     * 批次校验，需要查库的校验放在这里，保证每个批次只查一次
+     *
+     * @param batch 当前批次
+     * @return 批次中需要剔除的行在批次中的下标及原因
+     */
+    protected Map<Integer, String> validateBatch(List<T> batch) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 批次写入成功后的处理，例如同步计数器
+     *
+     * @param saved 成功写入的数据
+     */
+    protected void afterBatchSaved(List<T> saved) {
+    }
+
+    @Override
+    public void invoke(T row, AnalysisContext analysisContext) {
+        result.setTotalCount(result.getTotalCount() + 1);
+        int rowNumber = analysisContext.readRowHolder().getRowIndex() + 1;
+        String error = validate(row);
+        if (error != null) {
+            reject(rowNumber, error);
+            return;
+        }
+        prepare(row);
+        rows.add(row);
+        rowNumbers.add(rowNumber);
+        if (rows.size() >= BATCH_COUNT) {
+            flush();
+        }
+    }
+
+    @Override
+    public void doAfterAllAnalysed(AnalysisContext analysisContext) {
+        flush();
+    }
+
+    public ExcelImportResultDto getResult() {
+        return result;
+    }
+
+    private void flush() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> rejected = validateBatch(rows);
+        List<T> accepted = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            String error = rejected.get(i);
+            if (error != null) {
+                reject(rowNumbers.get(i), error);
+            } else {
+                accepted.add(rows.get(i));
+            }
+        }
+        if (!accepted.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    service.saveBatch(accepted, BATCH_COUNT);
+                    afterBatchSaved(accepted);
+                });
+                result.setSuccessCount(result.getSuccessCount() + accepted.size());
+            } catch (Exception e) {
+                result.setFailureCount(result.getFailureCount() + accepted.size());
+                result.getErrors().add("第" + rowNumbers.get(0) + "行至第" + rowNumbers.get(rowNumbers.size() - 1) + "行所在批次写入失败：" + ExceptionUtils.getRootCauseMessage(e));
+                log.warn("BatchImportExcelListener:{},Description:{}", e.getClass(), "批次写入失败");
+            }
+        }
+        rows.clear();
+        rowNumbers.clear();
+    }
+
+    private void reject(int rowNumber, String error) {
+        result.setFailureCount(result.getFailureCount() + 1);
+        result.getErrors().add("第" + rowNumber + "行：" + error);
+    }
+}
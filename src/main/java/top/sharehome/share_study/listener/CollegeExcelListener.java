@@ -1,30 +1,73 @@
 package top.sharehome.share_study.listener;
 
-import com.alibaba.excel.context.AnalysisContext;
-import com.alibaba.excel.event.AnalysisEventListener;
-import org.springframework.stereotype.Component;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import top.sharehome.share_study.mapper.CollegeMapper;
 import top.sharehome.share_study.model.entity.College;
+import top.sharehome.share_study.service.CollegeService;
 
-import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * EasyExcel College 监听类
  *
  * @author AntonyCheng
  */
-@Component
-public class CollegeExcelListener extends AnalysisEventListener<College> {
-    @Resource
-    private CollegeMapper collegeMapper;
+public class CollegeExcelListener extends BatchImportExcelListener<College> {
+    private final CollegeMapper collegeMapper;
+
+    /**
+     * 文件中已经出现过的高校名称和代码，用于文件内去重
+     */
+    private final Set<String> names = new HashSet<>();
+    private final Set<String> codes = new HashSet<>();
+
+    public CollegeExcelListener(CollegeService collegeService, TransactionTemplate transactionTemplate, CollegeMapper collegeMapper) {
+        super(collegeService, transactionTemplate);
+        this.collegeMapper = collegeMapper;
+    }
+
+    @Override
+    protected String validate(College college) {
+        if (StringUtils.isAnyBlank(college.getName(), college.getCode())) {
+            return "高校名称和院校代码不能为空";
+        }
+        if (!names.add(college.getName()) || !codes.add(college.getCode())) {
+            return "高校名称或院校代码在文件中重复";
+        }
+        return null;
+    }
 
     @Override
-    public void invoke(College college, AnalysisContext analysisContext) {
-        collegeMapper.insert(college);
+    protected void prepare(College college) {
+        college.setId(null);
+        college.setCreateTime(null);
+        college.setUpdateTime(null);
+        college.setIsDeleted(null);
     }
 
     @Override
-    public void doAfterAllAnalysed(AnalysisContext analysisContext) {
+    protected Map<Integer, String> validateBatch(List<College> batch) {
+        Set<String> batchNames = batch.stream().map(College::getName).collect(Collectors.toSet());
+        Set<String> batchCodes = batch.stream().map(College::getCode).collect(Collectors.toSet());
+        LambdaQueryWrapper<College> collegeLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        collegeLambdaQueryWrapper
+                .in(College::getName, batchNames)
+                .or()
+                .in(College::getCode, batchCodes);
+        List<College> existing = collegeMapper.selectList(collegeLambdaQueryWrapper);
+        Set<String> existingNames = existing.stream().map(College::getName).collect(Collectors.toSet());
+        Set<String> existingCodes = existing.stream().map(College::getCode).collect(Collectors.toSet());
 
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            College college = batch.get(i);
+            if (existingNames.contains(college.getName()) || existingCodes.contains(college.getCode())) {
+                rejected.put(i, "高校名称或院校代码已经存在");
+            }
+        }
+        return rejected;
     }
 }
@@ -1,30 +1,87 @@
 package top.sharehome.share_study.listener;
 
-import com.alibaba.excel.context.AnalysisContext;
-import com.alibaba.excel.event.AnalysisEventListener;
-import org.springframework.stereotype.Component;
-import top.sharehome.share_study.mapper.CommentMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.mapper.TeacherMapper;
 import top.sharehome.share_study.model.entity.Comment;
+import top.sharehome.share_study.model.entity.Resource;
+import top.sharehome.share_study.model.entity.Teacher;
+import top.sharehome.share_study.service.CommentService;
+import top.sharehome.share_study.service.CounterService;
 
-import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * EasyExcel Comment 监听类
  *
  * @author AntonyCheng
  */
-@Component
-public class CommentExcelListener extends AnalysisEventListener<Comment> {
-    @Resource
-    private CommentMapper commentMapper;
+public class CommentExcelListener extends BatchImportExcelListener<Comment> {
+    private final TeacherMapper teacherMapper;
+    private final ResourceMapper resourceMapper;
+    private final CounterService counterService;
+
+    public CommentExcelListener(CommentService commentService, TransactionTemplate transactionTemplate, TeacherMapper teacherMapper, ResourceMapper resourceMapper, CounterService counterService) {
+        super(commentService, transactionTemplate);
+        this.teacherMapper = teacherMapper;
+        this.resourceMapper = resourceMapper;
+        this.counterService = counterService;
+    }
+
+    @Override
+    protected String validate(Comment comment) {
+        if (comment.getBelong() == null || comment.getSend() == null || comment.getResource() == null) {
+            return "发布者、接收者和所属教学资料的id不能为空";
+        }
+        if (StringUtils.isBlank(comment.getContent())) {
+            return "评论内容不能为空";
+        }
+        return null;
+    }
 
     @Override
-    public void invoke(Comment comment, AnalysisContext analysisContext) {
-        commentMapper.insert(comment);
+    protected void prepare(Comment comment) {
+        comment.setId(null);
+        comment.setReadStatus(null);
+        comment.setCreateTime(null);
+        comment.setUpdateTime(null);
+        comment.setIsDeleted(null);
     }
 
     @Override
-    public void doAfterAllAnalysed(AnalysisContext analysisContext) {
+    protected Map<Integer, String> validateBatch(List<Comment> batch) {
+        Set<Long> batchTeacherIds = new HashSet<>();
+        batch.forEach(comment -> {
+            batchTeacherIds.add(comment.getBelong());
+            batchTeacherIds.add(comment.getSend());
+        });
+        Set<Long> existingTeacherIds = teacherMapper.selectBatchIds(batchTeacherIds).stream()
+                .map(Teacher::getId)
+                .collect(Collectors.toSet());
+        Set<Long> batchResourceIds = batch.stream().map(Comment::getResource).collect(Collectors.toSet());
+        Set<Long> existingResourceIds = resourceMapper.selectBatchIds(batchResourceIds).stream()
+                .map(Resource::getId)
+                .collect(Collectors.toSet());
+
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Comment comment = batch.get(i);
+            if (!existingTeacherIds.contains(comment.getBelong()) || !existingTeacherIds.contains(comment.getSend())) {
+                rejected.put(i, "发布者或接收者不存在");
+            } else if (!existingResourceIds.contains(comment.getResource())) {
+                rejected.put(i, "所属教学资料不存在：" + comment.getResource());
+            }
+        }
+        return rejected;
+    }
 
+    @Override
+    protected void afterBatchSaved(List<Comment> saved) {
+        // 与发表评论保持一致，每条评论为接收者增加一条消息
+        saved.stream()
+                .collect(Collectors.groupingBy(Comment::getSend, Collectors.counting()))
+                .forEach(counterService::incrementTeacherMessageTotal);
     }
 }
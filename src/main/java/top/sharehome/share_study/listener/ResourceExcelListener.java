@@ -1,29 +1,75 @@
 package top.sharehome.share_study.listener;
 
-import com.alibaba.excel.context.AnalysisContext;
-import com.alibaba.excel.event.AnalysisEventListener;
-import org.springframework.stereotype.Component;
-import top.sharehome.share_study.mapper.ResourceMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.sharehome.share_study.mapper.TeacherMapper;
 import top.sharehome.share_study.model.entity.Resource;
+import top.sharehome.share_study.model.entity.Teacher;
+import top.sharehome.share_study.service.CounterService;
+import top.sharehome.share_study.service.ResourceService;
 
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * EasyExcel Resource 监听类
  *
  * @author AntonyCheng
  */
-@Component
-public class ResourceExcelListener extends AnalysisEventListener<Resource> {
-    @javax.annotation.Resource
-    private ResourceMapper resourceMapper;
+public class ResourceExcelListener extends BatchImportExcelListener<Resource> {
+    private final TeacherMapper teacherMapper;
+    private final CounterService counterService;
+
+    public ResourceExcelListener(ResourceService resourceService, TransactionTemplate transactionTemplate, TeacherMapper teacherMapper, CounterService counterService) {
+        super(resourceService, transactionTemplate);
+        this.teacherMapper = teacherMapper;
+        this.counterService = counterService;
+    }
+
+    @Override
+    protected String validate(Resource resource) {
+        if (resource.getBelong() == null) {
+            return "所属老师的id不能为空";
+        }
+        if (StringUtils.isAnyBlank(resource.getName(), resource.getUrl())) {
+            return "教学资料名和教学资料地址不能为空";
+        }
+        if (resource.getStatus() != null && resource.getStatus() != 0 && resource.getStatus() != 1) {
+            return "教学资料状态只能为0或1";
+        }
+        return null;
+    }
 
     @Override
-    public void invoke(Resource resource, AnalysisContext analysisContext) {
-        resourceMapper.insert(resource);
+    protected void prepare(Resource resource) {
+        resource.setId(null);
+        resource.setScore(null);
+        resource.setCreateTime(null);
+        resource.setUpdateTime(null);
+        resource.setIsDeleted(null);
     }
 
     @Override
-    public void doAfterAllAnalysed(AnalysisContext analysisContext) {
+    protected Map<Integer, String> validateBatch(List<Resource> batch) {
+        Set<Long> batchTeacherIds = batch.stream().map(Resource::getBelong).collect(Collectors.toSet());
+        Set<Long> existingTeacherIds = teacherMapper.selectBatchIds(batchTeacherIds).stream()
+                .map(Teacher::getId)
+                .collect(Collectors.toSet());
+
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!existingTeacherIds.contains(batch.get(i).getBelong())) {
+                rejected.put(i, "所属老师不存在：" + batch.get(i).getBelong());
+            }
+        }
+        return rejected;
+    }
 
+    @Override
+    protected void afterBatchSaved(List<Resource> saved) {
+        // 与发布帖子保持一致，每条教学资料为所属老师增加一点贡献度
+        saved.stream()
+                .collect(Collectors.groupingBy(Resource::getBelong, Collectors.counting()))
+                .forEach(counterService::incrementTeacherScore);
     }
 }
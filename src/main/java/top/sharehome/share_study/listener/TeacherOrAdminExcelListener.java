@@ -1,31 +1,99 @@
 package top.sharehome.share_study.listener;
 
-import com.alibaba.excel.context.AnalysisContext;
-import com.alibaba.excel.event.AnalysisEventListener;
-import org.springframework.stereotype.Component;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
 import top.sharehome.share_study.mapper.TeacherMapper;
 import top.sharehome.share_study.model.entity.Teacher;
+import top.sharehome.share_study.service.TeacherService;
 
-import javax.annotation.Resource;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * EasyExcel Admin 监听类
+ * 导入模板中的密码为明文，写入前统一加密，角色由导入接口决定
  *
  * @author AntonyCheng
  */
-@Component
-public class TeacherOrAdminExcelListener extends AnalysisEventListener<Teacher> {
+public class TeacherOrAdminExcelListener extends BatchImportExcelListener<Teacher> {
+    private final TeacherMapper teacherMapper;
+    private final CollegeDictionary collegeDictionary;
+    private final UnaryOperator<String> passwordEncoder;
+    private final String defaultAvatar;
+    private final Integer role;
 
-    @Resource
-    private TeacherMapper teacherMapper;
+    /**
+     * 文件中已经出现过的账号，用于文件内去重
+     */
+    private final Set<String> accounts = new HashSet<>();
+
+    public TeacherOrAdminExcelListener(TeacherService teacherService, TransactionTemplate transactionTemplate, TeacherMapper teacherMapper, CollegeDictionary collegeDictionary,
+                                       UnaryOperator<String> passwordEncoder, String defaultAvatar, Integer role) {
+        super(teacherService, transactionTemplate);
+        this.teacherMapper = teacherMapper;
+        this.collegeDictionary = collegeDictionary;
+        this.passwordEncoder = passwordEncoder;
+        this.defaultAvatar = defaultAvatar;
+        this.role = role;
+    }
+
+    @Override
+    protected String validate(Teacher teacher) {
+        if (StringUtils.isAnyBlank(teacher.getAccount(), teacher.getPassword(), teacher.getName())) {
+            return "账号、密码和姓名不能为空";
+        }
+        if (teacher.getBelong() == null) {
+            return "所属高校的id不能为空";
+        }
+        if (!accounts.add(teacher.getAccount())) {
+            return "账号在文件中重复：" + teacher.getAccount();
+        }
+        return null;
+    }
 
     @Override
-    public void invoke(Teacher teacher, AnalysisContext analysisContext) {
-        teacherMapper.insert(teacher);
+    protected void prepare(Teacher teacher) {
+        teacher.setId(null);
+        teacher.setPassword(passwordEncoder.apply(teacher.getPassword()));
+        if (StringUtils.isEmpty(teacher.getAvatar())) {
+            teacher.setAvatar(defaultAvatar);
+        }
+        if (teacher.getGender() == null) {
+            teacher.setGender(0);
+        }
+        teacher.setRole(role);
+        teacher.setScore(null);
+        teacher.setMessageTotal(null);
+        teacher.setMessageRead(null);
+        teacher.setStatus(null);
+        teacher.setCreateTime(null);
+        teacher.setUpdateTime(null);
+        teacher.setIsDeleted(null);
     }
 
     @Override
-    public void doAfterAllAnalysed(AnalysisContext analysisContext) {
+    protected Map<Integer, String> validateBatch(List<Teacher> batch) {
+        Set<String> batchAccounts = batch.stream().map(Teacher::getAccount).collect(Collectors.toSet());
+        LambdaQueryWrapper<Teacher> teacherLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        teacherLambdaQueryWrapper
+                .select(Teacher::getAccount)
+                .in(Teacher::getAccount, batchAccounts);
+        Set<String> existingAccounts = teacherMapper.selectList(teacherLambdaQueryWrapper).stream()
+                .map(Teacher::getAccount)
+                .collect(Collectors.toSet());
 
+        Map<Integer, String> rejected = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Teacher teacher = batch.get(i);
+            if (existingAccounts.contains(teacher.getAccount())) {
+                rejected.put(i, "数据库中已经包含该用户：" + teacher.getAccount());
+            } else if (collegeDictionary.get(teacher.getBelong()) == null) {
+                rejected.put(i, "所属高校不存在：" + teacher.getBelong());
+            }
+        }
+        return rejected;
     }
 }
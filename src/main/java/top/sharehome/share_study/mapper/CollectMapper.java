@@ -2,8 +2,12 @@ package top.sharehome.share_study.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import top.sharehome.share_study.model.entity.Collect;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 收藏Mapper
  *
@@ -11,4 +15,12 @@ import top.sharehome.share_study.model.entity.Collect;
  */
 @Mapper
 public interface CollectMapper extends BaseMapper<Collect> {
+    /**
+     * 查询某个用户在给定教学资料范围内收藏过的教学资料ID，只投影ID列
+     *
+     * @param belong      收藏者ID
+     * @param resourceIds 教学资料ID范围
+     * @return 收藏过的教学资料ID列表
+     */
+    List<Long> selectCollectedResourceIds(@Param("belong") Long belong, @Param("resourceIds") Collection<Long> resourceIds);
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package top.sharehome.share_study.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import top.sharehome.share_study.model.entity.College;
 
+import java.util.Collection;
+
 /**
  * 高校Mapper
  *
@@ -11,4 +14,12 @@ import top.sharehome.share_study.model.entity.College;
  */
 @Mapper
 public interface CollegeMapper extends BaseMapper<College> {
+    /**
+     * 批量给待删除高校的名称和代码加上后缀，释放名称和代码的唯一约束
+     *
+     * @param ids    高校ID
+     * @param suffix 后缀
+     * @return 影响行数
+     */
+    int renameDeleted(@Param("ids") Collection<Long> ids, @Param("suffix") String suffix);
 }
\ No newline at end of file
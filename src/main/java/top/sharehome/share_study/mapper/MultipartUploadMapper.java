@@ -0,0 +1,14 @@
+package top.sharehome.share_study.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import top.sharehome.share_study.model.entity.MultipartUpload;
+
+/**
+ * 分片上传登记Mapper
+ *
+ * @author AntonyCheng
+ */
+@Mapper
+public interface MultipartUploadMapper extends BaseMapper<MultipartUpload> {
+}
@@ -0,0 +1,25 @@
+package top.sharehome.share_study.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import top.sharehome.share_study.model.entity.OssDeletion;
+
+import java.util.Collection;
+
+/**
+ * OSS待删除对象Mapper
+ *
+ * @author AntonyCheng
+ */
+@Mapper
+public interface OssDeletionMapper extends BaseMapper<OssDeletion> {
+    /**
+     * 批量登记待删除对象
+     *
+     * @param objectKeys      对象键
+     * @param nextAttemptTime 第一次尝试删除的时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int insertBatch(@Param("objectKeys") Collection<String> objectKeys, @Param("nextAttemptTime") Long nextAttemptTime);
+}
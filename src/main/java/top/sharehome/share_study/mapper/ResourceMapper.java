@@ -1,8 +1,18 @@
 package top.sharehome.share_study.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import top.sharehome.share_study.common.cursor_page.PageCursor;
+import top.sharehome.share_study.common.full_text.FullTextMatch;
+import top.sharehome.share_study.model.dto.ResourcePageDto;
 import top.sharehome.share_study.model.entity.Resource;
+import top.sharehome.share_study.model.vo.PostPageVo;
+import top.sharehome.share_study.model.vo.ResourcePageVo;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 教学资料Mapper
@@ -11,4 +21,51 @@ import top.sharehome.share_study.model.entity.Resource;
  */
 @Mapper
 public interface ResourceMapper extends BaseMapper<Resource> {
+    /**
+     * 管理员分页查询教学资料，关联教师表得到所属老师名称，过滤、计数和分页在同一条SQL中完成
+     *
+     * @param page  分页对象
+     * @param query 查询条件，可以为null
+     * @param match 名称和简介的全文检索短语，可以为null，检索时按相关度排序
+     * @return 教学资料分页Dto
+     */
+    IPage<ResourcePageDto> selectResourcePage(IPage<ResourcePageDto> page, @Param("query") ResourcePageVo query, @Param("match") FullTextMatch match);
+
+    /**
+     * 用户分页查询未被封禁的帖子，只有按老师名称或高校名称过滤时才关联教师表和高校表
+     *
+     * @param page  分页对象
+     * @param query 查询条件，可以为null
+     * @param match 名称和简介的全文检索短语，可以为null，检索时按相关度排序
+     * @return 教学资料分页结果
+     */
+    IPage<Resource> selectPostPage(IPage<Resource> page, @Param("query") PostPageVo query, @Param("match") FullTextMatch match);
+
+    /**
+     * 用户按游标查询未被封禁的帖子，按(create_time, id)升序从游标之后开始读取，不做总数查询
+     *
+     * @param query  查询条件，可以为null
+     * @param match  名称和简介的全文检索短语，可以为null
+     * @param cursor 上一页最后一条记录的位置，第一页为null
+     * @param limit  查询条数
+     * @return 教学资料列表
+     */
+    List<Resource> selectPostCursorPage(@Param("query") PostPageVo query, @Param("match") FullTextMatch match, @Param("cursor") PageCursor cursor, @Param("limit") int limit);
+
+    /**
+     * 原子增减教学资料收藏数
+     *
+     * @param id    教学资料ID
+     * @param delta 增量，可以为负数
+     * @return 影响行数
+     */
+    int incrementScore(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * 批量原子增减教学资料收藏数，一条 UPDATE ... CASE 语句完成
+     *
+     * @param deltas ID到增量的映射，不能为空
+     * @return 影响行数
+     */
+    int batchIncrementScore(@Param("deltas") Map<Long, Long> deltas);
 }
\ No newline at end of file
@@ -2,8 +2,12 @@ package top.sharehome.share_study.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import top.sharehome.share_study.model.entity.Teacher;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * 教师用户Mapper
  *
@@ -11,4 +15,47 @@ import top.sharehome.share_study.model.entity.Teacher;
  */
 @Mapper
 public interface TeacherMapper extends BaseMapper<Teacher> {
-}
\ No newline at end of file
+    /**
+     * 原子增减教师贡献度
+     *
+     * @param id    教师ID
+     * @param delta 增量，可以为负数
+     * @return 影响行数
+     */
+    int incrementScore(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * 批量原子增减教师贡献度，一条 UPDATE ... CASE 语句完成
+     *
+     * @param deltas ID到增量的映射，不能为空
+     * @return 影响行数
+     */
+    int batchIncrementScore(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 原子增减教师消息总数
+     *
+     * @param id    教师ID
+     * @param delta 增量，可以为负数
+     * @return 影响行数
+     */
+    int incrementMessageTotal(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * 原子增减教师已读消息数
+     *
+     * @param id    教师ID
+     * @param delta 增量，可以为负数
+     * @return 影响行数
+     */
+    int incrementMessageRead(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * 批量给待删除教师的账号加上后缀，释放账号的唯一约束，逻辑删除后同名账号可以重新注册
+     *
+     * @param ids    教师ID
+     * @param suffix 后缀
+     * @return 影响行数
+     */
+    int renameDeletedAccount(@Param("ids") Collection<Long> ids, @Param("suffix") String suffix);
+}
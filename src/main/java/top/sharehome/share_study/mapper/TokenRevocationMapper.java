@@ -0,0 +1,44 @@
+package top.sharehome.share_study.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import top.sharehome.share_study.model.entity.TokenRevocation;
+
+import java.util.Collection;
+
+/**
+ * 令牌吊销Mapper
+ *
+ * @author AntonyCheng
+ */
+@Mapper
+public interface TokenRevocationMapper extends BaseMapper<TokenRevocation> {
+    /**
+     * 记录教师所有令牌的吊销时间，已有记录时只会把时间往后推
+     *
+     * @param teacherId  教师ID
+     * @param revokeTime 吊销时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int upsert(@Param("teacherId") Long teacherId, @Param("revokeTime") Long revokeTime);
+
+    /**
+     * 批量记录教师所有令牌的吊销时间
+     *
+     * @param teacherIds 教师ID
+     * @param revokeTime 吊销时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("teacherIds") Collection<Long> teacherIds, @Param("revokeTime") Long revokeTime);
+
+    /**
+     * 记录单个令牌的吊销
+     *
+     * @param teacherId  教师ID
+     * @param tokenId    令牌ID
+     * @param revokeTime 吊销时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int upsertToken(@Param("teacherId") Long teacherId, @Param("tokenId") String tokenId, @Param("revokeTime") Long revokeTime);
+}
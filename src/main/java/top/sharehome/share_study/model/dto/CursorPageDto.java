@@ -0,0 +1,33 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "游标分页Dto对象")
+public class CursorPageDto<T> implements Serializable {
+
+    private static final long serialVersionUID = 6483910275513840127L;
+
+    /**
+     * 本页记录
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标，为null时表示没有下一页
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,40 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import top.sharehome.share_study.common.sql_budget.SqlBudgetMetrics;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库指标Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "数据库指标Dto对象")
+public class DbMetricsDto implements Serializable {
+
+    private static final long serialVersionUID = 2916148430195892652L;
+
+    /**
+     * 各连接池指标，读写分离时主库和从库各一项
+     */
+    private List<DbPoolMetricsDto> pools;
+
+    /**
+     * 按总耗时从高到低排列的SQL统计，参数不同的同一条SQL合并为一项
+     */
+    private List<DbSqlMetricsDto> sqls;
+
+    /**
+     * 各接口的SQL语句数指标，键为请求方法加路径模板
+     */
+    private Map<String, SqlBudgetMetrics.EndpointSnapshot> endpoints;
+}
@@ -0,0 +1,78 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 连接池指标Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "连接池指标Dto对象")
+public class DbPoolMetricsDto implements Serializable {
+
+    private static final long serialVersionUID = 2328229664684641312L;
+
+    /**
+     * 数据源名称
+     */
+    private String name;
+
+    /**
+     * 数据库地址，不含连接参数
+     */
+    private String url;
+
+    /**
+     * 最大连接数
+     */
+    private Integer maxActive;
+
+    /**
+     * 正在使用的连接数
+     */
+    private Integer activeCount;
+
+    /**
+     * 正在使用的连接数峰值
+     */
+    private Integer activePeak;
+
+    /**
+     * 池中空闲的连接数
+     */
+    private Integer poolingCount;
+
+    /**
+     * 当前正在等待连接的线程数
+     */
+    private Integer waitThreadCount;
+
+    /**
+     * 累计等待连接的次数
+     */
+    private Long waitCount;
+
+    /**
+     * 累计等待连接的时间（毫秒）
+     */
+    private Long waitMillis;
+
+    /**
+     * 累计创建连接失败的次数
+     */
+    private Long connectErrorCount;
+
+    /**
+     * 取连接耗时的直方图，键为耗时区间
+     */
+    private Map<String, Long> waitHistogram;
+}
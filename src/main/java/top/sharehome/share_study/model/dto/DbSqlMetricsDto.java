@@ -0,0 +1,63 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * SQL统计Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "SQL统计Dto对象")
+public class DbSqlMetricsDto implements Serializable {
+
+    private static final long serialVersionUID = 3309891910619756696L;
+
+    /**
+     * 数据源名称
+     */
+    private String dataSource;
+
+    /**
+     * 参数化合并后的SQL
+     */
+    private String sql;
+
+    /**
+     * 执行次数
+     */
+    private Long executeCount;
+
+    /**
+     * 执行出错次数
+     */
+    private Long errorCount;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private Long totalMillis;
+
+    /**
+     * 最大耗时（毫秒）
+     */
+    private Long maxMillis;
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    private Double avgMillis;
+
+    /**
+     * 执行耗时的直方图，键为耗时区间
+     */
+    private Map<String, Long> latencyHistogram;
+}
@@ -0,0 +1,44 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Excel导入结果Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "Excel导入结果Dto对象")
+public class ExcelImportResultDto implements Serializable {
+
+    private static final long serialVersionUID = 3046532581236403521L;
+
+    /**
+     * 读取到的数据行数
+     */
+    private Integer totalCount = 0;
+
+    /**
+     * 成功写入的行数
+     */
+    private Integer successCount = 0;
+
+    /**
+     * 失败的行数
+     */
+    private Integer failureCount = 0;
+
+    /**
+     * 失败原因，每条对应一行或一个批次
+     */
+    private List<String> errors = new ArrayList<>();
+}
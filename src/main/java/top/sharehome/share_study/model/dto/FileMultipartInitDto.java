@@ -0,0 +1,42 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 分片上传初始化Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "分片上传初始化Dto对象")
+public class FileMultipartInitDto implements Serializable {
+
+    private static final long serialVersionUID = 8204716398253174605L;
+
+    /**
+     * 对象键，后续上传分片、完成和取消时原样带回
+     */
+    private String key;
+
+    /**
+     * 分片上传ID
+     */
+    private String uploadId;
+
+    /**
+     * 每个分片的大小（字节），最后一个分片可以小于该值
+     */
+    private Long partSize;
+
+    /**
+     * 分片总数，分片编号从1开始
+     */
+    private Integer partCount;
+}
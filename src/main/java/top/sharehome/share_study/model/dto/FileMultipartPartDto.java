@@ -0,0 +1,37 @@
+package top.sharehome.share_study.model.dto;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 已上传分片Dto对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "已上传分片Dto对象")
+public class FileMultipartPartDto implements Serializable {
+
+    private static final long serialVersionUID = -2917463850138726541L;
+
+    /**
+     * 分片编号
+     */
+    private Integer partNumber;
+
+    /**
+     * 分片ETag
+     */
+    private String etag;
+
+    /**
+     * 分片大小（字节）
+     */
+    private Long size;
+}
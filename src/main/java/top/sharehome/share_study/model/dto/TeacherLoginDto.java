@@ -74,4 +74,9 @@ public class TeacherLoginDto implements Serializable {
      * 用户加入时间
      */
     private LocalDateTime createTime;
+
+    /**
+     * 登录令牌，仅在令牌登录模式下返回
+     */
+    private String token;
 }
@@ -0,0 +1,78 @@
+package top.sharehome.share_study.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 分片上传登记表
+ *
+ * @author AntonyCheng
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@TableName(value = "share_study.t_multipart_upload")
+public class MultipartUpload implements Serializable {
+    private static final long serialVersionUID = 4713602985146371209L;
+    /**
+     * 分片上传ID
+     */
+    @TableId(value = "upload_id", type = IdType.INPUT)
+    private String uploadId;
+
+    /**
+     * 对象键
+     */
+    @TableField(value = "object_key")
+    private String objectKey;
+
+    /**
+     * 上传者的教师ID
+     */
+    @TableField(value = "uploader")
+    private Long uploader;
+
+    /**
+     * 原始文件名
+     */
+    @TableField(value = "file_name")
+    private String fileName;
+
+    /**
+     * 声明的文件大小（字节）
+     */
+    @TableField(value = "file_size")
+    private Long fileSize;
+
+    /**
+     * 分片大小（字节）
+     */
+    @TableField(value = "part_size")
+    private Long partSize;
+
+    /**
+     * 分片数
+     */
+    @TableField(value = "part_count")
+    private Integer partCount;
+
+    /**
+     * 最近一次操作的时间（毫秒时间戳）
+     */
+    @TableField(value = "access_time")
+    private Long accessTime;
+
+    /**
+     * 登记时间
+     */
+    @TableField(value = "create_time")
+    private LocalDateTime createTime;
+}
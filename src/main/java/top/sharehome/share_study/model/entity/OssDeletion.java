@@ -0,0 +1,54 @@
+package top.sharehome.share_study.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * OSS待删除对象表
+ *
+ * @author AntonyCheng
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@TableName(value = "share_study.t_oss_deletion")
+public class OssDeletion implements Serializable {
+    private static final long serialVersionUID = -2287146402518316470L;
+    /**
+     * 待删除对象ID
+     */
+    @TableId(value = "oss_deletion_id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 对象键
+     */
+    @TableField(value = "object_key")
+    private String objectKey;
+
+    /**
+     * 已失败的删除次数
+     */
+    @TableField(value = "attempts")
+    private Integer attempts;
+
+    /**
+     * 下一次尝试删除的时间（毫秒时间戳）
+     */
+    @TableField(value = "next_attempt_time")
+    private Long nextAttemptTime;
+
+    /**
+     * 登记时间
+     */
+    @TableField(value = "create_time")
+    private LocalDateTime createTime;
+}
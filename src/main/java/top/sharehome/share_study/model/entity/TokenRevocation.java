@@ -0,0 +1,41 @@
+package top.sharehome.share_study.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 令牌吊销表
+ *
+ * @author AntonyCheng
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@TableName(value = "share_study.t_token_revocation")
+public class TokenRevocation implements Serializable {
+    private static final long serialVersionUID = 3506521367431452306L;
+    /**
+     * 教师ID
+     */
+    @TableId(value = "teacher_id", type = IdType.INPUT)
+    private Long teacherId;
+
+    /**
+     * 令牌ID，为空字符串时表示教师的所有令牌
+     */
+    @TableField(value = "token_id")
+    private String tokenId;
+
+    /**
+     * 吊销时间（毫秒时间戳），吊销教师的所有令牌时签发时间不晚于该时间的令牌失效
+     */
+    @TableField(value = "revoke_time")
+    private Long revokeTime;
+}
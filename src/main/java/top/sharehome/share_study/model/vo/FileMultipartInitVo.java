@@ -0,0 +1,32 @@
+package top.sharehome.share_study.model.vo;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 分片上传初始化Vo对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel("分片上传初始化Vo对象")
+public class FileMultipartInitVo implements Serializable {
+
+    private static final long serialVersionUID = -6138720553472098314L;
+
+    /**
+     * 原始文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件总大小（字节）
+     */
+    private Long fileSize;
+}
@@ -0,0 +1,32 @@
+package top.sharehome.share_study.model.vo;
+
+import io.swagger.annotations.ApiModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 分片上传完成/取消Vo对象
+ *
+ * @author AntonyCheng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel("分片上传完成/取消Vo对象")
+public class FileMultipartVo implements Serializable {
+
+    private static final long serialVersionUID = 4471956370823516472L;
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 分片上传ID
+     */
+    private String uploadId;
+}
@@ -2,8 +2,10 @@ package top.sharehome.share_study.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.model.dto.CollegeGetDto;
 import top.sharehome.share_study.model.dto.CollegePageDto;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.entity.College;
 import top.sharehome.share_study.model.vo.CollegeAddVo;
 import top.sharehome.share_study.model.vo.CollegePageVo;
@@ -78,4 +80,12 @@ public interface CollegeService extends IService<College> {
      * @return 高校名称List
      */
     List<CollegeGetDto> listCollege();
+
+    /**
+     * 高校信息导入，每1000行为一个批次写入
+     *
+     * @param file 上传的Excel文件
+     * @return 导入结果
+     */
+    ExcelImportResultDto upload(MultipartFile file);
 }
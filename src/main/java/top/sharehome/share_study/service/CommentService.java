@@ -2,8 +2,11 @@ package top.sharehome.share_study.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.model.dto.CommentGetDto;
 import top.sharehome.share_study.model.dto.CommentPageDto;
+import top.sharehome.share_study.model.dto.CursorPageDto;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.dto.PostCommentPageDto;
 import top.sharehome.share_study.model.dto.UserCommentPageDto;
 import top.sharehome.share_study.model.entity.Comment;
@@ -82,6 +85,16 @@ public interface CommentService extends IService<Comment> {
      */
     Page<UserCommentPageDto> getUserCommentPage(HttpServletRequest request, Integer current, Integer pageSize);
 
+    /**
+     * 交流评论游标分页查询接口
+     *
+     * @param request  获取Session中的登录状态
+     * @param cursor   上一页返回的游标，第一页为空
+     * @param pageSize 页面条数
+     * @return 返回本页评论和下一页游标
+     */
+    CursorPageDto<UserCommentPageDto> getUserCommentCursor(HttpServletRequest request, String cursor, Integer pageSize);
+
     /**
      * 普通用户删除单条评论
      *
@@ -108,6 +121,17 @@ public interface CommentService extends IService<Comment> {
      */
     Page<PostCommentPageDto> pageResourceComment(Long id, Integer current, Integer pageSize, HttpServletRequest request);
 
+    /**
+     * 资料详情评论游标分页
+     *
+     * @param id       教学资料ID
+     * @param cursor   上一页返回的游标，第一页为空
+     * @param pageSize 页面条数
+     * @param request  获取操作者的登录状态
+     * @return 返回本页评论和下一页游标
+     */
+    CursorPageDto<PostCommentPageDto> cursorResourceComment(Long id, String cursor, Integer pageSize, HttpServletRequest request);
+
     /**
      * 新增评论
      *
@@ -132,4 +156,13 @@ public interface CommentService extends IService<Comment> {
      * @return 返回修改结果
      */
     void updateCommentRead(Long id, HttpServletRequest request);
+
+    /**
+     * 交流评论数据导入，每1000行为一个批次写入
+     *
+     * @param file    上传的Excel文件
+     * @param request 获取Session中的登录状态
+     * @return 导入结果
+     */
+    ExcelImportResultDto upload(MultipartFile file, HttpServletRequest request);
 }
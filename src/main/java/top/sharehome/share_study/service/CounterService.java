@@ -0,0 +1,60 @@
+package top.sharehome.share_study.service;
+
+/**
+ * 计数器Service，教学资料收藏数、教师贡献度以及消息数的增减都经过这里，
+ * 每次增减都是一条原子的UPDATE语句，不再先查询再回写；
+ * 开启写后缓冲时，收藏数和贡献度的增量会在事务提交后进入缓冲，由缓冲批量刷回
+ *
+ * @author AntonyCheng
+ */
+public interface CounterService {
+    /**
+     * 增减教学资料收藏数
+     *
+     * @param resourceId 教学资料ID
+     * @param delta      增量，可以为负数
+     */
+    void incrementResourceScore(Long resourceId, long delta);
+
+    /**
+     * 增减教师贡献度
+     *
+     * @param teacherId 教师ID
+     * @param delta     增量，可以为负数
+     */
+    void incrementTeacherScore(Long teacherId, long delta);
+
+    /**
+     * 增减教师消息总数
+     *
+     * @param teacherId 教师ID
+     * @param delta     增量，可以为负数
+     */
+    void incrementTeacherMessageTotal(Long teacherId, long delta);
+
+    /**
+     * 增减教师已读消息数
+     *
+     * @param teacherId 教师ID
+     * @param delta     增量，可以为负数
+     */
+    void incrementTeacherMessageRead(Long teacherId, long delta);
+
+    /**
+     * 将尚未刷回数据库的增量合并到教学资料收藏数上
+     *
+     * @param resourceId     教学资料ID
+     * @param persistedScore 数据库中的收藏数
+     * @return 合并后的收藏数
+     */
+    Integer mergeResourceScore(Long resourceId, Integer persistedScore);
+
+    /**
+     * 将尚未刷回数据库的增量合并到教师贡献度上
+     *
+     * @param teacherId      教师ID
+     * @param persistedScore 数据库中的贡献度
+     * @return 合并后的贡献度
+     */
+    Integer mergeTeacherScore(Long teacherId, Integer persistedScore);
+}
@@ -1,7 +1,11 @@
 package top.sharehome.share_study.service;
 
 import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.model.dto.FileMultipartInitDto;
+import top.sharehome.share_study.model.dto.FileMultipartPartDto;
 
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
 
 /**
  * 文件Service
@@ -24,4 +28,67 @@ public interface FileOssService {
      * @param url 文件所在地址
      */
     void delete(String url);
+
+    /**
+     * 校验其他文件的格式和大小
+     *
+     * @param fileName 原始文件名
+     * @param fileSize 文件大小
+     * @return 返回小写的文件后缀
+     */
+    String checkFile(String fileName, long fileSize);
+
+    /**
+     * 分片上传初始化，登记当前登录用户为上传者
+     *
+     * @param fileName 原始文件名
+     * @param fileSize 文件总大小
+     * @param rootPath 上传的根路径
+     * @param request  获取登录用户的request
+     * @return 分片上传ID、对象键以及分片规划
+     */
+    FileMultipartInitDto initMultipartUpload(String fileName, Long fileSize, String rootPath, HttpServletRequest request);
+
+    /**
+     * 上传单个分片，分片之间互不依赖，可以并行上传，重复上传同一编号会覆盖之前的分片
+     * 分片编号不能超过规划的分片总数，分片大小不能超过规划的分片大小
+     *
+     * @param key        对象键
+     * @param uploadId   分片上传ID
+     * @param partNumber 分片编号
+     * @param part       分片数据
+     * @param request    获取登录用户的request
+     * @return 分片信息
+     */
+    FileMultipartPartDto uploadPart(String key, String uploadId, Integer partNumber, MultipartFile part, HttpServletRequest request);
+
+    /**
+     * 查询已上传的分片，用于断点续传
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     * @param request  获取登录用户的request
+     * @return 已上传的分片列表
+     */
+    List<FileMultipartPartDto> listParts(String key, String uploadId, HttpServletRequest request);
+
+    /**
+     * 完成分片上传，按编号合并所有已上传的分片
+     * 已上传分片的总大小与声明的文件大小不一致或者超出文件大小限制时取消本次分片上传
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     * @param request  获取登录用户的request
+     * @return 文件存储的url
+     */
+    String completeMultipartUpload(String key, String uploadId, HttpServletRequest request);
+
+    /**
+     * 取消分片上传，释放已上传的分片
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     * @param request  获取登录用户的request
+     */
+    void abortMultipartUpload(String key, String uploadId, HttpServletRequest request);
 }
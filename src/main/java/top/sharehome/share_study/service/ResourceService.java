@@ -2,6 +2,7 @@ package top.sharehome.share_study.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.model.dto.*;
 import top.sharehome.share_study.model.entity.Resource;
 import top.sharehome.share_study.model.vo.*;
@@ -115,6 +116,26 @@ public interface ResourceService extends IService<Resource> {
      */
     Page<PostPageDto> pagePost(Integer current, Integer pageSize, HttpServletRequest request, PostPageVo postPageVo);
 
+    /**
+     * 用户帖子游标分页
+     *
+     * @param cursor     上一页返回的游标，第一页为空
+     * @param pageSize   页面条数
+     * @param request    获取操作者的登录状态
+     * @param postPageVo 帖子分页模糊查询参数
+     * @return 返回本页帖子和下一页游标
+     */
+    CursorPageDto<PostPageDto> cursorPost(String cursor, Integer pageSize, HttpServletRequest request, PostPageVo postPageVo);
+
+    /**
+     * 热门帖子
+     *
+     * @param size    返回条数
+     * @param request 获取操作者的登录状态
+     * @return 按热度从高到低排列的帖子
+     */
+    List<PostPageDto> hotPost(Integer size, HttpServletRequest request);
+
     /**
      * 发布帖子接口
      *
@@ -131,4 +152,13 @@ public interface ResourceService extends IService<Resource> {
      * @return 帖子详情Dto对象
      */
     PostInfoDto info(Long id, HttpServletRequest request);
+
+    /**
+     * 教学资料信息导入，每1000行为一个批次写入
+     *
+     * @param file    上传的Excel文件
+     * @param request 获取Session中的登录状态
+     * @return 导入结果
+     */
+    ExcelImportResultDto upload(MultipartFile file, HttpServletRequest request);
 }
@@ -2,6 +2,7 @@ package top.sharehome.share_study.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import org.springframework.web.multipart.MultipartFile;
 import top.sharehome.share_study.model.dto.*;
 import top.sharehome.share_study.model.entity.Teacher;
 import top.sharehome.share_study.model.vo.*;
@@ -174,4 +175,21 @@ public interface TeacherService extends IService<Teacher> {
      * @param request              获取Session中的登录状态
      */
     void updateUserSelf(UserUpdateInfoSelfVo userUpdateInfoSelfVo, HttpServletRequest request);
+
+    /**
+     * 管理员信息导入，每1000行为一个批次写入
+     *
+     * @param file 上传的Excel文件
+     * @return 导入结果
+     */
+    ExcelImportResultDto uploadAdmin(MultipartFile file);
+
+    /**
+     * 教师信息导入，每1000行为一个批次写入
+     *
+     * @param file    上传的Excel文件
+     * @param request 获取Session中的登录状态
+     * @return 导入结果
+     */
+    ExcelImportResultDto uploadTeacher(MultipartFile file, HttpServletRequest request);
 }
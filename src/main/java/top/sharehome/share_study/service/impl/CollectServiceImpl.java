@@ -8,13 +8,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
 import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeTransactionException;
+import top.sharehome.share_study.common.full_text.FullTextSearch;
+import top.sharehome.share_study.common.hot_rank.HotResourceRanking;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.teacher_card.TeacherCard;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
 import top.sharehome.share_study.mapper.CollectMapper;
-import top.sharehome.share_study.mapper.CollegeMapper;
 import top.sharehome.share_study.mapper.ResourceMapper;
 import top.sharehome.share_study.mapper.TeacherMapper;
 import top.sharehome.share_study.model.dto.TeacherLoginDto;
@@ -22,14 +27,17 @@ import top.sharehome.share_study.model.dto.UserCollectPageDto;
 import top.sharehome.share_study.model.entity.Collect;
 import top.sharehome.share_study.model.entity.College;
 import top.sharehome.share_study.model.entity.Resource;
-import top.sharehome.share_study.model.entity.Teacher;
 import top.sharehome.share_study.model.vo.PostCollectUpdateVo;
 import top.sharehome.share_study.model.vo.UserCollectPageVo;
 import top.sharehome.share_study.service.CollectService;
+import top.sharehome.share_study.service.CounterService;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -44,12 +52,24 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
     @javax.annotation.Resource
     private TeacherMapper teacherMapper;
     @javax.annotation.Resource
-    private CollegeMapper collegeMapper;
+    private CollegeDictionary collegeDictionary;
+
+    @javax.annotation.Resource
+    private TeacherCardCache teacherCardCache;
+
+    @javax.annotation.Resource
+    private ContentVersionTracker contentVersionTracker;
     @javax.annotation.Resource
     private CollectMapper collectMapper;
+    @javax.annotation.Resource
+    private CounterService counterService;
+    @javax.annotation.Resource
+    private FullTextSearch fullTextSearch;
+    @javax.annotation.Resource
+    private HotResourceRanking hotResourceRanking;
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<UserCollectPageDto> getUserResourcePage(Long id, Integer current, Integer pageSize, HttpServletRequest request, UserCollectPageVo userCollectPageVo) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (teacherLoginDto == null) {
@@ -62,70 +82,59 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
                 .eq(Collect::getBelong, id)
                 .orderByAsc(Collect::getCreateTime);
 
-        if (userCollectPageVo == null) {
-            this.page(page, lambdaQueryWrapper);
-            BeanUtils.copyProperties(page, returnResult, "records");
-            List<UserCollectPageDto> pageDtoList = page.getRecords().stream().map(collect -> {
-                Resource resource = resourceMapper.selectById(collect.getResource());
-                Integer status = resource.getStatus();
-                if (!Objects.equals(teacherLoginDto.getId(), id) && status == 1) {
-                    return null;
-                }
-                UserCollectPageDto userCollectPageDto = new UserCollectPageDto();
-
-                Teacher teacher = teacherMapper.selectById(resource.getBelong());
-                if (teacher == null) {
-                    throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
-                }
-                userCollectPageDto.setUserId(teacher.getId());
-                userCollectPageDto.setUserName(teacher.getName());
-                userCollectPageDto.setUserAvatarUrl(teacher.getAvatar());
-                College college = collegeMapper.selectById(teacher.getBelong());
-                if (college == null) {
-                    throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
-                }
-                userCollectPageDto.setCollegeName(college.getName());
-
-                userCollectPageDto.setResourceStatus(status);
-                userCollectPageDto.setResourceId(resource.getId());
-                userCollectPageDto.setResourceName(resource.getName());
-                if (status == 0) {
-                    userCollectPageDto.setResourceInfo(resource.getInfo());
-                    userCollectPageDto.setResourceUrl(resource.getUrl());
-                }
-                userCollectPageDto.setCollectId(collect.getId());
-                userCollectPageDto.setCreateTime(collect.getCreateTime());
-
-                return userCollectPageDto;
-            }).collect(Collectors.toList());
-            pageDtoList.removeIf(Objects::isNull);
-            returnResult.setTotal(pageDtoList.size());
-            returnResult.setRecords(pageDtoList);
-            return returnResult;
+        if (userCollectPageVo != null) {
+            lambdaQueryWrapper
+                    .func(!StringUtils.isEmpty(userCollectPageVo.getResourceName()), wrapper -> fullTextSearch.contains(wrapper, Collect::getName, "collect_name", userCollectPageVo.getResourceName()))
+                    .func(!StringUtils.isEmpty(userCollectPageVo.getResourceInfo()), wrapper -> fullTextSearch.contains(wrapper, Collect::getInfo, "collect_info", userCollectPageVo.getResourceInfo()));
         }
 
-        lambdaQueryWrapper
-                .like(!StringUtils.isEmpty(userCollectPageVo.getResourceName()), Collect::getName, userCollectPageVo.getResourceName())
-                .like(!StringUtils.isEmpty(userCollectPageVo.getResourceInfo()), Collect::getInfo, userCollectPageVo.getResourceInfo());
-
         this.page(page, lambdaQueryWrapper);
         BeanUtils.copyProperties(page, returnResult, "records");
-        List<UserCollectPageDto> pageDtoList = page.getRecords().stream().map(collect -> {
-            Resource resource = resourceMapper.selectById(collect.getResource());
+        List<UserCollectPageDto> pageDtoList = assembleUserCollectPageDtoList(page.getRecords(), Objects.equals(teacherLoginDto.getId(), id));
+        returnResult.setTotal(pageDtoList.size());
+        returnResult.setRecords(pageDtoList);
+        return returnResult;
+    }
+
+    /**
+     * 批量组装用户收藏分页Dto
+     * 先收集页内所有教学资料和教师的ID，教学资料一次IN查询，教师名片一次批量获取，再在内存中拼装
+     *
+     * @param collects 本页收藏，返回结果与其顺序一致
+     * @param owner    当前登录用户是否就是收藏的所属用户，其他用户看不到被禁用的教学资料
+     * @return 用户收藏分页Dto列表
+     */
+    private List<UserCollectPageDto> assembleUserCollectPageDtoList(List<Collect> collects, boolean owner) {
+        if (collects.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Resource> resourceMap = resourceMapper.selectBatchIds(collects.stream()
+                        .map(Collect::getResource)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Resource::getId, Function.identity()));
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(resourceMap.values().stream()
+                .map(Resource::getBelong)
+                .collect(Collectors.toSet()));
+
+        List<UserCollectPageDto> pageDtoList = collects.stream().map(collect -> {
+            Resource resource = resourceMap.get(collect.getResource());
+            if (resource == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS));
+            }
             Integer status = resource.getStatus();
-            if (!Objects.equals(teacherLoginDto.getId(), id) && status == 1) {
+            if (!owner && status == 1) {
                 return null;
             }
             UserCollectPageDto userCollectPageDto = new UserCollectPageDto();
 
-            Teacher teacher = teacherMapper.selectById(resource.getBelong());
+            TeacherCard teacher = teacherCardMap.get(resource.getBelong());
             if (teacher == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
             }
             userCollectPageDto.setUserId(teacher.getId());
             userCollectPageDto.setUserName(teacher.getName());
             userCollectPageDto.setUserAvatarUrl(teacher.getAvatar());
-            College college = collegeMapper.selectById(teacher.getBelong());
+            College college = collegeDictionary.get(teacher.getBelong());
             if (college == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
             }
@@ -144,9 +153,7 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
             return userCollectPageDto;
         }).collect(Collectors.toList());
         pageDtoList.removeIf(Objects::isNull);
-        returnResult.setTotal(pageDtoList.size());
-        returnResult.setRecords(pageDtoList);
-        return returnResult;
+        return pageDtoList;
     }
 
     @Override
@@ -172,27 +179,19 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
         if (targetResource == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "收藏的教学资料不存在");
         }
-        LambdaUpdateWrapper<Resource> resourceLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        resourceLambdaUpdateWrapper
-                .set(Resource::getScore, targetResource.getScore() - 1)
-                .eq(Resource::getId, targetResource.getId());
-        resourceMapper.update(null, resourceLambdaUpdateWrapper);
-
-        Teacher targetTeacher = teacherMapper.selectById(targetResource.getBelong());
-        if (targetTeacher == null) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "教师的教学资料不存在");
+        // 已取消的收藏在取消时已经扣减过收藏数和贡献度，不能重复扣减
+        if (selectResult.getStatus() == 0) {
+            counterService.incrementResourceScore(targetResource.getId(), -1);
+            counterService.incrementTeacherScore(targetResource.getBelong(), -1);
         }
-        LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        teacherLambdaUpdateWrapper
-                .set(Teacher::getScore, targetTeacher.getScore() - 1)
-                .eq(Teacher::getId, targetTeacher.getId());
-        teacherMapper.update(null, teacherLambdaUpdateWrapper);
 
         int deleteResult = collectMapper.delete(collectLambdaQueryWrapper);
 
         if (deleteResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "收藏数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touch(targetResource.getId());
     }
 
     @Override
@@ -204,12 +203,11 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
         }
 
         LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        collectLambdaQueryWrapper.eq(Collect::getBelong, teacherLoginDto.getId());
-        List<Collect> collectList = collectMapper.selectList(collectLambdaQueryWrapper);
-        List<Long> resourceIds = collectList.stream().map(Collect::getResource).collect(Collectors.toList());
-        if (resourceIds.contains(postCollectUpdateVo.getResource())) {
-            collectLambdaQueryWrapper.eq(Collect::getResource, postCollectUpdateVo.getResource());
-            Collect collect = collectMapper.selectOne(collectLambdaQueryWrapper);
+        collectLambdaQueryWrapper
+                .eq(Collect::getBelong, teacherLoginDto.getId())
+                .eq(Collect::getResource, postCollectUpdateVo.getResource());
+        Collect collect = collectMapper.selectOne(collectLambdaQueryWrapper);
+        if (collect != null) {
             LambdaUpdateWrapper<Collect> collectLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
             collectLambdaUpdateWrapper
                     .eq(Collect::getBelong, teacherLoginDto.getId())
@@ -221,30 +219,24 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
                 throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "收藏数据更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
             }
 
-            LambdaUpdateWrapper<Resource> resourceLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            resourceLambdaUpdateWrapper
-                    .eq(Resource::getId, postCollectUpdateVo.getResource())
-                    .set(collect.getStatus() == 0, Resource::getScore, resourceMapper.selectById(postCollectUpdateVo.getResource()).getScore() - 1)
-                    .set(collect.getStatus() == 1, Resource::getScore, resourceMapper.selectById(postCollectUpdateVo.getResource()).getScore() + 1);
-            int updateResourceResult = resourceMapper.update(null, resourceLambdaUpdateWrapper);
-            if (updateResourceResult == 0) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教学资源数据更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-            }
-
-            LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            teacherLambdaUpdateWrapper
-                    .eq(Teacher::getId, postCollectUpdateVo.getBelong())
-                    .set(collect.getStatus() == 0, Teacher::getScore, teacherMapper.selectById(postCollectUpdateVo.getBelong()).getScore() - 1)
-                    .set(collect.getStatus() == 1, Teacher::getScore, teacherMapper.selectById(postCollectUpdateVo.getBelong()).getScore() + 1);
-            int updateTeacherResult = teacherMapper.update(null, teacherLambdaUpdateWrapper);
-            if (updateTeacherResult == 0) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教师数据更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+            int delta = collect.getStatus() == 0 ? -1 : 1;
+            counterService.incrementResourceScore(postCollectUpdateVo.getResource(), delta);
+            counterService.incrementTeacherScore(postCollectUpdateVo.getBelong(), delta);
+            contentVersionTracker.touch(postCollectUpdateVo.getResource());
+            if (delta > 0) {
+                hotResourceRanking.recordCollect(postCollectUpdateVo.getResource());
+            } else {
+                // 切换前的更新时间就是原来收藏的时间
+                hotResourceRanking.recordUncollect(postCollectUpdateVo.getResource(), collect.getUpdateTime() == null ? collect.getCreateTime() : collect.getUpdateTime());
             }
 
             return collect.getStatus() != 0;
         } else {
             Resource resource = resourceMapper.selectById(postCollectUpdateVo.getResource());
-            Collect collect = new Collect();
+            if (resource == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "收藏的教学资料不存在");
+            }
+            collect = new Collect();
             collect.setBelong(teacherLoginDto.getId());
             collect.setResource(postCollectUpdateVo.getResource());
             collect.setName(resource.getName());
@@ -254,23 +246,10 @@ public class CollectServiceImpl extends ServiceImpl<CollectMapper, Collect> impl
                 throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_ADDITION_FAILED), "收藏数据新增失败，从数据库返回的影响行数为0，且在之前没有报出异常");
             }
 
-            LambdaUpdateWrapper<Resource> resourceLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            resourceLambdaUpdateWrapper
-                    .eq(Resource::getId, postCollectUpdateVo.getResource())
-                    .set(Resource::getScore, resourceMapper.selectById(postCollectUpdateVo.getResource()).getScore() + 1);
-            int updateResourceResult = resourceMapper.update(null, resourceLambdaUpdateWrapper);
-            if (updateResourceResult == 0) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教学资源数据更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-            }
-
-            LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            teacherLambdaUpdateWrapper
-                    .eq(Teacher::getId, postCollectUpdateVo.getBelong())
-                    .set(Teacher::getScore, teacherMapper.selectById(postCollectUpdateVo.getBelong()).getScore() + 1);
-            int updateTeacherResult = teacherMapper.update(null, teacherLambdaUpdateWrapper);
-            if (updateTeacherResult == 0) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教师数据更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-            }
+            counterService.incrementResourceScore(postCollectUpdateVo.getResource(), 1);
+            counterService.incrementTeacherScore(postCollectUpdateVo.getBelong(), 1);
+            contentVersionTracker.touch(postCollectUpdateVo.getResource());
+            hotResourceRanking.recordCollect(postCollectUpdateVo.getResource());
             return true;
         }
     }
@@ -1,35 +1,44 @@
 package top.sharehome.share_study.service.impl;
 
-import com.alibaba.excel.EasyExcelFactory;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.Query;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.admin_search.AdminSearchHits;
+import top.sharehome.share_study.common.admin_search.AdminSearchIndex;
+import top.sharehome.share_study.common.admin_search.AdminSearchQuery;
+import top.sharehome.share_study.common.admin_search.AdminSearchType;
+import top.sharehome.share_study.common.cascade_delete.CascadeDeleter;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeTransactionException;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.listener.CollegeExcelListener;
 import top.sharehome.share_study.mapper.CollegeMapper;
 import top.sharehome.share_study.mapper.TeacherMapper;
 import top.sharehome.share_study.model.dto.CollegeGetDto;
 import top.sharehome.share_study.model.dto.CollegePageDto;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
 import top.sharehome.share_study.model.entity.College;
 import top.sharehome.share_study.model.entity.Teacher;
 import top.sharehome.share_study.model.vo.CollegeAddVo;
 import top.sharehome.share_study.model.vo.CollegePageVo;
 import top.sharehome.share_study.model.vo.CollegeUpdateVo;
 import top.sharehome.share_study.service.CollegeService;
+import top.sharehome.share_study.utils.ExcelImportUtil;
+import top.sharehome.share_study.utils.ExcelStreamExportUtil;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -46,6 +55,18 @@ public class CollegeServiceImpl extends ServiceImpl<CollegeMapper, College> impl
     @Resource
     private TeacherMapper teacherMapper;
 
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private CollegeDictionary collegeDictionary;
+
+    @Resource
+    private AdminSearchIndex adminSearchIndex;
+
+    @Resource
+    private CascadeDeleter cascadeDeleter;
+
     @Override
     @Transactional(rollbackFor = CustomizeReturnException.class)
     public void add(CollegeAddVo collegeAddVo) {
@@ -69,6 +90,8 @@ public class CollegeServiceImpl extends ServiceImpl<CollegeMapper, College> impl
         if (insertResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_ADDITION_FAILED), "添加高校失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        collegeDictionary.invalidate();
+        adminSearchIndex.markDirty(AdminSearchType.COLLEGE, college.getId());
     }
 
     @Override
@@ -91,27 +114,13 @@ public class CollegeServiceImpl extends ServiceImpl<CollegeMapper, College> impl
             throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_BIND_USER), "高校下还绑定着用户，无法删除");
         }
 
-        LambdaUpdateWrapper<College> collegeLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        collegeLambdaUpdateWrapper.eq(College::getId, id);
-        selectResult.setName(selectResult.getName() + "+" + System.currentTimeMillis());
-        selectResult.setCode(selectResult.getCode() + "+" + System.currentTimeMillis());
-        collegeMapper.update(selectResult, collegeLambdaUpdateWrapper);
-
-        int deleteResult = collegeMapper.delete(collegeLambdaQueryWrapper);
-
-        // 判断数据库删除结果
-        if (deleteResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "高校数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-        }
+        cascadeDeleter.deleteColleges(Collections.singletonList(id));
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
     public CollegeGetDto get(Long id) {
         // 判断高校是否存在
-        LambdaQueryWrapper<College> collegeLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        collegeLambdaQueryWrapper.eq(College::getId, id);
-        College selectResult = collegeMapper.selectOne(collegeLambdaQueryWrapper);
+        College selectResult = collegeDictionary.get(id);
         if (selectResult == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "高校不存在，不需要进行下一步操作");
         }
@@ -161,10 +170,12 @@ public class CollegeServiceImpl extends ServiceImpl<CollegeMapper, College> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "高校数据修改失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        collegeDictionary.invalidate();
+        adminSearchIndex.markDirty(AdminSearchType.COLLEGE, college.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<CollegePageDto> pageCollege(Integer current, Integer pageSize, CollegePageVo collegePageVo) {
         // 创建原始分页数据以及返回分页数据
         Page<College> page = new Page<>(current, pageSize);
@@ -188,6 +199,23 @@ public class CollegeServiceImpl extends ServiceImpl<CollegeMapper, College> impl
             return returnResult;
         }
 
+        // 开启管理端索引时一次索引查询得到当前页的高校ID，再一次批量查出高校
+        if (adminSearchIndex.isEnabled()) {
+            Query query = new AdminSearchQuery()
+                    .contains(!StringUtils.isEmpty(collegePageVo.getName()), AdminSearchIndex.NAME, collegePageVo.getName())
+                    .substring(!StringUtils.isEmpty(collegePageVo.getCode()), AdminSearchIndex.CODE, collegePageVo.getCode())
+                    .build();
+            AdminSearchHits hits = adminSearchIndex.search(AdminSearchType.COLLEGE, query, current, pageSize);
+            List<College> colleges = adminSearchIndex.hydrate(AdminSearchType.COLLEGE, hits.getIds());
+            returnResult.setTotal(hits.getTotal());
+            returnResult.setRecords(colleges.stream().map(record -> {
+                CollegePageDto collegePageDto = new CollegePageDto();
+                BeanUtils.copyProperties(record, collegePageDto);
+                return collegePageDto;
+            }).collect(Collectors.toList()));
+            return returnResult;
+        }
+
         // 当存在模糊查询时的分页操作
         lambdaQueryWrapper
                 .like(!StringUtils.isEmpty(collegePageVo.getName()), College::getName, collegePageVo.getName())
@@ -204,54 +232,41 @@ public class CollegeServiceImpl extends ServiceImpl<CollegeMapper, College> impl
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
     public void deleteBath(List<Long> ids) {
         // 判断高校ID是否有对应的高校数据
-        ids.forEach(id -> {
-            College selectResult = this.getById(id);
-            if (selectResult == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "所要删除的高校ID中有不存在的高校");
-            }
-            LambdaUpdateWrapper<College> collegeLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            collegeLambdaUpdateWrapper.eq(College::getId, id);
-            selectResult.setName(selectResult.getName() + "+" + System.currentTimeMillis());
-            selectResult.setCode(selectResult.getCode() + "+" + System.currentTimeMillis());
-            collegeMapper.update(selectResult, collegeLambdaUpdateWrapper);
-        });
-        this.removeBatchByIds(ids);
+        List<College> collegeList = collegeMapper.selectBatchIds(ids);
+        if (collegeList.size() != new HashSet<>(ids).size()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "所要删除的高校ID中有不存在的高校");
+        }
+
+        // 判断这些高校是否还绑定着用户
+        LambdaQueryWrapper<Teacher> teacherLambdaQueryWrapper = new LambdaQueryWrapper<>();
+        teacherLambdaQueryWrapper.in(Teacher::getBelong, ids);
+        Long teacherCount = teacherMapper.selectCount(teacherLambdaQueryWrapper);
+        if (teacherCount != 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_BIND_USER), "高校下还绑定着用户，无法删除");
+        }
+
+        cascadeDeleter.deleteColleges(ids);
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public void download(HttpServletResponse response) {
-        try {
-            // 设置下载信息
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("utf-8");
-            // 这里URLEncoder.encode可以防止中文乱码 当然和easyexcel没有关系
-            String fileName = URLEncoder.encode("高校信息", "UTF-8").replaceAll("\\+", "%20");
-            response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
-            // 查询高校分类表所有的数据
-            List<College> collegeList = collegeMapper.selectList(null);
-            EasyExcelFactory.write(response.getOutputStream(), College.class)
-                    .sheet("高校数据")
-                    .doWrite(collegeList);
-        } catch (UnsupportedEncodingException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "导出Excel时文件编码异常");
-        } catch (IOException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "文件写入时，响应流发生异常");
-        }
+        ExcelStreamExportUtil.export(response, "高校信息", "高校数据", College.class, collegeMapper, College::getId, null);
+    }
+
+    @Override
+    public ExcelImportResultDto upload(MultipartFile file) {
+        ExcelImportResultDto excelImportResultDto = ExcelImportUtil.read(file, College.class, new CollegeExcelListener(this, transactionTemplate, collegeMapper));
+        collegeDictionary.invalidate();
+        adminSearchIndex.markRebuild(AdminSearchType.COLLEGE);
+        return excelImportResultDto;
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
     public List<CollegeGetDto> listCollege() {
-        // 获取高校的信息列表
-        List<College> list = this.list();
-        return list.stream().map(college -> {
-            CollegeGetDto collegeGetDto = new CollegeGetDto();
-            BeanUtils.copyProperties(college, collegeGetDto);
-            return collegeGetDto;
-        }).collect(Collectors.toList());
+        // 直接返回高校字典的快照，高校增删改提交后快照随之作废，不再额外缓存一份列表
+        return collegeDictionary.list();
     }
 }
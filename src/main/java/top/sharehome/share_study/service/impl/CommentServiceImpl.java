@@ -1,22 +1,33 @@
 package top.sharehome.share_study.service.impl;
 
-import com.alibaba.excel.EasyExcelFactory;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.Query;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.admin_search.AdminSearchHits;
+import top.sharehome.share_study.common.admin_search.AdminSearchIndex;
+import top.sharehome.share_study.common.admin_search.AdminSearchQuery;
+import top.sharehome.share_study.common.admin_search.AdminSearchType;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
 import top.sharehome.share_study.common.constant.CommonConstant;
-import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
+import top.sharehome.share_study.common.cursor_page.PageCursor;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeTransactionException;
+import top.sharehome.share_study.common.hot_rank.HotResourceRanking;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
-import top.sharehome.share_study.mapper.CollegeMapper;
+import top.sharehome.share_study.common.teacher_card.TeacherCard;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.listener.CommentExcelListener;
 import top.sharehome.share_study.mapper.CommentMapper;
 import top.sharehome.share_study.mapper.ResourceMapper;
 import top.sharehome.share_study.mapper.TeacherMapper;
@@ -29,17 +40,21 @@ import top.sharehome.share_study.model.vo.CommentPageVo;
 import top.sharehome.share_study.model.vo.CommentUpdateVo;
 import top.sharehome.share_study.model.vo.PostCommentAddVo;
 import top.sharehome.share_study.service.CommentService;
+import top.sharehome.share_study.service.CounterService;
+import top.sharehome.share_study.utils.ExcelImportUtil;
+import top.sharehome.share_study.utils.ExcelStreamExportUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 评论交流ServiceImpl
@@ -58,28 +73,44 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     private ResourceMapper resourceMapper;
 
     @javax.annotation.Resource
-    private CollegeMapper collegeMapper;
+    private CollegeDictionary collegeDictionary;
+
+    @javax.annotation.Resource
+    private TeacherCardCache teacherCardCache;
+
+    @javax.annotation.Resource
+    private ContentVersionTracker contentVersionTracker;
+
+    @javax.annotation.Resource
+    private CounterService counterService;
+
+    @javax.annotation.Resource
+    private TransactionTemplate transactionTemplate;
+
+    @javax.annotation.Resource
+    private AdminSearchIndex adminSearchIndex;
+
+    @javax.annotation.Resource
+    private HotResourceRanking hotResourceRanking;
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public void download(HttpServletResponse response) {
-        try {
-            // 设置下载信息
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("utf-8");
-            // 这里URLEncoder.encode可以防止中文乱码 当然和easyexcel没有关系
-            String fileName = URLEncoder.encode("评论交流数据", "UTF-8").replaceAll("\\+", "%20");
-            response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
-            // 查询评论交流分类表所有的数据
-            List<Comment> resourceList = commentMapper.selectList(null);
-            EasyExcelFactory.write(response.getOutputStream(), Comment.class)
-                    .sheet("评论交流数据")
-                    .doWrite(resourceList);
-        } catch (UnsupportedEncodingException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "导出Excel时文件编码异常");
-        } catch (IOException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "文件写入时，响应流发生异常");
+        ExcelStreamExportUtil.export(response, "评论交流数据", "评论交流数据", Comment.class, commentMapper, Comment::getId, null);
+    }
+
+    @Override
+    public ExcelImportResultDto upload(MultipartFile file, HttpServletRequest request) {
+        // 鉴定操作者的权限，Excel导入只有超级管理员可以操作
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (teacherLoginDto == null || !Objects.equals(teacherLoginDto.getRole(), CommonConstant.SUPER_ROLE)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "非超级管理员无法导入交流评论数据");
         }
+
+        ExcelImportResultDto result = ExcelImportUtil.read(file, Comment.class, new CommentExcelListener(this, transactionTemplate, teacherMapper, resourceMapper, counterService));
+        contentVersionTracker.touchAll();
+        adminSearchIndex.markRebuild(AdminSearchType.COMMENT);
+        return result;
     }
 
     @Override
@@ -119,6 +150,9 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (deleteResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "交流评论数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touch(selectResult.getResource());
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, id);
     }
 
     @Override
@@ -150,16 +184,19 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
                     && !Objects.equals(targetTeacher.getRole(), CommonConstant.DEFAULT_ROLE))) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "管理员没有权限在此删除其他管理员和超级管理员的交流评论");
             }
+
+            contentVersionTracker.touch(selectResult.getResource());
         });
 
         int deleteResult = resourceMapper.deleteBatchIds(ids);
         if (deleteResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "交流评论数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, ids);
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public CommentGetDto get(Long id, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
         if (Objects.equals(teacherLoginDto.getRole(), CommonConstant.DEFAULT_ROLE)) {
@@ -237,10 +274,13 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改交流评论失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touch(resultFromDatabase.getResource());
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, resultFromDatabase.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<CommentPageDto> pageComment(Integer current, Integer pageSize, CommentPageVo commentPageVo) {
         Page<Comment> page = new Page<>(current, pageSize);
         Page<CommentPageDto> returnResult = new Page<>(current, pageSize);
@@ -248,29 +288,27 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (commentPageVo == null) {
             this.page(page);
             BeanUtils.copyProperties(page, returnResult, "records");
+            Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(page.getRecords().stream()
+                    .flatMap(comment -> Stream.of(comment.getBelong(), comment.getSend()))
+                    .collect(Collectors.toSet()));
+            Map<Long, Resource> resourceMap = loadResourceMap(page.getRecords());
             List<CommentPageDto> pageDtoList = page.getRecords().stream().map(comment -> {
                 CommentPageDto commentPageDto = new CommentPageDto();
                 BeanUtils.copyProperties(comment, commentPageDto);
 
-                LambdaQueryWrapper<Teacher> belongLambdaQueryWrapper = new LambdaQueryWrapper<>();
-                belongLambdaQueryWrapper.eq(Teacher::getId, comment.getBelong());
-                Teacher belong = teacherMapper.selectOne(belongLambdaQueryWrapper);
+                TeacherCard belong = teacherCardMap.get(comment.getBelong());
                 if (belong == null) {
                     throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "发送者不存在");
                 }
                 commentPageDto.setBelongName(belong.getName());
 
-                LambdaQueryWrapper<Teacher> sendLambdaQueryWrapper = new LambdaQueryWrapper<>();
-                sendLambdaQueryWrapper.eq(Teacher::getId, comment.getSend());
-                Teacher send = teacherMapper.selectOne(sendLambdaQueryWrapper);
+                TeacherCard send = teacherCardMap.get(comment.getSend());
                 if (send == null) {
                     throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "接收者不存在");
                 }
                 commentPageDto.setSendName(send.getName());
 
-                LambdaQueryWrapper<Resource> resourceQueryWrapper = new LambdaQueryWrapper<>();
-                resourceQueryWrapper.eq(Resource::getId, comment.getResource());
-                Resource resource = resourceMapper.selectOne(resourceQueryWrapper);
+                Resource resource = resourceMap.get(comment.getResource());
                 if (resource == null) {
                     throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在");
                 }
@@ -282,6 +320,43 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
             return returnResult;
         }
 
+        // 开启管理端索引时老师名称和教学资料名称先在各自的索引中解析为ID，再一次索引查询得到当前页的评论ID
+        if (adminSearchIndex.isEnabled()) {
+            Query query = new AdminSearchQuery()
+                    .contains(!StringUtils.isEmpty(commentPageVo.getContent()), AdminSearchIndex.CONTENT, commentPageVo.getContent())
+                    .eq(!ObjectUtils.isEmpty(commentPageVo.getReadStatus()), AdminSearchIndex.READ_STATUS, commentPageVo.getReadStatus())
+                    .eq(!ObjectUtils.isEmpty(commentPageVo.getStatus()), AdminSearchIndex.STATUS, commentPageVo.getStatus())
+                    .in(!StringUtils.isEmpty(commentPageVo.getBelongName()), AdminSearchIndex.BELONG, searchIdsByName(AdminSearchType.TEACHER, commentPageVo.getBelongName()))
+                    .in(!StringUtils.isEmpty(commentPageVo.getSendName()), AdminSearchIndex.SEND, searchIdsByName(AdminSearchType.TEACHER, commentPageVo.getSendName()))
+                    .in(!StringUtils.isEmpty(commentPageVo.getResourceName()), AdminSearchIndex.RESOURCE, searchIdsByName(AdminSearchType.RESOURCE, commentPageVo.getResourceName()))
+                    .build();
+            AdminSearchHits hits = adminSearchIndex.search(AdminSearchType.COMMENT, query, current, pageSize);
+            List<Comment> comments = adminSearchIndex.hydrate(AdminSearchType.COMMENT, hits.getIds());
+            Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(comments.stream()
+                    .flatMap(comment -> Stream.of(comment.getBelong(), comment.getSend()))
+                    .collect(Collectors.toSet()));
+            Map<Long, Resource> resourceMap = loadResourceMap(comments);
+            returnResult.setTotal(hits.getTotal());
+            returnResult.setRecords(comments.stream().map(comment -> {
+                CommentPageDto commentPageDto = new CommentPageDto();
+                BeanUtils.copyProperties(comment, commentPageDto);
+                TeacherCard belongTeacher = teacherCardMap.get(comment.getBelong());
+                TeacherCard sendTeacher = teacherCardMap.get(comment.getSend());
+                if (belongTeacher == null || sendTeacher == null) {
+                    throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
+                }
+                commentPageDto.setBelongName(belongTeacher.getName());
+                commentPageDto.setSendName(sendTeacher.getName());
+                Resource resource = resourceMap.get(comment.getResource());
+                if (resource == null) {
+                    throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在");
+                }
+                commentPageDto.setResourceName(resource.getName());
+                return commentPageDto;
+            }).collect(Collectors.toList()));
+            return returnResult;
+        }
+
         LambdaQueryWrapper<Comment> lambdaQueryWrapper = new LambdaQueryWrapper<>();
         lambdaQueryWrapper
                 .like(!StringUtils.isEmpty(commentPageVo.getContent()), Comment::getContent, commentPageVo.getContent())
@@ -327,6 +402,11 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
             page.setRecords(new ArrayList<>());
         }
 
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(page.getRecords().stream()
+                .flatMap(comment -> Stream.of(comment.getBelong(), comment.getSend()))
+                .collect(Collectors.toSet()));
+        Map<Long, Resource> resourceMap = loadResourceMap(page.getRecords());
+
         List<Long> finalBelongIds = belongIds;
         List<Long> finalSendIds = sendIds;
         List<Long> finalResourceIds = resourceIds;
@@ -345,25 +425,19 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
             CommentPageDto commentPageDto = new CommentPageDto();
             BeanUtils.copyProperties(comment, commentPageDto);
 
-            LambdaQueryWrapper<Teacher> belongLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            belongLambdaQueryWrapper.eq(Teacher::getId, comment.getBelong());
-            Teacher belongTeacher = teacherMapper.selectOne(belongLambdaQueryWrapper);
+            TeacherCard belongTeacher = teacherCardMap.get(comment.getBelong());
             if (belongTeacher == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
             }
             commentPageDto.setBelongName(belongTeacher.getName());
 
-            LambdaQueryWrapper<Teacher> sendLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            sendLambdaQueryWrapper.eq(Teacher::getId, comment.getSend());
-            Teacher sendTeacher = teacherMapper.selectOne(sendLambdaQueryWrapper);
+            TeacherCard sendTeacher = teacherCardMap.get(comment.getSend());
             if (sendTeacher == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
             }
             commentPageDto.setSendName(sendTeacher.getName());
 
-            LambdaQueryWrapper<Resource> resourceLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            resourceLambdaQueryWrapper.eq(Resource::getId, comment.getResource());
-            Resource resource = resourceMapper.selectOne(resourceLambdaQueryWrapper);
+            Resource resource = resourceMap.get(comment.getResource());
             if (resource == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
             }
@@ -378,7 +452,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<UserCommentPageDto> getUserCommentPage(HttpServletRequest request, Integer current, Integer pageSize) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (teacherLoginDto == null) {
@@ -394,34 +468,42 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
 
         this.page(page, lambdaQueryWrapper);
         BeanUtils.copyProperties(page, returnResult, "records");
-        List<UserCommentPageDto> pageDtoList = page.getRecords().stream().map(comment -> {
-            Teacher teacher = teacherMapper.selectById(comment.getBelong());
-            if (teacher == null) {
-                return null;
-            }
-            Resource resource = resourceMapper.selectById(comment.getResource());
-            UserCommentPageDto userCommentPageDto = new UserCommentPageDto();
-            userCommentPageDto.setId(comment.getId());
-            userCommentPageDto.setCreateTime(LocalDateTime.now());
-            userCommentPageDto.setBelongId(comment.getBelong());
-            userCommentPageDto.setBelongName(teacher.getName());
-            userCommentPageDto.setResourceId(comment.getResource());
-            userCommentPageDto.setResourceName(resource.getName());
-            userCommentPageDto.setReadStatus(comment.getReadStatus());
-            userCommentPageDto.setStatus(comment.getStatus());
-            if (comment.getStatus() == 0) {
-                userCommentPageDto.setContent(comment.getContent());
-            } else {
-                userCommentPageDto.setContent("该内容已经被封禁");
-            }
-            return userCommentPageDto;
-        }).collect(Collectors.toList());
-        pageDtoList.removeIf(Objects::isNull);
+        List<UserCommentPageDto> pageDtoList = assembleUserCommentPageDtoList(page.getRecords());
         returnResult.setTotal(pageDtoList.size());
         returnResult.setRecords(pageDtoList);
         return returnResult;
     }
 
+    @Override
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
+    public CursorPageDto<UserCommentPageDto> getUserCommentCursor(HttpServletRequest request, String cursor, Integer pageSize) {
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (teacherLoginDto == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.NOT_LOGIN), "登录状态为空，普通用户未登录");
+        }
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        LambdaQueryWrapper<Comment> lambdaQueryWrapper = new LambdaQueryWrapper<>();
+        lambdaQueryWrapper
+                .eq(Comment::getSend, teacherLoginDto.getId())
+                .ne(Comment::getReadStatus, 2);
+        if (pageCursor != null) {
+            lambdaQueryWrapper
+                    .ge(Comment::getCreateTime, pageCursor.getCreateTime())
+                    .and(wrapper -> wrapper
+                            .gt(Comment::getCreateTime, pageCursor.getCreateTime())
+                            .or()
+                            .gt(Comment::getId, pageCursor.getId()));
+        }
+        lambdaQueryWrapper
+                .orderByAsc(Comment::getCreateTime)
+                .orderByAsc(Comment::getId)
+                .last("limit " + (pageSize + 1));
+
+        List<Comment> comments = commentMapper.selectList(lambdaQueryWrapper);
+        String nextCursor = PageCursor.next(comments, pageSize, Comment::getCreateTime, Comment::getId);
+        return new CursorPageDto<>(assembleUserCommentPageDtoList(comments), nextCursor);
+    }
+
     @Override
     @Transactional(rollbackFor = CustomizeTransactionException.class)
     public void deleteUserComment(Long id, HttpServletRequest request) {
@@ -451,6 +533,9 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "删除交流评论失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touch(resultFromDatabase.getResource());
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, resultFromDatabase.getId());
     }
 
     @Override
@@ -462,10 +547,14 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         }
 
         LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        commentLambdaQueryWrapper.eq(Comment::getSend, teacherLoginDto.getId());
-        Long selectCount = commentMapper.selectCount(commentLambdaQueryWrapper);
-
-        if (selectCount == 0) {
+        commentLambdaQueryWrapper
+                .select(Comment::getId)
+                .eq(Comment::getSend, teacherLoginDto.getId());
+        List<Long> commentIds = commentMapper.selectObjs(commentLambdaQueryWrapper).stream()
+                .map(commentId -> (Long) commentId)
+                .collect(Collectors.toList());
+
+        if (commentIds.isEmpty()) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "该用户没有任何消息");
         }
 
@@ -479,10 +568,13 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "删除交流评论失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touchAll();
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, commentIds);
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<PostCommentPageDto> pageResourceComment(Long id, Integer current, Integer pageSize, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (teacherLoginDto == null) {
@@ -497,54 +589,41 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
 
         this.page(page, lambdaQueryWrapper);
         BeanUtils.copyProperties(page, returnResult, "records");
-        List<PostCommentPageDto> pageDtoList = page.getRecords().stream().map(comment -> {
-            if (comment.getStatus() == 1) {
-                return null;
-            }
-            Resource resource = resourceMapper.selectById(id);
-            if (resource == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在");
-            }
-            Teacher belongTeacher = teacherMapper.selectById(comment.getBelong());
-            if (belongTeacher == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "发送评论的老师不存在");
-            }
-            College belongCollege = collegeMapper.selectById(belongTeacher.getBelong());
-            if (belongCollege == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "发送者的学校不存在");
-            }
-            Teacher sendTeacher = teacherMapper.selectById(comment.getSend());
-            if (sendTeacher == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "接收评论的老师不存在");
-            }
-            College sendCollege = collegeMapper.selectById(sendTeacher.getBelong());
-            if (sendCollege == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "接收者的学校不存在");
-            }
-
-            PostCommentPageDto postCommentPageDto = new PostCommentPageDto();
-            postCommentPageDto.setResourceId(resource.getId());
-            postCommentPageDto.setBelong(belongTeacher.getId());
-            postCommentPageDto.setBelongName(belongTeacher.getName());
-            postCommentPageDto.setBelongAvatarUrl(belongTeacher.getAvatar());
-            postCommentPageDto.setBelongCollege(belongCollege.getName());
-            postCommentPageDto.setSend(sendTeacher.getId());
-            postCommentPageDto.setSendName(sendTeacher.getName());
-            postCommentPageDto.setSendAvatarUrl(sendTeacher.getAvatar());
-            postCommentPageDto.setSendCollege(sendCollege.getName());
-            postCommentPageDto.setCommentId(comment.getId());
-            postCommentPageDto.setCommentContent(comment.getContent());
-            postCommentPageDto.setCommentOssUrl(comment.getUrl());
-            postCommentPageDto.setCommentStatus(comment.getStatus());
-
-            return postCommentPageDto;
-        }).collect(Collectors.toList());
-        pageDtoList.removeIf(Objects::isNull);
+        List<PostCommentPageDto> pageDtoList = assemblePostCommentPageDtoList(id, page.getRecords());
         returnResult.setTotal(pageDtoList.size());
         returnResult.setRecords(pageDtoList);
         return returnResult;
     }
 
+    @Override
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
+    public CursorPageDto<PostCommentPageDto> cursorResourceComment(Long id, String cursor, Integer pageSize, HttpServletRequest request) {
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (teacherLoginDto == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.NOT_LOGIN), "登录状态为空，普通用户未登录");
+        }
+        // 与偏移分页一致按创建时间倒序，游标条件写成create_time <= ?的形式，使idx_comment_resource_deleted_time可以从游标位置开始范围扫描
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        LambdaQueryWrapper<Comment> lambdaQueryWrapper = new LambdaQueryWrapper<>();
+        lambdaQueryWrapper.eq(Comment::getResource, id);
+        if (pageCursor != null) {
+            lambdaQueryWrapper
+                    .le(Comment::getCreateTime, pageCursor.getCreateTime())
+                    .and(wrapper -> wrapper
+                            .lt(Comment::getCreateTime, pageCursor.getCreateTime())
+                            .or()
+                            .lt(Comment::getId, pageCursor.getId()));
+        }
+        lambdaQueryWrapper
+                .orderByDesc(Comment::getCreateTime)
+                .orderByDesc(Comment::getId)
+                .last("limit " + (pageSize + 1));
+
+        List<Comment> comments = commentMapper.selectList(lambdaQueryWrapper);
+        String nextCursor = PageCursor.next(comments, pageSize, Comment::getCreateTime, Comment::getId);
+        return new CursorPageDto<>(assemblePostCommentPageDtoList(id, comments), nextCursor);
+    }
+
     @Override
     @Transactional(rollbackFor = CustomizeTransactionException.class)
     public void addComment(PostCommentAddVo postCommentAddDto, HttpServletRequest request) {
@@ -562,11 +641,7 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
             throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
         }
 
-        LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        teacherLambdaUpdateWrapper
-                .set(Teacher::getMessageTotal, teacher.getMessageTotal() + 1)
-                .eq(Teacher::getId, postCommentAddDto.getSend());
-        teacherMapper.update(null, teacherLambdaUpdateWrapper);
+        counterService.incrementTeacherMessageTotal(postCommentAddDto.getSend(), 1);
 
         Comment comment = new Comment();
         comment.setBelong(teacherLoginDto.getId());
@@ -576,6 +651,9 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         comment.setUrl(postCommentAddDto.getUrl());
 
         commentMapper.insert(comment);
+        contentVersionTracker.touch(comment.getResource());
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, comment.getId());
+        hotResourceRanking.recordComment(comment.getResource());
     }
 
     @Override
@@ -599,6 +677,12 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
         if (deleteResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "删除交流评论失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        comments.stream()
+                .filter(comment -> Objects.equals(comment.getId(), id))
+                .findFirst()
+                .ifPresent(comment -> contentVersionTracker.touch(comment.getResource()));
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, id);
     }
 
     @Override
@@ -627,14 +711,132 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改私信状态失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
 
-        LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        teacherLambdaUpdateWrapper
-                .set(Teacher::getMessageRead, teacherMapper.selectById(teacherLoginDto.getId()).getMessageRead() + 1)
-                .eq(Teacher::getId, teacherLoginDto.getId());
-        int teacherUpdateResult = teacherMapper.update(null, teacherLambdaUpdateWrapper);
-        
-        if (teacherUpdateResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改教师已读数量失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-        }
+        counterService.incrementTeacherMessageRead(teacherLoginDto.getId(), 1);
+        adminSearchIndex.markDirty(AdminSearchType.COMMENT, id);
+    }
+
+    /**
+     * 在管理端索引中按名称解析ID，名称为空时不需要解析
+     *
+     * @param type 实体类型
+     * @param name 名称关键词
+     * @return 名称包含关键词的实体ID
+     */
+    private List<Long> searchIdsByName(AdminSearchType type, String name) {
+        if (StringUtils.isEmpty(name)) {
+            return null;
+        }
+        return adminSearchIndex.searchIds(type, new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, name).build());
+    }
+
+    /**
+     * 一次批量查询一页评论所属的教学资料
+     *
+     * @param comments 评论
+     * @return 教学资料ID到教学资料的映射
+     */
+    private Map<Long, Resource> loadResourceMap(List<Comment> comments) {
+        if (comments.isEmpty()) {
+            return new HashMap<>();
+        }
+        return resourceMapper.selectBatchIds(comments.stream()
+                        .map(Comment::getResource)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Resource::getId, Function.identity()));
+    }
+
+    /**
+     * 将用户收到的评论组装为分页Dto，发送者或教学资料不存在的评论会被过滤
+     *
+     * @param comments 评论列表
+     * @return 评论分页Dto列表
+     */
+    private List<UserCommentPageDto> assembleUserCommentPageDtoList(List<Comment> comments) {
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(comments.stream()
+                .map(Comment::getBelong)
+                .collect(Collectors.toSet()));
+        Map<Long, Resource> resourceMap = loadResourceMap(comments);
+        List<UserCommentPageDto> pageDtoList = comments.stream().map(comment -> {
+            TeacherCard teacher = teacherCardMap.get(comment.getBelong());
+            Resource resource = resourceMap.get(comment.getResource());
+            if (teacher == null || resource == null) {
+                return null;
+            }
+            UserCommentPageDto userCommentPageDto = new UserCommentPageDto();
+            userCommentPageDto.setId(comment.getId());
+            userCommentPageDto.setCreateTime(LocalDateTime.now());
+            userCommentPageDto.setBelongId(comment.getBelong());
+            userCommentPageDto.setBelongName(teacher.getName());
+            userCommentPageDto.setResourceId(comment.getResource());
+            userCommentPageDto.setResourceName(resource.getName());
+            userCommentPageDto.setReadStatus(comment.getReadStatus());
+            userCommentPageDto.setStatus(comment.getStatus());
+            if (comment.getStatus() == 0) {
+                userCommentPageDto.setContent(comment.getContent());
+            } else {
+                userCommentPageDto.setContent("该内容已经被封禁");
+            }
+            return userCommentPageDto;
+        }).collect(Collectors.toList());
+        pageDtoList.removeIf(Objects::isNull);
+        return pageDtoList;
+    }
+
+    /**
+     * 将教学资料下的评论组装为分页Dto，被封禁的评论会被过滤
+     *
+     * @param id       教学资料ID
+     * @param comments 评论列表
+     * @return 评论分页Dto列表
+     */
+    private List<PostCommentPageDto> assemblePostCommentPageDtoList(Long id, List<Comment> comments) {
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(comments.stream()
+                .flatMap(comment -> Stream.of(comment.getBelong(), comment.getSend()))
+                .collect(Collectors.toSet()));
+        // 同一页的评论都属于同一份教学资料，只查询一次
+        Resource resource = comments.isEmpty() ? null : resourceMapper.selectById(id);
+        List<PostCommentPageDto> pageDtoList = comments.stream().map(comment -> {
+            if (comment.getStatus() == 1) {
+                return null;
+            }
+            if (resource == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在");
+            }
+            TeacherCard belongTeacher = teacherCardMap.get(comment.getBelong());
+            if (belongTeacher == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "发送评论的老师不存在");
+            }
+            College belongCollege = collegeDictionary.get(belongTeacher.getBelong());
+            if (belongCollege == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "发送者的学校不存在");
+            }
+            TeacherCard sendTeacher = teacherCardMap.get(comment.getSend());
+            if (sendTeacher == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "接收评论的老师不存在");
+            }
+            College sendCollege = collegeDictionary.get(sendTeacher.getBelong());
+            if (sendCollege == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "接收者的学校不存在");
+            }
+
+            PostCommentPageDto postCommentPageDto = new PostCommentPageDto();
+            postCommentPageDto.setResourceId(resource.getId());
+            postCommentPageDto.setBelong(belongTeacher.getId());
+            postCommentPageDto.setBelongName(belongTeacher.getName());
+            postCommentPageDto.setBelongAvatarUrl(belongTeacher.getAvatar());
+            postCommentPageDto.setBelongCollege(belongCollege.getName());
+            postCommentPageDto.setSend(sendTeacher.getId());
+            postCommentPageDto.setSendName(sendTeacher.getName());
+            postCommentPageDto.setSendAvatarUrl(sendTeacher.getAvatar());
+            postCommentPageDto.setSendCollege(sendCollege.getName());
+            postCommentPageDto.setCommentId(comment.getId());
+            postCommentPageDto.setCommentContent(comment.getContent());
+            postCommentPageDto.setCommentOssUrl(comment.getUrl());
+            postCommentPageDto.setCommentStatus(comment.getStatus());
+
+            return postCommentPageDto;
+        }).collect(Collectors.toList());
+        pageDtoList.removeIf(Objects::isNull);
+        return pageDtoList;
     }
 }
@@ -0,0 +1,103 @@
+package top.sharehome.share_study.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import top.sharehome.share_study.common.counter_buffer.ScoreCounterBuffer;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.mapper.TeacherMapper;
+import top.sharehome.share_study.service.CounterService;
+import top.sharehome.share_study.utils.TransactionUtils;
+
+import javax.annotation.Resource;
+
+/**
+ * 计数器ServiceImpl
+ *
+ * @author AntonyCheng
+ */
+@Service
+public class CounterServiceImpl implements CounterService {
+    @Resource
+    private ResourceMapper resourceMapper;
+    @Resource
+    private TeacherMapper teacherMapper;
+    @Resource
+    private ScoreCounterBuffer scoreCounterBuffer;
+
+    /**
+     * 是否开启收藏数和贡献度的写后缓冲
+     */
+    @Value("${share-study.counter.write-behind.enabled:true}")
+    private boolean writeBehindEnabled;
+
+    @Override
+    public void incrementResourceScore(Long resourceId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (writeBehindEnabled) {
+            TransactionUtils.afterCommit(() -> scoreCounterBuffer.addResourceScore(resourceId, delta));
+            return;
+        }
+        int updateResult = resourceMapper.incrementScore(resourceId, delta);
+        if (updateResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教学资源收藏数更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+    }
+
+    @Override
+    public void incrementTeacherScore(Long teacherId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (writeBehindEnabled) {
+            TransactionUtils.afterCommit(() -> scoreCounterBuffer.addTeacherScore(teacherId, delta));
+            return;
+        }
+        int updateResult = teacherMapper.incrementScore(teacherId, delta);
+        if (updateResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教师贡献度更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+    }
+
+    @Override
+    public void incrementTeacherMessageTotal(Long teacherId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        int updateResult = teacherMapper.incrementMessageTotal(teacherId, delta);
+        if (updateResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "教师消息总数更新失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+    }
+
+    @Override
+    public void incrementTeacherMessageRead(Long teacherId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        int updateResult = teacherMapper.incrementMessageRead(teacherId, delta);
+        if (updateResult == 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改教师已读数量失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        }
+    }
+
+    @Override
+    public Integer mergeResourceScore(Long resourceId, Integer persistedScore) {
+        if (persistedScore == null) {
+            return null;
+        }
+        return Math.toIntExact(persistedScore + scoreCounterBuffer.pendingResourceScore(resourceId));
+    }
+
+    @Override
+    public Integer mergeTeacherScore(Long teacherId, Integer persistedScore) {
+        if (persistedScore == null) {
+            return null;
+        }
+        return Math.toIntExact(persistedScore + scoreCounterBuffer.pendingTeacherScore(teacherId));
+    }
+}
@@ -1,29 +1,38 @@
 package top.sharehome.share_study.service.impl;
 
 import com.qcloud.cos.COSClient;
-import com.qcloud.cos.ClientConfig;
-import com.qcloud.cos.auth.BasicCOSCredentials;
-import com.qcloud.cos.auth.COSCredentials;
 import com.qcloud.cos.exception.CosClientException;
-import com.qcloud.cos.http.HttpProtocol;
-import com.qcloud.cos.model.ObjectMetadata;
-import com.qcloud.cos.model.PutObjectRequest;
-import com.qcloud.cos.model.StorageClass;
-import com.qcloud.cos.region.Region;
+import com.qcloud.cos.model.*;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.constant.CommonConstant;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.multipart_upload.MultipartUploadPlan;
+import top.sharehome.share_study.common.multipart_upload.MultipartUploadRegistry;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.model.dto.FileMultipartInitDto;
+import top.sharehome.share_study.model.dto.FileMultipartPartDto;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
 import top.sharehome.share_study.service.FileOssService;
 import top.sharehome.share_study.utils.TencentOssUtil;
 
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * 文件ServiceImpl
@@ -32,47 +41,49 @@ import java.util.UUID;
  */
 @Service
 public class FileOssServiceImpl implements FileOssService {
+    @Resource
+    private COSClient cosClient;
+
+    @Resource
+    private MultipartUploadRegistry multipartUploadRegistry;
+
+    /**
+     * 分片大小，COS要求除最后一个分片外每个分片不小于1MB
+     */
+    @Value("${tencent.cos.multipart.part-size:5242880}")
+    private Long partSize;
+
+    /**
+     * COS单次分片上传允许的最大分片数
+     */
+    private static final int MAX_PART_COUNT = 10000;
+
+    /**
+     * 其他文件可以通过的文件格式
+     */
+    private static final List<String> FILE_FORMATS = new ArrayList<>(Arrays.asList(
+            "png", "jpg", "jpeg", "pdf",
+            "xlsx", "xls", "doc", "docx",
+            "ppt", "pptx", "mp3", "mp4"));
+
     @Override
     public String upload(MultipartFile file, String rootPath) {
         if (file == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "文件数据不能为空");
         }
-        String name = file.getOriginalFilename();
-        // 1 初始化用户身份信息（secretId, secretKey）
-        //用户的 SecretId，建议使用子账号密钥，授权遵循最小权限指引，降低使用风险。子账号密钥获取可参见 https://cloud.tencent.com/document/product/598/37140
-        String secretId = TencentOssUtil.ACCESS_KEY_ID;
-        //用户的 SecretKey，建议使用子账号密钥，授权遵循最小权限指引，降低使用风险。子账号密钥获取可参见 https://cloud.tencent.com/document/product/598/37140
-        String secretKey = TencentOssUtil.ACCESS_KEY_SECRET;
         String bucketName = TencentOssUtil.BUCKET_NAME;
-        COSCredentials cred = new BasicCOSCredentials(secretId, secretKey);
-        // 2 设置 bucket 的地域
-        // clientConfig 中包含了设置 region, https(默认 http), 超时, 代理等 set 方法, 使用可参见源码或者常见问题 Java SDK 部分。
-        Region region = new Region(TencentOssUtil.END_POINT);
-        ClientConfig clientConfig = new ClientConfig(region);
-        // 这里建议设置使用 https 协议
-        // 从 5.6.54 版本开始，默认使用了 https
-        clientConfig.setHttpProtocol(HttpProtocol.https);
-        // 3 生成 cos 客户端并且上传文件
-        COSClient cosClient = new COSClient(cred, clientConfig);
-        // 指定要上传的文件
-        // 对象键(Key)是对象在存储桶中的唯一标识
-        String namePrefix = UUID.randomUUID().toString().replaceAll("-", "");
-        String dataTime = new DateTime().toString("yyyy/MM/dd");
-        String key = rootPath + "/" + dataTime + "/" + namePrefix + "_" + name;
-        try {
-            // 这里创建一个 ByteArrayInputStream 来作为示例，实际中这里应该是您要上传的 InputStream 类型的流
-            InputStream inputStream = file.getInputStream();
+        String key = buildKey(rootPath, file.getOriginalFilename());
+        try (InputStream inputStream = file.getInputStream()) {
             ObjectMetadata objectMetadata = new ObjectMetadata();
-            objectMetadata.setContentLength(inputStream.available());
+            // available()只是流中无需阻塞即可读取的字节数，并不等于文件大小
+            objectMetadata.setContentLength(file.getSize());
             PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, inputStream, objectMetadata);
             // 设置存储类型（如有需要，不需要请忽略此行代码）, 默认是标准(Standard), 低频(standard_ia)
             putObjectRequest.setStorageClass(StorageClass.Standard_IA);
             cosClient.putObject(putObjectRequest);
-            return "https://" + bucketName + "." + "cos" + "." + TencentOssUtil.END_POINT + ".myqcloud.com/" + key;
-        } catch (CosClientException e) {
+            return buildUrl(key);
+        } catch (CosClientException | IOException e) {
             throw new CustomizeFileException(R.failure(RCodeEnum.FILE_UPLOAD_EXCEPTION), "用户文件上传腾讯云OSS出现异常！");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
     }
 
@@ -81,31 +92,249 @@ public class FileOssServiceImpl implements FileOssService {
         if (StringUtils.isEmpty(url)) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "文件地址不能为空");
         }
-        // 1 初始化用户身份信息（secretId, secretKey）
-        //用户的 SecretId，建议使用子账号密钥，授权遵循最小权限指引，降低使用风险。子账号密钥获取可参见 https://cloud.tencent.com/document/product/598/37140
-        String secretId = TencentOssUtil.ACCESS_KEY_ID;
-        //用户的 SecretKey，建议使用子账号密钥，授权遵循最小权限指引，降低使用风险。子账号密钥获取可参见 https://cloud.tencent.com/document/product/598/37140
-        String secretKey = TencentOssUtil.ACCESS_KEY_SECRET;
-        String bucketName = TencentOssUtil.BUCKET_NAME;
-        COSCredentials cred = new BasicCOSCredentials(secretId, secretKey);
-        // 2 设置 bucket 的地域
-        // clientConfig 中包含了设置 region, https(默认 http), 超时, 代理等 set 方法, 使用可参见源码或者常见问题 Java SDK 部分。
-        Region region = new Region(TencentOssUtil.END_POINT);
-        ClientConfig clientConfig = new ClientConfig(region);
-        // 这里建议设置使用 https 协议
-        // 从 5.6.54 版本开始，默认使用了 https
-        clientConfig.setHttpProtocol(HttpProtocol.https);
-        // 3 生成 cos 客户端并且上传文件
-        COSClient cosClient = new COSClient(cred, clientConfig);
-        String[] split = url.split(".myqcloud.com/");
-        if (split.length != 2) {
+        String key = TencentOssUtil.parseKey(url);
+        if (key == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.OSS_DELETES_OBJECTS_EXCEPTIONALLY), "链接错误");
         }
-        String key = split[1];
         try {
-            cosClient.deleteObject(bucketName, key);
+            cosClient.deleteObject(TencentOssUtil.BUCKET_NAME, key);
         } catch (CosClientException e) {
             throw new CustomizeFileException(R.failure(RCodeEnum.OSS_DELETES_OBJECTS_EXCEPTIONALLY), "删除用户OSS已上传的无效文件失败");
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public String checkFile(String fileName, long fileSize) {
+        if (fileName == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
+        }
+        String[] split = fileName.split("\\.");
+        String suffix = split[split.length - 1].toLowerCase();
+        if (!FILE_FORMATS.contains(suffix)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_FILE_TYPE_MISMATCH));
+        }
+        if (Arrays.asList("png", "jpg", "jpeg").contains(suffix)) {
+            if (fileSize / 1024 >= 500) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_IMAGE_IS_TOO_LARGE));
+            }
+        }
+        if (Arrays.asList("pdf", "xlsx", "xls", "doc", "docx", "ppt", "pptx").contains(suffix)) {
+            if (fileSize / 1024 / 1024 >= 5) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_FILE_IS_TOO_LARGE));
+            }
+        }
+        if (Arrays.asList("mp3", "mp4").contains(suffix)) {
+            if (fileSize / 1024 / 1024 >= 50) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_VIDEO_IS_TOO_LARGE));
+            }
+        }
+        return suffix;
+    }
+
+    @Override
+    public FileMultipartInitDto initMultipartUpload(String fileName, Long fileSize, String rootPath, HttpServletRequest request) {
+        if (StringUtils.isEmpty(fileName) || fileSize == null || fileSize <= 0) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "文件名和文件大小不能为空");
+        }
+        Long uploader = currentUploader(request);
+        String key = buildKey(rootPath, fileName);
+        // 分片数超过上限时按上限反推分片大小
+        long actualPartSize = Math.max(partSize, (fileSize + MAX_PART_COUNT - 1) / MAX_PART_COUNT);
+        int partCount = (int) ((fileSize + actualPartSize - 1) / actualPartSize);
+        InitiateMultipartUploadRequest initiateMultipartUploadRequest = new InitiateMultipartUploadRequest(TencentOssUtil.BUCKET_NAME, key);
+        initiateMultipartUploadRequest.setStorageClass(StorageClass.Standard_IA);
+        try {
+            InitiateMultipartUploadResult initiateMultipartUploadResult = cosClient.initiateMultipartUpload(initiateMultipartUploadRequest);
+            String uploadId = initiateMultipartUploadResult.getUploadId();
+            multipartUploadRegistry.register(new MultipartUploadPlan(key, uploadId, uploader, fileName, fileSize, actualPartSize, partCount));
+            return new FileMultipartInitDto(key, uploadId, actualPartSize, partCount);
+        } catch (CosClientException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.FILE_UPLOAD_EXCEPTION), "初始化腾讯云OSS分片上传出现异常！");
+        }
+    }
+
+    @Override
+    public FileMultipartPartDto uploadPart(String key, String uploadId, Integer partNumber, MultipartFile part, HttpServletRequest request) {
+        MultipartUploadPlan plan = getPlan(key, uploadId, request);
+        if (partNumber == null || partNumber < 1 || partNumber > plan.getPartCount() || part == null || part.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "分片编号或分片数据不合法");
+        }
+        if (part.getSize() > plan.getPartSize()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_FILE_IS_TOO_LARGE), "分片大小超过规划的分片大小");
+        }
+        // 分片数据直接以流的形式转发给COS，不在内存中整体缓存
+        try (InputStream inputStream = part.getInputStream()) {
+            UploadPartRequest uploadPartRequest = new UploadPartRequest();
+            uploadPartRequest.setBucketName(TencentOssUtil.BUCKET_NAME);
+            uploadPartRequest.setKey(key);
+            uploadPartRequest.setUploadId(uploadId);
+            uploadPartRequest.setPartNumber(partNumber);
+            uploadPartRequest.setPartSize(part.getSize());
+            uploadPartRequest.setInputStream(inputStream);
+            UploadPartResult uploadPartResult = cosClient.uploadPart(uploadPartRequest);
+            multipartUploadRegistry.touch(uploadId);
+            return new FileMultipartPartDto(partNumber, uploadPartResult.getETag(), part.getSize());
+        } catch (CosClientException | IOException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.FILE_UPLOAD_EXCEPTION), "分片上传腾讯云OSS出现异常！");
+        }
+    }
+
+    @Override
+    public List<FileMultipartPartDto> listParts(String key, String uploadId, HttpServletRequest request) {
+        getPlan(key, uploadId, request);
+        return listPartSummaries(key, uploadId).stream()
+                .map(partSummary -> new FileMultipartPartDto(partSummary.getPartNumber(), partSummary.getETag(), partSummary.getSize()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String completeMultipartUpload(String key, String uploadId, HttpServletRequest request) {
+        MultipartUploadPlan plan = getPlan(key, uploadId, request);
+        // 以COS端记录的分片为准，客户端无需回传每个分片的ETag
+        List<PartSummary> partSummaries = listPartSummaries(key, uploadId);
+        if (partSummaries.isEmpty()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "尚未上传任何分片");
+        }
+        // 合并后的文件大小按实际分片重新校验，不满足限制时取消上传，释放已上传的分片
+        long totalSize = partSummaries.stream().mapToLong(PartSummary::getSize).sum();
+        try {
+            checkFile(plan.getFileName(), totalSize);
+            if (totalSize != plan.getFileSize()) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "已上传分片的总大小与声明的文件大小不一致");
+            }
+        } catch (CustomizeReturnException e) {
+            abort(plan);
+            throw e;
+        }
+        List<PartETag> partETags = partSummaries.stream()
+                .map(partSummary -> new PartETag(partSummary.getPartNumber(), partSummary.getETag()))
+                .sorted(Comparator.comparingInt(PartETag::getPartNumber))
+                .collect(Collectors.toList());
+        try {
+            cosClient.completeMultipartUpload(new CompleteMultipartUploadRequest(TencentOssUtil.BUCKET_NAME, key, uploadId, partETags));
+            multipartUploadRegistry.remove(uploadId);
+            return buildUrl(key);
+        } catch (CosClientException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.FILE_UPLOAD_EXCEPTION), "合并腾讯云OSS分片出现异常！");
+        }
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId, HttpServletRequest request) {
+        abort(getPlan(key, uploadId, request));
+    }
+
+    /**
+     * 取消分片上传并移除登记
+     *
+     * @param plan 分片上传规划
+     */
+    private void abort(MultipartUploadPlan plan) {
+        try {
+            cosClient.abortMultipartUpload(new AbortMultipartUploadRequest(TencentOssUtil.BUCKET_NAME, plan.getKey(), plan.getUploadId()));
+        } catch (CosClientException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.OSS_DELETES_OBJECTS_EXCEPTIONALLY), "取消腾讯云OSS分片上传出现异常！");
+        }
+        multipartUploadRegistry.remove(plan.getUploadId());
+    }
+
+    /**
+     * 生成对象键，对象键(Key)是对象在存储桶中的唯一标识
+     *
+     * @param rootPath 上传的根路径
+     * @param name     原始文件名
+     * @return 对象键
+     */
+    private String buildKey(String rootPath, String name) {
+        String namePrefix = UUID.randomUUID().toString().replaceAll("-", "");
+        String dataTime = new DateTime().toString("yyyy/MM/dd");
+        return rootPath + "/" + dataTime + "/" + namePrefix + "_" + name;
+    }
+
+    /**
+     * 根据对象键拼接访问地址
+     *
+     * @param key 对象键
+     * @return 文件存储的url
+     */
+    private String buildUrl(String key) {
+        return "https://" + TencentOssUtil.BUCKET_NAME + "." + "cos" + "." + TencentOssUtil.END_POINT + ".myqcloud.com/" + key;
+    }
+
+    /**
+     * 分片上传只允许操作其他文件目录下的对象
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     */
+    private void checkMultipartKey(String key, String uploadId) {
+        if (StringUtils.isEmpty(key) || StringUtils.isEmpty(uploadId)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY), "对象键和分片上传ID不能为空");
+        }
+        if (!key.startsWith("file/") || key.contains("..")) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "对象键不合法");
+        }
+    }
+
+    /**
+     * 取出分片上传规划，只有发起上传的用户可以继续操作
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     * @param request  获取登录用户的request
+     * @return 分片上传规划
+     */
+    private MultipartUploadPlan getPlan(String key, String uploadId, HttpServletRequest request) {
+        checkMultipartKey(key, uploadId);
+        MultipartUploadPlan plan = multipartUploadRegistry.get(uploadId);
+        if (plan == null || !Objects.equals(plan.getKey(), key)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.PARAMETER_FORMAT_MISMATCH), "分片上传不存在或已过期");
+        }
+        if (!Objects.equals(plan.getUploader(), currentUploader(request))) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "只能操作自己发起的分片上传");
+        }
+        return plan;
+    }
+
+    /**
+     * 取出当前登录用户的教师ID，普通用户和管理员共用一个教师ID
+     *
+     * @param request 获取登录用户的request
+     * @return 教师ID
+     */
+    private Long currentUploader(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        Object loginState = session == null ? null : session.getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (loginState == null && session != null) {
+            loginState = session.getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        }
+        if (!(loginState instanceof TeacherLoginDto)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "请先登录再上传文件");
+        }
+        return ((TeacherLoginDto) loginState).getId();
+    }
+
+    /**
+     * 分页拉取COS端已上传的全部分片
+     *
+     * @param key      对象键
+     * @param uploadId 分片上传ID
+     * @return 分片列表
+     */
+    private List<PartSummary> listPartSummaries(String key, String uploadId) {
+        List<PartSummary> partSummaries = new ArrayList<>();
+        ListPartsRequest listPartsRequest = new ListPartsRequest(TencentOssUtil.BUCKET_NAME, key, uploadId);
+        listPartsRequest.setMaxParts(1000);
+        try {
+            PartListing partListing;
+            do {
+                partListing = cosClient.listParts(listPartsRequest);
+                partSummaries.addAll(partListing.getParts());
+                listPartsRequest.setPartNumberMarker(partListing.getNextPartNumberMarker());
+            } while (partListing.isTruncated());
+        } catch (CosClientException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.FILE_UPLOAD_EXCEPTION), "查询腾讯云OSS已上传分片出现异常！");
+        }
+        return partSummaries;
+    }
+}
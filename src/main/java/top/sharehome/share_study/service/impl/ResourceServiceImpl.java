@@ -1,36 +1,49 @@
 package top.sharehome.share_study.service.impl;
 
-import com.alibaba.excel.EasyExcelFactory;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.Query;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.admin_search.AdminSearchHits;
+import top.sharehome.share_study.common.admin_search.AdminSearchIndex;
+import top.sharehome.share_study.common.admin_search.AdminSearchQuery;
+import top.sharehome.share_study.common.admin_search.AdminSearchType;
+import top.sharehome.share_study.common.cascade_delete.CascadeDeleter;
+import top.sharehome.share_study.common.collection.LongHashSet;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
 import top.sharehome.share_study.common.constant.CommonConstant;
-import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
+import top.sharehome.share_study.common.cursor_page.PageCursor;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeTransactionException;
+import top.sharehome.share_study.common.full_text.FullTextSearch;
+import top.sharehome.share_study.common.hot_rank.HotResourceRanking;
+import top.sharehome.share_study.common.oss_outbox.OssDeletionOutbox;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.teacher_card.TeacherCard;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.listener.ResourceExcelListener;
 import top.sharehome.share_study.mapper.*;
 import top.sharehome.share_study.model.dto.*;
 import top.sharehome.share_study.model.entity.*;
 import top.sharehome.share_study.model.vo.*;
-import top.sharehome.share_study.service.FileOssService;
+import top.sharehome.share_study.service.CounterService;
 import top.sharehome.share_study.service.ResourceService;
+import top.sharehome.share_study.utils.ExcelImportUtil;
+import top.sharehome.share_study.utils.ExcelStreamExportUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -50,34 +63,60 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
     private CommentMapper commentMapper;
 
     @javax.annotation.Resource
-    private CollegeMapper collegeMapper;
+    private CollegeDictionary collegeDictionary;
 
     @javax.annotation.Resource
-    private FileOssService fileOssService;
+    private TeacherCardCache teacherCardCache;
+
+    @javax.annotation.Resource
+    private ContentVersionTracker contentVersionTracker;
+
+    @javax.annotation.Resource
+    private OssDeletionOutbox ossDeletionOutbox;
+
+    @javax.annotation.Resource
+    private CascadeDeleter cascadeDeleter;
 
     @javax.annotation.Resource
     private CollectMapper collectMapper;
+    @javax.annotation.Resource
+    private CounterService counterService;
+
+    @javax.annotation.Resource
+    private TransactionTemplate transactionTemplate;
+
+    @javax.annotation.Resource
+    private FullTextSearch fullTextSearch;
+
+    @javax.annotation.Resource
+    private AdminSearchIndex adminSearchIndex;
+
+    @javax.annotation.Resource
+    private HotResourceRanking hotResourceRanking;
+
+    /**
+     * 分组统计评论数时使用的列别名
+     */
+    private static final String COMMENT_COUNT_COLUMN = "comment_count";
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public void download(HttpServletResponse response) {
-        try {
-            // 设置下载信息
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("utf-8");
-            // 这里URLEncoder.encode可以防止中文乱码 当然和easyexcel没有关系
-            String fileName = URLEncoder.encode("教学资料信息", "UTF-8").replaceAll("\\+", "%20");
-            response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
-            // 查询教学资料分类表所有的数据
-            List<Resource> resourceList = resourceMapper.selectList(null);
-            EasyExcelFactory.write(response.getOutputStream(), Resource.class)
-                    .sheet("教学资料数据")
-                    .doWrite(resourceList);
-        } catch (UnsupportedEncodingException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "导出Excel时文件编码异常");
-        } catch (IOException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "文件写入时，响应流发生异常");
+        ExcelStreamExportUtil.export(response, "教学资料信息", "教学资料数据", Resource.class, resourceMapper, Resource::getId, null);
+    }
+
+    @Override
+    public ExcelImportResultDto upload(MultipartFile file, HttpServletRequest request) {
+        // 鉴定操作者的权限，Excel导入只有超级管理员可以操作
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (teacherLoginDto == null || !Objects.equals(teacherLoginDto.getRole(), CommonConstant.SUPER_ROLE)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "非超级管理员无法导入教学资料信息");
         }
+
+        ExcelImportResultDto result = ExcelImportUtil.read(file, Resource.class, new ResourceExcelListener(this, transactionTemplate, teacherMapper, counterService));
+        contentVersionTracker.touchFeed();
+        adminSearchIndex.markRebuild(AdminSearchType.RESOURCE);
+        return result;
     }
 
     @Override
@@ -107,38 +146,25 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
             throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "管理员没有权限在此删除其他管理员和超级管理员的教学资料");
         }
 
-        LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        commentLambdaQueryWrapper.eq(Comment::getResource, id);
-        commentMapper.delete(commentLambdaQueryWrapper);
-
-        LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        collectLambdaQueryWrapper.eq(Collect::getResource, id);
-        collectMapper.delete(collectLambdaQueryWrapper);
-
-        int deleteResult = resourceMapper.delete(resourceLambdaQueryWrapper);
-
-        if (deleteResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教学资料数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-        }
-
-        fileOssService.delete(selectResult.getUrl());
+        cascadeDeleter.deleteResources(Collections.singletonList(id));
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
     public void deleteBatch(List<Long> ids, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
         if (Objects.equals(teacherLoginDto.getRole(), CommonConstant.DEFAULT_ROLE)) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "非管理员不能进行删除操作");
         }
 
-        List<String> urls = ids.stream().map(id -> {
-            Resource selectResult = resourceMapper.selectById(id);
-            if (selectResult == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在，不需要进行下一步操作");
-            }
-
-            Teacher targetTeacher = teacherMapper.selectById(selectResult.getBelong());
+        // 一次批量读取教学资料和发表者完成存在性和权限校验
+        List<Resource> resourceList = resourceMapper.selectBatchIds(ids);
+        if (resourceList.size() != new HashSet<>(ids).size()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在，不需要进行下一步操作");
+        }
+        Map<Long, Teacher> teacherMap = teacherMapper.selectBatchIds(resourceList.stream().map(Resource::getBelong).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Teacher::getId, Function.identity()));
+        resourceList.forEach(resource -> {
+            Teacher targetTeacher = teacherMap.get(resource.getBelong());
             if (targetTeacher == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "发表该教学资料的老师不存在");
             }
@@ -148,32 +174,13 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
                     && !Objects.equals(targetTeacher.getRole(), CommonConstant.DEFAULT_ROLE))) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "管理员没有权限在此删除其他管理员和超级管理员的教学资料");
             }
-
-            return selectResult.getUrl();
-        }).collect(Collectors.toList());
-
-        ids.forEach(id -> {
-            LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            commentLambdaQueryWrapper.eq(Comment::getResource, id);
-            commentMapper.delete(commentLambdaQueryWrapper);
-
-            LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            collectLambdaQueryWrapper.eq(Collect::getResource, id);
-            collectMapper.delete(collectLambdaQueryWrapper);
         });
 
-        int deleteResult = resourceMapper.deleteBatchIds(ids);
-        if (deleteResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教学资料数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-        }
-
-        urls.forEach(url -> {
-            fileOssService.delete(url);
-        });
+        cascadeDeleter.deleteResources(ids);
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public ResourceGetDto getResource(Long id, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
         if (Objects.equals(teacherLoginDto.getRole(), CommonConstant.DEFAULT_ROLE)) {
@@ -241,79 +248,54 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改教学资料失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touch(resultFromDatabase.getId());
+        adminSearchIndex.markDirty(AdminSearchType.RESOURCE, resultFromDatabase.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<ResourcePageDto> pageResource(Integer current, Integer pageSize, ResourcePageVo resourcePageVo) {
-        Page<Resource> page = new Page<>(current, pageSize);
         Page<ResourcePageDto> returnResult = new Page<>(current, pageSize);
-        LambdaQueryWrapper<Resource> lambdaQueryWrapper = new LambdaQueryWrapper<>();
-        lambdaQueryWrapper
-                .orderByAsc(Resource::getCreateTime);
-        if (resourcePageVo == null) {
-            this.page(page, lambdaQueryWrapper);
-            BeanUtils.copyProperties(page, returnResult, "records");
-            List<ResourcePageDto> pageDtoList = page.getRecords().stream().map(resource -> {
-                ResourcePageDto resourcePageDto = new ResourcePageDto();
-                BeanUtils.copyProperties(resource, resourcePageDto);
-                LambdaQueryWrapper<Teacher> resourceLambdaQueryWrapper = new LambdaQueryWrapper<>();
-                resourceLambdaQueryWrapper.eq(Teacher::getId, resource.getBelong());
-                Teacher teacher = teacherMapper.selectOne(resourceLambdaQueryWrapper);
+        // 开启管理端索引时老师名称先在教师索引中解析为ID，再一次索引查询得到当前页的教学资料ID
+        if (adminSearchIndex.isEnabled() && resourcePageVo != null) {
+            String belongName = resourcePageVo.getBelongName();
+            Query query = new AdminSearchQuery()
+                    .contains(!StringUtils.isEmpty(resourcePageVo.getName()), AdminSearchIndex.NAME, resourcePageVo.getName())
+                    .contains(!StringUtils.isEmpty(resourcePageVo.getInfo()), AdminSearchIndex.INFO, resourcePageVo.getInfo())
+                    .eq(resourcePageVo.getStatus() != null, AdminSearchIndex.STATUS, resourcePageVo.getStatus())
+                    .in(!StringUtils.isEmpty(belongName), AdminSearchIndex.BELONG, StringUtils.isEmpty(belongName) ? null
+                            : adminSearchIndex.searchIds(AdminSearchType.TEACHER, new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, belongName).build()))
+                    .build();
+            AdminSearchHits hits = adminSearchIndex.search(AdminSearchType.RESOURCE, query, current, pageSize);
+            List<Resource> resources = adminSearchIndex.hydrate(AdminSearchType.RESOURCE, hits.getIds());
+            Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(resources.stream()
+                    .map(Resource::getBelong)
+                    .collect(Collectors.toSet()));
+            returnResult.setTotal(hits.getTotal());
+            returnResult.setRecords(resources.stream().map(resource -> {
+                TeacherCard teacher = teacherCardMap.get(resource.getBelong());
                 if (teacher == null) {
                     throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "教学资料所属教师不存在");
                 }
+                ResourcePageDto resourcePageDto = new ResourcePageDto();
+                BeanUtils.copyProperties(resource, resourcePageDto);
                 resourcePageDto.setBelongName(teacher.getName());
                 return resourcePageDto;
-            }).collect(Collectors.toList());
-            returnResult.setRecords(pageDtoList);
+            }).collect(Collectors.toList()));
             return returnResult;
         }
-
-        lambdaQueryWrapper
-                .like(!StringUtils.isEmpty(resourcePageVo.getInfo()), Resource::getInfo, resourcePageVo.getInfo())
-                .like(!StringUtils.isEmpty(resourcePageVo.getName()), Resource::getName, resourcePageVo.getName())
-                .like(!ObjectUtils.isEmpty(resourcePageVo.getStatus()), Resource::getStatus, resourcePageVo.getStatus());
-        this.page(page, lambdaQueryWrapper);
-        BeanUtils.copyProperties(page, returnResult, "records");
-
-        String belongName = resourcePageVo.getBelongName();
-        List<Long> teacherIds = new ArrayList<>();
-        if (!StringUtils.isEmpty(belongName)) {
-            LambdaQueryWrapper<Teacher> belongNameLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            belongNameLambdaQueryWrapper.like(Teacher::getName, belongName);
-            List<Teacher> teachers = teacherMapper.selectList(belongNameLambdaQueryWrapper);
-            teacherIds = teachers.stream().map(Teacher::getId).collect(Collectors.toList());
-        }
-        List<Long> finalTeacherIds = teacherIds;
-
-        if (finalTeacherIds.isEmpty()) {
-            page.setRecords(new ArrayList<>());
-        }
-
-        List<ResourcePageDto> pageDtoList = page.getRecords().stream().map(record -> {
-            if (!finalTeacherIds.isEmpty() && !finalTeacherIds.contains(record.getBelong())) {
-                return null;
-            }
-            ResourcePageDto resourcePageDto = new ResourcePageDto();
-            BeanUtils.copyProperties(record, resourcePageDto);
-            LambdaQueryWrapper<Teacher> teacherLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            teacherLambdaQueryWrapper.eq(Teacher::getId, record.getBelong());
-            Teacher teacher = teacherMapper.selectOne(teacherLambdaQueryWrapper);
-            if (teacher == null) {
+        resourceMapper.selectResourcePage(returnResult, resourcePageVo, resourcePageVo == null ? null : fullTextSearch.match(resourcePageVo.getName(), resourcePageVo.getInfo()));
+        returnResult.getRecords().forEach(resourcePageDto -> {
+            if (resourcePageDto.getBelongName() == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "教学资料所属教师不存在");
             }
-            resourcePageDto.setBelongName(teacher.getName());
-            return resourcePageDto;
-        }).collect(Collectors.toList());
-        pageDtoList.removeIf(Objects::isNull);
-        returnResult.setTotal(pageDtoList.size());
-        returnResult.setRecords(pageDtoList);
+        });
         return returnResult;
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<PostPageDto> getUserResourcePage(Long id, Integer current, Integer pageSize, HttpServletRequest request, UserResourcePageVo userResourcePageVo) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (teacherLoginDto == null) {
@@ -326,98 +308,19 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
                 .eq(Resource::getBelong, id)
                 .orderByAsc(Resource::getCreateTime);
 
-        if (userResourcePageVo == null) {
-            this.page(page, lambdaQueryWrapper);
-            BeanUtils.copyProperties(page, returnResult, "records");
-            List<PostPageDto> pageDtoList = page.getRecords().stream().map(resource -> {
-                Integer status = resource.getStatus();
-                if (!Objects.equals(teacherLoginDto.getId(), id) && status == 1) {
-                    return null;
-                }
-                PostPageDto userResourcePageDto = new PostPageDto();
-
-                Teacher teacher = teacherMapper.selectById(resource.getBelong());
-                if (teacher == null) {
-                    throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
-                }
-                userResourcePageDto.setUserId(teacher.getId());
-                userResourcePageDto.setUserName(teacher.getName());
-                userResourcePageDto.setUserAvatarUrl(teacher.getAvatar());
-                College college = collegeMapper.selectById(teacher.getBelong());
-                if (college == null) {
-                    throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
-                }
-                userResourcePageDto.setCollegeName(college.getName());
-
-                userResourcePageDto.setResourceStatus(status);
-                userResourcePageDto.setResourceId(resource.getId());
-                userResourcePageDto.setResourceName(resource.getName());
-                if (status == 0) {
-                    userResourcePageDto.setResourceInfo(resource.getInfo());
-                    userResourcePageDto.setResourceScore(resource.getScore());
-                    userResourcePageDto.setResourceUrl(resource.getUrl());
-                }
-                LambdaUpdateWrapper<Collect> collectLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-                collectLambdaUpdateWrapper.eq(Collect::getBelong, teacherLoginDto.getId());
-                List<Collect> collectList = collectMapper.selectList(collectLambdaUpdateWrapper);
-                List<Long> resourceIds = collectList.stream().map(Collect::getResource).collect(Collectors.toList());
-                userResourcePageDto.setCollectStatus(resourceIds.contains(resource.getId()) ? 1 : 0);
-                userResourcePageDto.setCreateTime(resource.getCreateTime());
-                LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-                commentLambdaQueryWrapper.eq(Comment::getResource, resource.getId());
-                Integer commentCount = Math.toIntExact(commentMapper.selectCount(commentLambdaQueryWrapper));
-                userResourcePageDto.setCommentCount(commentCount);
-
-                return userResourcePageDto;
-            }).collect(Collectors.toList());
-            pageDtoList.removeIf(Objects::isNull);
-            returnResult.setTotal(pageDtoList.size());
-            returnResult.setRecords(pageDtoList);
-            return returnResult;
+        if (userResourcePageVo != null) {
+            lambdaQueryWrapper
+                    .func(!StringUtils.isEmpty(userResourcePageVo.getResourceName()), wrapper -> fullTextSearch.contains(wrapper, Resource::getName, "resource_name", userResourcePageVo.getResourceName()))
+                    .func(!StringUtils.isEmpty(userResourcePageVo.getResourceInfo()), wrapper -> fullTextSearch.contains(wrapper, Resource::getInfo, "resource_info", userResourcePageVo.getResourceInfo()));
         }
 
-        lambdaQueryWrapper
-                .like(!StringUtils.isEmpty(userResourcePageVo.getResourceName()), Resource::getName, userResourcePageVo.getResourceName())
-                .like(!StringUtils.isEmpty(userResourcePageVo.getResourceInfo()), Resource::getInfo, userResourcePageVo.getResourceInfo());
-
         this.page(page, lambdaQueryWrapper);
         BeanUtils.copyProperties(page, returnResult, "records");
-        List<PostPageDto> pageDtoList = page.getRecords().stream().map(resource -> {
-            Integer status = resource.getStatus();
-            if (!Objects.equals(teacherLoginDto.getId(), id) && status == 1) {
-                return null;
-            }
-            PostPageDto userResourcePageDto = new PostPageDto();
-
-            Teacher teacher = teacherMapper.selectById(resource.getBelong());
-            if (teacher == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
-            }
-            userResourcePageDto.setUserId(teacher.getId());
-            userResourcePageDto.setUserName(teacher.getName());
-            userResourcePageDto.setUserAvatarUrl(teacher.getAvatar());
-            College college = collegeMapper.selectById(teacher.getBelong());
-            if (college == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
-            }
-            userResourcePageDto.setCollegeName(college.getName());
-
-            userResourcePageDto.setResourceStatus(status);
-            userResourcePageDto.setResourceId(resource.getId());
-            userResourcePageDto.setResourceName(resource.getName());
-            if (status == 0) {
-                userResourcePageDto.setResourceInfo(resource.getInfo());
-                userResourcePageDto.setResourceScore(resource.getScore());
-                userResourcePageDto.setResourceUrl(resource.getUrl());
-            }
-            LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            commentLambdaQueryWrapper.eq(Comment::getResource, resource.getId());
-            Integer commentCount = Math.toIntExact(commentMapper.selectCount(commentLambdaQueryWrapper));
-            userResourcePageDto.setCommentCount(commentCount);
-
-            return userResourcePageDto;
-        }).collect(Collectors.toList());
-        pageDtoList.removeIf(Objects::isNull);
+        // 其他用户看不到被禁用的教学资料
+        List<Resource> resources = page.getRecords().stream()
+                .filter(resource -> Objects.equals(teacherLoginDto.getId(), id) || resource.getStatus() != 1)
+                .collect(Collectors.toList());
+        List<PostPageDto> pageDtoList = assembleUserResourcePageDtoList(resources, teacherLoginDto.getId());
         returnResult.setTotal(pageDtoList.size());
         returnResult.setRecords(pageDtoList);
         return returnResult;
@@ -451,21 +354,11 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
             throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "管理员没有权限在此删除其他管理员和超级管理员的教学资料");
         }
 
-        LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        commentLambdaQueryWrapper.eq(Comment::getResource, id);
-        commentMapper.delete(commentLambdaQueryWrapper);
-
-        int deleteResult = resourceMapper.delete(resourceLambdaQueryWrapper);
-
-        if (deleteResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教学资料数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-        }
-
-        fileOssService.delete(selectResult.getUrl());
+        cascadeDeleter.deleteResources(Collections.singletonList(id));
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public UserResourceGetDto getUserResource(Long id, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (Objects.isNull(teacherLoginDto)) {
@@ -527,7 +420,7 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
         }
 
         if (!Objects.equals(resultFromDatabase.getUrl(), userResourceUpdateVo.getUrl())) {
-            fileOssService.delete(resultFromDatabase.getUrl());
+            ossDeletionOutbox.enqueue(resultFromDatabase.getUrl());
         }
 
         resultFromDatabase.setName(userResourceUpdateVo.getName());
@@ -540,10 +433,13 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改教学资料失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        contentVersionTracker.touch(resultFromDatabase.getId());
+        adminSearchIndex.markDirty(AdminSearchType.RESOURCE, resultFromDatabase.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<PostPageDto> pagePost(Integer current, Integer pageSize, HttpServletRequest request, PostPageVo postPageVo) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (teacherLoginDto == null) {
@@ -551,142 +447,34 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
         }
         Page<Resource> page = new Page<>(current, pageSize);
         Page<PostPageDto> returnResult = new Page<>(current, pageSize);
-        LambdaQueryWrapper<Resource> lambdaQueryWrapper = new LambdaQueryWrapper<>();
-        lambdaQueryWrapper
-                .orderByAsc(Resource::getCreateTime);
-
-        if (postPageVo == null) {
-            this.page(page, lambdaQueryWrapper);
-            BeanUtils.copyProperties(page, returnResult, "records");
-            List<PostPageDto> pageDtoList = page.getRecords().stream().map(resource -> {
-                if (resource.getStatus() == 1) {
-                    return null;
-                }
-                PostPageDto postPageDto = new PostPageDto();
-
-                Teacher teacher = teacherMapper.selectById(resource.getBelong());
-                if (teacher == null) {
-                    throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
-                }
-                postPageDto.setUserId(teacher.getId());
-                postPageDto.setUserName(teacher.getName());
-                postPageDto.setUserAvatarUrl(teacher.getAvatar());
-                College college = collegeMapper.selectById(teacher.getBelong());
-                if (college == null) {
-                    throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
-                }
-                postPageDto.setCollegeName(college.getName());
-
-                postPageDto.setResourceStatus(resource.getStatus());
-                postPageDto.setResourceId(resource.getId());
-                postPageDto.setResourceName(resource.getName());
-                postPageDto.setResourceInfo(resource.getInfo());
-                postPageDto.setResourceScore(resource.getScore());
-                postPageDto.setResourceUrl(resource.getUrl());
-                postPageDto.setCreateTime(resource.getCreateTime());
-                LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-                commentLambdaQueryWrapper.eq(Comment::getResource, resource.getId());
-                Integer commentCount = Math.toIntExact(commentMapper.selectCount(commentLambdaQueryWrapper));
-                postPageDto.setCommentCount(commentCount);
-
-                LambdaUpdateWrapper<Collect> collectLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-                collectLambdaUpdateWrapper.eq(Collect::getBelong, teacherLoginDto.getId());
-                List<Collect> collectList = collectMapper.selectList(collectLambdaUpdateWrapper);
-                List<Long> resourceIds = collectList.stream().map(Collect::getResource).collect(Collectors.toList());
-                postPageDto.setCollectStatus(resourceIds.contains(resource.getId()) ? 1 : 0);
-
-                return postPageDto;
-            }).collect(Collectors.toList());
-            pageDtoList.removeIf(Objects::isNull);
-            returnResult.setTotal(pageDtoList.size());
-            returnResult.setRecords(pageDtoList);
-            return returnResult;
-        }
-
-        lambdaQueryWrapper
-                .like(!StringUtils.isEmpty(postPageVo.getName()), Resource::getName, postPageVo.getName())
-                .like(!StringUtils.isEmpty(postPageVo.getInfo()), Resource::getInfo, postPageVo.getInfo());
-        this.page(page, lambdaQueryWrapper);
+        // 封禁状态、老师名称和高校名称的过滤都在SQL中完成，分页总数即为真实总数
+        resourceMapper.selectPostPage(page, postPageVo, postPageVo == null ? null : fullTextSearch.match(postPageVo.getName(), postPageVo.getInfo()));
         BeanUtils.copyProperties(page, returnResult, "records");
+        returnResult.setRecords(assemblePostPageDtoList(page.getRecords(), teacherLoginDto.getId()));
+        return returnResult;
+    }
 
-        String belongName = postPageVo.getBelongName();
-        List<Long> belongIds = null;
-        if (!StringUtils.isEmpty(belongName)) {
-            LambdaQueryWrapper<Teacher> belongNameLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            belongNameLambdaQueryWrapper.like(Teacher::getName, belongName);
-            List<Teacher> teachers = teacherMapper.selectList(belongNameLambdaQueryWrapper);
-            belongIds = teachers.stream().map(Teacher::getId).collect(Collectors.toList());
-        }
-        String collegeName = postPageVo.getCollegeName();
-        List<Long> collegeIds = null;
-        if (!StringUtils.isEmpty(collegeName)) {
-            LambdaQueryWrapper<College> belongNameLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            belongNameLambdaQueryWrapper.like(College::getName, collegeName);
-            List<College> colleges = collegeMapper.selectList(belongNameLambdaQueryWrapper);
-            collegeIds = colleges.stream().map(College::getId).collect(Collectors.toList());
+    @Override
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
+    public CursorPageDto<PostPageDto> cursorPost(String cursor, Integer pageSize, HttpServletRequest request, PostPageVo postPageVo) {
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (teacherLoginDto == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.NOT_LOGIN), "登录状态为空，普通用户未登录");
         }
+        // 多查一条用来判断是否还有下一页，省掉总数查询
+        List<Resource> resources = resourceMapper.selectPostCursorPage(postPageVo, postPageVo == null ? null : fullTextSearch.match(postPageVo.getName(), postPageVo.getInfo()), PageCursor.decode(cursor), pageSize + 1);
+        String nextCursor = PageCursor.next(resources, pageSize, Resource::getCreateTime, Resource::getId);
+        return new CursorPageDto<>(assemblePostPageDtoList(resources, teacherLoginDto.getId()), nextCursor);
+    }
 
-        if (belongIds != null && belongIds.isEmpty()) {
-            page.setRecords(new ArrayList<>());
-        }
-        if (collegeIds != null && collegeIds.isEmpty()) {
-            page.setRecords(new ArrayList<>());
+    @Override
+    public List<PostPageDto> hotPost(Integer size, HttpServletRequest request) {
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (teacherLoginDto == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.NOT_LOGIN), "登录状态为空，普通用户未登录");
         }
-
-        List<Long> finalBelongIds = belongIds;
-        List<Long> finalCollegeIds = collegeIds;
-
-        List<PostPageDto> pageDtoList = page.getRecords().stream().map(resource -> {
-            if (finalBelongIds != null && !finalBelongIds.isEmpty() && !finalBelongIds.contains(resource.getBelong())) {
-                return null;
-            }
-            if (finalCollegeIds != null && !finalCollegeIds.isEmpty() && !finalCollegeIds.contains(collegeMapper.selectById(teacherMapper.selectById(resource.getBelong()).getBelong()).getId())) {
-                return null;
-            }
-
-            if (resource.getStatus() == 1) {
-                return null;
-            }
-            PostPageDto postPageDto = new PostPageDto();
-
-            Teacher teacher = teacherMapper.selectById(resource.getBelong());
-            if (teacher == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
-            }
-            postPageDto.setUserId(teacher.getId());
-            postPageDto.setUserName(teacher.getName());
-            postPageDto.setUserAvatarUrl(teacher.getAvatar());
-            College college = collegeMapper.selectById(teacher.getBelong());
-            if (college == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
-            }
-            postPageDto.setCollegeName(college.getName());
-            postPageDto.setResourceStatus(resource.getStatus());
-            postPageDto.setResourceId(resource.getId());
-            postPageDto.setResourceName(resource.getName());
-            postPageDto.setResourceInfo(resource.getInfo());
-            postPageDto.setResourceScore(resource.getScore());
-            postPageDto.setResourceUrl(resource.getUrl());
-            LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            commentLambdaQueryWrapper.eq(Comment::getResource, resource.getId());
-            Integer commentCount = Math.toIntExact(commentMapper.selectCount(commentLambdaQueryWrapper));
-            postPageDto.setCommentCount(commentCount);
-
-            LambdaUpdateWrapper<Collect> collectLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            collectLambdaUpdateWrapper.eq(Collect::getBelong, teacherLoginDto.getId());
-            List<Collect> collects = collectMapper.selectList(collectLambdaUpdateWrapper);
-            if (Boolean.TRUE.equals(collects.stream().map(Collect::getResource).collect(Collectors.toList()).contains(resource.getId()))) {
-                postPageDto.setCollectStatus(1);
-            } else {
-                postPageDto.setCollectStatus(0);
-            }
-
-            return postPageDto;
-        }).collect(Collectors.toList());
-        pageDtoList.removeIf(Objects::isNull);
-        returnResult.setTotal(pageDtoList.size());
-        returnResult.setRecords(pageDtoList);
-        return returnResult;
+        // 榜单对所有用户相同，直接返回内存快照，不查询当前用户的收藏状态
+        return hotResourceRanking.top(size);
     }
 
     @Override
@@ -710,15 +498,13 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_ADDITION_FAILED), "添加教学资料失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
 
-        LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        teacherLambdaUpdateWrapper
-                .set(Teacher::getScore, teacherMapper.selectById(teacherLoginDto.getId()).getScore() + 1)
-                .eq(Teacher::getId, teacherLoginDto.getId());
-        teacherMapper.update(null, teacherLambdaUpdateWrapper);
+        counterService.incrementTeacherScore(teacherLoginDto.getId(), 1);
+        contentVersionTracker.touchFeed();
+        adminSearchIndex.markDirty(AdminSearchType.RESOURCE, resource.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public PostInfoDto info(Long id, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
         if (teacherLoginDto == null) {
@@ -730,12 +516,12 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
             throw new CustomizeReturnException(R.failure(RCodeEnum.RESOURCE_NOT_EXISTS), "教学资料不存在");
         }
 
-        Teacher teacher = teacherMapper.selectById(resource.getBelong());
+        TeacherCard teacher = teacherCardCache.get(resource.getBelong());
         if (teacher == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "教师信息不存在");
         }
 
-        College college = collegeMapper.selectById(teacher.getBelong());
+        College college = collegeDictionary.get(teacher.getBelong());
         if (college == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "高校不存在");
         }
@@ -757,7 +543,7 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
         postInfoDto.setResourceName(resource.getName());
         postInfoDto.setResourceInfo(resource.getInfo());
         postInfoDto.setResourceUrl(resource.getUrl());
-        postInfoDto.setResourceScore(resource.getScore());
+        postInfoDto.setResourceScore(counterService.mergeResourceScore(resource.getId(), resource.getScore()));
 
         LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
         commentLambdaQueryWrapper.eq(Comment::getResource, resource.getId());
@@ -768,8 +554,145 @@ public class ResourceServiceImpl extends ServiceImpl<ResourceMapper, Resource> i
         List<Collect> collectList = collectMapper.selectList(collectLambdaQueryWrapper);
         List<Long> resourceIds = collectList.stream().map(Collect::getResource).collect(Collectors.toList());
         postInfoDto.setCollectStatus(resourceIds.contains(id) ? 1 : 0);
+        hotResourceRanking.recordView(id);
 
         return postInfoDto;
     }
 
+    /**
+     * 批量组装帖子分页Dto
+     * 先收集页内所有教师、高校和教学资料的ID，每张表只做一次IN查询（评论数为一次分组统计），再在内存中拼装
+     *
+     * @param resources 需要展示的教学资料，返回结果与其顺序一致
+     * @param viewerId  当前登录用户ID，用于判断收藏状态
+     * @return 帖子分页Dto列表
+     */
+    private List<PostPageDto> assemblePostPageDtoList(List<Resource> resources, Long viewerId) {
+        if (resources.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> resourceIds = resources.stream().map(Resource::getId).collect(Collectors.toSet());
+        Set<Long> teacherIds = resources.stream().map(Resource::getBelong).collect(Collectors.toSet());
+
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(teacherIds);
+        Map<Long, Integer> commentCountMap = loadCommentCountMap(resourceIds);
+
+        LongHashSet collectIndex = loadViewerCollectIndex(viewerId, resources);
+
+        return resources.stream().map(resource -> {
+            TeacherCard teacher = teacherCardMap.get(resource.getBelong());
+            if (teacher == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
+            }
+            College college = collegeDictionary.get(teacher.getBelong());
+            if (college == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
+            }
+
+            PostPageDto postPageDto = new PostPageDto();
+            postPageDto.setUserId(teacher.getId());
+            postPageDto.setUserName(teacher.getName());
+            postPageDto.setUserAvatarUrl(teacher.getAvatar());
+            postPageDto.setCollegeName(college.getName());
+            postPageDto.setResourceStatus(resource.getStatus());
+            postPageDto.setResourceId(resource.getId());
+            postPageDto.setResourceName(resource.getName());
+            postPageDto.setResourceInfo(resource.getInfo());
+            postPageDto.setResourceScore(counterService.mergeResourceScore(resource.getId(), resource.getScore()));
+            postPageDto.setResourceUrl(resource.getUrl());
+            postPageDto.setCreateTime(resource.getCreateTime());
+            postPageDto.setCommentCount(commentCountMap.getOrDefault(resource.getId(), 0));
+            postPageDto.setCollectStatus(collectIndex.contains(resource.getId()) ? 1 : 0);
+            return postPageDto;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 批量组装用户详情页的教学资料分页Dto，查询方式与assemblePostPageDtoList相同，
+     * 被禁用的教学资料只展示名称和状态
+     *
+     * @param resources 需要展示的教学资料，返回结果与其顺序一致
+     * @param viewerId  当前登录用户ID，用于判断收藏状态
+     * @return 帖子分页Dto列表
+     */
+    private List<PostPageDto> assembleUserResourcePageDtoList(List<Resource> resources, Long viewerId) {
+        if (resources.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, TeacherCard> teacherCardMap = teacherCardCache.getAll(resources.stream()
+                .map(Resource::getBelong)
+                .collect(Collectors.toSet()));
+        Map<Long, Integer> commentCountMap = loadCommentCountMap(resources.stream()
+                .map(Resource::getId)
+                .collect(Collectors.toSet()));
+        LongHashSet collectIndex = loadViewerCollectIndex(viewerId, resources);
+
+        return resources.stream().map(resource -> {
+            Integer status = resource.getStatus();
+            PostPageDto userResourcePageDto = new PostPageDto();
+
+            TeacherCard teacher = teacherCardMap.get(resource.getBelong());
+            if (teacher == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS));
+            }
+            userResourcePageDto.setUserId(teacher.getId());
+            userResourcePageDto.setUserName(teacher.getName());
+            userResourcePageDto.setUserAvatarUrl(teacher.getAvatar());
+            College college = collegeDictionary.get(teacher.getBelong());
+            if (college == null) {
+                throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS));
+            }
+            userResourcePageDto.setCollegeName(college.getName());
+
+            userResourcePageDto.setResourceStatus(status);
+            userResourcePageDto.setResourceId(resource.getId());
+            userResourcePageDto.setResourceName(resource.getName());
+            if (status == 0) {
+                userResourcePageDto.setResourceInfo(resource.getInfo());
+                userResourcePageDto.setResourceScore(counterService.mergeResourceScore(resource.getId(), resource.getScore()));
+                userResourcePageDto.setResourceUrl(resource.getUrl());
+            }
+            userResourcePageDto.setCollectStatus(collectIndex.contains(resource.getId()) ? 1 : 0);
+            userResourcePageDto.setCreateTime(resource.getCreateTime());
+            userResourcePageDto.setCommentCount(commentCountMap.getOrDefault(resource.getId(), 0));
+            return userResourcePageDto;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 一次分组统计本页教学资料的评论数
+     *
+     * @param resourceIds 教学资料ID
+     * @return 教学资料ID到评论数的映射，没有评论的教学资料不在结果中
+     */
+    private Map<Long, Integer> loadCommentCountMap(Collection<Long> resourceIds) {
+        Map<Long, Integer> commentCountMap = new HashMap<>();
+        if (resourceIds.isEmpty()) {
+            return commentCountMap;
+        }
+        QueryWrapper<Comment> commentCountQueryWrapper = new QueryWrapper<>();
+        commentCountQueryWrapper
+                .select(Comment.COL_COMMENT_RESOURCE, "COUNT(*) AS " + COMMENT_COUNT_COLUMN)
+                .in(Comment.COL_COMMENT_RESOURCE, resourceIds)
+                .groupBy(Comment.COL_COMMENT_RESOURCE);
+        commentMapper.selectMaps(commentCountQueryWrapper).forEach(row -> commentCountMap.put(
+                ((Number) row.get(Comment.COL_COMMENT_RESOURCE)).longValue(),
+                ((Number) row.get(COMMENT_COUNT_COLUMN)).intValue()));
+        return commentCountMap;
+    }
+
+    /**
+     * 加载当前用户对本页教学资料的收藏索引，每页最多一次只查ID列的查询，之后每行的收藏状态判断都是O(1)
+     *
+     * @param viewerId  当前登录用户ID
+     * @param resources 本页教学资料
+     * @return 本页中被当前用户收藏过的教学资料ID集合
+     */
+    private LongHashSet loadViewerCollectIndex(Long viewerId, List<Resource> resources) {
+        if (viewerId == null || resources.isEmpty()) {
+            return new LongHashSet();
+        }
+        Set<Long> resourceIds = resources.stream().map(Resource::getId).collect(Collectors.toSet());
+        return LongHashSet.of(collectMapper.selectCollectedResourceIds(viewerId, resourceIds));
+    }
 }
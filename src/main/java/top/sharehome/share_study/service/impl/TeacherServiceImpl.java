@@ -2,36 +2,49 @@ package top.sharehome.share_study.service.impl;
 
 import cn.hutool.core.util.DesensitizedUtil;
 import cn.hutool.crypto.digest.DigestUtil;
-import com.alibaba.excel.EasyExcelFactory;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.search.Query;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.admin_search.AdminSearchHits;
+import top.sharehome.share_study.common.admin_search.AdminSearchIndex;
+import top.sharehome.share_study.common.admin_search.AdminSearchQuery;
+import top.sharehome.share_study.common.admin_search.AdminSearchType;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
 import top.sharehome.share_study.common.constant.CommonConstant;
-import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
 import top.sharehome.share_study.common.exception_handler.customize.CustomizeTransactionException;
+import top.sharehome.share_study.common.login_token.LoginToken;
+import top.sharehome.share_study.common.login_token.LoginTokenService;
+import top.sharehome.share_study.common.login_token.TokenRevocationList;
+import top.sharehome.share_study.common.cascade_delete.CascadeDeleter;
 import top.sharehome.share_study.common.response.R;
 import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.listener.TeacherOrAdminExcelListener;
 import top.sharehome.share_study.mapper.*;
 import top.sharehome.share_study.model.dto.*;
 import top.sharehome.share_study.model.entity.*;
 import top.sharehome.share_study.model.vo.*;
-import top.sharehome.share_study.service.FileOssService;
+import top.sharehome.share_study.service.CounterService;
 import top.sharehome.share_study.service.TeacherService;
+import top.sharehome.share_study.utils.ExcelImportUtil;
+import top.sharehome.share_study.utils.ExcelStreamExportUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -46,15 +59,21 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
     @javax.annotation.Resource
     private TeacherMapper teacherMapper;
     @javax.annotation.Resource
-    private CollegeMapper collegeMapper;
+    private CollegeDictionary collegeDictionary;
     @javax.annotation.Resource
-    private ResourceMapper resourceMapper;
+    private TeacherCardCache teacherCardCache;
     @javax.annotation.Resource
-    private CommentMapper commentMapper;
+    private LoginTokenService loginTokenService;
     @javax.annotation.Resource
-    private FileOssService fileOssService;
+    private TokenRevocationList tokenRevocationList;
     @javax.annotation.Resource
-    private CollectMapper collectMapper;
+    private CascadeDeleter cascadeDeleter;
+    @javax.annotation.Resource
+    private CounterService counterService;
+    @javax.annotation.Resource
+    private TransactionTemplate transactionTemplate;
+    @javax.annotation.Resource
+    private AdminSearchIndex adminSearchIndex;
 
     /**
      * 注册加盐
@@ -79,9 +98,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         }
 
         // 查询用户输入的院校代码存不存在
-        LambdaQueryWrapper<College> collegeLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        collegeLambdaQueryWrapper.eq(College::getCode, teacherRegisterVo.getCode());
-        College resultCollege = collegeMapper.selectOne(collegeLambdaQueryWrapper);
+        College resultCollege = collegeDictionary.getByCode(teacherRegisterVo.getCode());
         if (resultCollege == null) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "没有该院校代码");
         }
@@ -100,6 +117,8 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         if (insertResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_ADDITION_FAILED), "注册插入用户失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+
+        adminSearchIndex.markDirty(AdminSearchType.TEACHER, teacher.getId());
     }
 
     @Override
@@ -135,13 +154,14 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         teacherLoginDto.setName(teacher.getName());
         teacherLoginDto.setAvatar(teacher.getAvatar());
         teacherLoginDto.setGender(teacher.getGender());
-        String collegeName = collegeMapper.selectById(teacher.getBelong()).getName();
+        String collegeName = collegeDictionary.get(teacher.getBelong()).getName();
         teacherLoginDto.setCollegeName(collegeName);
         teacherLoginDto.setEmail(teacher.getEmail());
-        teacherLoginDto.setScore(teacher.getScore());
+        teacherLoginDto.setScore(counterService.mergeTeacherScore(teacher.getId(), teacher.getScore()));
         teacherLoginDto.setMessageNumber(teacher.getMessageTotal() - teacher.getMessageRead());
         teacherLoginDto.setRole(teacher.getRole());
         teacherLoginDto.setCreateTime(teacher.getCreateTime());
+        teacherLoginDto.setToken(loginTokenService.issue(teacher, LoginToken.SCOPE_USER));
         request.getSession().setAttribute(CommonConstant.USER_LOGIN_STATE, teacherLoginDto);
         return teacherLoginDto;
     }
@@ -184,13 +204,14 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         teacherLoginDto.setName(teacher.getName());
         teacherLoginDto.setAvatar(teacher.getAvatar());
         teacherLoginDto.setGender(teacher.getGender());
-        String collegeName = collegeMapper.selectById(teacher.getBelong()).getName();
+        String collegeName = collegeDictionary.get(teacher.getBelong()).getName();
         teacherLoginDto.setCollegeName(collegeName);
         teacherLoginDto.setEmail(teacher.getEmail());
-        teacherLoginDto.setScore(teacher.getScore());
+        teacherLoginDto.setScore(counterService.mergeTeacherScore(teacher.getId(), teacher.getScore()));
         teacherLoginDto.setMessageNumber(teacher.getMessageTotal() - teacher.getMessageRead());
         teacherLoginDto.setRole(teacher.getRole());
         teacherLoginDto.setCreateTime(teacher.getCreateTime());
+        teacherLoginDto.setToken(loginTokenService.issue(teacher, LoginToken.SCOPE_ADMIN));
 
         // 向Session中存入登录状态
         request.getSession().setAttribute(CommonConstant.ADMIN_LOGIN_STATE, teacherLoginDto);
@@ -198,7 +219,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public AdminGetSelfDto getSelf(Long id, HttpServletRequest request) {
         // 鉴定操作者的权限
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
@@ -281,10 +302,12 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改用户失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        teacherCardCache.invalidate(teacher.getId());
+        adminSearchIndex.markDirty(AdminSearchType.TEACHER, teacher.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public AdminGetDto getAdmin(Long id, HttpServletRequest request) {
         // 鉴定操作者的权限
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
@@ -357,6 +380,10 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             throw new CustomizeReturnException(R.failure(RCodeEnum.THE_UPDATE_DATA_IS_THE_SAME_AS_THE_BACKGROUND_DATA), "更新数据和库中数据相同");
         }
 
+        // 角色和封禁状态写在令牌中，发生变化时吊销已签发的令牌
+        boolean loginStateChanged = !Objects.equals(adminUpdateVo.getRole(), teacher.getRole())
+                || !Objects.equals(adminUpdateVo.getStatus(), teacher.getStatus());
+
         teacher.setRole(adminUpdateVo.getRole());
         teacher.setStatus(adminUpdateVo.getStatus());
         teacher.setAvatar(adminUpdateVo.getAvatar());
@@ -370,65 +397,47 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改用户失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        teacherCardCache.invalidate(teacher.getId());
+        adminSearchIndex.markDirty(AdminSearchType.TEACHER, teacher.getId());
+        if (loginStateChanged) {
+            tokenRevocationList.revoke(teacher.getId());
+        }
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public void downloadAdmin(HttpServletResponse response) {
-        try {
-            // 设置下载信息
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("utf-8");
-            // 这里URLEncoder.encode可以防止中文乱码 当然和easyexcel没有关系
-            String fileName = URLEncoder.encode("管理员信息", "UTF-8").replaceAll("\\+", "%20");
-            response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
-            // 查询管理员分类表所有的数据
-            LambdaQueryWrapper<Teacher> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(Teacher::getRole, CommonConstant.ADMIN_ROLE)
-                    .or()
-                    .eq(Teacher::getRole, CommonConstant.SUPER_ROLE)
-                    .orderByDesc(Teacher::getRole)
-                    .orderByAsc(Teacher::getStatus)
-                    .orderByDesc(Teacher::getScore)
-                    .orderByAsc(Teacher::getCreateTime);
-            List<Teacher> teacherList = teacherMapper.selectList(queryWrapper);
-            EasyExcelFactory.write(response.getOutputStream(), Teacher.class)
-                    .sheet("管理员数据")
-                    .doWrite(teacherList);
-        } catch (UnsupportedEncodingException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "导出Excel时文件编码异常");
-        } catch (IOException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "文件写入时，响应流发生异常");
-        }
+        ExcelStreamExportUtil.export(response, "管理员信息", "管理员数据", Teacher.class, teacherMapper, Teacher::getId,
+                queryWrapper -> queryWrapper.in(Teacher::getRole, CommonConstant.ADMIN_ROLE, CommonConstant.SUPER_ROLE));
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public void downloadTeacher(HttpServletResponse response) {
-        try {
-            // 设置下载信息
-            response.setContentType("application/vnd.ms-excel");
-            response.setCharacterEncoding("utf-8");
-            // 这里URLEncoder.encode可以防止中文乱码 当然和easyexcel没有关系
-            String fileName = URLEncoder.encode("教师信息", "UTF-8").replaceAll("\\+", "%20");
-            response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
-            // 查询课程分类表所有的数据
-            LambdaQueryWrapper<Teacher> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper
-                    .eq(Teacher::getRole, CommonConstant.DEFAULT_ROLE)
-                    .orderByDesc(Teacher::getRole)
-                    .orderByAsc(Teacher::getStatus)
-                    .orderByDesc(Teacher::getScore)
-                    .orderByAsc(Teacher::getCreateTime);
-            List<Teacher> teacherList = teacherMapper.selectList(queryWrapper);
-            EasyExcelFactory.write(response.getOutputStream(), Teacher.class)
-                    .sheet("教师数据")
-                    .doWrite(teacherList);
-        } catch (UnsupportedEncodingException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "导出Excel时文件编码异常");
-        } catch (IOException e) {
-            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "文件写入时，响应流发生异常");
+        ExcelStreamExportUtil.export(response, "教师信息", "教师数据", Teacher.class, teacherMapper, Teacher::getId,
+                queryWrapper -> queryWrapper.eq(Teacher::getRole, CommonConstant.DEFAULT_ROLE));
+    }
+
+    @Override
+    public ExcelImportResultDto uploadAdmin(MultipartFile file) {
+        ExcelImportResultDto result = ExcelImportUtil.read(file, Teacher.class, new TeacherOrAdminExcelListener(this, transactionTemplate, teacherMapper, collegeDictionary,
+                password -> DigestUtil.md5Hex(password + SALT), defaultAvatar, CommonConstant.ADMIN_ROLE));
+        adminSearchIndex.markRebuild(AdminSearchType.TEACHER);
+        return result;
+    }
+
+    @Override
+    public ExcelImportResultDto uploadTeacher(MultipartFile file, HttpServletRequest request) {
+        // 鉴定操作者的权限，Excel导入只有超级管理员可以操作
+        TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (teacherLoginDto == null || !Objects.equals(teacherLoginDto.getRole(), CommonConstant.SUPER_ROLE)) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "非超级管理员无法导入教师信息");
         }
+
+        ExcelImportResultDto result = ExcelImportUtil.read(file, Teacher.class, new TeacherOrAdminExcelListener(this, transactionTemplate, teacherMapper, collegeDictionary,
+                password -> DigestUtil.md5Hex(password + SALT), defaultAvatar, CommonConstant.DEFAULT_ROLE));
+        adminSearchIndex.markRebuild(AdminSearchType.TEACHER);
+        return result;
     }
 
     @Override
@@ -446,80 +455,26 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "教师管理页面不得删除管理员信息");
         }
 
-        LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-        teacherLambdaUpdateWrapper.eq(Teacher::getId, id);
-        selectResult.setAccount(selectResult.getAccount() + "+" + System.currentTimeMillis());
-        teacherMapper.update(selectResult, teacherLambdaUpdateWrapper);
-
-        LambdaQueryWrapper<Resource> resourceLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        resourceLambdaQueryWrapper.eq(Resource::getBelong, id);
-        List<Resource> resourceList = resourceMapper.selectList(resourceLambdaQueryWrapper);
-        resourceMapper.delete(resourceLambdaQueryWrapper);
-
-        LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-        commentLambdaQueryWrapper.eq(Comment::getBelong, id);
-        commentMapper.delete(commentLambdaQueryWrapper);
-
-        int deleteResult = teacherMapper.delete(teacherLambdaQueryWrapper);
-
-        if (deleteResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教师数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
-        }
-
-        resourceList.forEach(resource -> {
-            fileOssService.delete(resource.getUrl());
-            LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            collectLambdaQueryWrapper.eq(Collect::getResource, resource.getId());
-            collectMapper.delete(collectLambdaQueryWrapper);
-        });
+        cascadeDeleter.deleteTeachers(Collections.singletonList(id));
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
     public void deleteBatch(List<Long> ids) {
-        List<List<Resource>> resourceLists = ids.stream().map(id -> {
-            Teacher selectResult = this.getById(id);
-            if (selectResult == null) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "教师不存在，不需要进行下一步操作");
-            }
-            if (Objects.equals(selectResult.getRole(), CommonConstant.ADMIN_ROLE)
-                    || Objects.equals(selectResult.getRole(), CommonConstant.SUPER_ROLE)) {
-                throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "教师管理页面不得删除管理员信息");
-            }
-            LambdaUpdateWrapper<Teacher> teacherLambdaUpdateWrapper = new LambdaUpdateWrapper<>();
-            teacherLambdaUpdateWrapper.eq(Teacher::getId, id);
-            selectResult.setAccount(selectResult.getAccount() + "+" + System.currentTimeMillis());
-            teacherMapper.update(selectResult, teacherLambdaUpdateWrapper);
-
-            LambdaQueryWrapper<Resource> resourceLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            resourceLambdaQueryWrapper.eq(Resource::getBelong, id);
-            List<Resource> resourceList = resourceMapper.selectList(resourceLambdaQueryWrapper);
-            resourceMapper.delete(resourceLambdaQueryWrapper);
-
-            LambdaQueryWrapper<Comment> commentLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            commentLambdaQueryWrapper.eq(Comment::getBelong, id);
-            commentMapper.delete(commentLambdaQueryWrapper);
-
-            return resourceList;
-        }).collect(Collectors.toList());
-
-        int deleteResult = teacherMapper.deleteBatchIds(ids);
-        if (deleteResult == 0) {
-            throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_DELETION_FAILED), "教师数据删除失败，从数据库返回的影响行数为0，且在之前没有报出异常");
+        // 一次批量读取完成存在性和权限校验
+        List<Teacher> teacherList = teacherMapper.selectBatchIds(ids);
+        if (teacherList.size() != new HashSet<>(ids).size()) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.TEACHER_NOT_EXISTS), "教师不存在，不需要进行下一步操作");
+        }
+        if (teacherList.stream().anyMatch(teacher -> Objects.equals(teacher.getRole(), CommonConstant.ADMIN_ROLE)
+                || Objects.equals(teacher.getRole(), CommonConstant.SUPER_ROLE))) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.ACCESS_UNAUTHORIZED), "教师管理页面不得删除管理员信息");
         }
 
-        resourceLists.forEach(resourceList -> {
-            resourceList.forEach(resource -> {
-                fileOssService.delete(resource.getUrl());
-                LambdaQueryWrapper<Collect> collectLambdaQueryWrapper = new LambdaQueryWrapper<>();
-                collectLambdaQueryWrapper.eq(Collect::getResource, resource.getId());
-                collectMapper.delete(collectLambdaQueryWrapper);
-            });
-        });
+        cascadeDeleter.deleteTeachers(ids);
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public TeacherGetDto getTeacher(Long id, HttpServletRequest request) {
         TeacherLoginDto teacherLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
         if (Objects.equals(teacherLoginDto.getRole(), CommonConstant.DEFAULT_ROLE)) {
@@ -580,6 +535,10 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             throw new CustomizeReturnException(R.failure(RCodeEnum.THE_UPDATE_DATA_IS_THE_SAME_AS_THE_BACKGROUND_DATA), "更新数据和库中数据相同");
         }
 
+        // 角色和封禁状态写在令牌中，发生变化时吊销已签发的令牌
+        boolean loginStateChanged = !Objects.equals(teacherUpdateVo.getRole(), resultFromDatabase.getRole())
+                || !Objects.equals(teacherUpdateVo.getStatus(), resultFromDatabase.getStatus());
+
         resultFromDatabase.setRole(teacherUpdateVo.getRole());
         resultFromDatabase.setStatus(teacherUpdateVo.getStatus());
         resultFromDatabase.setAvatar(teacherUpdateVo.getAvatar());
@@ -593,10 +552,15 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改用户失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        teacherCardCache.invalidate(resultFromDatabase.getId());
+        adminSearchIndex.markDirty(AdminSearchType.TEACHER, resultFromDatabase.getId());
+        if (loginStateChanged) {
+            tokenRevocationList.revoke(resultFromDatabase.getId());
+        }
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<TeacherPageDto> pageTeacher(Integer current, Integer pageSize, TeacherPageVo teacherPageVo) {
         // 创建原始分页数据以及返回分页数据
         Page<Teacher> page = new Page<>(current, pageSize);
@@ -621,6 +585,32 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             return returnResult;
         }
 
+        // 开启管理端索引时一次索引查询得到当前页的教师ID，再一次批量查出教师
+        if (adminSearchIndex.isEnabled()) {
+            Query query = new AdminSearchQuery()
+                    .substring(!StringUtils.isEmpty(teacherPageVo.getAccount()), AdminSearchIndex.ACCOUNT, teacherPageVo.getAccount())
+                    .contains(!StringUtils.isEmpty(teacherPageVo.getName()), AdminSearchIndex.NAME, teacherPageVo.getName())
+                    .eq(!ObjectUtils.isEmpty(teacherPageVo.getGender()), AdminSearchIndex.GENDER, teacherPageVo.getGender())
+                    .eq(!ObjectUtils.isEmpty(teacherPageVo.getStatus()), AdminSearchIndex.STATUS, teacherPageVo.getStatus())
+                    .eq(!ObjectUtils.isEmpty(teacherPageVo.getRole()), AdminSearchIndex.ROLE, teacherPageVo.getRole())
+                    .in(!StringUtils.isEmpty(teacherPageVo.getBelongName()), AdminSearchIndex.BELONG, collegeDictionary.searchIdsByName(teacherPageVo.getBelongName()))
+                    .build();
+            AdminSearchHits hits = adminSearchIndex.search(AdminSearchType.TEACHER, query, current, pageSize);
+            List<Teacher> teachers = adminSearchIndex.hydrate(AdminSearchType.TEACHER, hits.getIds());
+            returnResult.setTotal(hits.getTotal());
+            returnResult.setRecords(teachers.stream().map(teacher -> {
+                TeacherPageDto teacherPageDto = new TeacherPageDto();
+                BeanUtils.copyProperties(teacher, teacherPageDto);
+                College college = collegeDictionary.get(teacher.getBelong());
+                if (college == null) {
+                    throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "该管理员所属高校不存在");
+                }
+                teacherPageDto.setBelongName(college.getName());
+                return teacherPageDto;
+            }).collect(Collectors.toList()));
+            return returnResult;
+        }
+
         // 当存在模糊查询时的分页操作
         lambdaQueryWrapper
                 .like(!StringUtils.isEmpty(teacherPageVo.getAccount()), Teacher::getAccount, teacherPageVo.getAccount())
@@ -634,10 +624,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         String belongName = teacherPageVo.getBelongName();
         List<Long> collegeIds = new ArrayList<>();
         if (!StringUtils.isEmpty(belongName)) {
-            LambdaQueryWrapper<College> belongNameLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            belongNameLambdaQueryWrapper.like(College::getName, belongName);
-            List<College> teachers = collegeMapper.selectList(belongNameLambdaQueryWrapper);
-            collegeIds = teachers.stream().map(College::getId).collect(Collectors.toList());
+            collegeIds = collegeDictionary.searchIdsByName(belongName);
         }
         List<Long> finalCollegeIds = collegeIds;
 
@@ -651,9 +638,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             }
             TeacherPageDto teacherPageDto = new TeacherPageDto();
             BeanUtils.copyProperties(teacher, teacherPageDto);
-            LambdaQueryWrapper<College> collegeLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            collegeLambdaQueryWrapper.eq(College::getId, teacher.getBelong());
-            College college = collegeMapper.selectOne(collegeLambdaQueryWrapper);
+            College college = collegeDictionary.get(teacher.getBelong());
             if (college == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "该管理员所属高校不存在");
             }
@@ -686,13 +671,15 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         adminLoginDto.setName(name);
         adminLoginDto.setAvatar(teacher.getAvatar());
         adminLoginDto.setGender(teacher.getGender());
-        String collegeName = collegeMapper.selectById(teacher.getBelong()).getName();
+        String collegeName = collegeDictionary.get(teacher.getBelong()).getName();
         adminLoginDto.setCollegeName(collegeName);
         adminLoginDto.setEmail(teacher.getEmail());
-        adminLoginDto.setScore(teacher.getScore());
+        adminLoginDto.setScore(counterService.mergeTeacherScore(teacher.getId(), teacher.getScore()));
         adminLoginDto.setMessageNumber(teacher.getMessageTotal() - teacher.getMessageRead());
         adminLoginDto.setRole(teacher.getRole());
         adminLoginDto.setCreateTime(teacher.getCreateTime());
+        // 令牌登录模式下同时续签令牌，令牌中的角色和高校随之更新
+        adminLoginDto.setToken(loginTokenService.issue(teacher, LoginToken.SCOPE_ADMIN));
 
         // 向Session中更新登录状态
         request.getSession().setAttribute(CommonConstant.ADMIN_LOGIN_STATE, adminLoginDto);
@@ -719,13 +706,15 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         userLoginDto.setName(teacher.getName());
         userLoginDto.setAvatar(teacher.getAvatar());
         userLoginDto.setGender(teacher.getGender());
-        String collegeName = collegeMapper.selectById(teacher.getBelong()).getName();
+        String collegeName = collegeDictionary.get(teacher.getBelong()).getName();
         userLoginDto.setCollegeName(collegeName);
         userLoginDto.setEmail(teacher.getEmail());
-        userLoginDto.setScore(teacher.getScore());
+        userLoginDto.setScore(counterService.mergeTeacherScore(teacher.getId(), teacher.getScore()));
         userLoginDto.setMessageNumber(teacher.getMessageTotal() - teacher.getMessageRead());
         userLoginDto.setRole(teacher.getRole());
         userLoginDto.setCreateTime(teacher.getCreateTime());
+        // 令牌登录模式下同时续签令牌，令牌中的角色和高校随之更新
+        userLoginDto.setToken(loginTokenService.issue(teacher, LoginToken.SCOPE_USER));
 
         // 向Session中更新登录状态
         request.getSession().setAttribute(CommonConstant.USER_LOGIN_STATE, userLoginDto);
@@ -734,7 +723,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public UserGetInfoDto getUserInfo(Long id, HttpServletRequest request) {
         // 判断被操作数据是否为空
         Teacher teacher = teacherMapper.selectById(id);
@@ -813,10 +802,12 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         if (updateResult == 0) {
             throw new CustomizeReturnException(R.failure(RCodeEnum.DATA_MODIFICATION_FAILED), "修改用户失败，从数据库返回的影响行数为0，且在之前没有报出异常");
         }
+        teacherCardCache.invalidate(teacher.getId());
+        adminSearchIndex.markDirty(AdminSearchType.TEACHER, teacher.getId());
     }
 
     @Override
-    @Transactional(rollbackFor = CustomizeTransactionException.class)
+    @Transactional(readOnly = true, rollbackFor = CustomizeTransactionException.class)
     public Page<AdminPageDto> pageAdmin(Integer current, Integer pageSize, AdminPageVo adminPageVo) {
         // 创建原始分页数据以及返回分页数据
         Page<Teacher> page = new Page<>(current, pageSize);
@@ -845,6 +836,33 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             return returnResult;
         }
 
+        // 开启管理端索引时一次索引查询得到当前页的管理员ID，再一次批量查出管理员
+        if (adminSearchIndex.isEnabled()) {
+            Query query = new AdminSearchQuery()
+                    .in(true, AdminSearchIndex.ROLE, Arrays.asList((long) CommonConstant.ADMIN_ROLE, (long) CommonConstant.SUPER_ROLE))
+                    .substring(!StringUtils.isEmpty(adminPageVo.getAccount()), AdminSearchIndex.ACCOUNT, adminPageVo.getAccount())
+                    .contains(!StringUtils.isEmpty(adminPageVo.getName()), AdminSearchIndex.NAME, adminPageVo.getName())
+                    .eq(!ObjectUtils.isEmpty(adminPageVo.getGender()), AdminSearchIndex.GENDER, adminPageVo.getGender())
+                    .eq(!ObjectUtils.isEmpty(adminPageVo.getStatus()), AdminSearchIndex.STATUS, adminPageVo.getStatus())
+                    .eq(!ObjectUtils.isEmpty(adminPageVo.getRole()), AdminSearchIndex.ROLE, adminPageVo.getRole())
+                    .in(!StringUtils.isEmpty(adminPageVo.getBelongName()), AdminSearchIndex.BELONG, collegeDictionary.searchIdsByName(adminPageVo.getBelongName()))
+                    .build();
+            AdminSearchHits hits = adminSearchIndex.search(AdminSearchType.TEACHER, query, current, pageSize);
+            List<Teacher> teachers = adminSearchIndex.hydrate(AdminSearchType.TEACHER, hits.getIds());
+            returnResult.setTotal(hits.getTotal());
+            returnResult.setRecords(teachers.stream().map(teacher -> {
+                AdminPageDto adminPageDto = new AdminPageDto();
+                BeanUtils.copyProperties(teacher, adminPageDto);
+                College college = collegeDictionary.get(teacher.getBelong());
+                if (college == null) {
+                    throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "该管理员所属高校不存在");
+                }
+                adminPageDto.setBelongName(college.getName());
+                return adminPageDto;
+            }).collect(Collectors.toList()));
+            return returnResult;
+        }
+
         // 当存在模糊查询时的分页操作
         lambdaQueryWrapper
                 .like(!StringUtils.isEmpty(adminPageVo.getAccount()), Teacher::getAccount, adminPageVo.getAccount())
@@ -860,10 +878,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
         String belongName = adminPageVo.getBelongName();
         List<Long> collegeIds = new ArrayList<>();
         if (!StringUtils.isEmpty(belongName)) {
-            LambdaQueryWrapper<College> belongNameLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            belongNameLambdaQueryWrapper.like(College::getName, belongName);
-            List<College> teachers = collegeMapper.selectList(belongNameLambdaQueryWrapper);
-            collegeIds = teachers.stream().map(College::getId).collect(Collectors.toList());
+            collegeIds = collegeDictionary.searchIdsByName(belongName);
         }
         List<Long> finalCollegeIds = collegeIds;
 
@@ -877,9 +892,7 @@ public class TeacherServiceImpl extends ServiceImpl<TeacherMapper, Teacher> impl
             }
             AdminPageDto adminPageDto = new AdminPageDto();
             BeanUtils.copyProperties(teacher, adminPageDto);
-            LambdaQueryWrapper<College> collegeLambdaQueryWrapper = new LambdaQueryWrapper<>();
-            collegeLambdaQueryWrapper.eq(College::getId, teacher.getBelong());
-            College college = collegeMapper.selectOne(collegeLambdaQueryWrapper);
+            College college = collegeDictionary.get(teacher.getBelong());
             if (college == null) {
                 throw new CustomizeReturnException(R.failure(RCodeEnum.COLLEGE_NOT_EXISTS), "该管理员所属高校不存在");
             }
@@ -0,0 +1,56 @@
+package top.sharehome.share_study.utils;
+
+import com.alibaba.excel.EasyExcelFactory;
+import org.springframework.web.multipart.MultipartFile;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.listener.BatchImportExcelListener;
+import top.sharehome.share_study.model.dto.ExcelImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Excel批量导入工具类
+ *
+ * @author AntonyCheng
+ */
+public class ExcelImportUtil {
+    /**
+     * 可以导入的文件格式
+     */
+    private static final List<String> EXCEL_FORMATS = Arrays.asList("xlsx", "xls");
+
+    private ExcelImportUtil() {
+    }
+
+    /**
+     * 读取Excel文件第一个sheet并交给批量导入监听器处理
+     *
+     * @param file     上传的Excel文件
+     * @param head     Excel实体类
+     * @param listener 批量导入监听器
+     * @param <T>      实体类型
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResultDto read(MultipartFile file, Class<T> head, BatchImportExcelListener<T> listener) {
+        String originalFilename = file.getOriginalFilename();
+        if (originalFilename == null) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY));
+        }
+        String suffix = originalFilename.substring(originalFilename.lastIndexOf('.') + 1);
+        if (!EXCEL_FORMATS.contains(suffix.toLowerCase())) {
+            throw new CustomizeReturnException(R.failure(RCodeEnum.USER_UPLOADED_FILE_TYPE_MISMATCH));
+        }
+        try (InputStream inputStream = file.getInputStream()) {
+            EasyExcelFactory.read(inputStream, head, listener).sheet().doRead();
+        } catch (IOException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_UPLOAD_FAILED), "读取上传的Excel文件时发生异常");
+        }
+        return listener.getResult();
+    }
+}
@@ -0,0 +1,126 @@
+package top.sharehome.share_study.utils;
+
+import com.alibaba.excel.EasyExcelFactory;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeFileException;
+import top.sharehome.share_study.common.response.R;
+import top.sharehome.share_study.common.response.RCodeEnum;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Excel流式导出工具类
+ * 按主键做键集分页，每次只从数据库读取一块数据并追加到同一个ExcelWriter中，
+ * 内存占用与表的大小无关，单个sheet写满xlsx的行数上限后自动切换到新的sheet
+ *
+ * @author AntonyCheng
+ */
+public class ExcelStreamExportUtil {
+    /**
+     * 每次从数据库读取的行数
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * xlsx单个sheet最多1048576行，扣除表头一行
+     */
+    private static final int MAX_ROWS_PER_SHEET = 1048575;
+
+    private ExcelStreamExportUtil() {
+    }
+
+    /**
+     * 流式导出整张表
+     *
+     * @param response  响应
+     * @param fileName  下载的文件名（不含后缀）
+     * @param sheetName sheet名称，切换sheet时追加序号
+     * @param head      Excel实体类
+     * @param mapper    实体类对应的Mapper
+     * @param idColumn  主键列，用于键集分页
+     * @param condition 额外的查询条件，可以为null
+     * @param <T>       实体类型
+     */
+    public static <T> void export(HttpServletResponse response, String fileName, String sheetName, Class<T> head,
+                                  BaseMapper<T> mapper, SFunction<T, Long> idColumn, Consumer<LambdaQueryWrapper<T>> condition) {
+        export(response, fileName, sheetName, head, mapper, idColumn, condition, CHUNK_SIZE, MAX_ROWS_PER_SHEET);
+    }
+
+    /**
+     * 流式导出整张表，每块行数和单个sheet的行数上限可以指定，便于测试分块和换sheet的边界
+     *
+     * @param chunkSize       每次从数据库读取的行数
+     * @param maxRowsPerSheet 单个sheet最多写入的数据行数
+     */
+    static <T> void export(HttpServletResponse response, String fileName, String sheetName, Class<T> head,
+                           BaseMapper<T> mapper, SFunction<T, Long> idColumn, Consumer<LambdaQueryWrapper<T>> condition,
+                           int chunkSize, int maxRowsPerSheet) {
+        ExcelWriter excelWriter = null;
+        try {
+            // 设置下载信息
+            response.setContentType("application/vnd.ms-excel");
+            response.setCharacterEncoding("utf-8");
+            // 这里URLEncoder.encode可以防止中文乱码 当然和easyexcel没有关系
+            String encodedFileName = URLEncoder.encode(fileName, "UTF-8").replaceAll("\\+", "%20");
+            response.setHeader("Content-disposition", "attachment;filename=" + encodedFileName + ".xlsx");
+
+            excelWriter = EasyExcelFactory.write(response.getOutputStream(), head).build();
+            int sheetNo = 0;
+            WriteSheet writeSheet = EasyExcelFactory.writerSheet(sheetNo, sheetName).build();
+            int sheetRows = 0;
+            Long lastId = null;
+            while (true) {
+                LambdaQueryWrapper<T> queryWrapper = new LambdaQueryWrapper<>();
+                if (condition != null) {
+                    condition.accept(queryWrapper);
+                }
+                queryWrapper
+                        .gt(lastId != null, idColumn, lastId)
+                        .orderByAsc(idColumn)
+                        .last("LIMIT " + chunkSize);
+                List<T> chunk = mapper.selectList(queryWrapper);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                int offset = 0;
+                while (offset < chunk.size()) {
+                    if (sheetRows == maxRowsPerSheet) {
+                        sheetNo++;
+                        writeSheet = EasyExcelFactory.writerSheet(sheetNo, sheetName + (sheetNo + 1)).build();
+                        sheetRows = 0;
+                    }
+                    int end = Math.min(chunk.size(), offset + maxRowsPerSheet - sheetRows);
+                    excelWriter.write(chunk.subList(offset, end), writeSheet);
+                    sheetRows += end - offset;
+                    offset = end;
+                }
+                lastId = idColumn.apply(chunk.get(chunk.size() - 1));
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+            // 空表也要输出带表头的sheet
+            if (lastId == null) {
+                excelWriter.write(Collections.emptyList(), writeSheet);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "导出Excel时文件编码异常");
+        } catch (IOException e) {
+            throw new CustomizeFileException(R.failure(RCodeEnum.EXCEL_EXPORT_FAILED), "文件写入时，响应流发生异常");
+        } finally {
+            if (excelWriter != null) {
+                excelWriter.finish();
+            }
+        }
+    }
+}
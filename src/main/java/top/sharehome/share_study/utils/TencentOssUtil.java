@@ -32,4 +32,15 @@ public class TencentOssUtil implements InitializingBean {
         ACCESS_KEY_SECRET = secretKey;
         BUCKET_NAME = bucketName;
     }
+
+    /**
+     * 从访问地址中截取对象键
+     *
+     * @param url 文件存储的url
+     * @return 对象键，地址格式不正确时返回null
+     */
+    public static String parseKey(String url) {
+        String[] split = url.split(".myqcloud.com/");
+        return split.length == 2 ? split[1] : null;
+    }
 }
@@ -0,0 +1,33 @@
+package top.sharehome.share_study.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务工具类
+ *
+ * @author AntonyCheng
+ */
+public class TransactionUtils {
+    private TransactionUtils() {
+    }
+
+    /**
+     * 在当前事务提交之后执行任务，事务回滚时不执行，没有事务时立即执行
+     * 用于内存状态（计数缓冲、缓存等）的变更，避免数据库回滚后内存状态已经改变
+     *
+     * @param task 需要执行的任务
+     */
+    public static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,28 @@
+-- ----------------------------
+-- 按照业务中的实际查询条件补充二级索引
+-- V1为share_study.sql导入的初始表结构（由baseline-on-migrate标记）
+-- ----------------------------
+
+-- 主键本身就是唯一索引，删除冗余的唯一索引
+ALTER TABLE `t_comment` DROP INDEX `t_comment_comment_id_uindex`;
+ALTER TABLE `t_resource` DROP INDEX `t_resource_resource_id_uindex`;
+
+-- 用户主页教学资料分页、删除教师时级联查询教学资料：resource_belong = ? AND is_deleted = 0 ORDER BY create_time
+ALTER TABLE `t_resource` ADD INDEX `idx_resource_belong_deleted_time`(`resource_belong`, `is_deleted`, `create_time`) USING BTREE;
+-- 帖子分页：is_deleted = 0 AND resource_status = 0 ORDER BY create_time
+ALTER TABLE `t_resource` ADD INDEX `idx_resource_deleted_status_time`(`is_deleted`, `resource_status`, `create_time`) USING BTREE;
+
+-- 教学资料评论分页、评论数统计：comment_resource IN (...) AND is_deleted = 0 ORDER BY create_time
+ALTER TABLE `t_comment` ADD INDEX `idx_comment_resource_deleted_time`(`comment_resource`, `is_deleted`, `create_time`) USING BTREE;
+-- 用户消息分页、消息已读：comment_send = ? AND is_deleted = 0 ORDER BY create_time
+ALTER TABLE `t_comment` ADD INDEX `idx_comment_send_deleted_time`(`comment_send`, `is_deleted`, `create_time`) USING BTREE;
+-- 删除教师时级联删除评论：comment_belong = ? AND is_deleted = 0
+ALTER TABLE `t_comment` ADD INDEX `idx_comment_belong_deleted`(`comment_belong`, `is_deleted`) USING BTREE;
+
+-- 收藏状态判断、收藏分页：collect_belong = ? AND collect_resource IN (...) AND is_deleted = 0
+ALTER TABLE `t_collect` ADD INDEX `idx_collect_belong_resource_deleted`(`collect_belong`, `collect_resource`, `is_deleted`) USING BTREE;
+-- 删除教学资料时级联删除收藏：collect_resource = ? AND is_deleted = 0
+ALTER TABLE `t_collect` ADD INDEX `idx_collect_resource_deleted`(`collect_resource`, `is_deleted`) USING BTREE;
+
+-- 删除高校前检查绑定教师、按高校过滤帖子：teacher_belong IN (...) AND is_deleted = 0
+ALTER TABLE `t_teacher` ADD INDEX `idx_teacher_belong_deleted`(`teacher_belong`, `is_deleted`) USING BTREE;
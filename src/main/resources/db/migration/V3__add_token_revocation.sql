@@ -0,0 +1,13 @@
+-- ----------------------------
+-- 无状态令牌登录模式的吊销表
+-- 教师被封禁、角色变更、删除或者主动退出时记录吊销时间，签发时间不晚于吊销时间的令牌全部失效，
+-- 各节点定时增量拉取这张表，令牌校验本身不访问数据库
+-- ----------------------------
+CREATE TABLE `t_token_revocation`
+(
+    `teacher_id`  bigint NOT NULL COMMENT '教师ID',
+    `revoke_time` bigint NOT NULL COMMENT '吊销时间（毫秒时间戳）',
+    PRIMARY KEY (`teacher_id`) USING BTREE,
+    INDEX `idx_token_revocation_time` (`revoke_time`) USING BTREE
+) ENGINE = InnoDB
+  CHARACTER SET = utf8mb4 COMMENT = '令牌吊销表';
@@ -0,0 +1,14 @@
+-- ----------------------------
+-- 教学资料名称和简介的全文索引，替代 LIKE '%x%' 的全表扫描
+-- 使用ngram分词器支持中文，名称和简介分别建索引以便单独过滤，t_collect中冗余的名称和简介同理
+-- 需要配合share-study.search.full-text.enabled=true使用
+-- ----------------------------
+
+-- ngram会丢弃包含停用词的n元组，默认的英文停用词表（如a、in）会导致大量英文关键词检索不到，停用词在建索引时确定，这里对本次会话关闭
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE `t_resource` ADD FULLTEXT INDEX `ft_resource_name`(`resource_name`) WITH PARSER ngram;
+ALTER TABLE `t_resource` ADD FULLTEXT INDEX `ft_resource_info`(`resource_info`) WITH PARSER ngram;
+
+ALTER TABLE `t_collect` ADD FULLTEXT INDEX `ft_collect_name`(`collect_name`) WITH PARSER ngram;
+ALTER TABLE `t_collect` ADD FULLTEXT INDEX `ft_collect_info`(`collect_info`) WITH PARSER ngram;
@@ -0,0 +1,16 @@
+-- ----------------------------
+-- OSS待删除对象表（事务发件箱）
+-- 删除教学资料、教师等数据时在同一个事务中登记需要删除的对象键，事务提交后由后台批量删除，
+-- 删除失败的对象按指数退避推迟下一次尝试时间，删除成功后移除记录
+-- ----------------------------
+CREATE TABLE `t_oss_deletion`
+(
+    `oss_deletion_id`   bigint        NOT NULL AUTO_INCREMENT COMMENT '待删除对象ID',
+    `object_key`        varchar(1024) NOT NULL COMMENT '对象键',
+    `attempts`          int           NOT NULL DEFAULT 0 COMMENT '已失败的删除次数',
+    `next_attempt_time` bigint        NOT NULL COMMENT '下一次尝试删除的时间（毫秒时间戳）',
+    `create_time`       datetime      NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '登记时间',
+    PRIMARY KEY (`oss_deletion_id`) USING BTREE,
+    INDEX `idx_oss_deletion_next_attempt_time` (`next_attempt_time`) USING BTREE
+) ENGINE = InnoDB
+  CHARACTER SET = utf8mb4 COMMENT = 'OSS待删除对象表';
@@ -0,0 +1,20 @@
+-- ----------------------------
+-- 分片上传登记表
+-- 初始化分片上传时按分片上传ID登记上传者和分片规划，任意节点上传分片、完成和取消时据此校验归属和分片大小，
+-- 完成或取消后删除记录，长时间没有上传分片的记录视为过期，在之后登记新的分片上传时顺带清理
+-- ----------------------------
+CREATE TABLE `t_multipart_upload`
+(
+    `upload_id`   varchar(128)  NOT NULL COMMENT '分片上传ID',
+    `object_key`  varchar(1024) NOT NULL COMMENT '对象键',
+    `uploader`    bigint        NOT NULL COMMENT '上传者的教师ID',
+    `file_name`   varchar(255)  NOT NULL COMMENT '原始文件名',
+    `file_size`   bigint        NOT NULL COMMENT '声明的文件大小（字节）',
+    `part_size`   bigint        NOT NULL COMMENT '分片大小（字节）',
+    `part_count`  int           NOT NULL COMMENT '分片数',
+    `access_time` bigint        NOT NULL COMMENT '最近一次操作的时间（毫秒时间戳）',
+    `create_time` datetime      NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '登记时间',
+    PRIMARY KEY (`upload_id`) USING BTREE,
+    INDEX `idx_multipart_upload_access_time` (`access_time`) USING BTREE
+) ENGINE = InnoDB
+  CHARACTER SET = utf8mb4 COMMENT = '分片上传登记表';
@@ -0,0 +1,8 @@
+-- ----------------------------
+-- 令牌吊销表增加令牌ID
+-- 主动退出时只吊销当前令牌，记录令牌ID；封禁、角色变更和删除仍然吊销教师的所有令牌，令牌ID为空字符串
+-- ----------------------------
+ALTER TABLE `t_token_revocation`
+    ADD COLUMN `token_id` varchar(32) NOT NULL DEFAULT '' COMMENT '令牌ID，为空字符串时表示教师的所有令牌' AFTER `teacher_id`,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`teacher_id`, `token_id`) USING BTREE;
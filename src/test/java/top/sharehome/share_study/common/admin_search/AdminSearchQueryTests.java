@@ -0,0 +1,106 @@
+package top.sharehome.share_study.common.admin_search;
+
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 管理端索引查询条件测试
+ *
+ * @author AntonyCheng
+ */
+class AdminSearchQueryTests {
+
+    private ByteBuffersDirectory directory;
+
+    private DirectoryReader reader;
+
+    private IndexSearcher searcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new AdminSearchAnalyzer(true)))) {
+            writer.addDocument(document(1L, "张三丰", "ZhangSF", 0));
+            writer.addDocument(document(2L, "李四", "lisi", 1));
+            writer.addDocument(document(3L, "Linear Algebra 线性代数", "math_2023", 0));
+            writer.addDocument(document(4L, "JavaScript入门2023版", "js", 0));
+        }
+        reader = DirectoryReader.open(directory);
+        searcher = new IndexSearcher(reader);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    private Document document(Long id, String name, String account, int status) {
+        Document document = new Document();
+        document.add(new StringField(AdminSearchIndex.ID, id.toString(), Field.Store.YES));
+        document.add(new TextField(AdminSearchIndex.NAME, name, Field.Store.NO));
+        document.add(new StringField(AdminSearchIndex.ACCOUNT, account.toLowerCase(Locale.ROOT), Field.Store.NO));
+        document.add(new LongPoint(AdminSearchIndex.STATUS, status));
+        document.add(new LongPoint(AdminSearchIndex.ID, id));
+        return document;
+    }
+
+    private int count(Query query) throws IOException {
+        return searcher.count(query);
+    }
+
+    @Test
+    void chineseKeywordMatchesAnySubstring() throws IOException {
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "张").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "三丰").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "张三丰").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "线性代数").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "linear").build()));
+        assertEquals(0, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "张四").build()));
+        assertEquals(0, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "!!").build()));
+    }
+
+    @Test
+    void latinKeywordMatchesPartOfWord() throws IOException {
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "line").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "Jav").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "script").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "near Alge").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "202").build()));
+        assertEquals(1, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "Script入门").build()));
+        assertEquals(0, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "javas cript").build()));
+        assertEquals(0, count(new AdminSearchQuery().contains(true, AdminSearchIndex.NAME, "linux").build()));
+    }
+
+    @Test
+    void substringIsCaseInsensitiveAndEscapesWildcards() throws IOException {
+        assertEquals(1, count(new AdminSearchQuery().substring(true, AdminSearchIndex.ACCOUNT, "angS").build()));
+        assertEquals(0, count(new AdminSearchQuery().substring(true, AdminSearchIndex.ACCOUNT, "*").build()));
+        assertEquals(4, count(new AdminSearchQuery().substring(false, AdminSearchIndex.ACCOUNT, "*").build()));
+    }
+
+    @Test
+    void filtersAreCombined() throws IOException {
+        assertEquals(3, count(new AdminSearchQuery().eq(true, AdminSearchIndex.STATUS, 0).build()));
+        assertEquals(1, count(new AdminSearchQuery()
+                .eq(true, AdminSearchIndex.STATUS, 0)
+                .in(true, AdminSearchIndex.ID, Arrays.asList(2L, 3L))
+                .build()));
+        assertEquals(0, count(new AdminSearchQuery().in(true, AdminSearchIndex.ID, Collections.emptyList()).build()));
+    }
+}
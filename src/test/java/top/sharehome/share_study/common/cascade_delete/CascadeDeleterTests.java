@@ -0,0 +1,102 @@
+package top.sharehome.share_study.common.cascade_delete;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import top.sharehome.share_study.common.admin_search.AdminSearchIndex;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.oss_outbox.OssDeletionOutbox;
+import top.sharehome.share_study.mapper.CollectMapper;
+import top.sharehome.share_study.mapper.CommentMapper;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.model.entity.Collect;
+import top.sharehome.share_study.model.entity.Comment;
+import top.sharehome.share_study.model.entity.Resource;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * 级联删除器测试
+ *
+ * @author AntonyCheng
+ */
+class CascadeDeleterTests {
+
+    private CascadeDeleter cascadeDeleter;
+
+    private PlatformTransactionManager transactionManager;
+
+    private ResourceMapper resourceMapper;
+
+    private CommentMapper commentMapper;
+
+    private CollectMapper collectMapper;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 条件构造器解析Lambda字段时需要实体的表信息
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Resource.class);
+        TableInfoHelper.initTableInfo(assistant, Comment.class);
+        TableInfoHelper.initTableInfo(assistant, Collect.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        resourceMapper = Mockito.mock(ResourceMapper.class);
+        commentMapper = Mockito.mock(CommentMapper.class);
+        collectMapper = Mockito.mock(CollectMapper.class);
+        Mockito.when(resourceMapper.deleteBatchIds(any())).thenReturn(1);
+
+        cascadeDeleter = new CascadeDeleter();
+        ReflectionTestUtils.setField(cascadeDeleter, "chunkSize", 2);
+        ReflectionTestUtils.setField(cascadeDeleter, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(cascadeDeleter, "resourceMapper", resourceMapper);
+        ReflectionTestUtils.setField(cascadeDeleter, "commentMapper", commentMapper);
+        ReflectionTestUtils.setField(cascadeDeleter, "collectMapper", collectMapper);
+        ReflectionTestUtils.setField(cascadeDeleter, "ossDeletionOutbox", Mockito.mock(OssDeletionOutbox.class));
+        ReflectionTestUtils.setField(cascadeDeleter, "contentVersionTracker", Mockito.mock(ContentVersionTracker.class));
+        ReflectionTestUtils.setField(cascadeDeleter, "adminSearchIndex", Mockito.mock(AdminSearchIndex.class));
+    }
+
+    @Test
+    void eachChunkIsOneTransactionWithSetBasedStatements() {
+        cascadeDeleter.deleteResources(Arrays.asList(1L, 2L, 3L, 2L));
+
+        // 去重后3个ID按2个一块分成两块，每块一个事务，每张表一条语句
+        Mockito.verify(transactionManager, Mockito.times(2)).commit(any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> deletedIds = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(resourceMapper, Mockito.times(2)).deleteBatchIds(deletedIds.capture());
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Arrays.asList(3L)), deletedIds.getAllValues());
+        Mockito.verify(commentMapper, Mockito.times(2)).delete(any());
+        Mockito.verify(collectMapper, Mockito.times(2)).delete(any());
+        Mockito.verify(resourceMapper, Mockito.times(2)).selectList(any());
+    }
+
+    @Test
+    void failedChunkRollsBackOnlyItself() {
+        Mockito.when(resourceMapper.deleteBatchIds(any())).thenReturn(2, 0);
+
+        // 第二块删除失败，只回滚第二块
+        assertThrows(CustomizeReturnException.class, () -> cascadeDeleter.deleteResources(Arrays.asList(1L, 2L, 3L)));
+
+        Mockito.verify(transactionManager, Mockito.times(1)).commit(any());
+        Mockito.verify(transactionManager, Mockito.times(1)).rollback(any());
+    }
+}
@@ -0,0 +1,73 @@
+package top.sharehome.share_study.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * long原始类型哈希集合测试
+ *
+ * @author AntonyCheng
+ */
+class LongHashSetTests {
+
+    @Test
+    void zeroIsTrackedOutsideTheTable() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+        assertFalse(set.contains(1L));
+    }
+
+    @Test
+    void growsPastLoadFactor() {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        // 雪花ID低位相同、高位递增，检验打散后仍能在多次扩容后找到所有元素
+        for (long i = 1; i <= 1000; i++) {
+            long id = (i << 22) | 1L;
+            assertTrue(set.add(id));
+            expected.add(id);
+        }
+        assertEquals(1000, set.size());
+        expected.forEach(id -> assertTrue(set.contains(id)));
+        assertFalse(set.contains((1001L << 22) | 1L));
+    }
+
+    @Test
+    void negativeIdsAndDuplicates() {
+        LongHashSet set = LongHashSet.of(Arrays.asList(-1L, Long.MIN_VALUE, Long.MAX_VALUE, -1L, null, 0L, 42L));
+        assertEquals(5, set.size());
+        assertTrue(set.contains(-1L));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertTrue(set.contains(0L));
+        assertFalse(set.contains(-42L));
+        assertFalse(set.add(Long.MIN_VALUE));
+        assertEquals(5, set.size());
+    }
+
+    @Test
+    void matchesHashSetOnRandomIds() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5000; i++) {
+            // 取值范围较小，保证有重复
+            long value = random.nextLong(-2000, 2000);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value = -2100; value < 2100; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package top.sharehome.share_study.common.content_version;
+
+import com.github.fppt.jedismock.RedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内容版本追踪器测试，使用内存版Redis模拟两个节点共享同一个失效通知频道
+ *
+ * @author AntonyCheng
+ */
+class ContentVersionTrackerTests {
+    private static final String CHANNEL = "share_study:cache:invalidation";
+
+    private RedisServer redisServer;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private RedisMessageListenerContainer containerA;
+
+    private RedisMessageListenerContainer containerB;
+
+    private ContentVersionTracker nodeA;
+
+    private ContentVersionTracker nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(redisServer.getHost(), redisServer.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<Object, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        TwoLevelCacheManager cacheManagerA = new TwoLevelCacheManager(redisTemplate, CHANNEL, 100L, Duration.ofMinutes(5), Duration.ofMinutes(30));
+        TwoLevelCacheManager cacheManagerB = new TwoLevelCacheManager(redisTemplate, CHANNEL, 100L, Duration.ofMinutes(5), Duration.ofMinutes(30));
+        containerA = subscribe(cacheManagerA);
+        containerB = subscribe(cacheManagerB);
+        nodeA = tracker(cacheManagerA);
+        nodeB = tracker(cacheManagerB);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        containerA.destroy();
+        containerB.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void writeOnOneNodeChangesETagOnAnother() throws InterruptedException {
+        String infoETag = nodeB.infoETag(1L, 7L);
+        String otherInfoETag = nodeB.infoETag(1L, 8L);
+        String feedETag = nodeB.feedETag(1L, 1, 10, null);
+
+        nodeA.touch(7L);
+
+        assertTrue(await(() -> !infoETag.equals(nodeB.infoETag(1L, 7L))));
+        assertNotEquals(feedETag, nodeB.feedETag(1L, 1, 10, null));
+        assertEquals(otherInfoETag, nodeB.infoETag(1L, 8L));
+        // 客户端拿着节点B之前返回的ETag再次请求节点B，不会得到304
+        assertFalse(nodeB.checkNotModified(conditionalRequest(infoETag), new MockHttpServletResponse(), nodeB.infoETag(1L, 7L)));
+    }
+
+    @Test
+    void feedAndGlobalChangesReachOtherNode() throws InterruptedException {
+        String feedETag = nodeB.feedETag(1L, 1, 10, null);
+        String infoETag = nodeB.infoETag(1L, 7L);
+
+        nodeA.touchFeed();
+        assertTrue(await(() -> !feedETag.equals(nodeB.feedETag(1L, 1, 10, null))));
+        assertEquals(infoETag, nodeB.infoETag(1L, 7L));
+
+        nodeA.touchAll();
+        assertTrue(await(() -> !infoETag.equals(nodeB.infoETag(1L, 7L))));
+    }
+
+    private ContentVersionTracker tracker(TwoLevelCacheManager cacheManager) {
+        ContentVersionTracker contentVersionTracker = new ContentVersionTracker();
+        ReflectionTestUtils.setField(contentVersionTracker, "twoLevelCacheManagerProvider",
+                new StaticListableBeanFactory(Collections.singletonMap("cacheManager", cacheManager)).getBeanProvider(TwoLevelCacheManager.class));
+        ReflectionTestUtils.setField(contentVersionTracker, "collegeDictionary", Mockito.mock(CollegeDictionary.class));
+        ReflectionTestUtils.setField(contentVersionTracker, "teacherCardCache", Mockito.mock(TeacherCardCache.class));
+        contentVersionTracker.init();
+        return contentVersionTracker;
+    }
+
+    private MockHttpServletRequest conditionalRequest(String etag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/post/info/7");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        return request;
+    }
+
+    private RedisMessageListenerContainer subscribe(TwoLevelCacheManager cacheManager) throws Exception {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        return container;
+    }
+
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+}
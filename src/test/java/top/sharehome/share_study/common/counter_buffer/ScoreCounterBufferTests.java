@@ -0,0 +1,76 @@
+package top.sharehome.share_study.common.counter_buffer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.common.college_dictionary.CollegeDictionary;
+import top.sharehome.share_study.common.content_version.ContentVersionTracker;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.common.two_level_cache.TwoLevelCacheManager;
+import top.sharehome.share_study.mapper.ResourceMapper;
+import top.sharehome.share_study.mapper.TeacherMapper;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+
+/**
+ * 写后缓冲刷回测试
+ *
+ * @author AntonyCheng
+ */
+class ScoreCounterBufferTests {
+
+    private ScoreCounterBuffer scoreCounterBuffer;
+
+    private ResourceMapper resourceMapper;
+
+    private ContentVersionTracker contentVersionTracker;
+
+    @BeforeEach
+    void setUp() {
+        contentVersionTracker = new ContentVersionTracker();
+        ReflectionTestUtils.setField(contentVersionTracker, "twoLevelCacheManagerProvider", new StaticListableBeanFactory().getBeanProvider(TwoLevelCacheManager.class));
+        ReflectionTestUtils.setField(contentVersionTracker, "collegeDictionary", Mockito.mock(CollegeDictionary.class));
+        ReflectionTestUtils.setField(contentVersionTracker, "teacherCardCache", Mockito.mock(TeacherCardCache.class));
+        resourceMapper = Mockito.mock(ResourceMapper.class);
+
+        scoreCounterBuffer = new ScoreCounterBuffer();
+        ReflectionTestUtils.setField(scoreCounterBuffer, "batchSize", 500);
+        ReflectionTestUtils.setField(scoreCounterBuffer, "resourceMapper", resourceMapper);
+        ReflectionTestUtils.setField(scoreCounterBuffer, "teacherMapper", Mockito.mock(TeacherMapper.class));
+        ReflectionTestUtils.setField(scoreCounterBuffer, "contentVersionTracker", contentVersionTracker);
+    }
+
+    @Test
+    void etagChangesAfterFlushCommits() {
+        scoreCounterBuffer.addResourceScore(1L, 1);
+        AtomicReference<String> etagDuringFlush = new AtomicReference<>();
+        Mockito.when(resourceMapper.batchIncrementScore(anyMap())).thenAnswer(invocation -> {
+            // 增量已经离开缓冲但还没有写入数据库，此时生成的响应收藏数偏小
+            assertEquals(0L, scoreCounterBuffer.pendingResourceScore(1L));
+            etagDuringFlush.set(contentVersionTracker.infoETag(2L, 1L));
+            return 1;
+        });
+
+        scoreCounterBuffer.flush();
+
+        assertNotEquals(etagDuringFlush.get(), contentVersionTracker.infoETag(2L, 1L));
+    }
+
+    @Test
+    void failedFlushRestoresDeltaAndChangesEtag() {
+        scoreCounterBuffer.addResourceScore(1L, 3);
+        String etagBeforeFlush = contentVersionTracker.infoETag(2L, 1L);
+        Mockito.when(resourceMapper.batchIncrementScore(Collections.singletonMap(1L, 3L))).thenThrow(new IllegalStateException());
+
+        scoreCounterBuffer.flush();
+
+        assertEquals(3L, scoreCounterBuffer.pendingResourceScore(1L));
+        assertNotEquals(etagBeforeFlush, contentVersionTracker.infoETag(2L, 1L));
+    }
+}
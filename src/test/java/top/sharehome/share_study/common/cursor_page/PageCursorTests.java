@@ -0,0 +1,46 @@
+package top.sharehome.share_study.common.cursor_page;
+
+import org.junit.jupiter.api.Test;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页测试
+ *
+ * @author AntonyCheng
+ */
+class PageCursorTests {
+
+    @Test
+    void encodeAndDecode() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2023, 3, 1, 12, 30, 5), 1630000000000000001L);
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        assertNull(PageCursor.decode(""));
+        assertNull(PageCursor.decode(null));
+    }
+
+    @Test
+    void rejectMalformedCursor() {
+        assertThrows(CustomizeReturnException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertThrows(CustomizeReturnException.class, () -> PageCursor.decode("%%%"));
+    }
+
+    @Test
+    void nextTrimsExtraRowAndPointsAtLastKeptRow() {
+        LocalDateTime time = LocalDateTime.of(2023, 3, 1, 12, 0);
+        List<Long> rows = new ArrayList<>(Arrays.asList(1L, 2L, 3L));
+        String next = PageCursor.next(rows, 2, id -> time, id -> id);
+        assertEquals(Arrays.asList(1L, 2L), rows);
+        assertEquals(new PageCursor(time, 2L), PageCursor.decode(next));
+
+        List<Long> lastPage = new ArrayList<>(Arrays.asList(4L, 5L));
+        assertNull(PageCursor.next(lastPage, 2, id -> time, id -> id));
+        assertEquals(2, lastPage.size());
+    }
+}
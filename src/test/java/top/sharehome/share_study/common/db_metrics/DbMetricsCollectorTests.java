@@ -0,0 +1,90 @@
+package top.sharehome.share_study.common.db_metrics;
+
+import com.alibaba.druid.filter.stat.StatFilter;
+import com.alibaba.druid.pool.DruidDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.common.sql_budget.SqlBudgetMetrics;
+import top.sharehome.share_study.model.dto.DbMetricsDto;
+import top.sharehome.share_study.model.dto.DbPoolMetricsDto;
+import top.sharehome.share_study.model.dto.DbSqlMetricsDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 数据库指标收集器测试
+ *
+ * @author AntonyCheng
+ */
+class DbMetricsCollectorTests {
+
+    private DruidDataSource dataSource;
+
+    private DbMetricsCollector dbMetricsCollector;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        PoolWaitFilter poolWaitFilter = new PoolWaitFilter();
+        StatFilter statFilter = new StatFilter();
+        statFilter.setMergeSql(true);
+
+        dataSource = new DruidDataSource();
+        dataSource.setName("metrics-test");
+        dataSource.setUrl("jdbc:h2:mem:metrics" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setProxyFilters(Arrays.asList(statFilter, poolWaitFilter));
+        dataSource.init();
+
+        dbMetricsCollector = new DbMetricsCollector();
+        ReflectionTestUtils.setField(dbMetricsCollector, "poolWaitFilter", poolWaitFilter);
+        ReflectionTestUtils.setField(dbMetricsCollector, "sqlBudgetMetrics", new SqlBudgetMetrics());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void literalsAreMergedAndPoolWaitsAreRecorded() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE t_node (id INT, name VARCHAR(32))");
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.queryForList("SELECT name FROM t_node WHERE id = " + i);
+        }
+
+        // 同一JVM中其他测试的数据源也登记在Druid中，不截断排行，按数据源名称筛选
+        DbMetricsDto dbMetricsDto = dbMetricsCollector.collect(Integer.MAX_VALUE);
+
+        DbPoolMetricsDto pool = dbMetricsDto.getPools().stream()
+                .filter(dbPoolMetricsDto -> "metrics-test".equals(dbPoolMetricsDto.getName()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(4L, pool.getWaitHistogram().values().stream().mapToLong(Long::longValue).sum());
+
+        List<DbSqlMetricsDto> selects = dbMetricsDto.getSqls().stream()
+                .filter(dbSqlMetricsDto -> "metrics-test".equals(dbSqlMetricsDto.getDataSource()))
+                .filter(dbSqlMetricsDto -> dbSqlMetricsDto.getSql().startsWith("SELECT"))
+                .collect(Collectors.toList());
+        assertEquals(1, selects.size());
+        assertEquals(3L, selects.get(0).getExecuteCount());
+        assertEquals(3L, selects.get(0).getLatencyHistogram().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void histogramLabelsCoverEveryBucket() {
+        Map<String, Long> histogram = DbMetricsCollector.histogram(PoolWaitFilter.RANGES, new long[]{5, 4, 3, 2, 1, 0});
+        assertEquals(Arrays.asList("<1ms", "1-10ms", "10-100ms", "100-1000ms", "1000-10000ms", ">=10000ms"), Arrays.asList(histogram.keySet().toArray()));
+        assertTrue(histogram.values().containsAll(Arrays.asList(5L, 0L)));
+    }
+}
@@ -0,0 +1,45 @@
+package top.sharehome.share_study.common.full_text;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全文检索短语测试
+ *
+ * @author AntonyCheng
+ */
+class FullTextSearchTests {
+
+    private FullTextSearch create(boolean enabled) {
+        FullTextSearch fullTextSearch = new FullTextSearch();
+        ReflectionTestUtils.setField(fullTextSearch, "enabled", enabled);
+        ReflectionTestUtils.setField(fullTextSearch, "ngramTokenSize", 2);
+        return fullTextSearch;
+    }
+
+    @Test
+    void disabledAlwaysFallsBackToLike() {
+        FullTextSearch fullTextSearch = create(false);
+        assertNull(fullTextSearch.phrase("高等数学"));
+        assertFalse(fullTextSearch.match("高等数学", "课件").isRanked());
+    }
+
+    @Test
+    void keywordBecomesQuotedPhrase() {
+        FullTextSearch fullTextSearch = create(true);
+        assertEquals("\"高等数学\"", fullTextSearch.phrase("高等数学"));
+        assertEquals("\"线性代数 习题\"", fullTextSearch.phrase("  线性代数   \"习题\" "));
+        assertTrue(fullTextSearch.match("高等数学", null).isRanked());
+    }
+
+    @Test
+    void shortSegmentsFallBackToLike() {
+        FullTextSearch fullTextSearch = create(true);
+        assertNull(fullTextSearch.phrase("数"));
+        assertNull(fullTextSearch.phrase("高等 数"));
+        assertNull(fullTextSearch.phrase("\"\""));
+        assertNull(fullTextSearch.phrase(" "));
+    }
+}
@@ -0,0 +1,78 @@
+package top.sharehome.share_study.common.hot_rank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 热度计分板测试
+ *
+ * @author AntonyCheng
+ */
+class HotScoreBoardTests {
+
+    private static final long HOUR = 3600_000L;
+
+    @Test
+    void recentInteractionsOutweighOlderOnes() {
+        HotScoreBoard board = new HotScoreBoard(HOUR, 100, 0);
+        // 1号在0时刻收到3次互动，2号在两个半衰期后收到1次，衰减后1号为0.75，2号为1
+        board.add(1L, 1, 0);
+        board.add(1L, 1, 0);
+        board.add(1L, 1, 0);
+        board.add(2L, 1, 2 * HOUR);
+        assertEquals(Arrays.asList(2L, 1L), board.top(10));
+        // 第4次互动让1号反超
+        board.add(1L, 1, 2 * HOUR);
+        assertEquals(Arrays.asList(1L, 2L), board.top(10));
+        assertEquals(Collections.singletonList(1L), board.top(1));
+    }
+
+    @Test
+    void undoingOldInteractionRemovesOnlyItsDecayedContribution() {
+        HotScoreBoard board = new HotScoreBoard(HOUR, 100, 0);
+        // 1号在0时刻被收藏（权重3），一个半衰期后两个资料各收到一次评论（权重2）
+        board.add(1L, 3, 0);
+        board.add(1L, 2, HOUR);
+        board.add(2L, 2, HOUR);
+        // 两个半衰期后取消收藏，按收藏时间减去，1号只剩评论的分数，与2号相同，按ID较小者在前
+        board.add(1L, -3, 0);
+        assertEquals(2, board.size());
+        assertEquals(Arrays.asList(1L, 2L), board.top(10));
+        board.add(2L, 1, 2 * HOUR);
+        assertEquals(Arrays.asList(2L, 1L), board.top(10));
+    }
+
+    @Test
+    void orderSurvivesRescale() {
+        HotScoreBoard board = new HotScoreBoard(HOUR, 100, 0);
+        board.add(1L, 2, 0);
+        board.add(2L, 1, 0);
+        // 超过放大倍数上限后整体缩小，已有的顺序和新互动的相对大小都不变
+        board.add(3L, 1, 100 * HOUR);
+        board.add(1L, 1, 100 * HOUR);
+        assertEquals(Arrays.asList(1L, 3L), board.top(2));
+        assertEquals(3, board.size());
+    }
+
+    @Test
+    void negativeWeightRemovesEntry() {
+        HotScoreBoard board = new HotScoreBoard(HOUR, 100, 0);
+        board.add(1L, 3, 0);
+        board.add(1L, -3, HOUR);
+        assertEquals(0, board.size());
+    }
+
+    @Test
+    void capacityEvictsColdestEntries() {
+        HotScoreBoard board = new HotScoreBoard(HOUR, 10, 0);
+        for (long id = 1; id <= 11; id++) {
+            board.add(id, id, 0);
+        }
+        assertEquals(9, board.size());
+        assertEquals(Arrays.asList(11L, 10L, 9L), board.top(3));
+    }
+}
@@ -0,0 +1,54 @@
+package top.sharehome.share_study.common.index_guard;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询计划守卫测试
+ * 高频查询从真实的MappedStatement渲染，不需要数据库；执行EXPLAIN需要MySQL，见 mvn test -P index-guard
+ *
+ * @author AntonyCheng
+ */
+@SpringBootTest
+class ExplainIndexGuardTests {
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Test
+    void hotQueriesAreRenderedFromMappedStatements() {
+        ExplainIndexGuard explainIndexGuard = new ExplainIndexGuard();
+        ReflectionTestUtils.setField(explainIndexGuard, "sqlSessionFactory", sqlSessionFactory);
+
+        List<ExplainIndexGuard.HotQuery> hotQueries = explainIndexGuard.hotQueries();
+
+        assertEquals(10, hotQueries.size());
+        Map<String, String> sqlMap = new HashMap<>();
+        hotQueries.forEach(hotQuery -> sqlMap.put(hotQuery.getName(), hotQuery.getBoundSql().getSql().replaceAll("\\s+", " ")));
+        // 逻辑删除条件由MyBatis-Plus注入，和业务查询一致
+        assertTrue(sqlMap.get("用户主页教学资料分页").contains("resource_belong = ?"));
+        assertTrue(sqlMap.get("用户主页教学资料分页").contains("is_deleted=0"));
+        assertTrue(sqlMap.get("帖子游标分页").contains("order by r.create_time, r.resource_id"));
+        assertTrue(sqlMap.get("收藏状态判断").contains("collect_resource in ( ? , ? )"));
+        assertTrue(sqlMap.get("评论数统计").contains("GROUP BY comment_resource"));
+    }
+
+    @Test
+    void fullScanFailsEvenWithPossibleKeys() {
+        Map<String, Object> plan = new HashMap<>();
+        plan.put("type", "ALL");
+        plan.put("possible_keys", "idx_comment_resource_deleted_time");
+        assertTrue(ExplainIndexGuard.isFullScan(plan));
+        plan.put("type", "ref");
+        assertFalse(ExplainIndexGuard.isFullScan(plan));
+    }
+}
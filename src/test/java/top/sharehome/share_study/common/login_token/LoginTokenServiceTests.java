@@ -0,0 +1,104 @@
+package top.sharehome.share_study.common.login_token;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.mapper.TokenRevocationMapper;
+import top.sharehome.share_study.model.entity.Teacher;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 登录令牌测试
+ *
+ * @author AntonyCheng
+ */
+class LoginTokenServiceTests {
+    private LoginTokenService loginTokenService;
+
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationList = new TokenRevocationList();
+        ReflectionTestUtils.setField(tokenRevocationList, "mode", LoginTokenService.MODE_TOKEN);
+        ReflectionTestUtils.setField(tokenRevocationList, "ttl", Duration.ofDays(7));
+        // 只记录吊销，不连接数据库
+        ReflectionTestUtils.setField(tokenRevocationList, "tokenRevocationMapper", Mockito.mock(TokenRevocationMapper.class));
+
+        loginTokenService = new LoginTokenService();
+        ReflectionTestUtils.setField(loginTokenService, "mode", LoginTokenService.MODE_TOKEN);
+        ReflectionTestUtils.setField(loginTokenService, "secret", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(loginTokenService, "ttl", Duration.ofDays(7));
+        ReflectionTestUtils.setField(loginTokenService, "tokenRevocationList", tokenRevocationList);
+        loginTokenService.init();
+    }
+
+    @Test
+    void issuedTokenCarriesIdentity() {
+        String token = loginTokenService.issue(teacher(), LoginToken.SCOPE_ADMIN);
+
+        LoginToken loginToken = loginTokenService.verify("Bearer " + token);
+        assertNotNull(loginToken);
+        assertEquals(LoginToken.SCOPE_ADMIN, loginToken.getScope());
+        assertEquals(1L, loginToken.getTeacherId());
+        assertEquals(2, loginToken.getRole());
+        assertEquals(3L, loginToken.getCollegeId());
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = loginTokenService.issue(teacher(), LoginToken.SCOPE_USER);
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("a.1.2.3.0.9999999999999".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(loginTokenService.verify("Bearer " + forgedPayload + "." + parts[1]));
+        assertNull(loginTokenService.verify("Bearer " + parts[0] + ".AAAA"));
+        assertNull(loginTokenService.verify("Bearer not-a-token"));
+        assertNull(loginTokenService.verify(token));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        ReflectionTestUtils.setField(loginTokenService, "ttl", Duration.ofMillis(-1));
+        String token = loginTokenService.issue(teacher(), LoginToken.SCOPE_USER);
+
+        assertNull(loginTokenService.verify("Bearer " + token));
+    }
+
+    @Test
+    void revokedTokenIsRejected() throws InterruptedException {
+        String token = loginTokenService.issue(teacher(), LoginToken.SCOPE_USER);
+        tokenRevocationList.revoke(1L);
+        Thread.sleep(2);
+        String reissued = loginTokenService.issue(teacher(), LoginToken.SCOPE_USER);
+
+        assertNull(loginTokenService.verify("Bearer " + token));
+        assertNotNull(loginTokenService.verify("Bearer " + reissued));
+    }
+
+    @Test
+    void logoutRevokesOnlyThatToken() {
+        String phone = loginTokenService.issue(teacher(), LoginToken.SCOPE_USER);
+        String laptop = loginTokenService.issue(teacher(), LoginToken.SCOPE_USER);
+
+        tokenRevocationList.revokeToken(loginTokenService.verify("Bearer " + phone));
+
+        assertNull(loginTokenService.verify("Bearer " + phone));
+        assertNotNull(loginTokenService.verify("Bearer " + laptop));
+    }
+
+    private Teacher teacher() {
+        Teacher teacher = new Teacher();
+        teacher.setId(1L);
+        teacher.setRole(2);
+        teacher.setBelong(3L);
+        return teacher;
+    }
+}
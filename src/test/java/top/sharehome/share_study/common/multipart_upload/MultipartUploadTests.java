@@ -0,0 +1,171 @@
+package top.sharehome.share_study.common.multipart_upload;
+
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.mapper.MultipartUploadMapper;
+import top.sharehome.share_study.model.dto.FileMultipartInitDto;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+import top.sharehome.share_study.model.entity.MultipartUpload;
+import top.sharehome.share_study.service.impl.FileOssServiceImpl;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * 分片上传规划校验测试
+ * 登记表用内存Map模拟，多个节点共用同一张表
+ *
+ * @author AntonyCheng
+ */
+class MultipartUploadTests {
+    private static final long MB = 1024 * 1024;
+
+    private FileOssServiceImpl fileOssService;
+
+    private COSClient cosClient;
+
+    /**
+     * 模拟t_multipart_upload表，多个节点共用
+     */
+    private Map<String, MultipartUpload> table;
+
+    @BeforeEach
+    void setUp() {
+        table = new ConcurrentHashMap<>();
+        cosClient = Mockito.mock(COSClient.class);
+        InitiateMultipartUploadResult initiateMultipartUploadResult = new InitiateMultipartUploadResult();
+        initiateMultipartUploadResult.setUploadId("upload-1");
+        Mockito.when(cosClient.initiateMultipartUpload(any())).thenReturn(initiateMultipartUploadResult);
+        fileOssService = newNode();
+    }
+
+    @Test
+    void planRegisteredOnOneNodeIsUsableOnAnother() {
+        MockHttpServletRequest request = loginRequest(1L);
+        FileMultipartInitDto plan = fileOssService.initMultipartUpload("a.pdf", 3 * MB, "file/pdf", request);
+        FileOssServiceImpl otherNode = newNode();
+        UploadPartResult uploadPartResult = new UploadPartResult();
+        uploadPartResult.setETag("etag-1");
+        Mockito.when(cosClient.uploadPart(any())).thenReturn(uploadPartResult);
+
+        assertEquals("etag-1", otherNode.uploadPart(plan.getKey(), plan.getUploadId(), 1, part(2 * MB), request).getEtag());
+        // 另一个节点同样按登记的分片规划和上传者校验
+        assertThrows(CustomizeReturnException.class,
+                () -> otherNode.uploadPart(plan.getKey(), plan.getUploadId(), 1, part(2 * MB + 1), request));
+        CustomizeReturnException otherUploader = assertThrows(CustomizeReturnException.class,
+                () -> otherNode.abortMultipartUpload(plan.getKey(), plan.getUploadId(), loginRequest(2L)));
+        assertEquals(RCodeEnum.ACCESS_UNAUTHORIZED.getCode(), otherUploader.getFailure().getCode());
+
+        otherNode.abortMultipartUpload(plan.getKey(), plan.getUploadId(), request);
+        assertTrue(table.isEmpty());
+        assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.uploadPart(plan.getKey(), plan.getUploadId(), 1, part(MB), request));
+    }
+
+    @Test
+    void partsOutsideThePlanAreRejected() {
+        MockHttpServletRequest request = loginRequest(1L);
+        FileMultipartInitDto plan = fileOssService.initMultipartUpload("a.pdf", 3 * MB, "file/pdf", request);
+        assertEquals(2, plan.getPartCount());
+
+        CustomizeReturnException tooManyParts = assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.uploadPart(plan.getKey(), plan.getUploadId(), 3, part(MB), request));
+        assertEquals(RCodeEnum.REQUEST_REQUIRED_PARAMETER_IS_EMPTY.getCode(), tooManyParts.getFailure().getCode());
+        CustomizeReturnException tooLarge = assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.uploadPart(plan.getKey(), plan.getUploadId(), 1, part(2 * MB + 1), request));
+        assertEquals(RCodeEnum.USER_UPLOADED_FILE_IS_TOO_LARGE.getCode(), tooLarge.getFailure().getCode());
+        Mockito.verify(cosClient, Mockito.never()).uploadPart(any());
+    }
+
+    @Test
+    void onlyTheUploaderCanCompleteOrAbort() {
+        FileMultipartInitDto plan = fileOssService.initMultipartUpload("a.pdf", 3 * MB, "file/pdf", loginRequest(1L));
+        MockHttpServletRequest otherRequest = loginRequest(2L);
+
+        CustomizeReturnException complete = assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.completeMultipartUpload(plan.getKey(), plan.getUploadId(), otherRequest));
+        assertEquals(RCodeEnum.ACCESS_UNAUTHORIZED.getCode(), complete.getFailure().getCode());
+        assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.abortMultipartUpload(plan.getKey(), plan.getUploadId(), otherRequest));
+        Mockito.verify(cosClient, Mockito.never()).completeMultipartUpload(any());
+        Mockito.verify(cosClient, Mockito.never()).abortMultipartUpload(any());
+    }
+
+    @Test
+    void oversizedUploadIsAbortedOnComplete() {
+        MockHttpServletRequest request = loginRequest(1L);
+        FileMultipartInitDto plan = fileOssService.initMultipartUpload("a.pdf", 3 * MB, "file/pdf", request);
+        // 分片被并发重传成更大的数据后，合并前按实际大小重新校验
+        PartListing partListing = new PartListing();
+        partListing.setParts(Arrays.asList(partSummary(1, 2 * MB), partSummary(2, 4 * MB)));
+        Mockito.when(cosClient.listParts(any())).thenReturn(partListing);
+
+        CustomizeReturnException exception = assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.completeMultipartUpload(plan.getKey(), plan.getUploadId(), request));
+
+        assertEquals(RCodeEnum.USER_UPLOADED_FILE_IS_TOO_LARGE.getCode(), exception.getFailure().getCode());
+        Mockito.verify(cosClient).abortMultipartUpload(any());
+        Mockito.verify(cosClient, Mockito.never()).completeMultipartUpload(any());
+        // 取消后登记随之移除，不能再继续上传
+        assertThrows(CustomizeReturnException.class,
+                () -> fileOssService.uploadPart(plan.getKey(), plan.getUploadId(), 1, part(MB), request));
+    }
+
+    /**
+     * 创建一个节点的分片上传服务，节点之间只共享COS和登记表
+     */
+    private FileOssServiceImpl newNode() {
+        MultipartUploadMapper multipartUploadMapper = Mockito.mock(MultipartUploadMapper.class);
+        Mockito.when(multipartUploadMapper.insert(any(MultipartUpload.class))).thenAnswer(invocation -> {
+            MultipartUpload multipartUpload = invocation.getArgument(0);
+            table.put(multipartUpload.getUploadId(), multipartUpload);
+            return 1;
+        });
+        Mockito.when(multipartUploadMapper.selectById(any(Serializable.class))).thenAnswer(invocation -> table.get((String) invocation.getArgument(0)));
+        Mockito.when(multipartUploadMapper.deleteById(any(Serializable.class))).thenAnswer(invocation -> table.remove((String) invocation.getArgument(0)) == null ? 0 : 1);
+        MultipartUploadRegistry multipartUploadRegistry = new MultipartUploadRegistry();
+        ReflectionTestUtils.setField(multipartUploadRegistry, "multipartUploadMapper", multipartUploadMapper);
+        ReflectionTestUtils.setField(multipartUploadRegistry, "expireAfterAccess", Duration.ofHours(1));
+
+        FileOssServiceImpl node = new FileOssServiceImpl();
+        ReflectionTestUtils.setField(node, "cosClient", cosClient);
+        ReflectionTestUtils.setField(node, "multipartUploadRegistry", multipartUploadRegistry);
+        ReflectionTestUtils.setField(node, "partSize", 2 * MB);
+        return node;
+    }
+
+    private MockHttpServletRequest loginRequest(Long teacherId) {
+        TeacherLoginDto teacherLoginDto = new TeacherLoginDto();
+        teacherLoginDto.setId(teacherId);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute(CommonConstant.USER_LOGIN_STATE, teacherLoginDto);
+        return request;
+    }
+
+    private MockMultipartFile part(long size) {
+        return new MockMultipartFile("part", new byte[(int) size]);
+    }
+
+    private PartSummary partSummary(int partNumber, long size) {
+        PartSummary partSummary = new PartSummary();
+        partSummary.setPartNumber(partNumber);
+        partSummary.setETag("etag-" + partNumber);
+        partSummary.setSize(size);
+        return partSummary;
+    }
+}
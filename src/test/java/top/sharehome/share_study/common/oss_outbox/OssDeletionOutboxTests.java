@@ -0,0 +1,159 @@
+package top.sharehome.share_study.common.oss_outbox;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.MultiObjectDeleteException;
+import com.qcloud.cos.model.DeleteObjectsRequest;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.mapper.OssDeletionMapper;
+import top.sharehome.share_study.model.entity.OssDeletion;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * OSS对象删除发件箱测试
+ *
+ * @author AntonyCheng
+ */
+class OssDeletionOutboxTests {
+
+    private OssDeletionOutbox ossDeletionOutbox;
+
+    private OssDeletionMapper ossDeletionMapper;
+
+    private COSClient cosClient;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 条件构造器解析Lambda字段时需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), OssDeletion.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ossDeletionMapper = Mockito.mock(OssDeletionMapper.class);
+        cosClient = Mockito.mock(COSClient.class);
+        ossDeletionOutbox = new OssDeletionOutbox();
+        ReflectionTestUtils.setField(ossDeletionOutbox, "ossDeletionMapper", ossDeletionMapper);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "cosClient", cosClient);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "outboxEnabled", true);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "batchSize", 1000);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "initialBackoff", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(ossDeletionOutbox, "maxBackoff", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(ossDeletionOutbox, "maxAttempts", 10);
+    }
+
+    @Test
+    void drainWithoutEnqueueDoesNotQueryDatabase() {
+        ossDeletionOutbox.drain();
+        Mockito.verifyNoInteractions(ossDeletionMapper, cosClient);
+    }
+
+    @Test
+    void disabledOutboxDeletesDirectlyWithoutTable() {
+        ReflectionTestUtils.setField(ossDeletionOutbox, "outboxEnabled", false);
+
+        ossDeletionOutbox.enqueue(Arrays.asList("https://bucket.cos.ap-chengdu.myqcloud.com/file/pdf/a.pdf", null));
+        // 登记时不调用COS，由后台定时删除
+        Mockito.verifyNoInteractions(cosClient);
+        ossDeletionOutbox.sweep();
+        ossDeletionOutbox.drain();
+
+        ArgumentCaptor<DeleteObjectsRequest> deleteObjectsRequest = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        Mockito.verify(cosClient).deleteObjects(deleteObjectsRequest.capture());
+        assertEquals("file/pdf/a.pdf", deleteObjectsRequest.getValue().getKeys().get(0).getKey());
+        Mockito.verifyNoInteractions(ossDeletionMapper);
+    }
+
+    @Test
+    void disabledOutboxRetriesFailedDeletionInMemory() {
+        ReflectionTestUtils.setField(ossDeletionOutbox, "outboxEnabled", false);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "initialBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "maxAttempts", 3);
+        Mockito.when(cosClient.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenThrow(new CosClientException("timeout"))
+                .thenReturn(null);
+
+        ossDeletionOutbox.enqueue("https://bucket.cos.ap-chengdu.myqcloud.com/file/pdf/a.pdf");
+        ossDeletionOutbox.drain();
+        ossDeletionOutbox.drain();
+        // 第二次删除成功后不再重试
+        ossDeletionOutbox.drain();
+
+        Mockito.verify(cosClient, Mockito.times(2)).deleteObjects(any(DeleteObjectsRequest.class));
+        Mockito.verifyNoInteractions(ossDeletionMapper);
+    }
+
+    @Test
+    void disabledOutboxGivesUpAfterMaxAttempts() {
+        ReflectionTestUtils.setField(ossDeletionOutbox, "outboxEnabled", false);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "initialBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(ossDeletionOutbox, "maxAttempts", 3);
+        Mockito.when(cosClient.deleteObjects(any(DeleteObjectsRequest.class))).thenThrow(new CosClientException("timeout"));
+
+        ossDeletionOutbox.enqueue("https://bucket.cos.ap-chengdu.myqcloud.com/file/pdf/a.pdf");
+        for (int i = 0; i < 5; i++) {
+            ossDeletionOutbox.drain();
+        }
+
+        Mockito.verify(cosClient, Mockito.times(3)).deleteObjects(any(DeleteObjectsRequest.class));
+    }
+
+    @Test
+    void enqueueParsesObjectKeys() {
+        ossDeletionOutbox.enqueue(Arrays.asList("https://bucket.cos.ap-chengdu.myqcloud.com/file/pdf/a.pdf", null, ""));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> objectKeys = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(ossDeletionMapper).insertBatch(objectKeys.capture(), anyLong());
+        assertEquals(Collections.singletonList("file/pdf/a.pdf"), objectKeys.getValue());
+    }
+
+    @Test
+    void failedKeysAreRescheduledAndMissingKeysCountAsDeleted() {
+        Mockito.when(ossDeletionMapper.selectList(any())).thenReturn(Arrays.asList(
+                new OssDeletion(1L, "a", 0, 0L, null),
+                new OssDeletion(2L, "b", 2, 0L, null),
+                new OssDeletion(3L, "c", 0, 0L, null)));
+        Mockito.when(ossDeletionMapper.selectCount(any())).thenReturn(1L);
+        Mockito.when(cosClient.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenThrow(new MultiObjectDeleteException(Arrays.asList(error("b", "AccessDenied"), error("c", "NoSuchKey")), Collections.emptyList()));
+
+        ossDeletionOutbox.sweep();
+        ossDeletionOutbox.drain();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> deletedIds = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(ossDeletionMapper).deleteBatchIds(deletedIds.capture());
+        assertEquals(Arrays.asList(1L, 3L), deletedIds.getValue());
+        Mockito.verify(ossDeletionMapper, Mockito.times(1)).update(any(), any());
+        // 失败后不在同一轮里继续拉取
+        Mockito.verify(ossDeletionMapper, Mockito.times(1)).selectList(any());
+
+        // 仍有记录时下一轮继续处理
+        Mockito.when(ossDeletionMapper.selectList(any())).thenReturn(Collections.emptyList());
+        ossDeletionOutbox.drain();
+        Mockito.verify(ossDeletionMapper, Mockito.times(2)).selectList(any());
+    }
+
+    private MultiObjectDeleteException.DeleteError error(String key, String code) {
+        MultiObjectDeleteException.DeleteError deleteError = new MultiObjectDeleteException.DeleteError();
+        deleteError.setKey(key);
+        deleteError.setCode(code);
+        return deleteError;
+    }
+}
@@ -0,0 +1,158 @@
+package top.sharehome.share_study.common.read_routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离路由数据源测试
+ * 用两个H2内存库充当两个独立的数据库实例（一主一从），各自写入不同的标识行，通过读到的标识判断路由到了哪个库
+ *
+ * @author AntonyCheng
+ */
+class ReadWriteRoutingDataSourceTests {
+
+    private TransactionTemplate readWriteTemplate;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, Arrays.asList(replica, database("replica2")),
+                new ReadYourWritesTracker(Duration.ofMinutes(1), 100));
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsRoundRobinOverReplicas() {
+        Set<String> readOnlyNodes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            readOnlyNodes.add(readOnlyTemplate.execute(status -> node()));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("replica", "replica2")), readOnlyNodes);
+        assertEquals("primary", readWriteTemplate.execute(status -> node()));
+        assertEquals("primary", node());
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimaryWithinWindow() {
+        login(1L);
+        assertEquals("replica", readOnlyTemplate.execute(status -> node()));
+
+        // 回滚的写事务不触发粘滞
+        readWriteTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE t_node SET updated = updated + 1");
+            status.setRollbackOnly();
+        });
+        assertEquals("replica2", readOnlyTemplate.execute(status -> node()));
+
+        readWriteTemplate.executeWithoutResult(status -> jdbcTemplate.update("UPDATE t_node SET updated = updated + 1"));
+        assertEquals("primary", readOnlyTemplate.execute(status -> node()));
+        assertEquals("primary", readOnlyTemplate.execute(status -> node()));
+
+        // 其他用户不受影响
+        login(2L);
+        assertEquals("replica", readOnlyTemplate.execute(status -> node()));
+    }
+
+    @Test
+    void lastWriteTravelsWithClientToOtherNodes() {
+        ReadYourWritesTracker writeNode = new ReadYourWritesTracker(Duration.ofMinutes(1), 100);
+        ReadYourWritesTracker readNode = new ReadYourWritesTracker(Duration.ofMinutes(1), 100);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+        writeNode.markWritten();
+        Cookie lastWrite = response.getCookie(ReadYourWritesTracker.LAST_WRITE_COOKIE);
+        assertNotNull(lastWrite);
+
+        MockHttpServletRequest cookieRequest = new MockHttpServletRequest();
+        cookieRequest.setCookies(lastWrite);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(cookieRequest));
+        assertTrue(readNode.isSticky());
+
+        MockHttpServletRequest headerRequest = new MockHttpServletRequest();
+        headerRequest.addHeader(ReadYourWritesTracker.LAST_WRITE_HEADER, response.getHeader(ReadYourWritesTracker.LAST_WRITE_HEADER));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(headerRequest));
+        assertTrue(readNode.isSticky());
+
+        // 窗口之外以及未来的时间都不采信
+        MockHttpServletRequest expiredRequest = new MockHttpServletRequest();
+        expiredRequest.addHeader(ReadYourWritesTracker.LAST_WRITE_HEADER, System.currentTimeMillis() - Duration.ofMinutes(2).toMillis());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(expiredRequest));
+        assertFalse(readNode.isSticky());
+        MockHttpServletRequest futureRequest = new MockHttpServletRequest();
+        futureRequest.addHeader(ReadYourWritesTracker.LAST_WRITE_HEADER, System.currentTimeMillis() + Duration.ofDays(1).toMillis());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(futureRequest));
+        assertFalse(readNode.isSticky());
+    }
+
+    @Test
+    void pinnedRequestReadsFromPrimary() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("replica", readOnlyTemplate.execute(status -> node()));
+
+        ReadWriteRoutingDataSource.pinToPrimary();
+        assertEquals("primary", readOnlyTemplate.execute(status -> node()));
+        assertEquals("primary", readOnlyTemplate.execute(status -> node()));
+
+        // 标记只对当前请求有效
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("replica2", readOnlyTemplate.execute(status -> node()));
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM t_node", String.class);
+    }
+
+    private void login(Long teacherId) {
+        TeacherLoginDto teacherLoginDto = new TeacherLoginDto();
+        teacherLoginDto.setId(teacherId);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute(CommonConstant.USER_LOGIN_STATE, teacherLoginDto);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE t_node (name VARCHAR(32), updated INT)");
+        template.update("INSERT INTO t_node VALUES (?, 0)", name);
+        return dataSource;
+    }
+}
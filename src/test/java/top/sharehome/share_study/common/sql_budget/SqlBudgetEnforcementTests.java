@@ -0,0 +1,191 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.common.response.RCodeEnum;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * 接口SQL预算强制执行测试
+ * 开启enforce后通过MockMvc调用真实接口，数据库使用MySQL兼容模式的H2内存库，表结构取自share_study.sql；
+ * 测试中把default-budget设为0，未标注@SqlBudget的接口只要访问数据库就会失败；
+ * 分页接口每页的评论、收藏和教学资料各自关联不同的数据，逐条查询关联数据的实现会超出预算
+ *
+ * @author AntonyCheng
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:sql_budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "share-study.sql-budget.enforce=true",
+        "share-study.sql-budget.default-budget=0"
+})
+@AutoConfigureMockMvc
+class SqlBudgetEnforcementTests {
+    private static final Long USER_ID = 1628303246513643522L;
+
+    private static final Long RESOURCE_ID = 1700000000000000001L;
+
+    /**
+     * 每页的条数，大于接口预算，逐条查询关联数据的实现会超出预算
+     */
+    private static final int PAGE_SIZE = 10;
+
+    @Resource
+    private MockMvc mockMvc;
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Resource
+    private SqlBudgetMetrics sqlBudgetMetrics;
+
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 实体类的表名带有库名share_study，建在同名schema下；去掉H2不支持的MySQL表选项和索引方式
+        String script = "CREATE SCHEMA IF NOT EXISTS share_study;\nSET SCHEMA share_study;\n" + new String(Files.readAllBytes(Paths.get("share_study.sql")), StandardCharsets.UTF_8)
+                .replaceAll("(?m)^SET .*$", "")
+                .replaceAll("CHARACTER SET \\w+ COLLATE \\w+", "")
+                .replaceAll("USING BTREE", "")
+                .replaceAll("\\) ENGINE = [^;]*;", ");");
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(new ByteArrayResource(script.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+        }
+        jdbcTemplate.update("INSERT INTO share_study.t_resource (resource_id, resource_belong, resource_name, resource_info, resource_url) VALUES (?, ?, ?, ?, ?)",
+                RESOURCE_ID, USER_ID, "教学资料", "简介", "https://example.com/resource");
+        // 每条评论和收藏关联不同的教学资料
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            jdbcTemplate.update("INSERT INTO share_study.t_resource (resource_id, resource_belong, resource_name, resource_info, resource_url) VALUES (?, ?, ?, ?, ?)",
+                    RESOURCE_ID + i, USER_ID, "教学资料" + i, "简介", "https://example.com/resource" + i);
+            jdbcTemplate.update("INSERT INTO share_study.t_comment (comment_id, comment_resource, comment_belong, comment_send, comment_content) VALUES (?, ?, ?, ?, ?)",
+                    1800000000000000000L + i, RESOURCE_ID + i, USER_ID, USER_ID, "评论" + i);
+            jdbcTemplate.update("INSERT INTO share_study.t_collect (collect_id, collect_belong, collect_resource, collect_name, collect_info) VALUES (?, ?, ?, ?, ?)",
+                    1900000000000000000L + i, USER_ID, RESOURCE_ID + i, "教学资料" + i, "简介");
+        }
+
+        TeacherLoginDto teacherLoginDto = new TeacherLoginDto();
+        teacherLoginDto.setId(USER_ID);
+        teacherLoginDto.setRole(CommonConstant.DEFAULT_ROLE);
+        TeacherLoginDto adminLoginDto = new TeacherLoginDto();
+        adminLoginDto.setId(USER_ID);
+        adminLoginDto.setRole(CommonConstant.SUPER_ROLE);
+        session = new MockHttpSession();
+        session.setAttribute(CommonConstant.USER_LOGIN_STATE, teacherLoginDto);
+        session.setAttribute(CommonConstant.ADMIN_LOGIN_STATE, adminLoginDto);
+    }
+
+    @Test
+    void hotPostRunsWithoutSql() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/post/hot/5").contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()));
+
+        SqlBudgetMetrics.EndpointSnapshot snapshot = sqlBudgetMetrics.snapshot().get("GET /post/hot/{size}");
+        assertEquals(1, snapshot.getRequests());
+        assertEquals(0, snapshot.getStatements());
+        assertEquals(0, snapshot.getOverBudgetRequests());
+    }
+
+    @Test
+    void postInfoStaysWithinBudget() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/post/info/" + RESOURCE_ID).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.resourceId").value(RESOURCE_ID));
+
+        SqlBudgetMetrics.EndpointSnapshot snapshot = sqlBudgetMetrics.snapshot().get("GET /post/info/{id}");
+        assertEquals(0, snapshot.getOverBudgetRequests());
+    }
+
+    @Test
+    void postPageStaysWithinBudget() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/post/page/1/" + PAGE_SIZE).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+
+        assertWithinBudget("GET /post/page/{current}/{pageSize}");
+    }
+
+    @Test
+    void adminCommentPageStaysWithinBudget() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/comment/page/1/" + PAGE_SIZE).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/comment/page/1/" + PAGE_SIZE).contextPath("/api").session(session)
+                        .contentType(MediaType.APPLICATION_JSON).characterEncoding(StandardCharsets.UTF_8.name()).content("{\"belongName\":\"用户\",\"resourceName\":\"教学资料\"}"))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+
+        assertWithinBudget("POST /comment/page/{current}/{pageSize}");
+    }
+
+    @Test
+    void postCommentPageStaysWithinBudget() throws Exception {
+        // 同一份教学资料下的一整页评论
+        for (long i = 1; i <= PAGE_SIZE; i++) {
+            jdbcTemplate.update("INSERT INTO share_study.t_comment (comment_id, comment_resource, comment_belong, comment_send, comment_content) VALUES (?, ?, ?, ?, ?)",
+                    1810000000000000000L + i, RESOURCE_ID, USER_ID, USER_ID, "评论" + i);
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/post/page/" + RESOURCE_ID + "/1/" + PAGE_SIZE).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+
+        assertWithinBudget("GET /post/page/{id}/{current}/{pageSize}");
+    }
+
+    @Test
+    void userPagesStayWithinBudget() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/comment/page/1/" + PAGE_SIZE).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/resource/page/" + USER_ID + "/1/" + PAGE_SIZE).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/collect/page/" + USER_ID + "/1/" + PAGE_SIZE).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.SUCCESS.getCode()))
+                .andExpect(jsonPath("$.data.records", hasSize(PAGE_SIZE)));
+
+        assertWithinBudget("GET /user/comment/page/{current}/{pageSize}");
+        assertWithinBudget("GET /user/resource/page/{id}/{current}/{pageSize}");
+        assertWithinBudget("GET /user/collect/page/{id}/{current}/{pageSize}");
+    }
+
+    @Test
+    void zeroBudgetRejectsTheFirstStatement() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/user/resource/get/" + RESOURCE_ID).contextPath("/api").session(session))
+                .andExpect(jsonPath("$.code").value(RCodeEnum.ERRORS_OCCURRED_IN_THE_DATABASE_SERVICE.getCode()));
+
+        SqlBudgetMetrics.EndpointSnapshot snapshot = sqlBudgetMetrics.snapshot().get("GET /user/resource/get/{id}");
+        assertEquals(0, snapshot.getStatements());
+        assertEquals(1, snapshot.getOverBudgetRequests());
+    }
+
+    private void assertWithinBudget(String endpoint) {
+        SqlBudgetMetrics.EndpointSnapshot snapshot = sqlBudgetMetrics.snapshot().get(endpoint);
+        assertEquals(0, snapshot.getOverBudgetRequests());
+        assertEquals(0, snapshot.getRepeatedRequests());
+    }
+}
@@ -0,0 +1,80 @@
+package top.sharehome.share_study.common.sql_budget;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import top.sharehome.share_study.common.exception_handler.customize.CustomizeReturnException;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL语句计数拦截器测试
+ *
+ * @author AntonyCheng
+ */
+class SqlStatementInterceptorTests {
+
+    @AfterEach
+    void tearDown() {
+        SqlRequestStats.end();
+    }
+
+    @Test
+    void repeatedStatementShapesAreFlagged() throws Throwable {
+        SqlStatementInterceptor interceptor = new SqlStatementInterceptor(false);
+        SqlRequestStats stats = SqlRequestStats.start("GET /comment/page/{current}/{pageSize}", -1);
+
+        interceptor.intercept(invocation("SELECT * FROM t_comment WHERE comment_id IN (?, ?, ?)"));
+        for (int i = 0; i < 5; i++) {
+            interceptor.intercept(invocation("SELECT  *  FROM t_resource\n WHERE resource_id = ?"));
+        }
+        interceptor.intercept(invocation("SELECT * FROM t_comment WHERE comment_id IN (?,?)"));
+
+        assertEquals(7, stats.getStatementCount());
+        assertEquals(2, stats.getShapeCounts().size());
+        List<Map.Entry<String, Integer>> repeatedShapes = stats.repeatedShapes(5);
+        assertEquals(1, repeatedShapes.size());
+        assertEquals("SELECT * FROM t_resource WHERE resource_id = ?", repeatedShapes.get(0).getKey());
+        assertEquals(5, repeatedShapes.get(0).getValue());
+    }
+
+    @Test
+    void enforcedBudgetFailsTheStatementOverBudget() throws Throwable {
+        SqlStatementInterceptor interceptor = new SqlStatementInterceptor(true);
+        SqlRequestStats stats = SqlRequestStats.start("GET /post/hot/{size}", 2);
+
+        interceptor.intercept(invocation("SELECT 1"));
+        interceptor.intercept(invocation("SELECT 2"));
+        assertThrows(CustomizeReturnException.class, () -> interceptor.intercept(invocation("SELECT 3")));
+        assertEquals(2, stats.getStatementCount());
+        assertTrue(stats.isBudgetExceeded());
+    }
+
+    @Test
+    void budgetIsOnlyRecordedWhenNotEnforced() throws Throwable {
+        SqlStatementInterceptor interceptor = new SqlStatementInterceptor(false);
+        SqlRequestStats stats = SqlRequestStats.start("GET /post/hot/{size}", 1);
+
+        interceptor.intercept(invocation("SELECT 1"));
+        assertFalse(stats.isBudgetExceeded());
+        interceptor.intercept(invocation("SELECT 2"));
+        assertEquals(2, stats.getStatementCount());
+        assertTrue(stats.isBudgetExceeded());
+    }
+
+    private Invocation invocation(String sql) throws NoSuchMethodException {
+        StatementHandler statementHandler = Mockito.mock(StatementHandler.class);
+        BoundSql boundSql = Mockito.mock(BoundSql.class);
+        Mockito.when(boundSql.getSql()).thenReturn(sql);
+        Mockito.when(statementHandler.getBoundSql()).thenReturn(boundSql);
+        Statement statement = Mockito.mock(Statement.class);
+        return new Invocation(statementHandler, StatementHandler.class.getMethod("update", Statement.class), new Object[]{statement});
+    }
+}
@@ -0,0 +1,232 @@
+package top.sharehome.share_study.common.two_level_cache;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.github.fppt.jedismock.RedisServer;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.sharehome.share_study.common.teacher_card.TeacherCardCache;
+import top.sharehome.share_study.mapper.TeacherMapper;
+import top.sharehome.share_study.model.entity.Teacher;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二级缓存测试，使用内存版Redis模拟两个节点共享同一个Redis
+ *
+ * @author AntonyCheng
+ */
+class TwoLevelCacheManagerTests {
+    private static final String CHANNEL = "share_study:cache:invalidation";
+
+    private RedisServer redisServer;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private RedisMessageListenerContainer containerA;
+
+    private RedisMessageListenerContainer containerB;
+
+    private TwoLevelCacheManager nodeA;
+
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(redisServer.getHost(), redisServer.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<Object, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        nodeA = new TwoLevelCacheManager(redisTemplate, CHANNEL, 100L, Duration.ofMinutes(5), Duration.ofMinutes(30));
+        nodeB = new TwoLevelCacheManager(redisTemplate, CHANNEL, 100L, Duration.ofMinutes(5), Duration.ofMinutes(30));
+        containerA = subscribe(nodeA);
+        containerB = subscribe(nodeB);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        containerA.destroy();
+        containerB.destroy();
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @Test
+    void putIsVisibleOnOtherNode() {
+        nodeA.getCache("college").put(1L, "计算机学院");
+
+        Cache.ValueWrapper valueWrapper = nodeB.getCache("college").get(1L);
+        assertNotNull(valueWrapper);
+        assertEquals("计算机学院", valueWrapper.get());
+    }
+
+    @Test
+    void evictDropsLocalCacheOnOtherNode() throws InterruptedException {
+        nodeA.getCache("college").put(1L, "计算机学院");
+        // 节点B读取一次，值被回填到B的L1
+        assertNotNull(nodeB.getCache("college").get(1L));
+        com.github.benmanes.caffeine.cache.Cache<?, ?> localB = localCache(nodeB, "college");
+        assertNotNull(localB.getIfPresent("college::1"));
+
+        nodeA.getCache("college").evict(1L);
+
+        assertTrue(await(() -> localB.getIfPresent("college::1") == null));
+        assertNull(nodeB.getCache("college").get(1L));
+    }
+
+    @Test
+    void clearDropsAllKeysOfCache() throws InterruptedException {
+        nodeA.getCache("college").put(1L, "计算机学院");
+        nodeA.getCache("college").put(2L, "外国语学院");
+        nodeA.getCache("teacher").put(1L, "张三");
+        assertNotNull(nodeB.getCache("college").get(2L));
+        com.github.benmanes.caffeine.cache.Cache<?, ?> localB = localCache(nodeB, "college");
+
+        nodeA.getCache("college").clear();
+
+        assertTrue(await(() -> localB.estimatedSize() == 0));
+        assertNull(nodeB.getCache("college").get(1L));
+        assertNull(nodeB.getCache("college").get(2L));
+        assertNotNull(nodeB.getCache("teacher").get(1L));
+    }
+
+    @Test
+    void valueLoaderIsCalledOnce() {
+        AtomicInteger loadCount = new AtomicInteger();
+
+        assertEquals("计算机学院", nodeA.getCache("college").get(1L, () -> {
+            loadCount.incrementAndGet();
+            return "计算机学院";
+        }));
+        assertEquals("计算机学院", nodeB.getCache("college").get(1L, () -> {
+            loadCount.incrementAndGet();
+            return "计算机学院";
+        }));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void slowLoaderDoesNotBlockOtherKeys() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Cache cache = nodeA.getCache("college");
+        Thread slowLoader = new Thread(() -> cache.get(1L, () -> {
+            loading.countDown();
+            release.await();
+            return "计算机学院";
+        }));
+        slowLoader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // 键1仍在加载中，键2的加载不需要等它
+        assertEquals("外国语学院", cache.get(2L, () -> "外国语学院"));
+
+        release.countDown();
+        slowLoader.join(5000);
+        assertEquals("计算机学院", cache.get(1L, () -> "不应该再次加载"));
+    }
+
+    @Test
+    void nullValueIsCached() {
+        nodeA.getCache("college").put(404L, null);
+
+        Cache.ValueWrapper valueWrapper = nodeB.getCache("college").get(404L);
+        assertNotNull(valueWrapper);
+        assertNull(valueWrapper.get());
+    }
+
+    @Test
+    void invalidationListenerRunsOnOtherNodeOnly() throws InterruptedException {
+        AtomicInteger invalidationsA = new AtomicInteger();
+        AtomicInteger invalidationsB = new AtomicInteger();
+        nodeA.addInvalidationListener("collegeDictionary", invalidationsA::incrementAndGet);
+        nodeB.addInvalidationListener("collegeDictionary", invalidationsB::incrementAndGet);
+
+        nodeA.publishInvalidation("collegeDictionary");
+
+        assertTrue(await(() -> invalidationsB.get() == 1));
+        assertEquals(0, invalidationsA.get());
+    }
+
+    @Test
+    void teacherCardEvictionReachesOtherNode() throws InterruptedException {
+        AtomicReference<String> name = new AtomicReference<>("张三");
+        TeacherCardCache cardA = teacherCardCache(nodeA, name);
+        TeacherCardCache cardB = teacherCardCache(nodeB, name);
+        assertEquals("张三", cardB.get(1L).getName());
+        long versionB = cardB.version();
+
+        name.set("李四");
+        cardA.invalidate(1L);
+
+        assertTrue(await(() -> cardB.version() > versionB));
+        assertEquals("李四", cardB.get(1L).getName());
+    }
+
+    private TeacherCardCache teacherCardCache(TwoLevelCacheManager cacheManager, AtomicReference<String> name) {
+        // 条件构造器按实体的表信息解析列名
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Teacher.class);
+        TeacherMapper teacherMapper = Mockito.mock(TeacherMapper.class);
+        Mockito.when(teacherMapper.selectList(Mockito.any())).thenAnswer(invocation -> {
+            Teacher teacher = new Teacher();
+            teacher.setId(1L);
+            teacher.setName(name.get());
+            return Collections.singletonList(teacher);
+        });
+        TeacherCardCache teacherCardCache = new TeacherCardCache();
+        ReflectionTestUtils.setField(teacherCardCache, "teacherMapper", teacherMapper);
+        ReflectionTestUtils.setField(teacherCardCache, "twoLevelCacheManagerProvider",
+                new StaticListableBeanFactory(Collections.singletonMap("cacheManager", cacheManager)).getBeanProvider(TwoLevelCacheManager.class));
+        ReflectionTestUtils.setField(teacherCardCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(teacherCardCache, "expireAfterWrite", Duration.ofMinutes(10));
+        teacherCardCache.init();
+        return teacherCardCache;
+    }
+
+    private RedisMessageListenerContainer subscribe(TwoLevelCacheManager cacheManager) throws Exception {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        return container;
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<?, ?> localCache(TwoLevelCacheManager cacheManager, String name) {
+        return (com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager.getCache(name).getNativeCache();
+    }
+
+    private boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+}
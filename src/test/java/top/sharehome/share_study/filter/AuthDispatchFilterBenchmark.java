@@ -0,0 +1,161 @@
+package top.sharehome.share_study.filter;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import top.sharehome.share_study.common.constant.CommonConstant;
+import top.sharehome.share_study.model.dto.TeacherLoginDto;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录校验过滤器基准测试，对比原来的八个过滤器串行匹配和AuthDispatchFilter一次查表
+ * 运行方式：mvn test-compile 后执行本类的main方法
+ *
+ * @author AntonyCheng
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthDispatchFilterBenchmark {
+    private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * 匿名访问的Swagger资源、普通用户访问帖子分页、超级管理员访问管理员分页
+     */
+    @Param({"/api/swagger-ui/index.html", "/api/post/page/1/10", "/api/admin/page/1/10"})
+    private String requestUri;
+
+    private final AuthDispatchFilter authDispatchFilter = new AuthDispatchFilter();
+
+    private TeacherLoginDto loginDto;
+
+    @Setup
+    public void setUp() {
+        loginDto = new TeacherLoginDto();
+        loginDto.setId(1L);
+        loginDto.setRole(CommonConstant.SUPER_ROLE);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authDispatchFilter() throws IOException, ServletException {
+        MockHttpServletRequest request = newRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authDispatchFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse legacyFilterChain() {
+        MockHttpServletRequest request = newRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        legacyCheck(request);
+        return response;
+    }
+
+    private MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+        if (!requestUri.startsWith("/api/swagger-ui")) {
+            request.getSession().setAttribute(CommonConstant.ADMIN_LOGIN_STATE, loginDto);
+            request.getSession().setAttribute(CommonConstant.USER_LOGIN_STATE, loginDto);
+        }
+        return request;
+    }
+
+    /**
+     * 原来八个过滤器的匹配逻辑，按过滤器顺序依次执行，每个过滤器都调用getSession()并读取登录状态
+     *
+     * @param request 请求
+     * @return 校验通过返回true
+     */
+    private boolean legacyCheck(HttpServletRequest request) {
+        String requestUri = request.getRequestURI();
+
+        // AdminApiFilter
+        TeacherLoginDto adminLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (ANT_PATH_MATCHER.match("/api/admin/**", requestUri)
+                && !ANT_PATH_MATCHER.match("/api/admin/logout", requestUri)
+                && !ANT_PATH_MATCHER.match("/api/admin/login", requestUri)) {
+            if (adminLoginDto == null) {
+                return false;
+            }
+            boolean excludeNormalAdminRequest = ANT_PATH_MATCHER.match("/api/admin/getSelf/*", requestUri)
+                    || ANT_PATH_MATCHER.match("/api/admin/updateSelf", requestUri);
+            if (Objects.equals(adminLoginDto.getRole(), CommonConstant.ADMIN_ROLE) && !excludeNormalAdminRequest) {
+                return false;
+            }
+        }
+
+        // CollegeApiFilter
+        adminLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        TeacherLoginDto userLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        boolean normalUserRequest = Objects.equals(requestUri, "/api/college/list");
+        if (ANT_PATH_MATCHER.match("/api/college/**", requestUri)
+                && !(normalUserRequest && (adminLoginDto != null || userLoginDto != null))) {
+            if (adminLoginDto == null || !Objects.equals(adminLoginDto.getRole(), CommonConstant.SUPER_ROLE)) {
+                return false;
+            }
+        }
+
+        // CommentApiFilter
+        adminLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (ANT_PATH_MATCHER.match("/api/comment/**", requestUri) && adminLoginDto == null) {
+            return false;
+        }
+
+        // FileApiFilter
+        adminLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        userLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (ANT_PATH_MATCHER.match("/api/file/**", requestUri)
+                && (ANT_PATH_MATCHER.match("/api/file/oss_file_upload", requestUri) || ANT_PATH_MATCHER.match("/api/file/multipart/**", requestUri))
+                && adminLoginDto == null && userLoginDto == null) {
+            return false;
+        }
+
+        // PostApiFilter
+        userLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        if (ANT_PATH_MATCHER.match("/api/post/**", requestUri) && userLoginDto == null) {
+            return false;
+        }
+
+        // ResourceApiFilter
+        adminLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (ANT_PATH_MATCHER.match("/api/resource/**", requestUri) && adminLoginDto == null) {
+            return false;
+        }
+
+        // TeacherApiFilter
+        adminLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.ADMIN_LOGIN_STATE);
+        if (ANT_PATH_MATCHER.match("/api/teacher/**", requestUri)
+                && !ANT_PATH_MATCHER.match("/api/teacher/login", requestUri)
+                && !ANT_PATH_MATCHER.match("/api/teacher/register", requestUri)
+                && !ANT_PATH_MATCHER.match("/api/teacher/logout", requestUri)
+                && adminLoginDto == null) {
+            return false;
+        }
+
+        // UserApiFilter
+        userLoginDto = (TeacherLoginDto) request.getSession().getAttribute(CommonConstant.USER_LOGIN_STATE);
+        return !ANT_PATH_MATCHER.match("/api/user/**", requestUri) || userLoginDto != null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthDispatchFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
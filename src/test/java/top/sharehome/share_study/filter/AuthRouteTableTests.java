@@ -0,0 +1,53 @@
+package top.sharehome.share_study.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static top.sharehome.share_study.filter.AuthDispatchFilter.ROUTE_TABLE;
+
+/**
+ * 登录要求路由表测试
+ *
+ * @author AntonyCheng
+ */
+class AuthRouteTableTests {
+    @Test
+    void exactRuleOverridesPrefixRule() {
+        assertEquals(AuthRequirement.NONE, ROUTE_TABLE.resolve("/api/admin/login"));
+        assertEquals(AuthRequirement.NONE, ROUTE_TABLE.resolve("/api/teacher/register"));
+        assertEquals(AuthRequirement.ANY_LOGIN, ROUTE_TABLE.resolve("/api/college/list"));
+        assertEquals(AuthRequirement.ANY_LOGIN, ROUTE_TABLE.resolve("/api/file/oss_file_upload"));
+    }
+
+    @Test
+    void singleWildcardMatchesOneSegment() {
+        assertEquals(AuthRequirement.ADMIN, ROUTE_TABLE.resolve("/api/admin/getSelf/1"));
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api/admin/getSelf/1/2"));
+    }
+
+    @Test
+    void multiWildcardMatchesAnyDepth() {
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api/admin"));
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api/admin/page/1/10"));
+        assertEquals(AuthRequirement.ANY_LOGIN, ROUTE_TABLE.resolve("/api/file/multipart/init"));
+        assertEquals(AuthRequirement.USER, ROUTE_TABLE.resolve("/api/post/page/1/10"));
+        assertEquals(AuthRequirement.ADMIN, ROUTE_TABLE.resolve("/api/teacher/page/1/10"));
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api/teacher/upload"));
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api/comment/upload"));
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api/resource/upload"));
+        assertEquals(AuthRequirement.ADMIN, ROUTE_TABLE.resolve("/api/resource/download"));
+    }
+
+    @Test
+    void unmatchedUriNeedsNoLogin() {
+        assertEquals(AuthRequirement.NONE, ROUTE_TABLE.resolve("/api/swagger-ui/index.html"));
+        assertEquals(AuthRequirement.NONE, ROUTE_TABLE.resolve("/api/file/download"));
+        assertEquals(AuthRequirement.NONE, ROUTE_TABLE.resolve("/"));
+    }
+
+    @Test
+    void pathParametersAndEmptySegmentsAreIgnored() {
+        assertEquals(AuthRequirement.USER, ROUTE_TABLE.resolve("/api/post;jsessionid=1/page/1/10"));
+        assertEquals(AuthRequirement.SUPER_ADMIN, ROUTE_TABLE.resolve("/api//admin/page"));
+    }
+}
@@ -0,0 +1,132 @@
+package top.sharehome.share_study.utils;
+
+import com.alibaba.excel.EasyExcelFactory;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.event.AnalysisEventListener;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletResponse;
+import top.sharehome.share_study.model.entity.College;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Excel流式导出工具类测试
+ * Mapper按键集分页条件从内存中的有序数据返回一块，导出结果再用EasyExcel读回来按sheet统计
+ *
+ * @author AntonyCheng
+ */
+class ExcelStreamExportUtilTests {
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 条件构造器按实体的表信息解析列名
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), College.class);
+    }
+
+    @Test
+    void chunksEndExactlyOnTheBoundary() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        Map<String, List<String>> sheets = export(colleges(6), 3, 100, chunkSizes);
+
+        // 最后一块恰好满3行时还要再查一次才能确认没有更多数据
+        assertEquals(Arrays.asList(3, 3, 0), chunkSizes);
+        assertEquals(Collections.singletonList("高校数据"), new ArrayList<>(sheets.keySet()));
+        assertEquals(ids(1, 6), sheets.get("高校数据"));
+    }
+
+    @Test
+    void shortLastChunkStopsPaging() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        Map<String, List<String>> sheets = export(colleges(7), 3, 100, chunkSizes);
+
+        assertEquals(Arrays.asList(3, 3, 1), chunkSizes);
+        assertEquals(ids(1, 7), sheets.get("高校数据"));
+    }
+
+    @Test
+    void emptyTableWritesHeaderSheet() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        Map<String, List<String>> sheets = export(Collections.emptyList(), 3, 100, chunkSizes);
+
+        assertEquals(Collections.singletonList(0), chunkSizes);
+        assertEquals(Collections.singletonList("高校数据"), new ArrayList<>(sheets.keySet()));
+        assertEquals(Collections.emptyList(), sheets.get("高校数据"));
+    }
+
+    @Test
+    void rowsRollOverToNewSheetAtLimit() {
+        Map<String, List<String>> sheets = export(colleges(11), 3, 4, new ArrayList<>());
+
+        assertEquals(Arrays.asList("高校数据", "高校数据2", "高校数据3"), new ArrayList<>(sheets.keySet()));
+        assertEquals(ids(1, 4), sheets.get("高校数据"));
+        assertEquals(ids(5, 8), sheets.get("高校数据2"));
+        assertEquals(ids(9, 11), sheets.get("高校数据3"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<String>> export(List<College> table, int chunkSize, int maxRowsPerSheet, List<Integer> chunkSizes) {
+        BaseMapper<College> mapper = Mockito.mock(BaseMapper.class);
+        Mockito.when(mapper.selectList(Mockito.any())).thenAnswer(invocation -> {
+            LambdaQueryWrapper<College> queryWrapper = invocation.getArgument(0);
+            // 渲染SQL片段后参数才会登记，唯一的参数就是上一块的最后一个主键
+            queryWrapper.getSqlSegment();
+            long lastId = queryWrapper.getParamNameValuePairs().values().stream()
+                    .mapToLong(value -> (Long) value)
+                    .findFirst()
+                    .orElse(Long.MIN_VALUE);
+            List<College> chunk = table.stream()
+                    .filter(college -> college.getId() > lastId)
+                    .limit(chunkSize)
+                    .collect(Collectors.toList());
+            chunkSizes.add(chunk.size());
+            return chunk;
+        });
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExcelStreamExportUtil.export(response, "高校信息", "高校数据", College.class, mapper, College::getId, null, chunkSize, maxRowsPerSheet);
+
+        Map<String, List<String>> sheets = new LinkedHashMap<>();
+        EasyExcelFactory.read(new ByteArrayInputStream(response.getContentAsByteArray()), new AnalysisEventListener<Map<Integer, String>>() {
+            @Override
+            public void invokeHeadMap(Map<Integer, String> headMap, AnalysisContext context) {
+                sheets.put(context.readSheetHolder().getSheetName(), new ArrayList<>());
+            }
+
+            @Override
+            public void invoke(Map<Integer, String> row, AnalysisContext context) {
+                sheets.get(context.readSheetHolder().getSheetName()).add(row.get(0));
+            }
+
+            @Override
+            public void doAfterAllAnalysed(AnalysisContext context) {
+            }
+        }).doReadAll();
+        return sheets;
+    }
+
+    private List<College> colleges(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            College college = new College();
+            college.setId(id);
+            college.setName("高校" + id);
+            college.setCode(String.valueOf(10000 + id));
+            return college;
+        }).collect(Collectors.toList());
+    }
+
+    private List<String> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).mapToObj(String::valueOf).collect(Collectors.toList());
+    }
+}